@@ -0,0 +1,84 @@
+/*
+ *    Copyright 2009-2014 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.benchmark;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.ibatis.executor.BatchResult;
+import org.apache.ibatis.session.ExecutorType;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Queues inserts in a batch session and flushes them. The inserts are rolled back, so every invocation
+ * starts from the same table.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class BatchExecutorBenchmark {
+
+  private static final int BATCH_SIZE = 100;
+
+  private SqlSession sqlSession;
+  private BenchmarkMapper mapper;
+  private Post[] posts;
+
+  @Setup(Level.Trial)
+  public void setUp() throws Exception {
+    SqlSessionFactory sqlSessionFactory = BenchmarkDatabase.createSqlSessionFactory("batch", 1, 0);
+    sqlSession = sqlSessionFactory.openSession(ExecutorType.BATCH);
+    mapper = sqlSession.getMapper(BenchmarkMapper.class);
+    posts = new Post[BATCH_SIZE];
+    for (int i = 0; i < BATCH_SIZE; i++) {
+      posts[i] = new Post(i + 1, 1, "subject " + i, "body " + i);
+    }
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    sqlSession.close();
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(BATCH_SIZE)
+  public List<BatchResult> insert() {
+    for (Post post : posts) {
+      mapper.insertPost(post);
+    }
+    List<BatchResult> results = sqlSession.flushStatements();
+    sqlSession.rollback(true);
+    return results;
+  }
+
+}
@@ -0,0 +1,102 @@
+/*
+ *    Copyright 2009-2014 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.benchmark;
+
+import java.io.Reader;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.util.Properties;
+
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.jdbc.ScriptRunner;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+
+/**
+ * Creates the in-memory databases used by the benchmarks. The data is generated, so every run works on the
+ * same rows.
+ */
+public final class BenchmarkDatabase {
+
+  public static final String DRIVER = "org.hsqldb.jdbcDriver";
+  public static final String USERNAME = "sa";
+  public static final String PASSWORD = "";
+
+  private BenchmarkDatabase() {
+  }
+
+  public static String url(String name) {
+    return "jdbc:hsqldb:mem:benchmark_" + name;
+  }
+
+  /**
+   * @param name name of the in-memory database, one per benchmark class
+   * @param authors number of authors
+   * @param postsPerAuthor number of posts of each author
+   */
+  public static SqlSessionFactory createSqlSessionFactory(String name, int authors, int postsPerAuthor) throws Exception {
+    Properties properties = new Properties();
+    properties.setProperty("url", url(name));
+    Reader reader = Resources.getResourceAsReader("org/apache/ibatis/benchmark/mybatis-config.xml");
+    SqlSessionFactory sqlSessionFactory = new SqlSessionFactoryBuilder().build(reader, properties);
+    reader.close();
+
+    SqlSession session = sqlSessionFactory.openSession();
+    try {
+      Connection conn = session.getConnection();
+      reader = Resources.getResourceAsReader("org/apache/ibatis/benchmark/CreateDB.sql");
+      ScriptRunner runner = new ScriptRunner(conn);
+      runner.setLogWriter(null);
+      runner.runScript(reader);
+      reader.close();
+      insertData(conn, authors, postsPerAuthor);
+      conn.commit();
+    } finally {
+      session.close();
+    }
+    return sqlSessionFactory;
+  }
+
+  private static void insertData(Connection conn, int authors, int postsPerAuthor) throws Exception {
+    PreparedStatement author = conn.prepareStatement("insert into author (id, name, email) values (?, ?, ?)");
+    PreparedStatement post = conn.prepareStatement("insert into post (id, author_id, subject, body) values (?, ?, ?, ?)");
+    try {
+      int postId = 0;
+      for (int i = 1; i <= authors; i++) {
+        author.setInt(1, i);
+        author.setString(2, "author" + i);
+        author.setString(3, "author" + i + "@example.com");
+        author.addBatch();
+        for (int j = 0; j < postsPerAuthor; j++) {
+          post.setInt(1, ++postId);
+          post.setInt(2, i);
+          post.setString(3, "subject " + postId);
+          post.setString(4, "body of post " + postId + " written by author " + i);
+          post.addBatch();
+        }
+      }
+      author.executeBatch();
+      if (postId > 0) {
+        post.executeBatch();
+      }
+    } finally {
+      author.close();
+      post.close();
+    }
+  }
+
+}
@@ -0,0 +1,97 @@
+/*
+ *    Copyright 2009-2014 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.benchmark;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.ibatis.cache.CacheKey;
+import org.apache.ibatis.executor.Executor;
+import org.apache.ibatis.executor.SimpleExecutor;
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.RowBounds;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Creates, hashes and compares the keys the executors use for the local and second level caches.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class CacheKeyBenchmark {
+
+  private Executor executor;
+  private MappedStatement findAuthors;
+  private Object parameter;
+  private BoundSql boundSql;
+  private CacheKey key;
+  private CacheKey equalKey;
+
+  @Setup(Level.Trial)
+  public void setUp() throws Exception {
+    SqlSessionFactory sqlSessionFactory = BenchmarkDatabase.createSqlSessionFactory("cachekey", 1, 0);
+    Configuration configuration = sqlSessionFactory.getConfiguration();
+    executor = new SimpleExecutor(configuration, null);
+    findAuthors = configuration.getMappedStatement("org.apache.ibatis.benchmark.BenchmarkMapper.findAuthors");
+    Map<String, Object> criteria = new HashMap<String, Object>();
+    criteria.put("name", "author%");
+    criteria.put("email", "%@example.com");
+    List<Integer> ids = new ArrayList<Integer>();
+    for (int i = 1; i <= 10; i++) {
+      ids.add(i);
+    }
+    criteria.put("ids", ids);
+    parameter = criteria;
+    boundSql = findAuthors.getBoundSql(parameter);
+    key = executor.createCacheKey(findAuthors, parameter, RowBounds.DEFAULT, boundSql);
+    equalKey = executor.createCacheKey(findAuthors, parameter, RowBounds.DEFAULT, boundSql);
+  }
+
+  @Benchmark
+  public CacheKey create() {
+    return executor.createCacheKey(findAuthors, parameter, RowBounds.DEFAULT, boundSql);
+  }
+
+  @Benchmark
+  public int createAndHash() {
+    return executor.createCacheKey(findAuthors, parameter, RowBounds.DEFAULT, boundSql).hashCode();
+  }
+
+  @Benchmark
+  public boolean equalKeys() {
+    return key.equals(equalKey);
+  }
+
+}
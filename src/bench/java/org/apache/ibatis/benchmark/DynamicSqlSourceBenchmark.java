@@ -0,0 +1,82 @@
+/*
+ *    Copyright 2009-2014 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.benchmark;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Builds the SQL of a statement with {@code <where>}, {@code <if>} and {@code <foreach>} elements.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class DynamicSqlSourceBenchmark {
+
+  private MappedStatement findAuthors;
+  private Map<String, Object> criteria;
+  private Map<String, Object> idsOnly;
+
+  @Setup(Level.Trial)
+  public void setUp() throws Exception {
+    SqlSessionFactory sqlSessionFactory = BenchmarkDatabase.createSqlSessionFactory("dynamicsql", 1, 0);
+    findAuthors = sqlSessionFactory.getConfiguration().getMappedStatement("org.apache.ibatis.benchmark.BenchmarkMapper.findAuthors");
+    List<Integer> ids = new ArrayList<Integer>();
+    for (int i = 1; i <= 20; i++) {
+      ids.add(i);
+    }
+    criteria = new HashMap<String, Object>();
+    criteria.put("name", "author%");
+    criteria.put("email", "%@example.com");
+    criteria.put("ids", ids);
+    idsOnly = new HashMap<String, Object>();
+    idsOnly.put("name", null);
+    idsOnly.put("email", null);
+    idsOnly.put("ids", ids);
+  }
+
+  @Benchmark
+  public BoundSql allConditions() {
+    return findAuthors.getBoundSql(criteria);
+  }
+
+  @Benchmark
+  public BoundSql foreachOnly() {
+    return findAuthors.getBoundSql(idsOnly);
+  }
+
+}
@@ -0,0 +1,72 @@
+/*
+ *    Copyright 2009-2014 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Runs the same select through a mapper and directly on the session, the difference is the cost of the
+ * MapperProxy dispatch.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class MapperProxyBenchmark {
+
+  private SqlSession sqlSession;
+  private BenchmarkMapper mapper;
+
+  @Setup(Level.Trial)
+  public void setUp() throws Exception {
+    SqlSessionFactory sqlSessionFactory = BenchmarkDatabase.createSqlSessionFactory("mapper", 10, 0);
+    sqlSession = sqlSessionFactory.openSession();
+    mapper = sqlSession.getMapper(BenchmarkMapper.class);
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    sqlSession.close();
+  }
+
+  @Benchmark
+  public Author mapper() {
+    return mapper.selectAuthor(5);
+  }
+
+  @Benchmark
+  public Author sqlSession() {
+    return sqlSession.selectOne("org.apache.ibatis.benchmark.BenchmarkMapper.selectAuthor", 5);
+  }
+
+}
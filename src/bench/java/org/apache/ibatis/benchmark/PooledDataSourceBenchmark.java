@@ -0,0 +1,79 @@
+/*
+ *    Copyright 2009-2014 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.benchmark;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.ibatis.datasource.pooled.ConcurrentPooledDataSource;
+import org.apache.ibatis.datasource.pooled.PooledDataSource;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Checks a connection out of the pool and returns it. Run with {@code -t} to change the number of threads.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+@Threads(4)
+public class PooledDataSourceBenchmark {
+
+  @Param({ "POOLED", "CONCURRENT_POOLED" })
+  public String type;
+
+  private PooledDataSource dataSource;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    String url = BenchmarkDatabase.url("pool");
+    if ("CONCURRENT_POOLED".equals(type)) {
+      dataSource = new ConcurrentPooledDataSource(BenchmarkDatabase.DRIVER, url, BenchmarkDatabase.USERNAME, BenchmarkDatabase.PASSWORD);
+    } else {
+      dataSource = new PooledDataSource(BenchmarkDatabase.DRIVER, url, BenchmarkDatabase.USERNAME, BenchmarkDatabase.PASSWORD);
+    }
+    dataSource.setPoolMaximumActiveConnections(10);
+    dataSource.setPoolMaximumIdleConnections(10);
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    dataSource.forceCloseAll();
+  }
+
+  @Benchmark
+  public void checkoutAndReturn() throws SQLException {
+    Connection connection = dataSource.getConnection();
+    connection.close();
+  }
+
+}
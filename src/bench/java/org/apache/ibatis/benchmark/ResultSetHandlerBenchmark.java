@@ -0,0 +1,71 @@
+/*
+ *    Copyright 2009-2014 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.benchmark;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Maps 100 authors, alone and joined with their 5 posts each, through the DefaultResultSetHandler.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class ResultSetHandlerBenchmark {
+
+  private SqlSessionFactory sqlSessionFactory;
+  private SqlSession sqlSession;
+
+  @Setup(Level.Trial)
+  public void setUp() throws Exception {
+    sqlSessionFactory = BenchmarkDatabase.createSqlSessionFactory("resultset", 100, 5);
+    sqlSession = sqlSessionFactory.openSession();
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    sqlSession.close();
+  }
+
+  @Benchmark
+  public List<Author> simpleMapping() {
+    return sqlSession.selectList("org.apache.ibatis.benchmark.BenchmarkMapper.selectAuthors");
+  }
+
+  @Benchmark
+  public List<Author> nestedMapping() {
+    return sqlSession.selectList("org.apache.ibatis.benchmark.BenchmarkMapper.selectAuthorsWithPosts");
+  }
+
+}
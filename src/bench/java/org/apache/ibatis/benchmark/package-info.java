@@ -0,0 +1,22 @@
+/*
+ *    Copyright 2009-2014 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+/**
+ * JMH benchmarks of the core execution paths, run against an in-memory HSQLDB database.
+ * <p>
+ * Build and run them with {@code mvn -Pbenchmark test-compile exec:exec}. The results are written to
+ * {@code target/jmh-result.json}, run the same command on two commits to compare them.
+ */
+package org.apache.ibatis.benchmark;
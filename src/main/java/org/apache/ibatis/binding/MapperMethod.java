@@ -17,6 +17,7 @@ package org.apache.ibatis.binding;
 
 import org.apache.ibatis.annotations.MapKey;
 import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.cursor.Cursor;
 import org.apache.ibatis.mapping.MappedStatement;
 import org.apache.ibatis.mapping.SqlCommandType;
 import org.apache.ibatis.reflection.MetaObject;
@@ -24,10 +25,15 @@ import org.apache.ibatis.session.Configuration;
 import org.apache.ibatis.session.ResultHandler;
 import org.apache.ibatis.session.RowBounds;
 import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.defaults.DefaultSqlSessionFactory;
 
 import java.lang.reflect.Array;
 import java.lang.reflect.Method;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
 import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
 
 /**
  * @author Clinton Begin
@@ -45,6 +51,32 @@ public class MapperMethod {
 	}
 
 	public Object execute(SqlSession sqlSession, Object[] args) {
+		if (method.returnsFuture()) {
+			return executeAsync(sqlSession.getConfiguration(), args);
+		}
+		return executeNow(sqlSession, args);
+	}
+
+	/**
+	 * 在线程池中用一个新的 SqlSession 执行，调用方的 SqlSession 和事务不参与。
+	 * 新的会话只能看到已提交的数据，语句执行成功后提交，失败时回滚。
+	 */
+	private Future<Object> executeAsync(final Configuration configuration, final Object[] args) {
+		return configuration.getAsyncExecutor().submit(new Callable<Object>() {
+			public Object call() throws Exception {
+				final SqlSession asyncSession = new DefaultSqlSessionFactory(configuration).openSession();
+				try {
+					Object result = executeNow(asyncSession, args);
+					asyncSession.commit();
+					return result;
+				} finally {
+					asyncSession.close();
+				}
+			}
+		});
+	}
+
+	private Object executeNow(SqlSession sqlSession, Object[] args) {
 		Object result;
 		if (SqlCommandType.INSERT == command.getType()) {
 			Object param = method.convertArgsToSqlCommandParam(args);
@@ -63,6 +95,8 @@ public class MapperMethod {
 				result = executeForMany(sqlSession, args);
 			} else if (method.returnsMap()) {
 				result = executeForMap(sqlSession, args);
+			} else if (method.returnsCursor()) {
+				result = executeForCursor(sqlSession, args);
 			} else {
 				Object param = method.convertArgsToSqlCommandParam(args);
 				result = sqlSession.selectOne(command.getName(), param);
@@ -128,6 +162,18 @@ public class MapperMethod {
 		return result;
 	}
 
+	private <T> Cursor<T> executeForCursor(SqlSession sqlSession, Object[] args) {
+		Cursor<T> result;
+		Object param = method.convertArgsToSqlCommandParam(args);
+		if (method.hasRowBounds()) {
+			RowBounds rowBounds = method.extractRowBounds(args);
+			result = sqlSession.<T> selectCursor(command.getName(), param, rowBounds);
+		} else {
+			result = sqlSession.<T> selectCursor(command.getName(), param);
+		}
+		return result;
+	}
+
 	private <E> Object convertToDeclaredCollection(Configuration config, List<E> list) {
 		Object collection = config.getObjectFactory().create(method.getReturnType());
 		MetaObject metaObject = config.newMetaObject(collection);
@@ -208,6 +254,8 @@ public class MapperMethod {
 		private final boolean returnsMany;
 		private final boolean returnsMap;
 		private final boolean returnsVoid;
+		private final boolean returnsCursor;
+		private final boolean returnsFuture;
 		private final Class<?> returnType;
 		private final String mapKey;
 		private final Integer resultHandlerIndex;
@@ -216,10 +264,16 @@ public class MapperMethod {
 		private final boolean hasNamedParameters;
 
 		public MethodSignature(Configuration configuration, Method method) throws BindingException {
-			this.returnType = method.getReturnType();
-			this.returnsVoid = void.class.equals(this.returnType);
+			this.returnsFuture = Future.class.equals(method.getReturnType());
+			// a Future is mapped like its type argument
+			this.returnType = returnsFuture ? getFutureValueType(method) : method.getReturnType();
+			this.returnsVoid = void.class.equals(this.returnType) || Void.class.equals(this.returnType);
+			this.returnsCursor = Cursor.class.equals(this.returnType);
+			if (returnsFuture && returnsCursor) {
+				throw new BindingException(method.getName() + " cannot return a Future of a Cursor, the cursor would be closed with its session");
+			}
 			this.returnsMany = (configuration.getObjectFactory().isCollection(this.returnType) || this.returnType.isArray());
-			this.mapKey = getMapKey(method);
+			this.mapKey = getMapKey(method, this.returnType);
 			this.returnsMap = (this.mapKey != null);
 			this.hasNamedParameters = hasNamedParams(method);
 			this.rowBoundsIndex = getUniqueParamIndex(method, RowBounds.class);
@@ -285,6 +339,27 @@ public class MapperMethod {
 			return returnsVoid;
 		}
 
+		public boolean returnsCursor() {
+			return returnsCursor;
+		}
+
+		public boolean returnsFuture() {
+			return returnsFuture;
+		}
+
+		private Class<?> getFutureValueType(Method method) {
+			final Type type = method.getGenericReturnType();
+			if (type instanceof ParameterizedType) {
+				final Type valueType = ((ParameterizedType) type).getActualTypeArguments()[0];
+				if (valueType instanceof Class) {
+					return (Class<?>) valueType;
+				} else if (valueType instanceof ParameterizedType) {
+					return (Class<?>) ((ParameterizedType) valueType).getRawType();
+				}
+			}
+			return Object.class;
+		}
+
 		private Integer getUniqueParamIndex(Method method, Class<?> paramType) {
 			Integer index = null;
 			final Class<?>[] argTypes = method.getParameterTypes();
@@ -300,9 +375,9 @@ public class MapperMethod {
 			return index;
 		}
 
-		private String getMapKey(Method method) {
+		private String getMapKey(Method method, Class<?> returnType) {
 			String mapKey = null;
-			if (Map.class.isAssignableFrom(method.getReturnType())) {
+			if (Map.class.isAssignableFrom(returnType)) {
 				final MapKey mapKeyAnnotation = method.getAnnotation(MapKey.class);
 				if (mapKeyAnnotation != null) {
 					mapKey = mapKeyAnnotation.value();
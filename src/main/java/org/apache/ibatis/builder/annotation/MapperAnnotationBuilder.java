@@ -32,6 +32,7 @@ import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Future;
 
 import org.apache.ibatis.annotations.Arg;
 import org.apache.ibatis.annotations.CacheNamespace;
@@ -61,6 +62,7 @@ import org.apache.ibatis.builder.BuilderException;
 import org.apache.ibatis.builder.IncompleteElementException;
 import org.apache.ibatis.builder.MapperBuilderAssistant;
 import org.apache.ibatis.builder.xml.XMLMapperBuilder;
+import org.apache.ibatis.cursor.Cursor;
 import org.apache.ibatis.executor.keygen.Jdbc3KeyGenerator;
 import org.apache.ibatis.executor.keygen.KeyGenerator;
 import org.apache.ibatis.executor.keygen.NoKeyGenerator;
@@ -352,13 +354,28 @@ public class MapperAnnotationBuilder {
 
   private Class<?> getReturnType(Method method) {
     Class<?> returnType = method.getReturnType();
-    if (void.class.equals(returnType)) { // issue #508
+    Type genericReturnType = method.getGenericReturnType();
+    if (Future.class.equals(returnType)) {
+      // asynchronous methods are mapped like the value of their future
+      genericReturnType = Object.class;
+      if (method.getGenericReturnType() instanceof ParameterizedType) {
+        genericReturnType = ((ParameterizedType) method.getGenericReturnType()).getActualTypeArguments()[0];
+      }
+      if (genericReturnType instanceof Class) {
+        returnType = (Class<?>) genericReturnType;
+      } else if (genericReturnType instanceof ParameterizedType) {
+        returnType = (Class<?>) ((ParameterizedType) genericReturnType).getRawType();
+      } else {
+        returnType = Object.class;
+      }
+    }
+    if (void.class.equals(returnType) || Void.class.equals(returnType)) { // issue #508
       ResultType rt = method.getAnnotation(ResultType.class);
       if (rt != null) {
         returnType = rt.value();
       } 
-    } else if (Collection.class.isAssignableFrom(returnType)) {
-      Type returnTypeParameter = method.getGenericReturnType();
+    } else if (Collection.class.isAssignableFrom(returnType) || Cursor.class.isAssignableFrom(returnType)) {
+      Type returnTypeParameter = genericReturnType;
       if (returnTypeParameter instanceof ParameterizedType) {
         Type[] actualTypeArguments = ((ParameterizedType) returnTypeParameter).getActualTypeArguments();
         if (actualTypeArguments != null && actualTypeArguments.length == 1) {
@@ -375,7 +392,7 @@ public class MapperAnnotationBuilder {
       }
     } else if (method.isAnnotationPresent(MapKey.class) && Map.class.isAssignableFrom(returnType)) {
       // (issue 504) Do not look into Maps if there is not MapKey annotation
-      Type returnTypeParameter = method.getGenericReturnType();
+      Type returnTypeParameter = genericReturnType;
       if (returnTypeParameter instanceof ParameterizedType) {
         Type[] actualTypeArguments = ((ParameterizedType) returnTypeParameter).getActualTypeArguments();
         if (actualTypeArguments != null && actualTypeArguments.length == 2) {
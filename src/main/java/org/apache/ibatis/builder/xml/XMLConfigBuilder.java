@@ -17,7 +17,17 @@ package org.apache.ibatis.builder.xml;
 
 import java.io.InputStream;
 import java.io.Reader;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Properties;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import javax.sql.DataSource;
 
@@ -26,6 +36,8 @@ import org.apache.ibatis.builder.BuilderException;
 import org.apache.ibatis.datasource.DataSourceFactory;
 import org.apache.ibatis.executor.ErrorContext;
 import org.apache.ibatis.executor.loader.ProxyFactory;
+import org.apache.ibatis.executor.metrics.QueryMetrics;
+import org.apache.ibatis.executor.metrics.SlowQueryReporter;
 import org.apache.ibatis.io.Resources;
 import org.apache.ibatis.mapping.DatabaseIdProvider;
 import org.apache.ibatis.mapping.Environment;
@@ -34,6 +46,7 @@ import org.apache.ibatis.parsing.XPathParser;
 import org.apache.ibatis.plugin.Interceptor;
 import org.apache.ibatis.reflection.MetaClass;
 import org.apache.ibatis.reflection.factory.ObjectFactory;
+import org.apache.ibatis.reflection.invoker.InvokerFactory;
 import org.apache.ibatis.reflection.wrapper.ObjectWrapperFactory;
 import org.apache.ibatis.session.AutoMappingBehavior;
 import org.apache.ibatis.session.Configuration;
@@ -199,12 +212,18 @@ public class XMLConfigBuilder extends BaseBuilder {
       configuration.setAutoMappingBehavior(AutoMappingBehavior.valueOf(props.getProperty("autoMappingBehavior", "PARTIAL")));
       configuration.setCacheEnabled(booleanValueOf(props.getProperty("cacheEnabled"), true));
       configuration.setProxyFactory((ProxyFactory) createInstance(props.getProperty("proxyFactory")));
+      configuration.setInvokerFactory((InvokerFactory) createInstance(props.getProperty("invokerFactory")));
       configuration.setLazyLoadingEnabled(booleanValueOf(props.getProperty("lazyLoadingEnabled"), false));
       configuration.setAggressiveLazyLoading(booleanValueOf(props.getProperty("aggressiveLazyLoading"), true));
+      configuration.setLazyLoadBatchSize(integerValueOf(props.getProperty("lazyLoadBatchSize"), 100));
       configuration.setMultipleResultSetsEnabled(booleanValueOf(props.getProperty("multipleResultSetsEnabled"), true));
       configuration.setUseColumnLabel(booleanValueOf(props.getProperty("useColumnLabel"), true));
       configuration.setUseGeneratedKeys(booleanValueOf(props.getProperty("useGeneratedKeys"), false));
       configuration.setDefaultExecutorType(ExecutorType.valueOf(props.getProperty("defaultExecutorType", "SIMPLE")));
+      configuration.setBatchInsertRowsPerStatement(integerValueOf(props.getProperty("batchInsertRowsPerStatement"), 0));
+      configuration.setBatchReordering(booleanValueOf(props.getProperty("batchReordering"), false));
+      configuration.setBatchFlushRows(integerValueOf(props.getProperty("batchFlushRows"), 0));
+      configuration.setBatchFlushBytes(integerValueOf(props.getProperty("batchFlushBytes"), 0));
       configuration.setDefaultStatementTimeout(integerValueOf(props.getProperty("defaultStatementTimeout"), null));
       configuration.setMapUnderscoreToCamelCase(booleanValueOf(props.getProperty("mapUnderscoreToCamelCase"), false));
       configuration.setSafeRowBoundsEnabled(booleanValueOf(props.getProperty("safeRowBoundsEnabled"), false));
@@ -214,6 +233,13 @@ public class XMLConfigBuilder extends BaseBuilder {
       configuration.setSafeResultHandlerEnabled(booleanValueOf(props.getProperty("safeResultHandlerEnabled"), true));
       configuration.setDefaultScriptingLanguage(resolveClass(props.getProperty("defaultScriptingLanguage")));
       configuration.setCallSettersOnNulls(booleanValueOf(props.getProperty("callSettersOnNulls"), false));
+      configuration.setParallelMapperParsing(booleanValueOf(props.getProperty("parallelMapperParsing"), false));
+      configuration.setQueryMetrics((QueryMetrics) createInstance(props.getProperty("queryMetrics")));
+      configuration.setSlowQueryThreshold(integerValueOf(props.getProperty("slowQueryThreshold"), 0));
+      configuration.setSlowQueryReporter((SlowQueryReporter) createInstance(props.getProperty("slowQueryReporter")));
+      configuration.setAsyncExecutorThreads(integerValueOf(props.getProperty("asyncExecutorThreads"), Runtime.getRuntime().availableProcessors()));
+      configuration.setParallelNestedQueries(booleanValueOf(props.getProperty("parallelNestedQueries"), false));
+      configuration.setCompileExpressions(booleanValueOf(props.getProperty("compileExpressions"), false));
       configuration.setLogPrefix(props.getProperty("logPrefix"));
       configuration.setLogImpl(resolveClass(props.getProperty("logImpl")));
       configuration.setConfigurationFactory(resolveClass(props.getProperty("configurationFactory")));
@@ -307,35 +333,111 @@ public class XMLConfigBuilder extends BaseBuilder {
 
   private void mapperElement(XNode parent) throws Exception {
     if (parent != null) {
-      for (XNode child : parent.getChildren()) {
-        if ("package".equals(child.getName())) {
-          String mapperPackage = child.getStringAttribute("name");
-          configuration.addMappers(mapperPackage);
-        } else {
-          String resource = child.getStringAttribute("resource");
-          String url = child.getStringAttribute("url");
-          String mapperClass = child.getStringAttribute("class");
-          if (resource != null && url == null && mapperClass == null) {
-            ErrorContext.instance().resource(resource);
-            InputStream inputStream = Resources.getResourceAsStream(resource);
-            XMLMapperBuilder mapperParser = new XMLMapperBuilder(inputStream, configuration, resource, configuration.getSqlFragments());
-            mapperParser.parse();
-          } else if (resource == null && url != null && mapperClass == null) {
-            ErrorContext.instance().resource(url);
-            InputStream inputStream = Resources.getUrlAsStream(url);
-            XMLMapperBuilder mapperParser = new XMLMapperBuilder(inputStream, configuration, url, configuration.getSqlFragments());
-            mapperParser.parse();
-          } else if (resource == null && url == null && mapperClass != null) {
-            Class<?> mapperInterface = Resources.classForName(mapperClass);
-            configuration.addMapper(mapperInterface);
+      List<XNode> children = parent.getChildren();
+      ExecutorService parsingExecutor = null;
+      Map<XNode, Future<XPathParser>> documents = null;
+      if (configuration.isParallelMapperParsing()) {
+        parsingExecutor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(), new MapperParsingThreadFactory());
+        documents = parseMapperDocuments(children, parsingExecutor);
+      }
+      try {
+        for (XNode child : children) {
+          if ("package".equals(child.getName())) {
+            String mapperPackage = child.getStringAttribute("name");
+            configuration.addMappers(mapperPackage);
           } else {
-            throw new BuilderException("A mapper element may only specify a url, resource or class, but not more than one.");
+            String resource = child.getStringAttribute("resource");
+            String url = child.getStringAttribute("url");
+            String mapperClass = child.getStringAttribute("class");
+            if (resource != null && url == null && mapperClass == null) {
+              ErrorContext.instance().resource(resource);
+              if (documents != null) {
+                parseMapperDocument(documents.get(child), resource);
+              } else {
+                InputStream inputStream = Resources.getResourceAsStream(resource);
+                XMLMapperBuilder mapperParser = new XMLMapperBuilder(inputStream, configuration, resource, configuration.getSqlFragments());
+                mapperParser.parse();
+              }
+            } else if (resource == null && url != null && mapperClass == null) {
+              ErrorContext.instance().resource(url);
+              if (documents != null) {
+                parseMapperDocument(documents.get(child), url);
+              } else {
+                InputStream inputStream = Resources.getUrlAsStream(url);
+                XMLMapperBuilder mapperParser = new XMLMapperBuilder(inputStream, configuration, url, configuration.getSqlFragments());
+                mapperParser.parse();
+              }
+            } else if (resource == null && url == null && mapperClass != null) {
+              Class<?> mapperInterface = Resources.classForName(mapperClass);
+              configuration.addMapper(mapperInterface);
+            } else {
+              throw new BuilderException("A mapper element may only specify a url, resource or class, but not more than one.");
+            }
           }
         }
+        if (documents != null) {
+          XMLMapperBuilder.parsePendingElements(configuration);
+        }
+      } finally {
+        if (parsingExecutor != null) {
+          parsingExecutor.shutdownNow();
+        }
       }
     }
   }
 
+  /**
+   * Reads and validates the mapper XML files on the given executor. Only the documents are built there, the
+   * mappers are registered afterwards in the order they are listed.
+   */
+  private Map<XNode, Future<XPathParser>> parseMapperDocuments(List<XNode> children, ExecutorService executor) {
+    Map<XNode, Future<XPathParser>> documents = new HashMap<XNode, Future<XPathParser>>();
+    for (XNode child : children) {
+      if (!"package".equals(child.getName())) {
+        final String resource = child.getStringAttribute("resource");
+        final String url = child.getStringAttribute("url");
+        if ((resource == null) != (url == null) && child.getStringAttribute("class") == null) {
+          documents.put(child, executor.submit(new Callable<XPathParser>() {
+            public XPathParser call() throws Exception {
+              InputStream inputStream = resource != null ? Resources.getResourceAsStream(resource) : Resources.getUrlAsStream(url);
+              try {
+                return new XPathParser(inputStream, true, configuration.getVariables(), new XMLMapperEntityResolver());
+              } finally {
+                inputStream.close();
+              }
+            }
+          }));
+        }
+      }
+    }
+    return documents;
+  }
+
+  private void parseMapperDocument(Future<XPathParser> document, String resource) throws InterruptedException {
+    XPathParser mapperDocument;
+    try {
+      mapperDocument = document.get();
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      }
+      throw new BuilderException("Error reading mapper " + resource + ". Cause: " + cause, cause);
+    }
+    XMLMapperBuilder mapperParser = new XMLMapperBuilder(mapperDocument, configuration, resource, configuration.getSqlFragments());
+    mapperParser.parseMapper();
+  }
+
+  private static class MapperParsingThreadFactory implements ThreadFactory {
+    private final AtomicInteger threadNumber = new AtomicInteger();
+
+    public Thread newThread(Runnable runnable) {
+      Thread thread = new Thread(runnable, "mybatis-mapper-parser-" + threadNumber.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    }
+  }
+
   private boolean isSpecifiedEnvironment(String id) {
     if (environment == null) {
       throw new BuilderException("No environment specified.");
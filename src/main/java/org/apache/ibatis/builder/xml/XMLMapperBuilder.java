@@ -79,7 +79,7 @@ public class XMLMapperBuilder extends BaseBuilder {
         configuration, resource, sqlFragments);
   }
 
-  private XMLMapperBuilder(XPathParser parser, Configuration configuration, String resource, Map<String, XNode> sqlFragments) {
+  public XMLMapperBuilder(XPathParser parser, Configuration configuration, String resource, Map<String, XNode> sqlFragments) {
     super(configuration);
     this.builderAssistant = new MapperBuilderAssistant(configuration, resource);
     this.parser = parser;
@@ -88,15 +88,47 @@ public class XMLMapperBuilder extends BaseBuilder {
   }
 
   public void parse() {
+    parseMapper();
+
+    parsePendingResultMaps(configuration);
+    parsePendingChacheRefs(configuration);
+    parsePendingStatements(configuration);
+  }
+
+  /**
+   * Parses this mapper without retrying the incomplete elements left by other mappers. Callers that register
+   * many mappers in a row resolve them once at the end with {@link #parsePendingElements(Configuration)}.
+   */
+  public void parseMapper() {
     if (!configuration.isResourceLoaded(resource)) {
       configurationElement(parser.evalNode("/mapper"));
       configuration.addLoadedResource(resource);
       bindMapperForNamespace();
     }
+  }
+
+  /**
+   * Retries the incomplete result maps, cache refs and statements until no more of them can be resolved.
+   * Elements that are still incomplete are left to {@link Configuration}, which reports them on first use.
+   */
+  public static void parsePendingElements(Configuration configuration) {
+    int pending = countPendingElements(configuration);
+    while (pending > 0) {
+      parsePendingResultMaps(configuration);
+      parsePendingChacheRefs(configuration);
+      parsePendingStatements(configuration);
+      int stillPending = countPendingElements(configuration);
+      if (stillPending == pending) {
+        break;
+      }
+      pending = stillPending;
+    }
+  }
 
-    parsePendingResultMaps();
-    parsePendingChacheRefs();
-    parsePendingStatements();
+  private static int countPendingElements(Configuration configuration) {
+    return configuration.getIncompleteResultMaps().size()
+        + configuration.getIncompleteCacheRefs().size()
+        + configuration.getIncompleteStatements().size();
   }
 
   public XNode getSqlFragment(String refid) {
@@ -139,7 +171,7 @@ public class XMLMapperBuilder extends BaseBuilder {
     }
   }
 
-  private void parsePendingResultMaps() {
+  private static void parsePendingResultMaps(Configuration configuration) {
     Collection<ResultMapResolver> incompleteResultMaps = configuration.getIncompleteResultMaps();
     synchronized (incompleteResultMaps) {
       Iterator<ResultMapResolver> iter = incompleteResultMaps.iterator();
@@ -154,7 +186,7 @@ public class XMLMapperBuilder extends BaseBuilder {
     }
   }
 
-  private void parsePendingChacheRefs() {
+  private static void parsePendingChacheRefs(Configuration configuration) {
 	  Collection<CacheRefResolver> incompleteCacheRefs = configuration.getIncompleteCacheRefs();
 	  synchronized (incompleteCacheRefs) {
 		  Iterator<CacheRefResolver> iter = incompleteCacheRefs.iterator();
@@ -169,7 +201,7 @@ public class XMLMapperBuilder extends BaseBuilder {
 	  }
   }
 
-  private void parsePendingStatements() {
+  private static void parsePendingStatements(Configuration configuration) {
 	  Collection<XMLStatementBuilder> incompleteStatements = configuration.getIncompleteStatements();
 	  synchronized (incompleteStatements) {
 		  Iterator<XMLStatementBuilder> iter = incompleteStatements.iterator();
@@ -368,11 +400,13 @@ public class XMLMapperBuilder extends BaseBuilder {
     String resulSet = context.getStringAttribute("resultSet");
     String foreignColumn = context.getStringAttribute("foreignColumn");
     boolean lazy = "lazy".equals(context.getStringAttribute("fetchType", configuration.isLazyLoadingEnabled() ? "lazy" : "eager"));
+    String batchSelect = context.getStringAttribute("batchSelect");
+    String batchKey = context.getStringAttribute("batchKey");
     Class<?> javaTypeClass = resolveClass(javaType);
     @SuppressWarnings("unchecked")
     Class<? extends TypeHandler<?>> typeHandlerClass = (Class<? extends TypeHandler<?>>) resolveClass(typeHandler);
     JdbcType jdbcTypeEnum = resolveJdbcType(jdbcType);
-    return builderAssistant.buildResultMapping(resultType, property, column, javaTypeClass, jdbcTypeEnum, nestedSelect, nestedResultMap, notNullColumn, columnPrefix, typeHandlerClass, flags, resulSet, foreignColumn, lazy);
+    return builderAssistant.buildResultMapping(resultType, property, column, javaTypeClass, jdbcTypeEnum, nestedSelect, nestedResultMap, notNullColumn, columnPrefix, typeHandlerClass, flags, resulSet, foreignColumn, lazy, batchSelect, batchKey);
   }
   
   private String processNestedResultMappings(XNode context, List<ResultMapping> resultMappings) throws Exception {
@@ -15,67 +15,115 @@
  */
 package org.apache.ibatis.cache;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamField;
 import java.io.Serializable;
-import java.lang.reflect.Array;
 import java.util.ArrayList;
 import java.util.List;
 
 /**
+ * The components of a key are kept in a plain array that callers can size up front, and are hashed into a
+ * 64-bit value as they are added, so comparing keys that differ rarely needs to look at the components.
+ * <p>
+ * Arrays are added element by element, and the serialized form is the one of the former ArrayList based key.
+ *
  * @author Clinton Begin
  */
 public class CacheKey implements Cloneable, Serializable {
 
   private static final long serialVersionUID = 1146682552656046210L;
 
+  private static final ObjectStreamField[] serialPersistentFields = {
+      new ObjectStreamField("multiplier", int.class),
+      new ObjectStreamField("hashcode", int.class),
+      new ObjectStreamField("checksum", long.class),
+      new ObjectStreamField("count", int.class),
+      new ObjectStreamField("updateList", List.class) };
+
   public static final CacheKey NULL_CACHE_KEY = new NullCacheKey();
 
-  private static final int DEFAULT_MULTIPLYER = 37;
-  private static final int DEFAULT_HASHCODE = 17;
+  private static final int DEFAULT_CAPACITY = 8;
+
+  // FNV-1a 64 bit offset basis and prime
+  private static final long HASH_BASIS = 0xcbf29ce484222325L;
+  private static final long HASH_PRIME = 0x100000001b3L;
 
-  private int multiplier;
-  private int hashcode;
-  private long checksum;
+  // hash of the serialized form
+  private static final int LEGACY_MULTIPLIER = 37;
+  private static final int LEGACY_HASHCODE = 17;
+
+  private long hash;
   private int count;
-  private List<Object> updateList;
+  private Object[] updateList;
 
   public CacheKey() {
-    this.hashcode = DEFAULT_HASHCODE;
-    this.multiplier = DEFAULT_MULTIPLYER;
+    this(DEFAULT_CAPACITY);
+  }
+
+  /**
+   * @param expectedUpdates number of components the key will have, the key still grows if more are added
+   */
+  public CacheKey(int expectedUpdates) {
+    this.hash = HASH_BASIS;
     this.count = 0;
-    this.updateList = new ArrayList<Object>();
+    this.updateList = new Object[expectedUpdates > 0 ? expectedUpdates : 1];
   }
 
   public CacheKey(Object[] objects) {
-    this();
+    this(objects.length);
     updateAll(objects);
   }
 
   public int getUpdateCount() {
-    return updateList.size();
+    return count;
   }
 
   public void update(Object object) {
     if (object != null && object.getClass().isArray()) {
-      int length = Array.getLength(object);
-      for (int i = 0; i < length; i++) {
-        Object element = Array.get(object, i);
-        doUpdate(element);
-      }
+      updateElements(object);
     } else {
       doUpdate(object);
     }
   }
 
+  /*
+   * Adds the same boxed elements as java.lang.reflect.Array.get would, without its per-element lookup.
+   */
+  private void updateElements(Object array) {
+    if (array instanceof Object[]) {
+      for (Object element : (Object[]) array) doUpdate(element);
+    } else if (array instanceof int[]) {
+      for (int element : (int[]) array) doUpdate(element);
+    } else if (array instanceof long[]) {
+      for (long element : (long[]) array) doUpdate(element);
+    } else if (array instanceof byte[]) {
+      for (byte element : (byte[]) array) doUpdate(element);
+    } else if (array instanceof char[]) {
+      for (char element : (char[]) array) doUpdate(element);
+    } else if (array instanceof short[]) {
+      for (short element : (short[]) array) doUpdate(element);
+    } else if (array instanceof double[]) {
+      for (double element : (double[]) array) doUpdate(element);
+    } else if (array instanceof float[]) {
+      for (float element : (float[]) array) doUpdate(element);
+    } else {
+      for (boolean element : (boolean[]) array) doUpdate(element);
+    }
+  }
+
   private void doUpdate(Object object) {
     int baseHashCode = object == null ? 1 : object.hashCode();
 
-    count++;
-    checksum += baseHashCode;
-    baseHashCode *= count;
-
-    hashcode = multiplier * hashcode + baseHashCode;
+    if (count == updateList.length) {
+      Object[] grown = new Object[count << 1];
+      System.arraycopy(updateList, 0, grown, 0, count);
+      updateList = grown;
+    }
+    updateList[count++] = object;
 
-    updateList.add(object);
+    hash = (hash ^ baseHashCode) * HASH_PRIME;
   }
 
   public void updateAll(Object[] objects) {
@@ -92,35 +140,29 @@ public class CacheKey implements Cloneable, Serializable {
 
     final CacheKey cacheKey = (CacheKey) object;
 
-    if (hashcode != cacheKey.hashcode)
-      return false;
-    if (checksum != cacheKey.checksum)
+    if (hash != cacheKey.hash)
       return false;
     if (count != cacheKey.count)
       return false;
 
-    for (int i = 0; i < updateList.size(); i++) {
-      Object thisObject = updateList.get(i);
-      Object thatObject = cacheKey.updateList.get(i);
-      if (thisObject == null) {
-        if (thatObject != null)
-          return false;
-      } else {
-        if (!thisObject.equals(thatObject))
-          return false;
-      }
+    // statement ids and sql strings are usually the same instances, so try identity first
+    for (int i = count - 1; i >= 0; i--) {
+      Object thisObject = updateList[i];
+      Object thatObject = cacheKey.updateList[i];
+      if (thisObject != thatObject && !componentEquals(thisObject, thatObject))
+        return false;
     }
     return true;
   }
 
   public int hashCode() {
-    return hashcode;
+    return (int) (hash ^ (hash >>> 32));
   }
 
   public String toString() {
-    StringBuilder returnValue = new StringBuilder().append(hashcode).append(':').append(checksum);
-    for (int i = 0; i < updateList.size(); i++) {
-      returnValue.append(':').append(updateList.get(i));
+    StringBuilder returnValue = new StringBuilder().append(hashCode()).append(':').append(hash);
+    for (int i = 0; i < count; i++) {
+      returnValue.append(':').append(updateList[i]);
     }
 
     return returnValue.toString();
@@ -129,8 +171,51 @@ public class CacheKey implements Cloneable, Serializable {
   @Override
   public CacheKey clone() throws CloneNotSupportedException {
     CacheKey clonedCacheKey = (CacheKey) super.clone();
-    clonedCacheKey.updateList = new ArrayList<Object>(updateList);
+    // leave room for one more component, combined row keys are built by adding the parent key to a clone
+    clonedCacheKey.updateList = new Object[count + 1];
+    System.arraycopy(updateList, 0, clonedCacheKey.updateList, 0, count);
     return clonedCacheKey;
   }
 
+  private static boolean componentEquals(Object a, Object b) {
+    return a != null && a.equals(b);
+  }
+
+  /*
+   * The stream keeps the fields of the ArrayList based CacheKey, so keys serialized by either version can be read
+   * by the other. The 64-bit hash is rebuilt from the components.
+   */
+  private void writeObject(ObjectOutputStream out) throws IOException {
+    int hashcode = LEGACY_HASHCODE;
+    long checksum = 0;
+    List<Object> components = new ArrayList<Object>(count);
+    for (int i = 0; i < count; i++) {
+      Object component = updateList[i];
+      int baseHashCode = component == null ? 1 : component.hashCode();
+      checksum += baseHashCode;
+      hashcode = LEGACY_MULTIPLIER * hashcode + baseHashCode * (i + 1);
+      components.add(component);
+    }
+    ObjectOutputStream.PutField fields = out.putFields();
+    fields.put("multiplier", LEGACY_MULTIPLIER);
+    fields.put("hashcode", hashcode);
+    fields.put("checksum", checksum);
+    fields.put("count", count);
+    fields.put("updateList", components);
+    out.writeFields();
+  }
+
+  private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+    ObjectInputStream.GetField fields = in.readFields();
+    List<?> components = (List<?>) fields.get("updateList", null);
+    hash = HASH_BASIS;
+    count = 0;
+    updateList = new Object[components == null || components.isEmpty() ? 1 : components.size()];
+    if (components != null) {
+      for (Object component : components) {
+        doUpdate(component);
+      }
+    }
+  }
+
 }
@@ -15,6 +15,7 @@
  */
 package org.apache.ibatis.cache.decorators;
 
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
 import java.util.concurrent.locks.ReadWriteLock;
 
 import org.apache.ibatis.cache.Cache;
@@ -26,10 +27,14 @@ import org.apache.ibatis.logging.LogFactory;
  */
 public class LoggingCache implements Cache {
 
+  // counted atomically, caches that are not wrapped in a SynchronizedCache are read by many threads at once
+  private static final AtomicIntegerFieldUpdater<LoggingCache> REQUESTS = AtomicIntegerFieldUpdater.newUpdater(LoggingCache.class, "requests");
+  private static final AtomicIntegerFieldUpdater<LoggingCache> HITS = AtomicIntegerFieldUpdater.newUpdater(LoggingCache.class, "hits");
+
   private Log log;  
   private Cache delegate;
-  protected int requests = 0;
-  protected int hits = 0;
+  protected volatile int requests = 0;
+  protected volatile int hits = 0;
 
   public LoggingCache(Cache delegate) {
     this.delegate = delegate;
@@ -53,10 +58,10 @@ public class LoggingCache implements Cache {
 
   @Override
   public Object getObject(Object key) {
-    requests++;
+    REQUESTS.incrementAndGet(this);
     final Object value = delegate.getObject(key);
     if (value != null) {
-      hits++;
+      HITS.incrementAndGet(this);
     }
     if (log.isDebugEnabled()) {
       log.debug("Cache Hit Ratio [" + getId() + "]: " + getHitRatio());
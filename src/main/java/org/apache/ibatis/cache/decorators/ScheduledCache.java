@@ -26,7 +26,7 @@ public class ScheduledCache implements Cache {
 
   private Cache delegate;
   protected long clearInterval;
-  protected long lastClear;
+  protected volatile long lastClear;
 
   public ScheduledCache(Cache delegate) {
     this.delegate = delegate;
@@ -0,0 +1,214 @@
+/*
+ *    Copyright 2009-2014 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cache.impl;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.apache.ibatis.cache.Cache;
+import org.apache.ibatis.cache.CacheException;
+
+/**
+ * Bounded cache that can be used concurrently without the SynchronizedCache decorator.
+ * <p>
+ * Reads never lock. Writes lock one of the segments the keys are spread over, and each segment evicts its least
+ * recently used entries once it holds more than its share of the size. Recency is only recorded when the segment is
+ * not being written to, so eviction is an approximate LRU. Entries optionally expire after {@code timeToLive}
+ * milliseconds.
+ *
+ * @see org.apache.ibatis.mapping.CacheBuilder
+ */
+public class ConcurrentCache implements Cache {
+
+  private static final int SEGMENT_COUNT = 16;
+
+  private final String id;
+  private final Map<Object, Entry> cache = new ConcurrentHashMap<Object, Entry>();
+  private final Segment[] segments = new Segment[SEGMENT_COUNT];
+  private volatile int segmentSize;
+  private int size;
+  private volatile long timeToLive;
+
+  public ConcurrentCache(String id) {
+    this.id = id;
+    for (int i = 0; i < segments.length; i++) {
+      segments[i] = new Segment();
+    }
+    setSize(1024);
+  }
+
+  public String getId() {
+    return id;
+  }
+
+  public int getSize() {
+    return cache.size();
+  }
+
+  /**
+   * Maximum number of entries, spread evenly over the segments. Default 1024.
+   */
+  public void setSize(int size) {
+    this.size = size;
+    this.segmentSize = Math.max(1, (size + SEGMENT_COUNT - 1) / SEGMENT_COUNT);
+  }
+
+  /**
+   * @return the maximum number of entries
+   */
+  public int getMaxSize() {
+    return size;
+  }
+
+  /**
+   * Milliseconds after which an entry expires, 0 (default) for never.
+   */
+  public void setTimeToLive(long timeToLive) {
+    this.timeToLive = timeToLive;
+  }
+
+  public long getTimeToLive() {
+    return timeToLive;
+  }
+
+  public void putObject(Object key, Object value) {
+    final long ttl = timeToLive;
+    final Entry entry = new Entry(value, ttl > 0 ? System.currentTimeMillis() + ttl : 0);
+    final Segment segment = segmentFor(key);
+    segment.lock.lock();
+    try {
+      cache.put(key, entry);
+      segment.entries.put(key, entry);
+      final int max = segmentSize;
+      if (segment.entries.size() > max) {
+        Iterator<Map.Entry<Object, Entry>> eldest = segment.entries.entrySet().iterator();
+        while (segment.entries.size() > max && eldest.hasNext()) {
+          Map.Entry<Object, Entry> evicted = eldest.next();
+          eldest.remove();
+          cache.remove(evicted.getKey());
+        }
+      }
+    } finally {
+      segment.lock.unlock();
+    }
+  }
+
+  public Object getObject(Object key) {
+    final Entry entry = cache.get(key);
+    if (entry == null) {
+      return null;
+    }
+    final Segment segment = segmentFor(key);
+    if (entry.isExpired()) {
+      segment.lock.lock();
+      try {
+        if (segment.entries.get(key) == entry) {
+          segment.entries.remove(key);
+          cache.remove(key);
+        }
+      } finally {
+        segment.lock.unlock();
+      }
+      return null;
+    }
+    // record the access only if nobody is writing to the segment
+    if (segment.lock.tryLock()) {
+      try {
+        segment.entries.get(key);
+      } finally {
+        segment.lock.unlock();
+      }
+    }
+    return entry.value;
+  }
+
+  public Object removeObject(Object key) {
+    final Segment segment = segmentFor(key);
+    segment.lock.lock();
+    try {
+      segment.entries.remove(key);
+      final Entry entry = cache.remove(key);
+      return entry == null || entry.isExpired() ? null : entry.value;
+    } finally {
+      segment.lock.unlock();
+    }
+  }
+
+  public void clear() {
+    for (Segment segment : segments) {
+      segment.lock.lock();
+      try {
+        for (Object key : segment.entries.keySet()) {
+          cache.remove(key);
+        }
+        segment.entries.clear();
+      } finally {
+        segment.lock.unlock();
+      }
+    }
+  }
+
+  public ReadWriteLock getReadWriteLock() {
+    return null;
+  }
+
+  private Segment segmentFor(Object key) {
+    int h = key.hashCode();
+    // spread the bits, as the low bits of hash codes are often poorly distributed
+    h ^= (h >>> 20) ^ (h >>> 12);
+    h ^= (h >>> 7) ^ (h >>> 4);
+    return segments[h & (SEGMENT_COUNT - 1)];
+  }
+
+  public boolean equals(Object o) {
+    if (getId() == null) throw new CacheException("Cache instances require an ID.");
+    if (this == o) return true;
+    if (!(o instanceof Cache)) return false;
+
+    Cache otherCache = (Cache) o;
+    return getId().equals(otherCache.getId());
+  }
+
+  public int hashCode() {
+    if (getId() == null) throw new CacheException("Cache instances require an ID.");
+    return getId().hashCode();
+  }
+
+  private static class Segment {
+    private final ReentrantLock lock = new ReentrantLock();
+    // access ordered, only used under the lock
+    private final LinkedHashMap<Object, Entry> entries = new LinkedHashMap<Object, Entry>(16, 0.75f, true);
+  }
+
+  private static class Entry {
+    private final Object value;
+    private final long expiresAt;
+
+    Entry(Object value, long expiresAt) {
+      this.value = value;
+      this.expiresAt = expiresAt;
+    }
+
+    boolean isExpired() {
+      return expiresAt != 0 && System.currentTimeMillis() >= expiresAt;
+    }
+  }
+
+}
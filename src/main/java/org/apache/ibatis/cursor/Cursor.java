@@ -0,0 +1,54 @@
+/*
+ *    Copyright 2009-2014 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cursor;
+
+import java.io.Closeable;
+
+/**
+ * Fetches mapped rows lazily through an {@link java.util.Iterator}, so that queries returning millions of rows
+ * can be processed without holding them all in memory.
+ * <p>
+ * Rows mapped with nested result maps are flushed as soon as the parent key changes, so such queries must return
+ * their rows ordered by the id columns of the parent result map.
+ * <p>
+ * A cursor keeps its JDBC result set open and must be closed once it is no longer needed. Open cursors are
+ * also closed when the {@link org.apache.ibatis.session.SqlSession} that created them is closed.
+ */
+public interface Cursor<T> extends Closeable, Iterable<T> {
+
+  /**
+   * @return true if the cursor has started to fetch items from database.
+   */
+  boolean isOpen();
+
+  /**
+   * @return true if the cursor is fully consumed and has returned all elements matching the query.
+   */
+  boolean isConsumed();
+
+  /**
+   * Get the current item index. The first item has the index 0.
+   *
+   * @return -1 if the first cursor item has not been retrieved. The index of the current item retrieved.
+   */
+  int getCurrentIndex();
+
+  /**
+   * Closes the underlying result set and statement. Subsequent iteration will return no more items.
+   */
+  void close();
+
+}
@@ -0,0 +1,232 @@
+/*
+ *    Copyright 2009-2014 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cursor.defaults;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import org.apache.ibatis.cursor.Cursor;
+import org.apache.ibatis.exceptions.ExceptionFactory;
+import org.apache.ibatis.executor.resultset.DefaultResultSetHandler;
+import org.apache.ibatis.executor.resultset.ResultSetWrapper;
+import org.apache.ibatis.mapping.ResultMap;
+import org.apache.ibatis.session.ResultContext;
+import org.apache.ibatis.session.ResultHandler;
+import org.apache.ibatis.session.RowBounds;
+
+/**
+ * Default {@link Cursor} implementation. Each call to {@link Iterator#next()} maps just enough rows of the
+ * underlying result set to build the next result object.
+ * <p>
+ * The cursor owns the result set and the statement that produced it, both are released on {@link #close()}
+ * or as soon as the last row has been read.
+ */
+public class DefaultCursor<T> implements Cursor<T> {
+
+  // ResultSetHandler stuff
+  private final DefaultResultSetHandler resultSetHandler;
+  private final ResultMap resultMap;
+  private final ResultSetWrapper rsw;
+  private final RowBounds rowBounds;
+  private final ObjectWrapperResultHandler<T> objectWrapperResultHandler = new ObjectWrapperResultHandler<T>();
+
+  private final CursorIterator cursorIterator = new CursorIterator();
+  private boolean iteratorRetrieved;
+
+  private CursorStatus status = CursorStatus.CREATED;
+  private int indexWithRowBound = -1;
+  private CloseListener closeListener;
+
+  /**
+   * Told once when the cursor closes, either explicitly or because its last row has been read.
+   */
+  public interface CloseListener {
+    void cursorClosed(Cursor<?> cursor);
+  }
+
+  private enum CursorStatus {
+
+    /**
+     * A freshly created cursor, database ResultSet consuming has not started.
+     */
+    CREATED,
+    /**
+     * A cursor currently in use, database ResultSet consuming has started.
+     */
+    OPEN,
+    /**
+     * A closed cursor, not fully consumed.
+     */
+    CLOSED,
+    /**
+     * A fully consumed cursor, a consumed cursor is always closed.
+     */
+    CONSUMED
+  }
+
+  public DefaultCursor(DefaultResultSetHandler resultSetHandler, ResultMap resultMap, ResultSetWrapper rsw, RowBounds rowBounds) {
+    this.resultSetHandler = resultSetHandler;
+    this.resultMap = resultMap;
+    this.rsw = rsw;
+    this.rowBounds = rowBounds;
+  }
+
+  public boolean isOpen() {
+    return status == CursorStatus.OPEN;
+  }
+
+  public boolean isConsumed() {
+    return status == CursorStatus.CONSUMED;
+  }
+
+  public int getCurrentIndex() {
+    return cursorIterator.iteratorIndex < 0 ? -1 : rowBounds.getOffset() + cursorIterator.iteratorIndex;
+  }
+
+  public void setCloseListener(CloseListener closeListener) {
+    this.closeListener = closeListener;
+  }
+
+  public Iterator<T> iterator() {
+    if (iteratorRetrieved) {
+      throw new IllegalStateException("Cannot open more than one iterator on a Cursor");
+    }
+    iteratorRetrieved = true;
+    return cursorIterator;
+  }
+
+  public void close() {
+    if (isClosed()) {
+      return;
+    }
+    if (rsw != null) {
+      ResultSet rs = rsw.getResultSet();
+      try {
+        Statement statement = rs.getStatement();
+        rs.close();
+        if (statement != null) {
+          statement.close();
+        }
+      } catch (SQLException e) {
+        // ignore
+      }
+    }
+    resultSetHandler.cleanUpAfterHandlingResultSet();
+    status = CursorStatus.CLOSED;
+    if (closeListener != null) {
+      closeListener.cursorClosed(this);
+    }
+  }
+
+  protected T fetchNextUsingRowBound() {
+    T result = fetchNextObjectFromDatabase();
+    while (result != null && indexWithRowBound < rowBounds.getOffset()) {
+      result = fetchNextObjectFromDatabase();
+    }
+    return result;
+  }
+
+  protected T fetchNextObjectFromDatabase() {
+    if (isClosed()) {
+      return null;
+    }
+
+    if (rsw != null) {
+      try {
+        status = CursorStatus.OPEN;
+        resultSetHandler.handleRowValues(rsw, resultMap, objectWrapperResultHandler, RowBounds.DEFAULT, null);
+      } catch (SQLException e) {
+        throw ExceptionFactory.wrapException("Error fetching next row from cursor.  Cause: " + e, e);
+      }
+    }
+
+    T next = objectWrapperResultHandler.result;
+    if (next != null) {
+      indexWithRowBound++;
+    }
+    // No more object or limit reached
+    if (next == null || getReadItemsCount() == rowBounds.getOffset() + rowBounds.getLimit()) {
+      close();
+      status = CursorStatus.CONSUMED;
+    }
+    objectWrapperResultHandler.result = null;
+
+    return next;
+  }
+
+  private boolean isClosed() {
+    return status == CursorStatus.CLOSED || status == CursorStatus.CONSUMED;
+  }
+
+  private int getReadItemsCount() {
+    return indexWithRowBound + 1;
+  }
+
+  private static class ObjectWrapperResultHandler<E> implements ResultHandler {
+
+    private E result;
+
+    @SuppressWarnings("unchecked")
+    public void handleResult(ResultContext context) {
+      this.result = (E) context.getResultObject();
+      context.stop();
+    }
+  }
+
+  private class CursorIterator implements Iterator<T> {
+
+    /**
+     * Holder for the next object to be returned.
+     */
+    private T object;
+
+    /**
+     * Index of objects returned using next(), and as such, visible to users.
+     */
+    private int iteratorIndex = -1;
+
+    public boolean hasNext() {
+      if (object == null) {
+        object = fetchNextUsingRowBound();
+      }
+      return object != null;
+    }
+
+    public T next() {
+      // Fill next with object fetched from hasNext()
+      T next = object;
+
+      if (next == null) {
+        next = fetchNextUsingRowBound();
+      }
+
+      if (next != null) {
+        object = null;
+        iteratorIndex++;
+        return next;
+      }
+      throw new NoSuchElementException();
+    }
+
+    public void remove() {
+      throw new UnsupportedOperationException("Cannot remove element from Cursor");
+    }
+  }
+
+}
@@ -0,0 +1,617 @@
+/*
+ *    Copyright 2009-2014 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.datasource.pooled;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+
+import org.apache.ibatis.logging.Log;
+import org.apache.ibatis.logging.LogFactory;
+
+/**
+ * A connection pool for highly concurrent applications.
+ * <p>
+ * It is configured like {@link PooledDataSource} and keeps the same {@link PoolState} statistics, but checking
+ * out and returning connections never blocks on a shared monitor:
+ * <ul>
+ * <li>idle connections are kept in a lock-free queue and claimed with a compare-and-set,</li>
+ * <li>each thread first tries the connection it returned last, which is usually still idle,</li>
+ * <li>a returned connection is handed off directly to the thread that has been waiting the longest,
+ * so waiting threads are served in order and cannot be overtaken by threads arriving later.</li>
+ * </ul>
+ *
+ * @see PooledDataSource
+ */
+public class ConcurrentPooledDataSource extends PooledDataSource {
+
+  private static final Log log = LogFactory.getLog(ConcurrentPooledDataSource.class);
+
+  /*
+   * Handed off to a waiter when a connection has been discarded, so that it tries to open a new one.
+   */
+  private static final Object FREED_SLOT = new Object();
+  private static final Object CANCELLED = new Object();
+
+  private final ConcurrentLinkedQueue<IdleConnection> idleConnections = new ConcurrentLinkedQueue<IdleConnection>();
+  private final AtomicInteger idleCount = new AtomicInteger();
+  private final ConcurrentMap<PooledConnection, PooledConnection> activeConnections = new ConcurrentHashMap<PooledConnection, PooledConnection>();
+  // opened and not yet closed connections, idle or active
+  private final AtomicInteger totalCount = new AtomicInteger();
+  private final ConcurrentLinkedQueue<Waiter> waiters = new ConcurrentLinkedQueue<Waiter>();
+  private final ThreadLocal<IdleConnection> lastReturned = new ThreadLocal<IdleConnection>();
+
+  public ConcurrentPooledDataSource() {
+    super();
+  }
+
+  public ConcurrentPooledDataSource(String driver, String url, String username, String password) {
+    super(driver, url, username, password);
+  }
+
+  public ConcurrentPooledDataSource(String driver, String url, Properties driverProperties) {
+    super(driver, url, driverProperties);
+  }
+
+  public ConcurrentPooledDataSource(ClassLoader driverClassLoader, String driver, String url, String username, String password) {
+    super(driverClassLoader, driver, url, username, password);
+  }
+
+  public ConcurrentPooledDataSource(ClassLoader driverClassLoader, String driver, String url, Properties driverProperties) {
+    super(driverClassLoader, driver, url, driverProperties);
+  }
+
+  @Override
+  public Connection getConnection() throws SQLException {
+    return popConnection(dataSource.getUsername(), dataSource.getPassword()).getProxyConnection();
+  }
+
+  @Override
+  public Connection getConnection(String username, String password) throws SQLException {
+    return popConnection(username, password).getProxyConnection();
+  }
+
+  @Override
+  protected PoolState createPoolState() {
+    return new ConcurrentPoolState(this);
+  }
+
+  private ConcurrentPoolState state() {
+    return (ConcurrentPoolState) getPoolState();
+  }
+
+  /*
+   * Closes all active and idle connections in the pool
+   */
+  @Override
+  public void forceCloseAll() {
+    expectedConnectionTypeCode = assembleConnectionTypeCode(dataSource.getUrl(), dataSource.getUsername(), dataSource.getPassword());
+    for (PooledConnection conn : activeConnections.keySet()) {
+      if (activeConnections.remove(conn) != null) {
+        totalCount.decrementAndGet();
+        closeQuietly(conn);
+      }
+    }
+    IdleConnection idle;
+    while ((idle = idleConnections.poll()) != null) {
+      if (idle.claim()) {
+        idleCount.decrementAndGet();
+        totalCount.decrementAndGet();
+        closeQuietly(idle.connection);
+      }
+    }
+    if (log.isDebugEnabled()) {
+      log.debug("ConcurrentPooledDataSource forcefully closed/removed all connections.");
+    }
+  }
+
+  @Override
+  protected void pushConnection(PooledConnection conn) throws SQLException {
+    // the identity check rejects a second close of a connection that has been checked out again since
+    final boolean wasActive = activeConnections.get(conn) == conn && activeConnections.remove(conn) != null;
+    if (wasActive && conn.isValid()) {
+      connectionCheckedIn(conn);
+      state().accumulatedCheckoutTime.addAndGet(conn.getCheckoutTime());
+      rollbackOrDiscard(conn);
+      if (conn.getConnectionTypeCode() == expectedConnectionTypeCode && !isExpired(conn)) {
+        PooledConnection newConn = new PooledConnection(conn.getRealConnection(), this);
+        newConn.takeStatementCache(conn);
+        newConn.setCreatedTimestamp(conn.getCreatedTimestamp());
+        newConn.setLastUsedTimestamp(conn.getLastUsedTimestamp());
+        newConn.setLastValidatedTimestamp(conn.getLastValidatedTimestamp());
+        conn.invalidate();
+        offerConnection(newConn);
+      } else {
+        closeQuietly(conn);
+        discardConnection();
+        if (log.isDebugEnabled()) {
+          log.debug("Closed connection " + conn.getRealHashCode() + ".");
+        }
+      }
+    } else {
+      if (log.isDebugEnabled()) {
+        log.debug("A bad connection (" + conn.getRealHashCode() + ") attempted to return to the pool, discarding connection.");
+      }
+      state().badConnectionCount.incrementAndGet();
+      if (wasActive) {
+        discardConnection();
+      }
+    }
+  }
+
+  @Override
+  protected void housekeep() throws SQLException {
+    try {
+      detectLeaks(activeConnections.keySet());
+      final int typeCode = expectedConnectionTypeCode;
+      final List<PooledConnection> toValidate = new ArrayList<PooledConnection>();
+      for (Iterator<IdleConnection> it = idleConnections.iterator(); it.hasNext();) {
+        IdleConnection idle = it.next();
+        boolean expired = isExpired(idle.connection);
+        if ((expired || needsValidation(idle.connection)) && idle.claim()) {
+          it.remove();
+          idleCount.decrementAndGet();
+          if (expired) {
+            closeQuietly(idle.connection);
+            discardConnection();
+          } else {
+            toValidate.add(idle.connection);
+          }
+        }
+      }
+      for (PooledConnection conn : toValidate) {
+        // the pool may have been reset while the connection was out of it
+        if (validateConnection(conn) && typeCode == expectedConnectionTypeCode) {
+          offerConnection(conn);
+        } else {
+          closeQuietly(conn);
+          discardConnection();
+        }
+      }
+      while (idleCount.get() < Math.min(poolMinimumIdleConnections, getIdleConnectionLimit())) {
+        PooledConnection conn = openConnection();
+        if (conn == null) {
+          return;
+        }
+        offerConnection(conn);
+      }
+    } finally {
+      // the housekeeping thread is shared, it must not keep a reference to this pool
+      lastReturned.remove();
+    }
+  }
+
+  private PooledConnection popConnection(String username, String password) throws SQLException {
+    final long t = System.currentTimeMillis();
+    final long startNanos = System.nanoTime();
+    boolean countedWait = false;
+    int localBadConnectionCount = 0;
+
+    while (true) {
+      PooledConnection conn = claimIdleConnection();
+      if (conn == null) {
+        conn = openConnection();
+      }
+      if (conn == null) {
+        conn = claimOverdueConnection();
+      }
+      if (conn == null) {
+        // Must wait
+        if (!countedWait) {
+          state().hadToWaitCount.incrementAndGet();
+          countedWait = true;
+        }
+        if (log.isDebugEnabled()) {
+          log.debug("Waiting as long as " + poolTimeToWait + " milliseconds for connection.");
+        }
+        // leaks matter most when they exhaust the pool
+        detectLeaks(activeConnections.keySet());
+        long wt = System.currentTimeMillis();
+        try {
+          conn = waitForConnection();
+        } catch (InterruptedException e) {
+          if (log.isDebugEnabled()) {
+            log.debug("ConcurrentPooledDataSource: Interrupted while waiting for a connection.");
+          }
+          throw new SQLException("ConcurrentPooledDataSource: Interrupted while waiting for a connection.");
+        } finally {
+          state().accumulatedWaitTime.addAndGet(System.currentTimeMillis() - wt);
+        }
+        if (conn == null) {
+          continue;
+        }
+      }
+      if (conn.isValid()) {
+        rollbackOrDiscard(conn);
+        conn.setConnectionTypeCode(assembleConnectionTypeCode(dataSource.getUrl(), username, password));
+        conn.setCheckoutTimestamp(currentTimeMillis());
+        conn.setLastUsedTimestamp(currentTimeMillis());
+        activeConnections.put(conn, conn);
+        state().requestCount.incrementAndGet();
+        state().accumulatedRequestTime.addAndGet(System.currentTimeMillis() - t);
+        connectionCheckedOut(conn, activeConnections.size(), startNanos);
+        detectLeaks(activeConnections.keySet());
+        if (poolAdaptiveIdleWindow > 0) {
+          trimIdleConnections();
+        }
+        return conn;
+      }
+      if (log.isDebugEnabled()) {
+        log.debug("A bad connection (" + conn.getRealHashCode() + ") was returned from the pool, getting another connection.");
+      }
+      state().badConnectionCount.incrementAndGet();
+      localBadConnectionCount++;
+      discardConnection();
+      if (localBadConnectionCount > (poolMaximumIdleConnections + 3)) {
+        if (log.isDebugEnabled()) {
+          log.debug("ConcurrentPooledDataSource: Could not get a good connection to the database.");
+        }
+        throw new SQLException("ConcurrentPooledDataSource: Could not get a good connection to the database.");
+      }
+    }
+  }
+
+  private PooledConnection claimIdleConnection() {
+    // thread-affine fast path: the connection this thread returned last
+    final IdleConnection last = lastReturned.get();
+    if (last != null) {
+      lastReturned.set(null);
+      if (last.claim()) {
+        // usually near the tail, and the queue is no longer than the idle limit
+        idleConnections.remove(last);
+        return checkedOut(last);
+      }
+    }
+    IdleConnection idle;
+    while ((idle = idleConnections.poll()) != null) {
+      if (idle.claim()) {
+        return checkedOut(idle);
+      }
+    }
+    return null;
+  }
+
+  private PooledConnection checkedOut(IdleConnection idle) {
+    idleCount.decrementAndGet();
+    if (log.isDebugEnabled()) {
+      log.debug("Checked out connection " + idle.connection.getRealHashCode() + " from pool.");
+    }
+    return idle.connection;
+  }
+
+  private PooledConnection openConnection() throws SQLException {
+    int total;
+    do {
+      total = totalCount.get();
+      if (total >= poolMaximumActiveConnections) {
+        return null;
+      }
+    } while (!totalCount.compareAndSet(total, total + 1));
+    try {
+      PooledConnection conn = new PooledConnection(dataSource.getConnection(), this);
+      if (log.isDebugEnabled()) {
+        log.debug("Created connection " + conn.getRealHashCode() + ".");
+      }
+      return conn;
+    } catch (SQLException e) {
+      discardConnection();
+      throw e;
+    } catch (RuntimeException e) {
+      discardConnection();
+      throw e;
+    }
+  }
+
+  private PooledConnection claimOverdueConnection() throws SQLException {
+    PooledConnection overdue = null;
+    long longestCheckoutTime = poolMaximumCheckoutTime;
+    for (PooledConnection conn : activeConnections.keySet()) {
+      long checkoutTime = conn.getCheckoutTime();
+      if (checkoutTime > longestCheckoutTime) {
+        overdue = conn;
+        longestCheckoutTime = checkoutTime;
+      }
+    }
+    if (overdue == null || activeConnections.get(overdue) != overdue || activeConnections.remove(overdue) == null) {
+      return null;
+    }
+    // Can claim overdue connection
+    state().claimedOverdueConnectionCount.incrementAndGet();
+    state().accumulatedCheckoutTimeOfOverdueConnections.addAndGet(longestCheckoutTime);
+    state().accumulatedCheckoutTime.addAndGet(longestCheckoutTime);
+    rollbackOrDiscard(overdue);
+    PooledConnection conn = new PooledConnection(overdue.getRealConnection(), this);
+    overdue.invalidate();
+    if (log.isDebugEnabled()) {
+      log.debug("Claimed overdue connection " + conn.getRealHashCode() + ".");
+    }
+    return conn;
+  }
+
+  /*
+   * Returns null when the wait timed out or a slot was freed, the caller then tries again.
+   */
+  private PooledConnection waitForConnection() throws InterruptedException, SQLException {
+    final Waiter waiter = new Waiter();
+    waiters.offer(waiter);
+    // connections returned before the waiter was queued are not handed off, look for them once more
+    final PooledConnection idle = claimIdleConnection();
+    if (idle != null || totalCount.get() < poolMaximumActiveConnections) {
+      if (waiter.cancel()) {
+        return idle;
+      }
+      if (idle != null) {
+        offerConnection(idle);
+      }
+      return waiter.getConnection();
+    }
+    final long deadline = System.currentTimeMillis() + poolTimeToWait;
+    while (!waiter.isDone()) {
+      if (poolTimeToWait > 0) {
+        long remaining = deadline - System.currentTimeMillis();
+        if (remaining <= 0) {
+          if (waiter.cancel()) {
+            return null;
+          }
+          break;
+        }
+        LockSupport.parkNanos(remaining * 1000000L);
+      } else {
+        // like Object.wait(0), wait until a connection is handed off
+        LockSupport.park();
+      }
+      if (Thread.interrupted()) {
+        if (waiter.cancel()) {
+          throw new InterruptedException();
+        }
+        // the connection arrived anyway, keep the interrupt for the caller
+        Thread.currentThread().interrupt();
+        break;
+      }
+    }
+    return waiter.getConnection();
+  }
+
+  /*
+   * Hands the connection to the oldest waiter or puts it back in the idle queue.
+   */
+  private void offerConnection(PooledConnection conn) throws SQLException {
+    while (true) {
+      if (handOff(conn)) {
+        return;
+      }
+      if (!reserveIdleSlot()) {
+        closeQuietly(conn);
+        discardConnection();
+        if (log.isDebugEnabled()) {
+          log.debug("Closed connection " + conn.getRealHashCode() + ".");
+        }
+        return;
+      }
+      final IdleConnection idle = new IdleConnection(conn);
+      idleConnections.offer(idle);
+      if (log.isDebugEnabled()) {
+        log.debug("Returned connection " + conn.getRealHashCode() + " to pool.");
+      }
+      // a thread may have started waiting after the hand-off found nobody
+      if (waiters.isEmpty() || !idle.claim()) {
+        lastReturned.set(idle);
+        return;
+      }
+      idleConnections.remove(idle);
+      idleCount.decrementAndGet();
+    }
+  }
+
+  private boolean handOff(Object connectionOrSlot) {
+    Waiter waiter;
+    while ((waiter = waiters.poll()) != null) {
+      if (waiter.offer(connectionOrSlot)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private boolean reserveIdleSlot() {
+    int idle;
+    do {
+      idle = idleCount.get();
+      if (idle >= getIdleConnectionLimit()) {
+        return false;
+      }
+    } while (!idleCount.compareAndSet(idle, idle + 1));
+    return true;
+  }
+
+  /*
+   * Closes the idle connections above the adaptive limit once demand has dropped
+   */
+  private void trimIdleConnections() {
+    final int limit = getIdleConnectionLimit();
+    IdleConnection idle;
+    while (idleCount.get() > limit && (idle = idleConnections.poll()) != null) {
+      if (idle.claim()) {
+        idleCount.decrementAndGet();
+        closeQuietly(idle.connection);
+        if (log.isDebugEnabled()) {
+          log.debug("Closed idle connection " + idle.connection.getRealHashCode() + ".");
+        }
+        discardConnection();
+      }
+    }
+  }
+
+  /*
+   * A connection whose rollback fails is closed and its slot freed, otherwise the pool would shrink for good.
+   */
+  private void rollbackOrDiscard(PooledConnection conn) throws SQLException {
+    boolean rolledBack = false;
+    try {
+      if (!conn.getRealConnection().getAutoCommit()) {
+        conn.getRealConnection().rollback();
+      }
+      rolledBack = true;
+    } finally {
+      if (!rolledBack) {
+        closeQuietly(conn);
+        discardConnection();
+      }
+    }
+  }
+
+  private void discardConnection() {
+    totalCount.decrementAndGet();
+    handOff(FREED_SLOT);
+  }
+
+  private void closeQuietly(PooledConnection conn) {
+    try {
+      conn.invalidate();
+
+      Connection realConn = conn.getRealConnection();
+      if (!realConn.getAutoCommit()) {
+        realConn.rollback();
+      }
+      realConn.close();
+    } catch (Exception e) {
+      // ignore
+    }
+  }
+
+  private static class IdleConnection {
+    private final PooledConnection connection;
+    private final AtomicBoolean claimed = new AtomicBoolean();
+
+    IdleConnection(PooledConnection connection) {
+      this.connection = connection;
+    }
+
+    boolean claim() {
+      return claimed.compareAndSet(false, true);
+    }
+  }
+
+  private static class Waiter {
+    private final Thread thread = Thread.currentThread();
+    private final AtomicReference<Object> slot = new AtomicReference<Object>();
+
+    boolean offer(Object connectionOrSlot) {
+      if (slot.compareAndSet(null, connectionOrSlot)) {
+        LockSupport.unpark(thread);
+        return true;
+      }
+      return false;
+    }
+
+    boolean cancel() {
+      return slot.compareAndSet(null, CANCELLED);
+    }
+
+    boolean isDone() {
+      return slot.get() != null;
+    }
+
+    PooledConnection getConnection() {
+      Object value = slot.get();
+      return value instanceof PooledConnection ? (PooledConnection) value : null;
+    }
+  }
+
+  /*
+   * Same statistics as PoolState, updated without locking.
+   */
+  private static class ConcurrentPoolState extends PoolState {
+    private final AtomicLong requestCount = new AtomicLong();
+    private final AtomicLong accumulatedRequestTime = new AtomicLong();
+    private final AtomicLong accumulatedCheckoutTime = new AtomicLong();
+    private final AtomicLong claimedOverdueConnectionCount = new AtomicLong();
+    private final AtomicLong accumulatedCheckoutTimeOfOverdueConnections = new AtomicLong();
+    private final AtomicLong accumulatedWaitTime = new AtomicLong();
+    private final AtomicLong hadToWaitCount = new AtomicLong();
+    private final AtomicLong badConnectionCount = new AtomicLong();
+
+    ConcurrentPoolState(ConcurrentPooledDataSource dataSource) {
+      super(dataSource);
+    }
+
+    @Override
+    public long getRequestCount() {
+      return requestCount.get();
+    }
+
+    @Override
+    public long getAverageRequestTime() {
+      long requests = requestCount.get();
+      return requests == 0 ? 0 : accumulatedRequestTime.get() / requests;
+    }
+
+    @Override
+    public long getAverageWaitTime() {
+      long waits = hadToWaitCount.get();
+      return waits == 0 ? 0 : accumulatedWaitTime.get() / waits;
+    }
+
+    @Override
+    public long getHadToWaitCount() {
+      return hadToWaitCount.get();
+    }
+
+    @Override
+    public long getBadConnectionCount() {
+      return badConnectionCount.get();
+    }
+
+    @Override
+    public long getClaimedOverdueConnectionCount() {
+      return claimedOverdueConnectionCount.get();
+    }
+
+    @Override
+    public long getAverageOverdueCheckoutTime() {
+      long claimed = claimedOverdueConnectionCount.get();
+      return claimed == 0 ? 0 : accumulatedCheckoutTimeOfOverdueConnections.get() / claimed;
+    }
+
+    @Override
+    public long getAverageCheckoutTime() {
+      long requests = requestCount.get();
+      return requests == 0 ? 0 : accumulatedCheckoutTime.get() / requests;
+    }
+
+    @Override
+    public int getIdleConnectionCount() {
+      return ((ConcurrentPooledDataSource) dataSource).idleCount.get();
+    }
+
+    @Override
+    public int getActiveConnectionCount() {
+      return ((ConcurrentPooledDataSource) dataSource).activeConnections.size();
+    }
+  }
+
+}
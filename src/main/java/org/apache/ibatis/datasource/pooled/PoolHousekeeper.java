@@ -0,0 +1,75 @@
+/*
+ *    Copyright 2009-2014 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.datasource.pooled;
+
+import java.lang.ref.WeakReference;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.ibatis.logging.Log;
+import org.apache.ibatis.logging.LogFactory;
+
+/**
+ * Runs the housekeeping of all pools on a single daemon thread.
+ * <p>
+ * The pools are only weakly referenced so that a data source that is no longer used can be garbage collected
+ * without being closed explicitly.
+ */
+final class PoolHousekeeper {
+
+  private static final Log log = LogFactory.getLog(PoolHousekeeper.class);
+
+  private static final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+    public Thread newThread(Runnable runnable) {
+      Thread thread = new Thread(runnable, "mybatis-pool-housekeeper");
+      thread.setDaemon(true);
+      return thread;
+    }
+  });
+
+  private PoolHousekeeper() {
+    // Prevent Instantiation of Static Class
+  }
+
+  static ScheduledFuture<?> schedule(PooledDataSource dataSource, long interval) {
+    return executor.scheduleWithFixedDelay(new Task(dataSource), interval, interval, TimeUnit.MILLISECONDS);
+  }
+
+  private static class Task implements Runnable {
+    private final WeakReference<PooledDataSource> dataSource;
+
+    Task(PooledDataSource dataSource) {
+      this.dataSource = new WeakReference<PooledDataSource>(dataSource);
+    }
+
+    public void run() {
+      final PooledDataSource ds = dataSource.get();
+      if (ds == null) {
+        // an exception suppresses the following runs of a periodic task
+        throw new IllegalStateException("Pool has been garbage collected.");
+      }
+      try {
+        ds.housekeep();
+      } catch (Exception e) {
+        log.error("Housekeeping of the connection pool failed. Cause: " + e, e);
+      }
+    }
+  }
+
+}
@@ -0,0 +1,136 @@
+/*
+ *    Copyright 2009-2014 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.datasource.pooled;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.apache.ibatis.metrics.LatencyHistogram;
+
+/**
+ * Latency histograms and utilization of a {@link PooledDataSource}.
+ * <p>
+ * Unlike {@link PoolState} it is updated and read without locking, so it can be polled by a monitoring
+ * thread while the pool is under load.
+ */
+public class PoolMetrics {
+
+  public static final int UTILIZATION_BUCKETS = 11;
+
+  private final LatencyHistogram requestTimes = new LatencyHistogram();
+  private final LatencyHistogram checkoutTimes = new LatencyHistogram();
+  private final LatencyHistogram pingTimes = new LatencyHistogram();
+  // checkouts by tenths of poolMaximumActiveConnections in use, the last bucket is a full pool
+  private final AtomicLongArray utilization = new AtomicLongArray(UTILIZATION_BUCKETS);
+  private final AtomicInteger peakActiveConnections = new AtomicInteger();
+  private final AtomicLong leakedConnectionCount = new AtomicLong();
+
+  // peak of active connections in the current and in the previous window, for the adaptive idle limit
+  private final AtomicLong windowStart = new AtomicLong();
+  private final AtomicInteger windowPeak = new AtomicInteger();
+  private volatile int previousWindowPeak;
+
+  /**
+   * @return the time it took to get a connection from the pool, including waiting
+   */
+  public LatencyHistogram getRequestTimes() {
+    return requestTimes;
+  }
+
+  /**
+   * @return how long connections were used before being returned to the pool
+   */
+  public LatencyHistogram getCheckoutTimes() {
+    return checkoutTimes;
+  }
+
+  /**
+   * @return the execution time of the ping query
+   */
+  public LatencyHistogram getPingTimes() {
+    return pingTimes;
+  }
+
+  /**
+   * @return the number of checkouts by the fraction of the pool that was in use, bucket i counts
+   *         checkouts that left between i and i + 1 tenths of the maximum active connections in use
+   */
+  public long[] getUtilization() {
+    long[] result = new long[UTILIZATION_BUCKETS];
+    for (int i = 0; i < UTILIZATION_BUCKETS; i++) {
+      result[i] = utilization.get(i);
+    }
+    return result;
+  }
+
+  public int getPeakActiveConnections() {
+    return peakActiveConnections.get();
+  }
+
+  public long getLeakedConnectionCount() {
+    return leakedConnectionCount.get();
+  }
+
+  void recordRequest(long nanos, int activeConnections, int maximumActiveConnections, long window, long now) {
+    requestTimes.record(nanos);
+    if (maximumActiveConnections > 0) {
+      utilization.incrementAndGet(Math.min(activeConnections * 10 / maximumActiveConnections, UTILIZATION_BUCKETS - 1));
+    }
+    raise(peakActiveConnections, activeConnections);
+    if (window > 0) {
+      rollWindow(window, now);
+      raise(windowPeak, activeConnections);
+    }
+  }
+
+  void recordCheckout(long millis) {
+    checkoutTimes.record(millis * 1000000L);
+  }
+
+  void recordPing(long nanos) {
+    pingTimes.record(nanos);
+  }
+
+  void recordLeak() {
+    leakedConnectionCount.incrementAndGet();
+  }
+
+  /*
+   * The most connections that were active at the same time during the current and the previous window.
+   */
+  int getRecentPeakActiveConnections(long window, long now) {
+    rollWindow(window, now);
+    return Math.max(windowPeak.get(), previousWindowPeak);
+  }
+
+  private void rollWindow(long window, long now) {
+    final long start = windowStart.get();
+    if (now - start >= window && windowStart.compareAndSet(start, now)) {
+      // a window without any checkout means there was no demand during the previous one either
+      previousWindowPeak = now - start >= 2 * window ? 0 : windowPeak.get();
+      windowPeak.set(0);
+    }
+  }
+
+  private static void raise(AtomicInteger peak, int value) {
+    int current;
+    while (value > (current = peak.get()) && !peak.compareAndSet(current, value)) {
+      // retry
+    }
+  }
+
+}
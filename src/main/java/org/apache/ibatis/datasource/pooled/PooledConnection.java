@@ -29,7 +29,7 @@ import org.apache.ibatis.reflection.ExceptionUtil;
 class PooledConnection implements InvocationHandler {
 
   private static final String CLOSE = "close";
-  private static final Class<?>[] IFACES = new Class<?>[] { Connection.class };
+  private static final Class<?>[] IFACES = new Class<?>[] { Connection.class, StatementCacheHolder.class };
 
   private int hashCode = 0;
   private PooledDataSource dataSource;
@@ -38,8 +38,12 @@ class PooledConnection implements InvocationHandler {
   private long checkoutTimestamp;
   private long createdTimestamp;
   private long lastUsedTimestamp;
+  private long lastValidatedTimestamp;
   private int connectionTypeCode;
   private boolean valid;
+  private StatementCache statementCache;
+  private Throwable checkoutStack;
+  private boolean leakReported;
 
   /*
    * Constructor for SimplePooledConnection that uses the Connection and PooledDataSource passed in
@@ -51,10 +55,10 @@ class PooledConnection implements InvocationHandler {
     this.hashCode = connection.hashCode();
     this.realConnection = connection;
     this.dataSource = dataSource;
-    this.createdTimestamp = System.currentTimeMillis();
-    this.lastUsedTimestamp = System.currentTimeMillis();
+    this.createdTimestamp = dataSource.currentTimeMillis();
+    this.lastUsedTimestamp = dataSource.currentTimeMillis();
     this.valid = true;
-    this.proxyConnection = (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), IFACES, this);
+    this.proxyConnection = (Connection) Proxy.newProxyInstance(PooledConnection.class.getClassLoader(), IFACES, this);
   }
 
   /*
@@ -91,6 +95,28 @@ class PooledConnection implements InvocationHandler {
     return proxyConnection;
   }
 
+  /*
+   * Getter for the prepared statement cache of the real connection, created on first use
+   *
+   * @return The cache or null if statement caching is disabled or the connection is invalid
+   */
+  public StatementCache getStatementCache() {
+    if (statementCache == null && valid && dataSource.getPoolStatementCacheSize() > 0) {
+      statementCache = new StatementCache(dataSource.getPoolStatementCacheSize());
+    }
+    return valid ? statementCache : null;
+  }
+
+  /*
+   * Hands the statements cached for the real connection over to the connection that wraps it next
+   *
+   * @param previous - the connection that wrapped the same real connection before
+   */
+  public void takeStatementCache(PooledConnection previous) {
+    this.statementCache = previous.statementCache;
+    previous.statementCache = null;
+  }
+
   /*
    * Gets the hashcode of the real connection (or 0 if it is null)
    *
@@ -164,7 +190,34 @@ class PooledConnection implements InvocationHandler {
    * @return - the time since the last use
    */
   public long getTimeElapsedSinceLastUse() {
-    return System.currentTimeMillis() - lastUsedTimestamp;
+    return dataSource.currentTimeMillis() - lastUsedTimestamp;
+  }
+
+  /*
+   * Getter for the time that the ping query last succeeded on the connection
+   *
+   * @return - the timestamp
+   */
+  public long getLastValidatedTimestamp() {
+    return lastValidatedTimestamp;
+  }
+
+  /*
+   * Setter for the time that the ping query last succeeded on the connection
+   *
+   * @param lastValidatedTimestamp - the timestamp
+   */
+  public void setLastValidatedTimestamp(long lastValidatedTimestamp) {
+    this.lastValidatedTimestamp = lastValidatedTimestamp;
+  }
+
+  /*
+   * Getter for the time since the connection was last used or validated, whichever is later
+   *
+   * @return - the time since the last use or validation
+   */
+  public long getTimeElapsedSinceLastCheck() {
+    return dataSource.currentTimeMillis() - Math.max(lastUsedTimestamp, lastValidatedTimestamp);
   }
 
   /*
@@ -173,7 +226,7 @@ class PooledConnection implements InvocationHandler {
    * @return the age
    */
   public long getAge() {
-    return System.currentTimeMillis() - createdTimestamp;
+    return dataSource.currentTimeMillis() - createdTimestamp;
   }
 
   /*
@@ -200,7 +253,43 @@ class PooledConnection implements InvocationHandler {
    * @return the time
    */
   public long getCheckoutTime() {
-    return System.currentTimeMillis() - checkoutTimestamp;
+    return dataSource.currentTimeMillis() - checkoutTimestamp;
+  }
+
+  /*
+   * Getter for where this connection was checked out, only captured when leak detection is enabled
+   *
+   * @return the stack trace of the checkout or null
+   */
+  public Throwable getCheckoutStack() {
+    return checkoutStack;
+  }
+
+  /*
+   * Setter for where this connection was checked out
+   *
+   * @param checkoutStack the stack trace of the checkout
+   */
+  public void setCheckoutStack(Throwable checkoutStack) {
+    this.checkoutStack = checkoutStack;
+  }
+
+  /*
+   * Getter for whether this connection has already been reported as a possible leak
+   *
+   * @return True if it has been reported
+   */
+  public boolean isLeakReported() {
+    return leakReported;
+  }
+
+  /*
+   * Setter for whether this connection has already been reported as a possible leak
+   *
+   * @param leakReported True if it has been reported
+   */
+  public void setLeakReported(boolean leakReported) {
+    this.leakReported = leakReported;
   }
 
   public int hashCode() {
@@ -236,6 +325,8 @@ class PooledConnection implements InvocationHandler {
     if (CLOSE.hashCode() == methodName.hashCode() && CLOSE.equals(methodName)) {
       dataSource.pushConnection(this);
       return null;
+    } else if (StatementCacheHolder.class.equals(method.getDeclaringClass())) {
+      return getStatementCache();
     } else {
       try {
         if (!Object.class.equals(method.getDeclaringClass())) {
@@ -16,6 +16,7 @@
 package org.apache.ibatis.datasource.pooled;
 
 import java.io.PrintWriter;
+import java.io.StringWriter;
 import java.lang.reflect.InvocationHandler;
 import java.lang.reflect.Proxy;
 import java.sql.Connection;
@@ -23,7 +24,13 @@ import java.sql.DriverManager;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Properties;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.logging.Logger;
 
 import javax.sql.DataSource;
@@ -41,9 +48,14 @@ public class PooledDataSource implements DataSource {
 
   private static final Log log = LogFactory.getLog(PooledDataSource.class);
 
-  private final PoolState state = new PoolState(this);
+  private final PoolState state = createPoolState();
+  private final PoolMetrics metrics = new PoolMetrics();
+  private final AtomicLong lastLeakDetection = new AtomicLong();
+  private ScheduledFuture<?> housekeeping;
+  // connections the housekeeper is opening outside of the pool lock, guarded by state
+  private int openingConnections;
 
-  private final UnpooledDataSource dataSource;
+  protected final UnpooledDataSource dataSource;
 
   // OPTIONAL CONFIGURATION FIELDS
   protected int poolMaximumActiveConnections = 10;
@@ -53,8 +65,14 @@ public class PooledDataSource implements DataSource {
   protected String poolPingQuery = "NO PING QUERY SET";
   protected boolean poolPingEnabled = false;
   protected int poolPingConnectionsNotUsedFor = 0;
+  protected int poolStatementCacheSize = 0;
+  protected int poolLeakDetectionThreshold = 0;
+  protected int poolAdaptiveIdleWindow = 0;
+  protected int poolHousekeepingInterval = 0;
+  protected int poolMaximumLifetime = 0;
+  protected int poolMinimumIdleConnections = 0;
 
-  private int expectedConnectionTypeCode;
+  protected int expectedConnectionTypeCode;
 
   public PooledDataSource() {
     dataSource = new UnpooledDataSource();
@@ -211,6 +229,71 @@ public class PooledDataSource implements DataSource {
     forceCloseAll();
   }
 
+  /*
+   * The number of prepared statements kept open per connection for the REUSE executor, 0 to disable
+   *
+   * @param poolStatementCacheSize the maximum number of statements cached for each connection
+   */
+  public void setPoolStatementCacheSize(int poolStatementCacheSize) {
+    this.poolStatementCacheSize = poolStatementCacheSize;
+    forceCloseAll();
+  }
+
+  /*
+   * Connections checked out for longer than this many milliseconds are logged as possible leaks together
+   * with the stack trace of their checkout, 0 to disable
+   *
+   * @param milliseconds the checkout time after which a connection is reported
+   */
+  public void setPoolLeakDetectionThreshold(int milliseconds) {
+    this.poolLeakDetectionThreshold = milliseconds;
+    forceCloseAll();
+  }
+
+  /*
+   * Keeps as many idle connections as were in use at the same time during the last one or two windows of
+   * this many milliseconds instead of poolMaximumIdleConnections, 0 to disable
+   *
+   * @param milliseconds the length of the window in which demand is observed
+   */
+  public void setPoolAdaptiveIdleWindow(int milliseconds) {
+    this.poolAdaptiveIdleWindow = milliseconds;
+    forceCloseAll();
+  }
+
+  /*
+   * How often a background thread validates idle connections, retires them by poolMaximumLifetime and opens
+   * connections up to poolMinimumIdleConnections, 0 to disable
+   *
+   * @param milliseconds the delay between two runs
+   */
+  public void setPoolHousekeepingInterval(int milliseconds) {
+    this.poolHousekeepingInterval = milliseconds;
+    forceCloseAll();
+    scheduleHousekeeping();
+  }
+
+  /*
+   * Connections older than this many milliseconds are closed instead of being returned to the pool, 0 to keep
+   * them forever
+   *
+   * @param milliseconds the maximum age of a connection
+   */
+  public void setPoolMaximumLifetime(int milliseconds) {
+    this.poolMaximumLifetime = milliseconds;
+    forceCloseAll();
+  }
+
+  /*
+   * The number of idle connections the housekeeping thread keeps open
+   *
+   * @param poolMinimumIdleConnections The minimum number of idle connections
+   */
+  public void setPoolMinimumIdleConnections(int poolMinimumIdleConnections) {
+    this.poolMinimumIdleConnections = poolMinimumIdleConnections;
+    forceCloseAll();
+  }
+
   public String getDriver() {
     return dataSource.getDriver();
   }
@@ -267,6 +350,30 @@ public class PooledDataSource implements DataSource {
     return poolPingConnectionsNotUsedFor;
   }
 
+  public int getPoolStatementCacheSize() {
+    return poolStatementCacheSize;
+  }
+
+  public int getPoolLeakDetectionThreshold() {
+    return poolLeakDetectionThreshold;
+  }
+
+  public int getPoolAdaptiveIdleWindow() {
+    return poolAdaptiveIdleWindow;
+  }
+
+  public int getPoolHousekeepingInterval() {
+    return poolHousekeepingInterval;
+  }
+
+  public int getPoolMaximumLifetime() {
+    return poolMaximumLifetime;
+  }
+
+  public int getPoolMinimumIdleConnections() {
+    return poolMinimumIdleConnections;
+  }
+
   /*
    * Closes all active and idle connections in the pool
    */
@@ -311,24 +418,210 @@ public class PooledDataSource implements DataSource {
     return state;
   }
 
-  private int assembleConnectionTypeCode(String url, String username, String password) {
+  public PoolMetrics getPoolMetrics() {
+    return metrics;
+  }
+
+  /*
+   * Creates the statistics holder of this pool. Called during construction.
+   */
+  protected PoolState createPoolState() {
+    return new PoolState(this);
+  }
+
+  protected int assembleConnectionTypeCode(String url, String username, String password) {
     return ("" + url + username + password).hashCode();
   }
 
+  /*
+   * The number of idle connections the pool keeps, which follows the observed demand in adaptive mode
+   */
+  protected int getIdleConnectionLimit() {
+    if (poolAdaptiveIdleWindow > 0) {
+      int demand = Math.max(metrics.getRecentPeakActiveConnections(poolAdaptiveIdleWindow, currentTimeMillis()), poolMinimumIdleConnections);
+      return Math.min(demand, poolMaximumActiveConnections);
+    }
+    return poolMaximumIdleConnections;
+  }
+
+  /*
+   * Records a successful checkout, called once the connection is active
+   */
+  protected void connectionCheckedOut(PooledConnection conn, int activeConnections, long requestStartNanos) {
+    metrics.recordRequest(System.nanoTime() - requestStartNanos, activeConnections, poolMaximumActiveConnections, poolAdaptiveIdleWindow,
+        currentTimeMillis());
+    if (poolLeakDetectionThreshold > 0) {
+      conn.setCheckoutStack(new Throwable("Connection " + conn.getRealHashCode() + " was checked out here"));
+    }
+  }
+
+  /*
+   * Records the return of a valid connection to the pool
+   */
+  protected void connectionCheckedIn(PooledConnection conn) {
+    metrics.recordCheckout(conn.getCheckoutTime());
+    if (conn.isLeakReported()) {
+      log.warn("Connection " + conn.getRealHashCode() + " reported as a possible leak was returned after " + conn.getCheckoutTime() + " milliseconds.");
+    }
+  }
+
+  /*
+   * Logs active connections checked out for longer than poolLeakDetectionThreshold, once each. Runs on checkout,
+   * before waiting for a connection and from the housekeeper. Checks at most twice per threshold, the caller must
+   * guard the collection against concurrent changes.
+   */
+  protected void detectLeaks(Collection<PooledConnection> activeConnections) {
+    if (poolLeakDetectionThreshold <= 0) {
+      return;
+    }
+    final long now = currentTimeMillis();
+    final long last = lastLeakDetection.get();
+    if (now - last < poolLeakDetectionThreshold / 2 || !lastLeakDetection.compareAndSet(last, now)) {
+      return;
+    }
+    for (PooledConnection conn : activeConnections) {
+      long checkoutTime = conn.getCheckoutTime();
+      if (checkoutTime > poolLeakDetectionThreshold && !conn.isLeakReported()) {
+        conn.setLeakReported(true);
+        metrics.recordLeak();
+        StringWriter stack = new StringWriter();
+        if (conn.getCheckoutStack() != null) {
+          conn.getCheckoutStack().printStackTrace(new PrintWriter(stack));
+        }
+        log.warn("Connection " + conn.getRealHashCode() + " has been checked out for " + checkoutTime
+            + " milliseconds, possible connection leak. " + stack);
+      }
+    }
+  }
+
+  /*
+   * The clock of connection timestamps, leak detection and the adaptive idle limit, replaced in tests
+   */
+  long currentTimeMillis() {
+    return System.currentTimeMillis();
+  }
+
+  protected boolean isExpired(PooledConnection conn) {
+    return poolMaximumLifetime > 0 && conn.getAge() > poolMaximumLifetime;
+  }
+
+  /*
+   * True if the ping query would run on checkout before the next housekeeping run
+   */
+  protected boolean needsValidation(PooledConnection conn) {
+    return poolPingEnabled && poolPingConnectionsNotUsedFor >= 0
+        && conn.getTimeElapsedSinceLastCheck() + poolHousekeepingInterval > poolPingConnectionsNotUsedFor;
+  }
+
+  /*
+   * Validates an idle connection that has been taken out of the pool, regardless of when it was last used
+   */
+  protected boolean validateConnection(PooledConnection conn) {
+    try {
+      if (conn.getRealConnection().isClosed()) {
+        return false;
+      }
+    } catch (SQLException e) {
+      return false;
+    }
+    return !poolPingEnabled || executePingQuery(conn);
+  }
+
+  private synchronized void scheduleHousekeeping() {
+    if (housekeeping != null) {
+      housekeeping.cancel(false);
+      housekeeping = null;
+    }
+    if (poolHousekeepingInterval > 0) {
+      housekeeping = PoolHousekeeper.schedule(this, poolHousekeepingInterval);
+    }
+  }
+
+  /*
+   * Called periodically from the housekeeping thread when poolHousekeepingInterval is set. Pings idle connections
+   * that would otherwise be pinged on checkout, so that checkouts get connections that have already been validated,
+   * and opens connections up to poolMinimumIdleConnections. Both happen outside of the pool lock. Also looks for
+   * leaks, in case no checkout succeeds for a while.
+   */
+  protected void housekeep() throws SQLException {
+    final int typeCode = expectedConnectionTypeCode;
+    final List<PooledConnection> toValidate = new ArrayList<PooledConnection>();
+    synchronized (state) {
+      detectLeaks(state.activeConnections);
+      for (Iterator<PooledConnection> it = state.idleConnections.iterator(); it.hasNext();) {
+        PooledConnection conn = it.next();
+        if (isExpired(conn)) {
+          it.remove();
+          closeIdleConnection(conn);
+        } else if (needsValidation(conn)) {
+          it.remove();
+          toValidate.add(conn);
+        }
+      }
+    }
+    for (PooledConnection conn : toValidate) {
+      final boolean valid = validateConnection(conn);
+      synchronized (state) {
+        // the pool may have been reset while the connection was out of it
+        if (valid && typeCode == expectedConnectionTypeCode && state.idleConnections.size() < getIdleConnectionLimit()) {
+          state.idleConnections.add(conn);
+          state.notifyAll();
+        } else {
+          closeIdleConnection(conn);
+        }
+      }
+    }
+    while (true) {
+      synchronized (state) {
+        if (state.idleConnections.size() + openingConnections >= Math.min(poolMinimumIdleConnections, getIdleConnectionLimit())
+            || state.activeConnections.size() + state.idleConnections.size() + openingConnections >= poolMaximumActiveConnections) {
+          return;
+        }
+        openingConnections++;
+      }
+      // connecting can take long, checkouts and returns must not wait for it
+      PooledConnection conn = null;
+      try {
+        conn = new PooledConnection(dataSource.getConnection(), this);
+      } finally {
+        synchronized (state) {
+          openingConnections--;
+        }
+      }
+      synchronized (state) {
+        // the pool may have been reset or filled up while the connection was opened
+        if (typeCode != expectedConnectionTypeCode
+            || state.idleConnections.size() >= Math.min(poolMinimumIdleConnections, getIdleConnectionLimit())
+            || state.activeConnections.size() + state.idleConnections.size() >= poolMaximumActiveConnections) {
+          closeIdleConnection(conn);
+          return;
+        }
+        if (log.isDebugEnabled()) {
+          log.debug("Created idle connection " + conn.getRealHashCode() + ".");
+        }
+        state.idleConnections.add(conn);
+        state.notifyAll();
+      }
+    }
+  }
+
   protected void pushConnection(PooledConnection conn) throws SQLException {
 
     synchronized (state) {
       state.activeConnections.remove(conn);
       if (conn.isValid()) {
-        if (state.idleConnections.size() < poolMaximumIdleConnections && conn.getConnectionTypeCode() == expectedConnectionTypeCode) {
+        connectionCheckedIn(conn);
+        if (state.idleConnections.size() < getIdleConnectionLimit() && conn.getConnectionTypeCode() == expectedConnectionTypeCode && !isExpired(conn)) {
           state.accumulatedCheckoutTime += conn.getCheckoutTime();
           if (!conn.getRealConnection().getAutoCommit()) {
             conn.getRealConnection().rollback();
           }
           PooledConnection newConn = new PooledConnection(conn.getRealConnection(), this);
+          newConn.takeStatementCache(conn);
           state.idleConnections.add(newConn);
           newConn.setCreatedTimestamp(conn.getCreatedTimestamp());
           newConn.setLastUsedTimestamp(conn.getLastUsedTimestamp());
+          newConn.setLastValidatedTimestamp(conn.getLastValidatedTimestamp());
           conn.invalidate();
           if (log.isDebugEnabled()) {
             log.debug("Returned connection " + newConn.getRealHashCode() + " to pool.");
@@ -358,6 +651,7 @@ public class PooledDataSource implements DataSource {
     boolean countedWait = false;
     PooledConnection conn = null;
     long t = System.currentTimeMillis();
+    final long startNanos = System.nanoTime();
     int localBadConnectionCount = 0;
 
     while (conn == null) {
@@ -407,6 +701,8 @@ public class PooledDataSource implements DataSource {
                 if (log.isDebugEnabled()) {
                   log.debug("Waiting as long as " + poolTimeToWait + " milliseconds for connection.");
                 }
+                // leaks matter most when they exhaust the pool
+                detectLeaks(state.activeConnections);
                 long wt = System.currentTimeMillis();
                 state.wait(poolTimeToWait);
                 state.accumulatedWaitTime += System.currentTimeMillis() - wt;
@@ -422,11 +718,16 @@ public class PooledDataSource implements DataSource {
               conn.getRealConnection().rollback();
             }
             conn.setConnectionTypeCode(assembleConnectionTypeCode(dataSource.getUrl(), username, password));
-            conn.setCheckoutTimestamp(System.currentTimeMillis());
-            conn.setLastUsedTimestamp(System.currentTimeMillis());
+            conn.setCheckoutTimestamp(currentTimeMillis());
+            conn.setLastUsedTimestamp(currentTimeMillis());
             state.activeConnections.add(conn);
             state.requestCount++;
             state.accumulatedRequestTime += System.currentTimeMillis() - t;
+            connectionCheckedOut(conn, state.activeConnections.size(), startNanos);
+            detectLeaks(state.activeConnections);
+            if (poolAdaptiveIdleWindow > 0) {
+              trimIdleConnections();
+            }
           } else {
             if (log.isDebugEnabled()) {
               log.debug("A bad connection (" + conn.getRealHashCode() + ") was returned from the pool, getting another connection.");
@@ -456,6 +757,28 @@ public class PooledDataSource implements DataSource {
     return conn;
   }
 
+  /*
+   * Closes the idle connections above the adaptive limit once demand has dropped
+   */
+  private void trimIdleConnections() {
+    final int limit = getIdleConnectionLimit();
+    while (state.idleConnections.size() > limit) {
+      closeIdleConnection(state.idleConnections.remove(state.idleConnections.size() - 1));
+    }
+  }
+
+  private void closeIdleConnection(PooledConnection conn) {
+    conn.invalidate();
+    try {
+      conn.getRealConnection().close();
+    } catch (SQLException e) {
+      // ignore
+    }
+    if (log.isDebugEnabled()) {
+      log.debug("Closed idle connection " + conn.getRealHashCode() + ".");
+    }
+  }
+
   /*
    * Method to check to see if a connection is still usable
    *
@@ -476,41 +799,48 @@ public class PooledDataSource implements DataSource {
 
     if (result) {
       if (poolPingEnabled) {
-        if (poolPingConnectionsNotUsedFor >= 0 && conn.getTimeElapsedSinceLastUse() > poolPingConnectionsNotUsedFor) {
-          try {
-            if (log.isDebugEnabled()) {
-              log.debug("Testing connection " + conn.getRealHashCode() + " ...");
-            }
-            Connection realConn = conn.getRealConnection();
-            Statement statement = realConn.createStatement();
-            ResultSet rs = statement.executeQuery(poolPingQuery);
-            rs.close();
-            statement.close();
-            if (!realConn.getAutoCommit()) {
-              realConn.rollback();
-            }
-            result = true;
-            if (log.isDebugEnabled()) {
-              log.debug("Connection " + conn.getRealHashCode() + " is GOOD!");
-            }
-          } catch (Exception e) {
-            log.warn("Execution of ping query '" + poolPingQuery + "' failed: " + e.getMessage());
-            try {
-              conn.getRealConnection().close();
-            } catch (Exception e2) {
-              //ignore
-            }
-            result = false;
-            if (log.isDebugEnabled()) {
-              log.debug("Connection " + conn.getRealHashCode() + " is BAD: " + e.getMessage());
-            }
-          }
+        if (poolPingConnectionsNotUsedFor >= 0 && conn.getTimeElapsedSinceLastCheck() > poolPingConnectionsNotUsedFor) {
+          result = executePingQuery(conn);
         }
       }
     }
     return result;
   }
 
+  private boolean executePingQuery(PooledConnection conn) {
+    try {
+      if (log.isDebugEnabled()) {
+        log.debug("Testing connection " + conn.getRealHashCode() + " ...");
+      }
+      Connection realConn = conn.getRealConnection();
+      final long start = System.nanoTime();
+      Statement statement = realConn.createStatement();
+      ResultSet rs = statement.executeQuery(poolPingQuery);
+      rs.close();
+      statement.close();
+      if (!realConn.getAutoCommit()) {
+        realConn.rollback();
+      }
+      metrics.recordPing(System.nanoTime() - start);
+      conn.setLastValidatedTimestamp(currentTimeMillis());
+      if (log.isDebugEnabled()) {
+        log.debug("Connection " + conn.getRealHashCode() + " is GOOD!");
+      }
+      return true;
+    } catch (Exception e) {
+      log.warn("Execution of ping query '" + poolPingQuery + "' failed: " + e.getMessage());
+      try {
+        conn.getRealConnection().close();
+      } catch (Exception e2) {
+        //ignore
+      }
+      if (log.isDebugEnabled()) {
+        log.debug("Connection " + conn.getRealHashCode() + " is BAD: " + e.getMessage());
+      }
+      return false;
+    }
+  }
+
   /*
    * Unwraps a pooled connection to get to the 'real' connection
    *
@@ -0,0 +1,124 @@
+/*
+ *    Copyright 2009-2014 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.datasource.pooled;
+
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+
+/**
+ * Bounded cache of prepared statements that belongs to one pooled physical connection, so the
+ * statements survive the sessions that use the connection.
+ * <p>
+ * A statement is taken out of the cache while a session uses it and released back when the session
+ * is done with it, so eviction never closes a statement that is still in use. When more than
+ * maxSize statements are released, the least recently released ones are closed.
+ * <p>
+ * Like the connection itself, the cache is only used by one thread at a time.
+ */
+public class StatementCache {
+
+  private final int maxSize;
+  private final LinkedHashMap<Object, Statement> statements = new LinkedHashMap<Object, Statement>();
+  private long hits;
+  private long misses;
+
+  public StatementCache(int maxSize) {
+    this.maxSize = maxSize;
+  }
+
+  /*
+   * Removes the statement cached for the key, if any.
+   *
+   * @param key - identifies the statement, e.g. the sql and the options it was prepared with
+   * @return the statement or null if there is none (or it is no longer usable)
+   */
+  public Statement take(Object key) {
+    Statement stmt = statements.remove(key);
+    if (stmt != null && !isUsable(stmt)) {
+      close(stmt);
+      stmt = null;
+    }
+    if (stmt == null) {
+      misses++;
+    } else {
+      hits++;
+    }
+    return stmt;
+  }
+
+  /*
+   * Puts a statement back into the cache, closing the least recently used ones above the maximum size.
+   *
+   * @param key  - identifies the statement
+   * @param stmt - the statement
+   */
+  public void release(Object key, Statement stmt) {
+    Statement previous = statements.put(key, stmt);
+    if (previous != null && previous != stmt) {
+      close(previous);
+    }
+    Iterator<Statement> eldest = statements.values().iterator();
+    while (statements.size() > maxSize) {
+      close(eldest.next());
+      eldest.remove();
+    }
+  }
+
+  /*
+   * Closes all cached statements.
+   */
+  public void clear() {
+    for (Statement stmt : statements.values()) {
+      close(stmt);
+    }
+    statements.clear();
+  }
+
+  public int size() {
+    return statements.size();
+  }
+
+  public int getMaxSize() {
+    return maxSize;
+  }
+
+  public long getHits() {
+    return hits;
+  }
+
+  public long getMisses() {
+    return misses;
+  }
+
+  private static boolean isUsable(Statement stmt) {
+    try {
+      return !stmt.getConnection().isClosed();
+    } catch (SQLException e) {
+      return false;
+    }
+  }
+
+  private static void close(Statement stmt) {
+    try {
+      stmt.close();
+    } catch (SQLException e) {
+      // ignore
+    }
+  }
+
+}
@@ -0,0 +1,29 @@
+/*
+ *    Copyright 2009-2014 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.datasource.pooled;
+
+/**
+ * Implemented by the connections of a pooled data source, which keep a {@link StatementCache} for
+ * their physical connection.
+ */
+public interface StatementCacheHolder {
+
+  /*
+   * @return the statement cache or null if statement caching is disabled or the connection is invalid
+   */
+  StatementCache getStatementCache();
+
+}
@@ -25,6 +25,8 @@ import java.util.concurrent.ConcurrentLinkedQueue;
 
 import org.apache.ibatis.cache.CacheKey;
 import org.apache.ibatis.cache.impl.PerpetualCache;
+import org.apache.ibatis.cursor.Cursor;
+import org.apache.ibatis.executor.metrics.QueryMetrics;
 import org.apache.ibatis.logging.Log;
 import org.apache.ibatis.logging.LogFactory;
 import org.apache.ibatis.logging.jdbc.ConnectionLogger;
@@ -111,7 +113,17 @@ public abstract class BaseExecutor implements Executor {
 		if (closed)
 			throw new ExecutorException("Executor was closed.");
 		clearLocalCache();
-		return doUpdate(ms, parameter);
+		if (!isTimed()) {
+			return doUpdate(ms, parameter);
+		}
+		final long start = System.nanoTime();
+		final int updateCount = doUpdate(ms, parameter);
+		final long elapsed = System.nanoTime() - start;
+		if (configuration.getQueryMetrics() != null) {
+			configuration.getQueryMetrics().recordUpdate(ms, elapsed, updateCount);
+		}
+		reportIfSlow(ms, parameter, elapsed);
+		return updateCount;
 	}
 
 	public List<BatchResult> flushStatements() throws SQLException {
@@ -147,6 +159,7 @@ public abstract class BaseExecutor implements Executor {
 			//
 			clearLocalCache();
 		}
+		final QueryMetrics queryMetrics = configuration.getQueryMetrics();
 		// 结果集
 		List<E> list;
 		try {
@@ -154,6 +167,9 @@ public abstract class BaseExecutor implements Executor {
 			queryStack++;
 			// 
 			list = resultHandler == null ? (List<E>) localCache.getObject(key) : null;
+			if (queryMetrics != null && resultHandler == null) {
+				queryMetrics.recordCacheAccess(ms, true, list != null);
+			}
 			if (list != null) {
 				// 这一步说明 list 有值，但这个值是从本地缓存中取得到的。
 				handleLocallyCachedOutputParameters(ms, key, parameter, boundSql);
@@ -177,6 +193,14 @@ public abstract class BaseExecutor implements Executor {
 		return list;
 	}
 
+	public <E> Cursor<E> queryCursor(MappedStatement ms, Object parameter, RowBounds rowBounds) throws SQLException {
+		ErrorContext.instance().resource(ms.getResource()).activity("executing a query").object(ms.getId());
+		if (closed)
+			throw new ExecutorException("Executor was closed.");
+		BoundSql boundSql = ms.getBoundSql(parameter);
+		return doQueryCursor(ms, parameter, rowBounds, boundSql);
+	}
+
 	public void deferLoad(MappedStatement ms, MetaObject resultObject, String property, CacheKey key, Class<?> targetType) {
 		if (closed)
 			throw new ExecutorException("Executor was closed.");
@@ -191,12 +215,12 @@ public abstract class BaseExecutor implements Executor {
 	public CacheKey createCacheKey(MappedStatement ms, Object parameterObject, RowBounds rowBounds, BoundSql boundSql) {
 		if (closed)
 			throw new ExecutorException("Executor was closed.");
-		CacheKey cacheKey = new CacheKey();
+		List<ParameterMapping> parameterMappings = boundSql.getParameterMappings();
+		CacheKey cacheKey = new CacheKey(4 + parameterMappings.size());
 		cacheKey.update(ms.getId());
 		cacheKey.update(rowBounds.getOffset());
 		cacheKey.update(rowBounds.getLimit());
 		cacheKey.update(boundSql.getSql());
-		List<ParameterMapping> parameterMappings = boundSql.getParameterMappings();
 		TypeHandlerRegistry typeHandlerRegistry = ms.getConfiguration().getTypeHandlerRegistry();
 		for (int i = 0; i < parameterMappings.size(); i++) { // mimic DefaultParameterHandler logic
 			ParameterMapping parameterMapping = parameterMappings.get(i);
@@ -270,6 +294,8 @@ public abstract class BaseExecutor implements Executor {
 	protected abstract <E> List<E> doQuery(MappedStatement ms, Object parameter, RowBounds rowBounds, ResultHandler resultHandler, BoundSql boundSql)
 			throws SQLException;
 
+	protected abstract <E> Cursor<E> doQueryCursor(MappedStatement ms, Object parameter, RowBounds rowBounds, BoundSql boundSql) throws SQLException;
+
 	protected void closeStatement(Statement statement) {
 		if (statement != null) {
 			try {
@@ -313,6 +339,9 @@ public abstract class BaseExecutor implements Executor {
 	private <E> List<E> queryFromDatabase(MappedStatement ms, Object parameter, RowBounds rowBounds, ResultHandler resultHandler, CacheKey key,
 			BoundSql boundSql) throws SQLException {
 		List<E> list;
+		// 只统计真正访问数据库的查询，命中本地缓存的不计入耗时
+		final boolean timed = isTimed();
+		final long start = timed ? System.nanoTime() : 0;
 		//
 		localCache.putObject(key, EXECUTION_PLACEHOLDER);
 		try {
@@ -322,6 +351,14 @@ public abstract class BaseExecutor implements Executor {
 			//
 			localCache.removeObject(key);
 		}
+		if (timed) {
+			final long elapsed = System.nanoTime() - start;
+			final QueryMetrics queryMetrics = configuration.getQueryMetrics();
+			if (queryMetrics != null) {
+				queryMetrics.recordQuery(ms, elapsed, list == null ? 0 : list.size());
+			}
+			reportIfSlow(ms, parameter, elapsed);
+		}
 		//
 		localCache.putObject(key, list);
 		//
@@ -332,6 +369,17 @@ public abstract class BaseExecutor implements Executor {
 		return list;
 	}
 
+	private boolean isTimed() {
+		return configuration.getQueryMetrics() != null || configuration.getSlowQueryThreshold() > 0;
+	}
+
+	private void reportIfSlow(MappedStatement ms, Object parameter, long elapsedNanos) {
+		final int threshold = configuration.getSlowQueryThreshold();
+		if (threshold > 0 && elapsedNanos >= threshold * 1000000L) {
+			configuration.getSlowQueryReporter().reportSlowQuery(ms, parameter, elapsedNanos / 1000000L);
+		}
+	}
+
 	protected Connection getConnection(Log statementLog) throws SQLException {
 		Connection connection = transaction.getConnection();
 		if (statementLog.isDebugEnabled()) {
@@ -21,14 +21,20 @@ import java.sql.SQLException;
 import java.sql.Statement;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
+import org.apache.ibatis.cursor.Cursor;
 import org.apache.ibatis.executor.keygen.Jdbc3KeyGenerator;
 import org.apache.ibatis.executor.keygen.KeyGenerator;
 import org.apache.ibatis.executor.keygen.NoKeyGenerator;
 import org.apache.ibatis.executor.statement.StatementHandler;
 import org.apache.ibatis.mapping.BoundSql;
 import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.mapping.ParameterMapping;
+import org.apache.ibatis.mapping.SqlCommandType;
+import org.apache.ibatis.reflection.MetaObject;
 import org.apache.ibatis.session.Configuration;
 import org.apache.ibatis.session.ResultHandler;
 import org.apache.ibatis.session.RowBounds;
@@ -43,8 +49,17 @@ public class BatchExecutor extends BaseExecutor {
 
   private final List<Statement> statementList = new ArrayList<Statement>();
   private final List<BatchResult> batchResultList = new ArrayList<BatchResult>();
+  // for each batch, the rewritten multi row insert or null
+  private final List<MultiValuesInsert> multiValuesInsertList = new ArrayList<MultiValuesInsert>();
+  // batches that later inserts may still join when batchReordering is enabled
+  private final Map<BatchKey, Integer> reorderableBatches = new HashMap<BatchKey, Integer>();
+  // results of batches already executed by an automatic flush
+  private final List<BatchResult> autoFlushedResults = new ArrayList<BatchResult>();
   private String currentSql;
   private MappedStatement currentStatement;
+  private int currentIndex;
+  private int pendingRows;
+  private long pendingBytes;
 
   public BatchExecutor(Configuration configuration, Transaction transaction) {
     super(configuration, transaction);
@@ -55,25 +70,115 @@ public class BatchExecutor extends BaseExecutor {
     final StatementHandler handler = configuration.newStatementHandler(this, ms, parameterObject, RowBounds.DEFAULT, null, null);
     final BoundSql boundSql = handler.getBoundSql();
     final String sql = boundSql.getSql();
-    final Statement stmt;
-    if (sql.equals(currentSql) && ms.equals(currentStatement)) {
-      int last = statementList.size() - 1;
-      stmt = statementList.get(last);
-      BatchResult batchResult = batchResultList.get(last);
-      batchResult.addParameterObject(parameterObject);
+    final int index = findBatch(configuration, ms, sql);
+    if (index >= 0) {
+      currentIndex = index;
+      currentSql = sql;
+      currentStatement = ms;
+      batchResultList.get(index).addParameterObject(parameterObject);
+      MultiValuesInsert multiValuesInsert = multiValuesInsertList.get(index);
+      if (multiValuesInsert != null) {
+        multiValuesInsert.addRow(handler);
+      } else {
+        Statement stmt = statementList.get(index);
+        handler.parameterize(stmt);
+        handler.batch(stmt);
+      }
     } else {
-      Connection connection = getConnection(ms.getStatementLog());
-      stmt = handler.prepare(connection);
+      currentIndex = statementList.size();
       currentSql = sql;
       currentStatement = ms;
-      statementList.add(stmt);
       batchResultList.add(new BatchResult(ms, sql, parameterObject));
+      MultiValuesInsert multiValuesInsert = MultiValuesInsert.forStatement(this, ms, sql, configuration.getBatchInsertRowsPerStatement());
+      multiValuesInsertList.add(multiValuesInsert);
+      if (multiValuesInsert != null) {
+        statementList.add(null);
+        multiValuesInsert.addRow(handler);
+      } else {
+        Connection connection = getConnection(ms.getStatementLog());
+        Statement stmt = handler.prepare(connection);
+        statementList.add(stmt);
+        handler.parameterize(stmt);
+        handler.batch(stmt);
+      }
+      if (configuration.isBatchReordering() && ms.getSqlCommandType() == SqlCommandType.INSERT) {
+        reorderableBatches.put(new BatchKey(ms, sql), currentIndex);
+      }
+      pendingBytes += sql.length() * 2;
     }
-    handler.parameterize(stmt);
-    handler.batch(stmt);
+    autoFlushIfNeeded(configuration, boundSql);
     return BATCH_UPDATE_RETURN_VALUE;
   }
 
+  private int findBatch(Configuration configuration, MappedStatement ms, String sql) {
+    if (sql.equals(currentSql) && ms.equals(currentStatement)) {
+      return currentIndex;
+    }
+    if (configuration.isBatchReordering()) {
+      if (ms.getSqlCommandType() == SqlCommandType.INSERT) {
+        Integer index = reorderableBatches.get(new BatchKey(ms, sql));
+        if (index != null) {
+          return index.intValue();
+        }
+      } else {
+        // an update or delete may depend on any pending row, so later inserts must not move before it
+        reorderableBatches.clear();
+      }
+    }
+    return -1;
+  }
+
+  private void autoFlushIfNeeded(Configuration configuration, BoundSql boundSql) throws SQLException {
+    pendingRows++;
+    final int flushRows = configuration.getBatchFlushRows();
+    final int flushBytes = configuration.getBatchFlushBytes();
+    if (flushBytes > 0) {
+      pendingBytes += estimateSize(configuration, boundSql);
+    }
+    if ((flushRows > 0 && pendingRows >= flushRows) || (flushBytes > 0 && pendingBytes >= flushBytes)) {
+      try {
+        executeBatches(autoFlushedResults);
+      } finally {
+        closeBatches();
+      }
+    }
+  }
+
+  /*
+   * A rough estimate of the memory the driver keeps for one batched row, only used to decide when to flush.
+   */
+  private long estimateSize(Configuration configuration, BoundSql boundSql) {
+    long size = 0;
+    final Object parameterObject = boundSql.getParameterObject();
+    MetaObject metaObject = null;
+    for (ParameterMapping parameterMapping : boundSql.getParameterMappings()) {
+      Object value;
+      String propertyName = parameterMapping.getProperty();
+      if (boundSql.hasAdditionalParameter(propertyName)) {
+        value = boundSql.getAdditionalParameter(propertyName);
+      } else if (parameterObject == null) {
+        value = null;
+      } else if (configuration.getTypeHandlerRegistry().hasTypeHandler(parameterObject.getClass())) {
+        value = parameterObject;
+      } else {
+        if (metaObject == null) {
+          metaObject = configuration.newMetaObject(parameterObject);
+        }
+        value = metaObject.getValue(propertyName);
+      }
+      if (value instanceof CharSequence) {
+        size += ((CharSequence) value).length() * 2;
+      } else if (value instanceof byte[]) {
+        size += ((byte[]) value).length;
+      } else if (value instanceof char[]) {
+        size += ((char[]) value).length * 2;
+      } else {
+        size += 8;
+      }
+    }
+    return size;
+  }
+
   public <E> List<E> doQuery(MappedStatement ms, Object parameterObject, RowBounds rowBounds, ResultHandler resultHandler, BoundSql boundSql)
       throws SQLException {
     Statement stmt = null;
@@ -90,54 +195,119 @@ public class BatchExecutor extends BaseExecutor {
     }
   }
 
+  protected <E> Cursor<E> doQueryCursor(MappedStatement ms, Object parameter, RowBounds rowBounds, BoundSql boundSql) throws SQLException {
+    flushStatements();
+    Configuration configuration = ms.getConfiguration();
+    StatementHandler handler = configuration.newStatementHandler(wrapper, ms, parameter, rowBounds, null, boundSql);
+    Connection connection = getConnection(ms.getStatementLog());
+    Statement stmt = handler.prepare(connection);
+    handler.parameterize(stmt);
+    return handler.<E>queryCursor(stmt);
+  }
+
   public List<BatchResult> doFlushStatements(boolean isRollback) throws SQLException {
     try {
-      List<BatchResult> results = new ArrayList<BatchResult>();
       if (isRollback) {
         return Collections.emptyList();
       } else {
-        for (int i = 0, n = statementList.size(); i < n; i++) {
-          Statement stmt = statementList.get(i);
-          BatchResult batchResult = batchResultList.get(i);
-          try {
-            batchResult.setUpdateCounts(stmt.executeBatch());
-            MappedStatement ms = batchResult.getMappedStatement();
-            List<Object> parameterObjects = batchResult.getParameterObjects();
-            KeyGenerator keyGenerator = ms.getKeyGenerator();
-            if (Jdbc3KeyGenerator.class.equals(keyGenerator.getClass())) {
-              Jdbc3KeyGenerator jdbc3KeyGenerator = (Jdbc3KeyGenerator) keyGenerator;
-              jdbc3KeyGenerator.processBatch(ms, stmt, parameterObjects);
-            } else if (!NoKeyGenerator.class.equals(keyGenerator.getClass())) { //issue #141
-              for (Object parameter : parameterObjects) {
-                keyGenerator.processAfter(this, ms, stmt, parameter);
-              }
-            }
-          } catch (BatchUpdateException e) {
-            StringBuffer message = new StringBuffer();
-            message.append(batchResult.getMappedStatement().getId())
-                .append(" (batch index #")
-                .append(i + 1)
-                .append(")")
-                .append(" failed.");
-            if (i > 0) {
-              message.append(" ")
-                  .append(i)
-                  .append(" prior sub executor(s) completed successfully, but will be rolled back.");
-            }
-            throw new BatchExecutorException(message.toString(), e, results, batchResult);
-          }
-          results.add(batchResult);
-        }
+        List<BatchResult> results = new ArrayList<BatchResult>(autoFlushedResults);
+        executeBatches(results);
         return results;
       }
     } finally {
-      for (Statement stmt : statementList) {
-        closeStatement(stmt);
+      closeBatches();
+      autoFlushedResults.clear();
+    }
+  }
+
+  private void executeBatches(List<BatchResult> results) throws SQLException {
+    for (int i = 0, n = statementList.size(); i < n; i++) {
+      Statement stmt = statementList.get(i);
+      BatchResult batchResult = batchResultList.get(i);
+      try {
+        MultiValuesInsert multiValuesInsert = multiValuesInsertList.get(i);
+        if (multiValuesInsert != null) {
+          // generated keys are filled in by the rewritten insert itself
+          batchResult.setUpdateCounts(multiValuesInsert.execute());
+          results.add(batchResult);
+          continue;
+        }
+        batchResult.setUpdateCounts(stmt.executeBatch());
+        MappedStatement ms = batchResult.getMappedStatement();
+        List<Object> parameterObjects = batchResult.getParameterObjects();
+        KeyGenerator keyGenerator = ms.getKeyGenerator();
+        if (Jdbc3KeyGenerator.class.equals(keyGenerator.getClass())) {
+          Jdbc3KeyGenerator jdbc3KeyGenerator = (Jdbc3KeyGenerator) keyGenerator;
+          jdbc3KeyGenerator.processBatch(ms, stmt, parameterObjects);
+        } else if (!NoKeyGenerator.class.equals(keyGenerator.getClass())) { //issue #141
+          for (Object parameter : parameterObjects) {
+            keyGenerator.processAfter(this, ms, stmt, parameter);
+          }
+        }
+      } catch (BatchUpdateException e) {
+        StringBuffer message = new StringBuffer();
+        message.append(batchResult.getMappedStatement().getId())
+            .append(" (batch index #")
+            .append(i + 1)
+            .append(")")
+            .append(" failed.");
+        if (i > 0) {
+          message.append(" ")
+              .append(i)
+              .append(" prior sub executor(s) completed successfully, but will be rolled back.");
+        }
+        throw new BatchExecutorException(message.toString(), e, results, batchResult);
+      }
+      results.add(batchResult);
+    }
+  }
+
+  private void closeBatches() {
+    for (Statement stmt : statementList) {
+      closeStatement(stmt);
+    }
+    for (MultiValuesInsert multiValuesInsert : multiValuesInsertList) {
+      if (multiValuesInsert != null) {
+        multiValuesInsert.close();
+      }
+    }
+    currentSql = null;
+    currentStatement = null;
+    pendingRows = 0;
+    pendingBytes = 0;
+    statementList.clear();
+    batchResultList.clear();
+    multiValuesInsertList.clear();
+    reorderableBatches.clear();
+  }
+
+  private static final class BatchKey {
+
+    private final MappedStatement mappedStatement;
+    private final String sql;
+
+    BatchKey(MappedStatement mappedStatement, String sql) {
+      this.mappedStatement = mappedStatement;
+      this.sql = sql;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
       }
-      currentSql = null;
-      statementList.clear();
-      batchResultList.clear();
+      if (!(o instanceof BatchKey)) {
+        return false;
+      }
+      BatchKey other = (BatchKey) o;
+      return mappedStatement.equals(other.mappedStatement) && sql.equals(other.sql);
+    }
+
+    @Override
+    public int hashCode() {
+      return 31 * mappedStatement.hashCode() + sql.hashCode();
     }
+
   }
 
 }
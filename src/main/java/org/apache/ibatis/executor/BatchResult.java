@@ -60,6 +60,13 @@ public class BatchResult {
     return parameterObjects;
   }
 
+  /**
+   * @return the number of rows sent in this batch
+   */
+  public int getBatchSize() {
+    return parameterObjects.size();
+  }
+
   public int[] getUpdateCounts() {
     return updateCounts;
   }
@@ -21,6 +21,7 @@ import java.util.List;
 import org.apache.ibatis.cache.Cache;
 import org.apache.ibatis.cache.CacheKey;
 import org.apache.ibatis.cache.TransactionalCacheManager;
+import org.apache.ibatis.cursor.Cursor;
 import org.apache.ibatis.mapping.BoundSql;
 import org.apache.ibatis.mapping.MappedStatement;
 import org.apache.ibatis.mapping.ParameterMapping;
@@ -99,6 +100,9 @@ public class CachingExecutor implements Executor {
 				// 从缓存中获取值
 				@SuppressWarnings("unchecked")
 				List<E> list = (List<E>) tcm.getObject(cache, key);
+				if (ms.getConfiguration().getQueryMetrics() != null) {
+					ms.getConfiguration().getQueryMetrics().recordCacheAccess(ms, false, list != null);
+				}
 				if (list == null) {
 					// 当没有缓存值时，交由原本功能的方法处理。
 					list = delegate.<E> query(ms, parameterObject, rowBounds, resultHandler, key, boundSql);
@@ -113,6 +117,12 @@ public class CachingExecutor implements Executor {
 		return delegate.<E> query(ms, parameterObject, rowBounds, resultHandler, key, boundSql);
 	}
 
+	public <E> Cursor<E> queryCursor(MappedStatement ms, Object parameter, RowBounds rowBounds) throws SQLException {
+		// 游标结果不会放入二级缓存。
+		flushCacheIfRequired(ms);
+		return delegate.queryCursor(ms, parameter, rowBounds);
+	}
+
 	public List<BatchResult> flushStatements() throws SQLException {
 		return delegate.flushStatements();
 	}
@@ -19,6 +19,7 @@ import java.sql.SQLException;
 import java.util.List;
 
 import org.apache.ibatis.cache.CacheKey;
+import org.apache.ibatis.cursor.Cursor;
 import org.apache.ibatis.mapping.BoundSql;
 import org.apache.ibatis.mapping.MappedStatement;
 import org.apache.ibatis.reflection.MetaObject;
@@ -92,6 +93,23 @@ public interface Executor {
 	 */
 	<E> List<E> query(MappedStatement ms, Object parameter, RowBounds rowBounds, ResultHandler resultHandler) throws SQLException;
 
+	/**
+	 * <h3>以游标方式查询数据</h3>
+	 * <p>
+	 * 返回的游标按需逐行映射结果，不使用本地缓存，也不会一次性把所有数据加载到内存中。游标关闭时释放底层的 Statement 。
+	 * </p>
+	 * 
+	 * @param ms
+	 *            要执行的映射配置文件中 SQL 语句的封装
+	 * @param parameter
+	 *            外部提供的影响 SQL 语句的参数
+	 * @param rowBounds
+	 *            分页信息
+	 * @return 惰性映射数据对象的游标
+	 * @throws SQLException
+	 */
+	<E> Cursor<E> queryCursor(MappedStatement ms, Object parameter, RowBounds rowBounds) throws SQLException;
+
 	/**
 	 * 
 	 * @return
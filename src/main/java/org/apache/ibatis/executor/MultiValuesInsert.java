@@ -0,0 +1,303 @@
+/*
+ *    Copyright 2009-2014 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.executor;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import org.apache.ibatis.executor.keygen.Jdbc3KeyGenerator;
+import org.apache.ibatis.executor.keygen.KeyGenerator;
+import org.apache.ibatis.executor.keygen.NoKeyGenerator;
+import org.apache.ibatis.executor.statement.StatementHandler;
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.mapping.ParameterMapping;
+import org.apache.ibatis.mapping.SqlCommandType;
+import org.apache.ibatis.mapping.StatementType;
+import org.apache.ibatis.reflection.ExceptionUtil;
+import org.apache.ibatis.session.RowBounds;
+
+/**
+ * Consecutive executions of a single row {@code INSERT ... VALUES (...)} rewritten into statements that insert
+ * up to {@code rowsPerStatement} rows each. Every row is still bound by its own {@link StatementHandler}, so
+ * type handlers and parameter handler plugins apply as usual, only the parameter indexes are shifted.
+ * <p>
+ * A row is bound as soon as it is added, because callers may change and pass the same parameter object again
+ * for the next row. The parameters it sets are kept until its statement is known. Full statements get their
+ * parameters and are added to a JDBC batch as soon as they have all their rows. The remaining rows go into one
+ * shorter statement when the batch is executed.
+ */
+final class MultiValuesInsert {
+
+  private final BatchExecutor executor;
+  private final MappedStatement mappedStatement;
+  private final String prefix;
+  private final String rowValues;
+  private final String suffix;
+  private final int rowsPerStatement;
+
+  private final List<Row> pendingRows = new ArrayList<Row>();
+  private final List<Object> fullStatementParameters = new ArrayList<Object>();
+  private final List<Statement> statements = new ArrayList<Statement>();
+  private PreparedStatement fullStatement;
+
+  private MultiValuesInsert(BatchExecutor executor, MappedStatement mappedStatement, String[] parts, int rowsPerStatement) {
+    this.executor = executor;
+    this.mappedStatement = mappedStatement;
+    this.prefix = parts[0];
+    this.rowValues = parts[1];
+    this.suffix = parts[2];
+    this.rowsPerStatement = rowsPerStatement;
+  }
+
+  /**
+   * @return null when the statement cannot be rewritten
+   */
+  static MultiValuesInsert forStatement(BatchExecutor executor, MappedStatement ms, String sql, int rowsPerStatement) {
+    if (rowsPerStatement < 2
+        || ms.getSqlCommandType() != SqlCommandType.INSERT
+        || ms.getStatementType() != StatementType.PREPARED) {
+      return null;
+    }
+    // other key generators run a statement for every row
+    KeyGenerator keyGenerator = ms.getKeyGenerator();
+    if (!(keyGenerator instanceof NoKeyGenerator) && !(keyGenerator instanceof Jdbc3KeyGenerator)) {
+      return null;
+    }
+    String[] parts = splitValues(sql);
+    return parts == null ? null : new MultiValuesInsert(executor, ms, parts, rowsPerStatement);
+  }
+
+  /**
+   * Splits an insert into the text before its VALUES group, the group and the text after it. Returns null if
+   * there is no single VALUES group, if parameters appear outside of it or if anything but blanks follows it.
+   */
+  static String[] splitValues(String sql) {
+    final String lowerSql = sql.toLowerCase(Locale.ENGLISH);
+    final int length = sql.length();
+    char quote = 0;
+    int depth = 0;
+    int start = -1;
+    for (int i = 0; i < length && start < 0; i++) {
+      char c = sql.charAt(i);
+      if (quote != 0) {
+        if (c == quote) quote = 0;
+      } else if (c == '\'' || c == '"' || c == '`') {
+        quote = c;
+      } else if (c == '?') {
+        return null;
+      } else if (c == '(') {
+        depth++;
+      } else if (c == ')') {
+        depth--;
+      } else if (depth == 0 && lowerSql.startsWith("values", i)
+          && (i == 0 || !Character.isLetterOrDigit(sql.charAt(i - 1)) && sql.charAt(i - 1) != '_')) {
+        int j = i + "values".length();
+        while (j < length && Character.isWhitespace(sql.charAt(j))) j++;
+        if (j < length && sql.charAt(j) == '(') {
+          start = j;
+        } else {
+          return null;
+        }
+      }
+    }
+    if (start < 0) {
+      return null;
+    }
+    int end = -1;
+    depth = 0;
+    quote = 0;
+    for (int i = start; i < length && end < 0; i++) {
+      char c = sql.charAt(i);
+      if (quote != 0) {
+        if (c == quote) quote = 0;
+      } else if (c == '\'' || c == '"' || c == '`') {
+        quote = c;
+      } else if (c == '(') {
+        depth++;
+      } else if (c == ')' && --depth == 0) {
+        end = i;
+      }
+    }
+    if (end < 0 || sql.substring(end + 1).trim().length() > 0) {
+      return null;
+    }
+    return new String[] { sql.substring(0, start), sql.substring(start, end + 1), sql.substring(end + 1) };
+  }
+
+  void addRow(StatementHandler rowHandler) throws SQLException {
+    Row row = new Row(rowHandler);
+    rowHandler.parameterize(row.newRecorder());
+    pendingRows.add(row);
+    if (pendingRows.size() == rowsPerStatement) {
+      if (fullStatement == null) {
+        fullStatement = prepare(rowsPerStatement);
+      }
+      bindRows(fullStatement);
+      fullStatement.addBatch();
+      for (Row pendingRow : pendingRows) {
+        fullStatementParameters.add(pendingRow.parameterObject);
+      }
+      pendingRows.clear();
+    }
+  }
+
+  /**
+   * Executes the statements and fills the generated keys in.
+   *
+   * @return one update count for each row, {@link Statement#SUCCESS_NO_INFO} when a statement did not insert
+   *         as many rows as it had
+   */
+  int[] execute() throws SQLException {
+    List<Integer> updateCounts = new ArrayList<Integer>();
+    if (fullStatement != null) {
+      addUpdateCounts(updateCounts, fullStatement.executeBatch(), rowsPerStatement);
+      processGeneratedKeys(fullStatement, fullStatementParameters);
+    }
+    if (!pendingRows.isEmpty()) {
+      PreparedStatement stmt = prepare(pendingRows.size());
+      bindRows(stmt);
+      stmt.addBatch();
+      addUpdateCounts(updateCounts, stmt.executeBatch(), pendingRows.size());
+      List<Object> parameters = new ArrayList<Object>(pendingRows.size());
+      for (Row row : pendingRows) {
+        parameters.add(row.parameterObject);
+      }
+      processGeneratedKeys(stmt, parameters);
+    }
+    int[] result = new int[updateCounts.size()];
+    for (int i = 0; i < result.length; i++) {
+      result[i] = updateCounts.get(i);
+    }
+    return result;
+  }
+
+  void close() {
+    for (Statement stmt : statements) {
+      executor.closeStatement(stmt);
+    }
+    statements.clear();
+  }
+
+  private PreparedStatement prepare(int rows) throws SQLException {
+    StringBuilder sql = new StringBuilder(prefix.length() + suffix.length() + rows * (rowValues.length() + 2));
+    sql.append(prefix);
+    List<ParameterMapping> rowMappings = pendingRows.get(0).parameterMappings;
+    List<ParameterMapping> parameterMappings = new ArrayList<ParameterMapping>(rows * rowMappings.size());
+    for (int i = 0; i < rows; i++) {
+      if (i > 0) sql.append(", ");
+      sql.append(rowValues);
+      parameterMappings.addAll(rowMappings);
+    }
+    sql.append(suffix);
+    Object parameterObject = pendingRows.get(0).parameterObject;
+    BoundSql boundSql = new BoundSql(mappedStatement.getConfiguration(), sql.toString(), parameterMappings, parameterObject);
+    StatementHandler handler = mappedStatement.getConfiguration().newStatementHandler(executor, mappedStatement, parameterObject,
+        RowBounds.DEFAULT, null, boundSql);
+    Statement stmt = handler.prepare(executor.getConnection(mappedStatement.getStatementLog()));
+    statements.add(stmt);
+    return (PreparedStatement) stmt;
+  }
+
+  private void bindRows(PreparedStatement stmt) throws SQLException {
+    int offset = 0;
+    for (Row row : pendingRows) {
+      row.bind(stmt, offset);
+      offset += row.parameterMappings.size();
+    }
+  }
+
+  private void processGeneratedKeys(Statement stmt, List<Object> parameters) {
+    KeyGenerator keyGenerator = mappedStatement.getKeyGenerator();
+    if (keyGenerator instanceof Jdbc3KeyGenerator) {
+      ((Jdbc3KeyGenerator) keyGenerator).processBatch(mappedStatement, stmt, parameters);
+    }
+  }
+
+  private static void addUpdateCounts(List<Integer> updateCounts, int[] statementCounts, int rows) {
+    for (int count : statementCounts) {
+      int rowCount = count == rows ? 1 : Statement.SUCCESS_NO_INFO;
+      for (int i = 0; i < rows; i++) {
+        updateCounts.add(rowCount);
+      }
+    }
+  }
+
+  /**
+   * The parameters a row handler set, replayed later at the row's offset in its statement.
+   */
+  private static final class Row implements InvocationHandler {
+
+    private final Object parameterObject;
+    private final List<ParameterMapping> parameterMappings;
+    private final List<Method> methods = new ArrayList<Method>();
+    private final List<Object[]> arguments = new ArrayList<Object[]>();
+
+    Row(StatementHandler handler) {
+      this.parameterObject = handler.getParameterHandler().getParameterObject();
+      this.parameterMappings = handler.getBoundSql().getParameterMappings();
+    }
+
+    PreparedStatement newRecorder() {
+      return (PreparedStatement) Proxy.newProxyInstance(PreparedStatement.class.getClassLoader(), new Class<?>[] { PreparedStatement.class }, this);
+    }
+
+    void bind(PreparedStatement stmt, int offset) throws SQLException {
+      for (int i = 0; i < methods.size(); i++) {
+        Object[] args = arguments.get(i).clone();
+        args[0] = (Integer) args[0] + offset;
+        try {
+          methods.get(i).invoke(stmt, args);
+        } catch (InvocationTargetException e) {
+          Throwable cause = ExceptionUtil.unwrapThrowable(e);
+          if (cause instanceof SQLException) {
+            throw (SQLException) cause;
+          }
+          throw new ExecutorException("Error setting parameters of a multi-row insert.  Cause: " + cause, cause);
+        } catch (IllegalAccessException e) {
+          throw new ExecutorException("Error setting parameters of a multi-row insert.  Cause: " + e, e);
+        }
+      }
+    }
+
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+      if (method.getDeclaringClass() == Object.class) {
+        return method.invoke(this, args);
+      }
+      if (method.getDeclaringClass() == PreparedStatement.class && method.getName().startsWith("set")
+          && args != null && args.length > 0 && args[0] instanceof Integer) {
+        methods.add(method);
+        arguments.add(args.clone());
+        return null;
+      }
+      if ("clearParameters".equals(method.getName())) {
+        methods.clear();
+        arguments.clear();
+        return null;
+      }
+      throw new ExecutorException("Only parameters can be set while binding a row of a multi-row insert, not " + method.getName());
+    }
+  }
+
+}
@@ -16,17 +16,24 @@
 package org.apache.ibatis.executor;
 
 import java.sql.Connection;
+import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.util.Arrays;
 import java.util.Collections;
-import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
+import org.apache.ibatis.cursor.Cursor;
+import org.apache.ibatis.datasource.pooled.StatementCache;
+import org.apache.ibatis.datasource.pooled.StatementCacheHolder;
+import org.apache.ibatis.executor.keygen.Jdbc3KeyGenerator;
 import org.apache.ibatis.executor.statement.StatementHandler;
 import org.apache.ibatis.logging.Log;
 import org.apache.ibatis.mapping.BoundSql;
 import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.mapping.StatementType;
 import org.apache.ibatis.session.Configuration;
 import org.apache.ibatis.session.ResultHandler;
 import org.apache.ibatis.session.RowBounds;
@@ -37,7 +44,10 @@ import org.apache.ibatis.transaction.Transaction;
  */
 public class ReuseExecutor extends BaseExecutor {
 
-  private final Map<String, Statement> statementMap = new HashMap<String, Statement>();
+  // statements used by this session; on a pooled connection with a statement cache they are
+  // released to that cache at commit, rollback and close instead of being closed, least recently
+  // used first so that the cache evicts in the order the session used them
+  private final Map<StatementKey, Statement> statementMap = new LinkedHashMap<StatementKey, Statement>(16, 0.75f, true);
 
   public ReuseExecutor(Configuration configuration, Transaction transaction) {
     super(configuration, transaction);
@@ -46,54 +56,140 @@ public class ReuseExecutor extends BaseExecutor {
   public int doUpdate(MappedStatement ms, Object parameter) throws SQLException {
     Configuration configuration = ms.getConfiguration();
     StatementHandler handler = configuration.newStatementHandler(this, ms, parameter, RowBounds.DEFAULT, null, null);
-    Statement stmt = prepareStatement(handler, ms.getStatementLog());
+    Statement stmt = prepareStatement(ms, handler, ms.getStatementLog());
     return handler.update(stmt);
   }
 
   public <E> List<E> doQuery(MappedStatement ms, Object parameter, RowBounds rowBounds, ResultHandler resultHandler, BoundSql boundSql) throws SQLException {
     Configuration configuration = ms.getConfiguration();
     StatementHandler handler = configuration.newStatementHandler(wrapper, ms, parameter, rowBounds, resultHandler, boundSql);
-    Statement stmt = prepareStatement(handler, ms.getStatementLog());
+    Statement stmt = prepareStatement(ms, handler, ms.getStatementLog());
     return handler.<E>query(stmt, resultHandler);
   }
 
+  protected <E> Cursor<E> doQueryCursor(MappedStatement ms, Object parameter, RowBounds rowBounds, BoundSql boundSql) throws SQLException {
+    // the cursor owns (and closes) its statement, so it is never put into the reuse map
+    Configuration configuration = ms.getConfiguration();
+    StatementHandler handler = configuration.newStatementHandler(wrapper, ms, parameter, rowBounds, null, boundSql);
+    Connection connection = getConnection(ms.getStatementLog());
+    Statement stmt = handler.prepare(connection);
+    handler.parameterize(stmt);
+    return handler.<E>queryCursor(stmt);
+  }
+
   public List<BatchResult> doFlushStatements(boolean isRollback) throws SQLException {
-    for (Statement stmt : statementMap.values()) {
-      closeStatement(stmt);
+    StatementCache statementCache = statementMap.isEmpty() ? null : getStatementCache();
+    for (Map.Entry<StatementKey, Statement> entry : statementMap.entrySet()) {
+      if (statementCache != null) {
+        statementCache.release(entry.getKey(), entry.getValue());
+      } else {
+        closeStatement(entry.getValue());
+      }
     }
     statementMap.clear();
     return Collections.emptyList();
   }
 
-  private Statement prepareStatement(StatementHandler handler, Log statementLog) throws SQLException {
+  private Statement prepareStatement(MappedStatement ms, StatementHandler handler, Log statementLog) throws SQLException {
     Statement stmt;
     BoundSql boundSql = handler.getBoundSql();
-    String sql = boundSql.getSql();
-    if (hasStatementFor(sql)) {
-      stmt = getStatement(sql);
-    } else {
-      Connection connection = getConnection(statementLog);
-      stmt = handler.prepare(connection);
-      putStatement(sql, stmt);
+    StatementKey key = new StatementKey(ms, boundSql.getSql());
+    stmt = statementMap.get(key);
+    boolean prepared = false;
+    if (stmt == null || !isUsable(stmt)) {
+      StatementCache statementCache = getStatementCache();
+      stmt = statementCache == null ? null : statementCache.take(key);
+      if (stmt == null) {
+        Connection connection = getConnection(statementLog);
+        stmt = handler.prepare(connection);
+        prepared = true;
+      }
+      statementMap.put(key, stmt);
+    }
+    if (!prepared) {
+      // a reused statement still carries the timeout and fetch size of the statement that prepared it
+      applyStatementSettings(ms, stmt);
     }
     handler.parameterize(stmt);
     return stmt;
   }
 
-  private boolean hasStatementFor(String sql) {
+  private StatementCache getStatementCache() throws SQLException {
+    Connection connection = transaction.getConnection();
+    if (connection instanceof StatementCacheHolder) {
+      return ((StatementCacheHolder) connection).getStatementCache();
+    }
+    return null;
+  }
+
+  private void applyStatementSettings(MappedStatement ms, Statement stmt) throws SQLException {
+    Integer timeout = ms.getTimeout();
+    if (timeout == null) {
+      timeout = configuration.getDefaultStatementTimeout();
+    }
+    stmt.setQueryTimeout(timeout == null ? 0 : timeout);
+    Integer fetchSize = ms.getFetchSize();
+    stmt.setFetchSize(fetchSize == null ? 0 : fetchSize);
+  }
+
+  private boolean isUsable(Statement stmt) {
     try {
-      return statementMap.keySet().contains(sql) && !statementMap.get(sql).getConnection().isClosed();
+      return !stmt.getConnection().isClosed();
     } catch (SQLException e) {
       return false;
     }
   }
 
-  private Statement getStatement(String s) {
-    return statementMap.get(s);
-  }
+  /*
+   * Statements are shared by sql and by the options they are prepared with.
+   */
+  private static final class StatementKey {
+
+    private final String sql;
+    private final StatementType statementType;
+    private final int resultSetType;
+    private final int resultSetConcurrency;
+    private final String[] keyColumns;
+    private final int hashCode;
+
+    StatementKey(MappedStatement ms, String sql) {
+      this.sql = sql;
+      this.statementType = ms.getStatementType();
+      this.resultSetType = ms.getResultSetType() == null ? 0 : ms.getResultSetType().getValue();
+      this.resultSetConcurrency = ResultSet.CONCUR_READ_ONLY;
+      if (statementType == StatementType.PREPARED && ms.getKeyGenerator() instanceof Jdbc3KeyGenerator) {
+        this.keyColumns = ms.getKeyColumns() == null ? new String[0] : ms.getKeyColumns();
+      } else {
+        this.keyColumns = null;
+      }
+      int hash = sql.hashCode();
+      hash = 31 * hash + statementType.ordinal();
+      hash = 31 * hash + resultSetType;
+      this.hashCode = 31 * hash + Arrays.hashCode(keyColumns);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (!(o instanceof StatementKey)) {
+        return false;
+      }
+      StatementKey other = (StatementKey) o;
+      return hashCode == other.hashCode
+          && sql.equals(other.sql)
+          && statementType == other.statementType
+          && resultSetType == other.resultSetType
+          && resultSetConcurrency == other.resultSetConcurrency
+          && Arrays.equals(keyColumns, other.keyColumns);
+    }
+
+    @Override
+    public int hashCode() {
+      return hashCode;
+    }
 
-  private void putStatement(String sql, Statement stmt) {
-    statementMap.put(sql, stmt);
   }
 
 }
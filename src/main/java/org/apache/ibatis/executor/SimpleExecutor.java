@@ -21,6 +21,7 @@ import java.sql.Statement;
 import java.util.Collections;
 import java.util.List;
 
+import org.apache.ibatis.cursor.Cursor;
 import org.apache.ibatis.executor.statement.StatementHandler;
 import org.apache.ibatis.logging.Log;
 import org.apache.ibatis.mapping.BoundSql;
@@ -72,6 +73,16 @@ public class SimpleExecutor extends BaseExecutor {
 		}
 	}
 
+	/**
+	 * <p>语句不在这里关闭，它归返回的游标所有，游标关闭时才关闭。</p>
+	 */
+	protected <E> Cursor<E> doQueryCursor(MappedStatement ms, Object parameter, RowBounds rowBounds, BoundSql boundSql) throws SQLException {
+		Configuration configuration = ms.getConfiguration();
+		StatementHandler handler = configuration.newStatementHandler(wrapper, ms, parameter, rowBounds, null, boundSql);
+		Statement stmt = prepareStatement(handler, ms.getStatementLog());
+		return handler.<E> queryCursor(stmt);
+	}
+
 	public List<BatchResult> doFlushStatements(boolean isRollback) throws SQLException {
 		return Collections.emptyList();
 	}
@@ -0,0 +1,66 @@
+/*
+ *    Copyright 2009-2014 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.executor.loader;
+
+import java.sql.SQLException;
+import java.util.List;
+
+import org.apache.ibatis.cache.CacheKey;
+import org.apache.ibatis.executor.Executor;
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.session.Configuration;
+
+/**
+ * Result loader of a lazy nested select that has a batchSelect. When one of the loaders of a
+ * {@link ResultLoaderBatch} loads, all of them are loaded together.
+ */
+public class BatchedResultLoader extends ResultLoader {
+
+  private final ResultLoaderBatch batch;
+  private List<Object> batchResults;
+
+  public BatchedResultLoader(Configuration config, Executor executor, MappedStatement mappedStatement, Object parameterObject,
+      Class<?> targetType, CacheKey cacheKey, BoundSql boundSql, ResultLoaderBatch batch) {
+    super(config, executor, mappedStatement, parameterObject, targetType, cacheKey, boundSql);
+    this.batch = batch;
+    batch.addLoader(this);
+  }
+
+  @Override
+  public Object loadResult() throws SQLException {
+    batch.load(this);
+    resultObject = resultExtractor.extractObjectFromList(batchResults, targetType);
+    return resultObject;
+  }
+
+  Object getParameterObject() {
+    return parameterObject;
+  }
+
+  boolean isResolved() {
+    return batchResults != null;
+  }
+
+  void resolve(List<Object> results) {
+    this.batchResults = results;
+  }
+
+  <E> List<E> selectBatch(MappedStatement batchStatement, Object parameter) throws SQLException {
+    return selectList(batchStatement, parameter);
+  }
+
+}
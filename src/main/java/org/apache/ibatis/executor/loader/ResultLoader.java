@@ -86,6 +86,24 @@ public class ResultLoader {
     }
   }
 
+  /**
+   * Runs another statement the way this loader runs its own, on the executor it was created with or on a
+   * new one when that one is closed or belongs to another thread.
+   */
+  protected <E> List<E> selectList(MappedStatement statement, Object parameter) throws SQLException {
+    Executor localExecutor = executor;
+    if (Thread.currentThread().getId() != this.creatorThreadId || localExecutor.isClosed()) {
+      localExecutor = newExecutor();
+    }
+    try {
+      return localExecutor.<E> query(statement, parameter, RowBounds.DEFAULT, Executor.NO_RESULT_HANDLER);
+    } finally {
+      if (localExecutor != executor) {
+        localExecutor.close(false);
+      }
+    }
+  }
+
   private Executor newExecutor() throws SQLException {
     final Environment environment = configuration.getEnvironment();
     if (environment == null) throw new ExecutorException("ResultLoader could not load lazily.  Environment was not configured.");
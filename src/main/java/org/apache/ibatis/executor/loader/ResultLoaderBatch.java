@@ -0,0 +1,118 @@
+/*
+ *    Copyright 2009-2014 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.executor.loader;
+
+import java.math.BigDecimal;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.session.Configuration;
+
+/**
+ * Lazy loaders of the same nested select, created while handling one result set. The first of them that
+ * loads runs the batch statement for the values of all of them and hands each loader the rows whose batch
+ * key matches its value.
+ * <p>
+ * A batch holds at most {@code batchSize} loaders; once it is full the result set handler starts a new one,
+ * so a large result or a cursor never keeps more than one batch of loaders that nothing else refers to.
+ */
+public class ResultLoaderBatch {
+
+  private final Configuration configuration;
+  private final MappedStatement batchStatement;
+  private final String batchKey;
+  private final int batchSize;
+  private final List<BatchedResultLoader> pendingLoaders = new ArrayList<BatchedResultLoader>();
+
+  public ResultLoaderBatch(Configuration configuration, MappedStatement batchStatement, String batchKey, int batchSize) {
+    this.configuration = configuration;
+    this.batchStatement = batchStatement;
+    this.batchKey = batchKey;
+    this.batchSize = batchSize > 0 ? batchSize : Integer.MAX_VALUE;
+  }
+
+  synchronized void addLoader(BatchedResultLoader loader) {
+    pendingLoaders.add(loader);
+  }
+
+  public synchronized boolean isFull() {
+    return pendingLoaders.size() >= batchSize;
+  }
+
+  synchronized void load(BatchedResultLoader trigger) throws SQLException {
+    if (trigger.isResolved()) {
+      return;
+    }
+    Set<Object> values = new LinkedHashSet<Object>();
+    for (BatchedResultLoader loader : pendingLoaders) {
+      values.add(loader.getParameterObject());
+    }
+    Map<Object, List<Object>> resultsByKey = selectBatch(trigger, new ArrayList<Object>(values));
+    for (BatchedResultLoader loader : pendingLoaders) {
+      List<Object> results = resultsByKey.get(normalizeKey(loader.getParameterObject()));
+      loader.resolve(results == null ? new ArrayList<Object>() : new ArrayList<Object>(results));
+    }
+    pendingLoaders.clear();
+  }
+
+  private Map<Object, List<Object>> selectBatch(BatchedResultLoader trigger, List<Object> values) throws SQLException {
+    Map<String, Object> parameter = new HashMap<String, Object>();
+    parameter.put("list", values);
+    List<Object> rows = trigger.selectBatch(batchStatement, parameter);
+    Map<Object, List<Object>> resultsByKey = new HashMap<Object, List<Object>>();
+    for (Object row : rows) {
+      Object key = normalizeKey(configuration.newMetaObject(row).getValue(batchKey));
+      List<Object> results = resultsByKey.get(key);
+      if (results == null) {
+        results = new ArrayList<Object>();
+        resultsByKey.put(key, results);
+      }
+      results.add(row);
+    }
+    return resultsByKey;
+  }
+
+  /*
+   * The column value of the parent and the key property of a row may be read as different number types,
+   * e.g. a Long parameter and an Integer id, which are never equal.
+   */
+  private static Object normalizeKey(Object key) {
+    if (key instanceof Byte || key instanceof Short || key instanceof Integer || key instanceof Long) {
+      return Long.valueOf(((Number) key).longValue());
+    } else if (key instanceof Number) {
+      BigDecimal decimal;
+      try {
+        decimal = new BigDecimal(key.toString()).stripTrailingZeros();
+      } catch (NumberFormatException e) {
+        // NaN or infinity
+        return key;
+      }
+      try {
+        return Long.valueOf(decimal.longValueExact());
+      } catch (ArithmeticException e) {
+        return decimal;
+      }
+    }
+    return key;
+  }
+
+}
@@ -0,0 +1,91 @@
+/*
+ *    Copyright 2009-2014 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.executor.metrics;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.apache.ibatis.mapping.MappedStatement;
+
+/**
+ * Keeps {@link StatementMetrics} per mapped statement id in memory.
+ * <p>
+ * Enable it with the queryMetrics setting set to IN_MEMORY and read it with
+ * {@code (InMemoryQueryMetrics) configuration.getQueryMetrics()}.
+ */
+public class InMemoryQueryMetrics implements QueryMetrics {
+
+  private final ConcurrentMap<String, StatementMetrics> statements = new ConcurrentHashMap<String, StatementMetrics>();
+
+  public void recordPrepare(MappedStatement ms, long nanos) {
+    metricsOf(ms).recordPrepare(nanos);
+  }
+
+  public void recordExecute(MappedStatement ms, long nanos) {
+    metricsOf(ms).recordExecute(nanos);
+  }
+
+  public void recordResults(MappedStatement ms, int rows, long fetchNanos, long mappingNanos) {
+    metricsOf(ms).recordResults(rows, fetchNanos, mappingNanos);
+  }
+
+  public void recordQuery(MappedStatement ms, long nanos, int rows) {
+    StatementMetrics metrics = metricsOf(ms);
+    metrics.recordExecution(nanos);
+    metrics.recordRows(rows);
+  }
+
+  public void recordUpdate(MappedStatement ms, long nanos, int updateCount) {
+    StatementMetrics metrics = metricsOf(ms);
+    metrics.recordExecution(nanos);
+    metrics.recordUpdateCount(updateCount);
+  }
+
+  public void recordCacheAccess(MappedStatement ms, boolean localCache, boolean hit) {
+    metricsOf(ms).recordCacheAccess(localCache, hit);
+  }
+
+  /**
+   * @return the metrics of the statement or null if it has not been executed
+   */
+  public StatementMetrics getStatementMetrics(String id) {
+    return statements.get(id);
+  }
+
+  public Map<String, StatementMetrics> getAllStatementMetrics() {
+    return Collections.unmodifiableMap(new HashMap<String, StatementMetrics>(statements));
+  }
+
+  public void reset() {
+    statements.clear();
+  }
+
+  private StatementMetrics metricsOf(MappedStatement ms) {
+    StatementMetrics metrics = statements.get(ms.getId());
+    if (metrics == null) {
+      metrics = new StatementMetrics(ms.getId());
+      StatementMetrics existing = statements.putIfAbsent(ms.getId(), metrics);
+      if (existing != null) {
+        metrics = existing;
+      }
+    }
+    return metrics;
+  }
+
+}
@@ -0,0 +1,37 @@
+/*
+ *    Copyright 2009-2014 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.executor.metrics;
+
+import org.apache.ibatis.logging.Log;
+import org.apache.ibatis.mapping.MappedStatement;
+
+/**
+ * Logs slow statements as warnings of the statement's log.
+ */
+public class LoggingSlowQueryReporter implements SlowQueryReporter {
+
+  public void reportSlowQuery(MappedStatement ms, Object parameter, long elapsedMillis) {
+    Log log = ms.getStatementLog();
+    String sql;
+    try {
+      sql = ms.getBoundSql(parameter).getSql().trim().replaceAll("\\s+", " ");
+    } catch (RuntimeException e) {
+      sql = "(" + e + ")";
+    }
+    log.warn("Slow statement took " + elapsedMillis + " ms: " + sql);
+  }
+
+}
@@ -0,0 +1,62 @@
+/*
+ *    Copyright 2009-2014 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.executor.metrics;
+
+import org.apache.ibatis.mapping.MappedStatement;
+
+/**
+ * Receives timings of statement executions. Set one with {@code Configuration.setQueryMetrics()} or the
+ * queryMetrics setting; when there is none, nothing is timed.
+ * <p>
+ * Implementations are called concurrently by all sessions and must be thread safe.
+ *
+ * @see InMemoryQueryMetrics
+ */
+public interface QueryMetrics {
+
+  /**
+   * A statement was created (or prepared) on the connection.
+   */
+  void recordPrepare(MappedStatement ms, long nanos);
+
+  /**
+   * A statement was executed on the database, without reading its results.
+   */
+  void recordExecute(MappedStatement ms, long nanos);
+
+  /**
+   * The results of a statement were read and mapped. Fetch time is the time spent in ResultSet.next(),
+   * mapping time is the rest, including nested selects.
+   */
+  void recordResults(MappedStatement ms, int rows, long fetchNanos, long mappingNanos);
+
+  /**
+   * An executor ran a select against the database from start to end. Local cache hits are not timed.
+   */
+  void recordQuery(MappedStatement ms, long nanos, int rows);
+
+  /**
+   * An executor ran an insert, update or delete. Batched statements report
+   * {@code BatchExecutor.BATCH_UPDATE_RETURN_VALUE} as update count.
+   */
+  void recordUpdate(MappedStatement ms, long nanos, int updateCount);
+
+  /**
+   * A select looked for its results in the session's local cache or in the second level cache.
+   */
+  void recordCacheAccess(MappedStatement ms, boolean localCache, boolean hit);
+
+}
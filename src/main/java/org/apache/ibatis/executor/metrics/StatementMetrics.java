@@ -0,0 +1,212 @@
+/*
+ *    Copyright 2009-2014 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.executor.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.ibatis.metrics.LatencyHistogram;
+
+/**
+ * Metrics of one mapped statement, as collected by {@link InMemoryQueryMetrics}.
+ */
+public class StatementMetrics {
+
+  private final String id;
+  private final LatencyHistogram latencies = new LatencyHistogram();
+  private final AtomicLong executions = new AtomicLong();
+  private final AtomicLong totalNanos = new AtomicLong();
+  private final AtomicLong maxNanos = new AtomicLong();
+  private final AtomicLong rows = new AtomicLong();
+  private final AtomicLong updateCount = new AtomicLong();
+  private final AtomicLong prepares = new AtomicLong();
+  private final AtomicLong prepareNanos = new AtomicLong();
+  private final AtomicLong databaseExecutions = new AtomicLong();
+  private final AtomicLong executeNanos = new AtomicLong();
+  private final AtomicLong fetchedRows = new AtomicLong();
+  private final AtomicLong fetchNanos = new AtomicLong();
+  private final AtomicLong mappingNanos = new AtomicLong();
+  private final AtomicLong localCacheHits = new AtomicLong();
+  private final AtomicLong localCacheMisses = new AtomicLong();
+  private final AtomicLong cacheHits = new AtomicLong();
+  private final AtomicLong cacheMisses = new AtomicLong();
+
+  public StatementMetrics(String id) {
+    this.id = id;
+  }
+
+  void recordExecution(long nanos) {
+    executions.incrementAndGet();
+    totalNanos.addAndGet(nanos);
+    latencies.record(nanos);
+    long max = maxNanos.get();
+    while (nanos > max && !maxNanos.compareAndSet(max, nanos)) {
+      max = maxNanos.get();
+    }
+  }
+
+  void recordRows(int count) {
+    rows.addAndGet(count);
+  }
+
+  void recordUpdateCount(int count) {
+    if (count > 0) {
+      updateCount.addAndGet(count);
+    }
+  }
+
+  void recordPrepare(long nanos) {
+    prepares.incrementAndGet();
+    prepareNanos.addAndGet(nanos);
+  }
+
+  void recordExecute(long nanos) {
+    databaseExecutions.incrementAndGet();
+    executeNanos.addAndGet(nanos);
+  }
+
+  void recordResults(int count, long fetch, long mapping) {
+    fetchedRows.addAndGet(count);
+    fetchNanos.addAndGet(fetch);
+    mappingNanos.addAndGet(mapping);
+  }
+
+  void recordCacheAccess(boolean localCache, boolean hit) {
+    if (localCache) {
+      (hit ? localCacheHits : localCacheMisses).incrementAndGet();
+    } else {
+      (hit ? cacheHits : cacheMisses).incrementAndGet();
+    }
+  }
+
+  public String getId() {
+    return id;
+  }
+
+  /**
+   * @return the latencies of the executions, as seen by the executor
+   */
+  public LatencyHistogram getLatencies() {
+    return latencies;
+  }
+
+  public long getExecutions() {
+    return executions.get();
+  }
+
+  public long getTotalNanos() {
+    return totalNanos.get();
+  }
+
+  public long getMaxNanos() {
+    return maxNanos.get();
+  }
+
+  public long getAverageNanos() {
+    long count = executions.get();
+    return count == 0 ? 0 : totalNanos.get() / count;
+  }
+
+  /**
+   * @return the number of rows returned by selects run against the database; local cache hits are not counted
+   */
+  public long getRows() {
+    return rows.get();
+  }
+
+  public long getUpdateCount() {
+    return updateCount.get();
+  }
+
+  public long getPrepares() {
+    return prepares.get();
+  }
+
+  public long getPrepareNanos() {
+    return prepareNanos.get();
+  }
+
+  /**
+   * @return the number of times the statement was sent to the database
+   */
+  public long getDatabaseExecutions() {
+    return databaseExecutions.get();
+  }
+
+  public long getExecuteNanos() {
+    return executeNanos.get();
+  }
+
+  /**
+   * @return the number of rows read from result sets
+   */
+  public long getFetchedRows() {
+    return fetchedRows.get();
+  }
+
+  public long getFetchNanos() {
+    return fetchNanos.get();
+  }
+
+  public long getMappingNanos() {
+    return mappingNanos.get();
+  }
+
+  public long getLocalCacheHits() {
+    return localCacheHits.get();
+  }
+
+  public long getLocalCacheMisses() {
+    return localCacheMisses.get();
+  }
+
+  public double getLocalCacheHitRatio() {
+    return ratio(localCacheHits.get(), localCacheMisses.get());
+  }
+
+  public long getCacheHits() {
+    return cacheHits.get();
+  }
+
+  public long getCacheMisses() {
+    return cacheMisses.get();
+  }
+
+  /**
+   * @return the hit ratio of the second level cache
+   */
+  public double getCacheHitRatio() {
+    return ratio(cacheHits.get(), cacheMisses.get());
+  }
+
+  private static double ratio(long hits, long misses) {
+    long total = hits + misses;
+    return total == 0 ? 0 : (double) hits / total;
+  }
+
+  @Override
+  public String toString() {
+    return id + " {executions=" + getExecutions()
+        + ", avg=" + getAverageNanos() / 1000 + "us"
+        + ", p99<=" + latencies.getPercentile(99) / 1000 + "us"
+        + ", max=" + getMaxNanos() / 1000 + "us"
+        + ", rows=" + getRows()
+        + ", fetch=" + getFetchNanos() / 1000 + "us"
+        + ", mapping=" + getMappingNanos() / 1000 + "us"
+        + ", localCacheHitRatio=" + getLocalCacheHitRatio()
+        + ", cacheHitRatio=" + getCacheHitRatio() + "}";
+  }
+
+}
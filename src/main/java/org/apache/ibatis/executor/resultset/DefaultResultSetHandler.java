@@ -26,12 +26,20 @@ import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 
 import org.apache.ibatis.cache.CacheKey;
+import org.apache.ibatis.cursor.Cursor;
+import org.apache.ibatis.cursor.defaults.DefaultCursor;
 import org.apache.ibatis.executor.Executor;
 import org.apache.ibatis.executor.ExecutorException;
+import org.apache.ibatis.executor.loader.BatchedResultLoader;
 import org.apache.ibatis.executor.loader.ResultLoader;
+import org.apache.ibatis.executor.loader.ResultLoaderBatch;
 import org.apache.ibatis.executor.loader.ResultLoaderMap;
+import org.apache.ibatis.executor.metrics.QueryMetrics;
 import org.apache.ibatis.executor.parameter.ParameterHandler;
 import org.apache.ibatis.executor.result.DefaultResultContext;
 import org.apache.ibatis.executor.result.DefaultResultHandler;
@@ -61,6 +69,9 @@ public class DefaultResultSetHandler implements ResultSetHandler {
 
   private static final Object NO_VALUE = new Object();
 
+  // set on the threads loading nested queries in parallel, which load their own nested queries one after another
+  private static final ThreadLocal<Boolean> loadingInParallel = new ThreadLocal<Boolean>();
+
   private final Executor executor;
   private final Configuration configuration;
   private final MappedStatement mappedStatement;
@@ -70,20 +81,50 @@ public class DefaultResultSetHandler implements ResultSetHandler {
   private final BoundSql boundSql;
   private final TypeHandlerRegistry typeHandlerRegistry;
   private final ObjectFactory objectFactory;
+  private final QueryMetrics queryMetrics;
+
+  // time spent in ResultSet.next(), only measured when query metrics are enabled
+  private int fetchedRows;
+  private long fetchNanos;
 
   // nested resultmaps
   private final Map<CacheKey, Object> nestedResultObjects = new HashMap<CacheKey, Object>();
+  private boolean resultOrdered;
+  private Object previousRowValue;
   private final Map<CacheKey, Object> ancestorObjects = new HashMap<CacheKey, Object>();
   private final Map<String, String> ancestorColumnPrefix = new HashMap<String, String>();
 
   // multiple resultsets
   private final Map<String, ResultMapping> nextResultMaps = new HashMap<String, ResultMapping>();
   private final Map<CacheKey, PendingRelation> pendingRelations = new HashMap<CacheKey, PendingRelation>();
+
+  // lazy nested selects loaded together through a batchSelect
+  private final Map<String, ResultLoaderBatch> resultLoaderBatches = new HashMap<String, ResultLoaderBatch>();
   
   private static class PendingRelation {
     public MetaObject metaObject;
     public ResultMapping propertyMapping;
   }
+
+  private static class PendingNestedQuery implements Callable<Object> {
+    private final String property;
+    private final ResultLoader resultLoader;
+
+    PendingNestedQuery(String property, ResultLoader resultLoader) {
+      this.property = property;
+      this.resultLoader = resultLoader;
+    }
+
+    public Object call() throws Exception {
+      // the loader runs on a new executor and connection because it was created by another thread
+      loadingInParallel.set(Boolean.TRUE);
+      try {
+        return resultLoader.loadResult();
+      } finally {
+        loadingInParallel.remove();
+      }
+    }
+  }
   
   public DefaultResultSetHandler(Executor executor, MappedStatement mappedStatement, ParameterHandler parameterHandler, ResultHandler resultHandler, BoundSql boundSql,
       RowBounds rowBounds) {
@@ -95,7 +136,9 @@ public class DefaultResultSetHandler implements ResultSetHandler {
     this.boundSql = boundSql;
     this.typeHandlerRegistry = configuration.getTypeHandlerRegistry();
     this.objectFactory = configuration.getObjectFactory();
+    this.queryMetrics = configuration.getQueryMetrics();
     this.resultHandler = resultHandler;
+    this.resultOrdered = mappedStatement.isResultOrdered();
   }
 
   //
@@ -124,7 +167,7 @@ public class DefaultResultSetHandler implements ResultSetHandler {
       final String resultMapId = parameterMapping.getResultMapId();
       final ResultMap resultMap = configuration.getResultMap(resultMapId);
       final DefaultResultHandler resultHandler = new DefaultResultHandler(objectFactory);
-      final ResultSetWrapper rsw = new ResultSetWrapper(rs, configuration);
+      final ResultSetWrapper rsw = new ResultSetWrapper(rs, configuration, mappedStatement);
       handleRowValues(rsw, resultMap, resultHandler, new RowBounds(), null);
       metaParam.setValue(parameterMapping.getProperty(), resultHandler.getResultList());
     } finally {
@@ -137,6 +180,7 @@ public class DefaultResultSetHandler implements ResultSetHandler {
   //
 
   public List<Object> handleResultSets(Statement stmt) throws SQLException {
+    final long start = queryMetrics == null ? 0 : System.nanoTime();
     final List<Object> multipleResults = new ArrayList<Object>();
 
     int resultSetCount = 0;
@@ -168,9 +212,28 @@ public class DefaultResultSetHandler implements ResultSetHandler {
       }
     }
 
+    if (queryMetrics != null) {
+      queryMetrics.recordResults(mappedStatement, fetchedRows, fetchNanos, System.nanoTime() - start - fetchNanos);
+    }
     return collapseSingleResultList(multipleResults);
   }
 
+  public <E> Cursor<E> handleCursorResultSets(Statement stmt) throws SQLException {
+    ResultSetWrapper rsw = getFirstResultSet(stmt);
+
+    List<ResultMap> resultMaps = mappedStatement.getResultMaps();
+    int resultMapCount = resultMaps.size();
+    validateResultMapsCount(rsw, resultMapCount);
+    if (resultMapCount != 1) {
+      throw new ExecutorException("Cursor results cannot be mapped to multiple resultMaps");
+    }
+
+    // rows are streamed, so nested result objects must be flushed as soon as the parent key changes
+    resultOrdered = true;
+    ResultMap resultMap = resultMaps.get(0);
+    return new DefaultCursor<E>(this, resultMap, rsw, rowBounds);
+  }
+
   private ResultSetWrapper getFirstResultSet(Statement stmt) throws SQLException {
     ResultSet rs = stmt.getResultSet();
     while (rs == null) {
@@ -185,7 +248,7 @@ public class DefaultResultSetHandler implements ResultSetHandler {
         }
       }
     }
-    return rs != null ? new ResultSetWrapper(rs, configuration) : null;
+    return rs != null ? new ResultSetWrapper(rs, configuration, mappedStatement) : null;
   }
 
   private ResultSetWrapper getNextResultSet(Statement stmt) throws SQLException {
@@ -195,7 +258,7 @@ public class DefaultResultSetHandler implements ResultSetHandler {
         // Crazy Standard JDBC way of determining if there are more results
         if (!((!stmt.getMoreResults()) && (stmt.getUpdateCount() == -1))) {
           ResultSet rs = stmt.getResultSet();
-          return rs != null ? new ResultSetWrapper(rs, configuration) : null;
+          return rs != null ? new ResultSetWrapper(rs, configuration, mappedStatement) : null;
         }
       }
     } catch (Exception e) {
@@ -214,9 +277,14 @@ public class DefaultResultSetHandler implements ResultSetHandler {
     }
   }
 
-  private void cleanUpAfterHandlingResultSet() {
+  /*
+   * Also called by a cursor when it closes. Batches that are not full stay reachable from their loaders.
+   */
+  public void cleanUpAfterHandlingResultSet() {
     nestedResultObjects.clear();
     ancestorColumnPrefix.clear();
+    previousRowValue = null;
+    resultLoaderBatches.clear();
   }
 
   private void validateResultMapsCount(ResultSetWrapper rsw, int resultMapCount) {
@@ -257,7 +325,7 @@ public class DefaultResultSetHandler implements ResultSetHandler {
   // HANDLE ROWS FOR SIMPLE RESULTMAP
   //
 
-  private void handleRowValues(ResultSetWrapper rsw, ResultMap resultMap, ResultHandler resultHandler, RowBounds rowBounds, ResultMapping parentMapping) throws SQLException {
+  public void handleRowValues(ResultSetWrapper rsw, ResultMap resultMap, ResultHandler resultHandler, RowBounds rowBounds, ResultMapping parentMapping) throws SQLException {
     if (resultMap.hasNestedResultMaps()) {
       ensureNoRowBounds();
       checkResultHandler();
@@ -286,7 +354,7 @@ public class DefaultResultSetHandler implements ResultSetHandler {
       throws SQLException {
     DefaultResultContext resultContext = new DefaultResultContext();
     skipRows(rsw.getResultSet(), rowBounds);
-    while (shouldProcessMoreRows(rsw.getResultSet(), resultContext, rowBounds)) {
+    while (shouldProcessMoreRows(resultContext, rowBounds) && nextRow(rsw.getResultSet())) {
       ResultMap discriminatedResultMap = resolveDiscriminatedResultMap(rsw.getResultSet(), resultMap, null);
       Object rowValue = getRowValue(rsw, discriminatedResultMap);
       storeObject(resultHandler, resultContext, rowValue, parentMapping, rsw.getResultSet());
@@ -306,8 +374,8 @@ public class DefaultResultSetHandler implements ResultSetHandler {
     resultHandler.handleResult(resultContext);
   }
 
-  private boolean shouldProcessMoreRows(ResultSet rs, ResultContext context, RowBounds rowBounds) throws SQLException {
-    return !context.isStopped() && rs.next() && context.getResultCount() < rowBounds.getLimit();
+  private boolean shouldProcessMoreRows(ResultContext context, RowBounds rowBounds) throws SQLException {
+    return !context.isStopped() && context.getResultCount() < rowBounds.getLimit();
   }
 
   private void skipRows(ResultSet rs, RowBounds rowBounds) throws SQLException {
@@ -317,11 +385,24 @@ public class DefaultResultSetHandler implements ResultSetHandler {
       }
     } else {
       for (int i = 0; i < rowBounds.getOffset(); i++) {
-        rs.next();
+        nextRow(rs);
       }
     }
   }
 
+  private boolean nextRow(ResultSet rs) throws SQLException {
+    if (queryMetrics == null) {
+      return rs.next();
+    }
+    final long start = System.nanoTime();
+    final boolean hasRow = rs.next();
+    fetchNanos += System.nanoTime() - start;
+    if (hasRow) {
+      fetchedRows++;
+    }
+    return hasRow;
+  }
+
   //
   // GET VALUE FROM ROW FOR SIMPLE RESULT MAP
   //
@@ -353,31 +434,43 @@ public class DefaultResultSetHandler implements ResultSetHandler {
 
   private boolean applyPropertyMappings(ResultSetWrapper rsw, ResultMap resultMap, MetaObject metaObject, ResultLoaderMap lazyLoader, String columnPrefix)
       throws SQLException {
-    final List<String> mappedColumnNames = rsw.getMappedColumnNames(resultMap, columnPrefix);
+    final RowMappingPlan plan = rsw.getRowMappingPlan(resultMap, columnPrefix);
+    final List<PendingNestedQuery> pendingNestedQueries = configuration.isParallelNestedQueries() && loadingInParallel.get() == null
+        ? new ArrayList<PendingNestedQuery>() : null;
     boolean foundValues = false;
-    final List<ResultMapping> propertyMappings = resultMap.getPropertyResultMappings();
-    for (ResultMapping propertyMapping : propertyMappings) {
-      final String column = prependPrefix(propertyMapping.getColumn(), columnPrefix);
-      if (propertyMapping.isCompositeResult() 
-          || (column != null && mappedColumnNames.contains(column.toUpperCase(Locale.ENGLISH))) 
-          || propertyMapping.getResultSet() != null) {
-        Object value = getPropertyMappingValue(rsw.getResultSet(), metaObject, propertyMapping, lazyLoader, columnPrefix);
-        final String property = propertyMapping.getProperty(); // issue #541 make property optional
-        if (value != NO_VALUE && property != null && (value != null || configuration.isCallSettersOnNulls())) { // issue #377, call setter on nulls
-          if (value != null || !metaObject.getSetterType(property).isPrimitive()) {
-            metaObject.setValue(property, value);
-          }
-          foundValues = true;
+    final List<RowMappingPlan.PropertyMappingStep> steps = plan.getPropertyMappings();
+    final RowMappingPlan.PropertySetter[] setters = plan.getPropertySetters(metaObject);
+    for (int i = 0; i < setters.length; i++) {
+      Object value = getPropertyMappingValue(rsw.getResultSet(), metaObject, steps.get(i), lazyLoader, pendingNestedQueries, columnPrefix);
+      final RowMappingPlan.PropertySetter setter = setters[i]; // issue #541 make property optional
+      if (value != NO_VALUE && setter != null && (value != null || configuration.isCallSettersOnNulls())) { // issue #377, call setter on nulls
+        if (value != null || !setter.isPrimitive(metaObject)) {
+          setter.setValue(metaObject, value);
         }
+        foundValues = true;
       }
     }
+    if (pendingNestedQueries != null && !pendingNestedQueries.isEmpty()) {
+      foundValues = loadNestedQueries(metaObject, pendingNestedQueries) || foundValues;
+    }
     return foundValues;
   }
 
-  private Object getPropertyMappingValue(ResultSet rs, MetaObject metaResultObject, ResultMapping propertyMapping, ResultLoaderMap lazyLoader, String columnPrefix)
-      throws SQLException {
+  private boolean applyPropertyValue(MetaObject metaObject, String property, Object value) {
+    if (value != NO_VALUE && property != null && (value != null || configuration.isCallSettersOnNulls())) { // issue #377, call setter on nulls
+      if (value != null || !metaObject.getSetterType(property).isPrimitive()) {
+        metaObject.setValue(property, value);
+      }
+      return true;
+    }
+    return false;
+  }
+
+  private Object getPropertyMappingValue(ResultSet rs, MetaObject metaResultObject, RowMappingPlan.PropertyMappingStep step, ResultLoaderMap lazyLoader,
+      List<PendingNestedQuery> pendingNestedQueries, String columnPrefix) throws SQLException {
+    final ResultMapping propertyMapping = step.getResultMapping();
     if (propertyMapping.getNestedQueryId() != null) {
-      return getNestedQueryMappingValue(rs, metaResultObject, propertyMapping, lazyLoader, columnPrefix);
+      return getNestedQueryMappingValue(rs, metaResultObject, propertyMapping, lazyLoader, pendingNestedQueries, columnPrefix);
     } else if (propertyMapping.getResultSet() != null) {
       addPendingChildRelation(rs, metaResultObject, propertyMapping);
       return NO_VALUE;
@@ -386,38 +479,23 @@ public class DefaultResultSetHandler implements ResultSetHandler {
       return NO_VALUE;
     } else {
       final TypeHandler<?> typeHandler = propertyMapping.getTypeHandler();
-      final String column = prependPrefix(propertyMapping.getColumn(), columnPrefix);
-      return typeHandler.getResult(rs, column);
+      // the index is matched ignoring case, by name some drivers require the column name case of the mapping (issue gcode #557)
+      return step.getColumnIndex() > 0 ? typeHandler.getResult(rs, step.getColumnIndex()) : typeHandler.getResult(rs, step.getColumn());
     }
   }
 
   private boolean applyAutomaticMappings(ResultSetWrapper rsw, ResultMap resultMap, MetaObject metaObject, String columnPrefix) throws SQLException {
-    final List<String> unmappedColumnNames = rsw.getUnmappedColumnNames(resultMap, columnPrefix);
+    final RowMappingPlan plan = rsw.getRowMappingPlan(resultMap, columnPrefix);
     boolean foundValues = false;
-    for (String columnName : unmappedColumnNames) {
-      String propertyName = columnName;
-      if (columnPrefix != null && columnPrefix.length() > 0) {
-        // When columnPrefix is specified,
-        // ignore columns without the prefix.
-        if (columnName.toUpperCase(Locale.ENGLISH).startsWith(columnPrefix)) {
-          propertyName = columnName.substring(columnPrefix.length());
-        } else {
-          continue;
-        }
-      }
-      final String property = metaObject.findProperty(propertyName, configuration.isMapUnderscoreToCamelCase());
-      if (property != null && metaObject.hasSetter(property)) {
-        final Class<?> propertyType = metaObject.getSetterType(property);
-        if (typeHandlerRegistry.hasTypeHandler(propertyType)) {
-          final TypeHandler<?> typeHandler = rsw.getTypeHandler(propertyType, columnName);
-          final Object value = typeHandler.getResult(rsw.getResultSet(), columnName);
-          if (value != null || configuration.isCallSettersOnNulls()) { // issue #377, call setter on nulls
-            if (value != null || !propertyType.isPrimitive()) {
-              metaObject.setValue(property, value);
-            }
-            foundValues = true;
-          }
+    for (RowMappingPlan.AutoMappingStep step : plan.getAutoMappings(rsw, metaObject, configuration)) {
+      final Object value = step.getColumnIndex() > 0
+          ? step.getTypeHandler().getResult(rsw.getResultSet(), step.getColumnIndex())
+          : step.getTypeHandler().getResult(rsw.getResultSet(), step.getColumn());
+      if (value != null || configuration.isCallSettersOnNulls()) { // issue #377, call setter on nulls
+        if (value != null || !step.isPrimitive()) {
+          metaObject.setValue(step.getProperty(), value);
         }
+        foundValues = true;
       }
     }
     return foundValues;
@@ -586,8 +664,8 @@ public class DefaultResultSetHandler implements ResultSetHandler {
     return value;
   }
 
-  private Object getNestedQueryMappingValue(ResultSet rs, MetaObject metaResultObject, ResultMapping propertyMapping, ResultLoaderMap lazyLoader, String columnPrefix)
-      throws SQLException {
+  private Object getNestedQueryMappingValue(ResultSet rs, MetaObject metaResultObject, ResultMapping propertyMapping, ResultLoaderMap lazyLoader,
+      List<PendingNestedQuery> pendingNestedQueries, String columnPrefix) throws SQLException {
     final String nestedQueryId = propertyMapping.getNestedQueryId();
     final String property = propertyMapping.getProperty();
     final MappedStatement nestedQuery = configuration.getMappedStatement(nestedQueryId);
@@ -601,17 +679,86 @@ public class DefaultResultSetHandler implements ResultSetHandler {
       if (executor.isCached(nestedQuery, key)) {
         executor.deferLoad(nestedQuery, metaResultObject, property, key, targetType);
       } else {
-        final ResultLoader resultLoader = new ResultLoader(configuration, executor, nestedQuery, nestedQueryParameterObject, targetType, key, nestedBoundSql);
         if (propertyMapping.isLazy()) {
+          final ResultLoader resultLoader;
+          if (propertyMapping.getBatchQueryId() != null && !propertyMapping.isCompositeResult()) {
+            resultLoader = new BatchedResultLoader(configuration, executor, nestedQuery, nestedQueryParameterObject, targetType, key, nestedBoundSql,
+                getResultLoaderBatch(propertyMapping));
+          } else {
+            resultLoader = new ResultLoader(configuration, executor, nestedQuery, nestedQueryParameterObject, targetType, key, nestedBoundSql);
+          }
           lazyLoader.addLoader(property, metaResultObject, resultLoader);
         } else {
-          value = resultLoader.loadResult();
+          final ResultLoader resultLoader = new ResultLoader(configuration, executor, nestedQuery, nestedQueryParameterObject, targetType, key, nestedBoundSql);
+          if (pendingNestedQueries != null) {
+            pendingNestedQueries.add(new PendingNestedQuery(property, resultLoader));
+          } else {
+            value = resultLoader.loadResult();
+          }
         }
       }
     }
     return value;
   }
 
+  /*
+   * Runs the first nested query on this thread and the others concurrently on the nested query executor, each on
+   * its own connection, then sets the results once all of them are done. Nested queries never wait for that
+   * executor themselves, so it cannot be starved by the callers blocked here.
+   */
+  private boolean loadNestedQueries(MetaObject metaObject, List<PendingNestedQuery> pendingNestedQueries) throws SQLException {
+    final int count = pendingNestedQueries.size();
+    final List<Future<Object>> futures = new ArrayList<Future<Object>>(count - 1);
+    final Object[] values = new Object[count];
+    try {
+      for (int i = 1; i < count; i++) {
+        futures.add(configuration.getNestedQueryExecutor().submit(pendingNestedQueries.get(i)));
+      }
+      values[0] = pendingNestedQueries.get(0).resultLoader.loadResult();
+      for (int i = 1; i < count; i++) {
+        values[i] = getNestedQueryResult(futures.get(i - 1));
+      }
+    } finally {
+      for (Future<Object> future : futures) {
+        future.cancel(false);
+      }
+    }
+    boolean foundValues = false;
+    for (int i = 0; i < count; i++) {
+      foundValues = applyPropertyValue(metaObject, pendingNestedQueries.get(i).property, values[i]) || foundValues;
+    }
+    return foundValues;
+  }
+
+  private Object getNestedQueryResult(Future<Object> future) throws SQLException {
+    try {
+      return future.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new ExecutorException("Interrupted while waiting for a nested query.", e);
+    } catch (ExecutionException e) {
+      final Throwable cause = e.getCause();
+      if (cause instanceof SQLException) {
+        throw (SQLException) cause;
+      } else if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      }
+      throw new ExecutorException("Error loading a nested query. Cause: " + cause, cause);
+    }
+  }
+
+  private ResultLoaderBatch getResultLoaderBatch(ResultMapping propertyMapping) {
+    final String batchId = propertyMapping.getBatchQueryId() + "#" + propertyMapping.getBatchKey();
+    ResultLoaderBatch batch = resultLoaderBatches.get(batchId);
+    if (batch == null || batch.isFull()) {
+      // a full batch is only kept by its own loaders from now on
+      final MappedStatement batchQuery = configuration.getMappedStatement(propertyMapping.getBatchQueryId());
+      batch = new ResultLoaderBatch(configuration, batchQuery, propertyMapping.getBatchKey(), configuration.getLazyLoadBatchSize());
+      resultLoaderBatches.put(batchId, batch);
+    }
+    return batch;
+  }
+
   private Object prepareParameterForNestedQuery(ResultSet rs, ResultMapping resultMapping, Class<?> parameterType, String columnPrefix) throws SQLException {
     if (resultMapping.isCompositeResult()) {
       return prepareCompositeKeyParameter(rs, resultMapping, parameterType, columnPrefix);
@@ -698,12 +845,12 @@ public class DefaultResultSetHandler implements ResultSetHandler {
   private void handleRowValuesForNestedResultMap(ResultSetWrapper rsw, ResultMap resultMap, ResultHandler resultHandler, RowBounds rowBounds, ResultMapping parentMapping) throws SQLException {
     final DefaultResultContext resultContext = new DefaultResultContext();
     skipRows(rsw.getResultSet(), rowBounds);
-    Object rowValue = null;
-    while (shouldProcessMoreRows(rsw.getResultSet(), resultContext, rowBounds)) {
+    Object rowValue = previousRowValue;
+    while (shouldProcessMoreRows(resultContext, rowBounds) && nextRow(rsw.getResultSet())) {
       final ResultMap discriminatedResultMap = resolveDiscriminatedResultMap(rsw.getResultSet(), resultMap, null);
       final CacheKey rowKey = createRowKey(discriminatedResultMap, rsw, null);
       Object partialObject = nestedResultObjects.get(rowKey);
-      if (mappedStatement.isResultOrdered()) { // issue #577 && #542
+      if (resultOrdered) { // issue #577 && #542
         if (partialObject == null && rowValue != null) {
           nestedResultObjects.clear();
           storeObject(resultHandler, resultContext, rowValue, parentMapping, rsw.getResultSet());
@@ -716,8 +863,14 @@ public class DefaultResultSetHandler implements ResultSetHandler {
         }
       }
     }
-    if (rowValue != null && mappedStatement.isResultOrdered()) {
-      storeObject(resultHandler, resultContext, rowValue, parentMapping, rsw.getResultSet());
+    if (rowValue != null && resultOrdered) {
+      if (shouldProcessMoreRows(resultContext, rowBounds)) {
+        storeObject(resultHandler, resultContext, rowValue, parentMapping, rsw.getResultSet());
+        previousRowValue = null;
+      } else {
+        // stopped before the parent key changed, keep the partial object for the next call (cursors)
+        previousRowValue = rowValue;
+      }
     }
   }
   
@@ -843,9 +996,11 @@ public class DefaultResultSetHandler implements ResultSetHandler {
   //
 
   private CacheKey createRowKey(ResultMap resultMap, ResultSetWrapper rsw, String columnPrefix) throws SQLException {
-    final CacheKey cacheKey = new CacheKey();
-    cacheKey.update(resultMap.getId());
     List<ResultMapping> resultMappings = getResultMappingsForRowKey(resultMap);
+    // the id of the result map plus a column name and a value for each mapping or column
+    final int keyColumns = resultMappings.size() == 0 ? rsw.getColumnNames().size() : resultMappings.size();
+    final CacheKey cacheKey = new CacheKey(1 + 2 * keyColumns);
+    cacheKey.update(resultMap.getId());
     if (resultMappings.size() == 0) {
       if (Map.class.isAssignableFrom(resultMap.getType())) {
         createRowKeyForMap(rsw, cacheKey);
@@ -902,7 +1057,7 @@ public class DefaultResultSetHandler implements ResultSetHandler {
   }
 
   private void createRowKeyForUnmappedProperties(ResultMap resultMap, ResultSetWrapper rsw, CacheKey cacheKey, String columnPrefix) throws SQLException {
-    final MetaClass metaType = MetaClass.forClass(resultMap.getType());
+    final MetaClass metaType = MetaClass.forClass(resultMap.getType(), configuration.getReflectorFactory());
     List<String> unmappedColumnNames = rsw.getUnmappedColumnNames(resultMap, columnPrefix);
     for (String column : unmappedColumnNames) {
       String property = column;
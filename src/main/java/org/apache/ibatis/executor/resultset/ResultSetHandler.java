@@ -20,6 +20,8 @@ import java.sql.SQLException;
 import java.sql.Statement;
 import java.util.List;
 
+import org.apache.ibatis.cursor.Cursor;
+
 /**
  * @author Clinton Begin
  */
@@ -27,6 +29,8 @@ public interface ResultSetHandler {
 
   <E> List<E> handleResultSets(Statement stmt) throws SQLException;
 
+  <E> Cursor<E> handleCursorResultSets(Statement stmt) throws SQLException;
+
   void handleOutputParameters(CallableStatement cs) throws SQLException;
 
 }
@@ -27,6 +27,7 @@ import java.util.Map;
 import java.util.Set;
 
 import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.mapping.MappedStatement;
 import org.apache.ibatis.mapping.ResultMap;
 import org.apache.ibatis.session.Configuration;
 import org.apache.ibatis.type.JdbcType;
@@ -38,20 +39,34 @@ import org.apache.ibatis.type.UnknownTypeHandler;
 /**
  * @author Iwao AVE!
  */
-class ResultSetWrapper {
+public class ResultSetWrapper {
 
   private final ResultSet resultSet;
   private final TypeHandlerRegistry typeHandlerRegistry;
+  private final RowMappingPlanCache rowMappingPlanCache;
+  private final MappedStatement mappedStatement;
   private final List<String> columnNames = new ArrayList<String>();
   private final List<String> classNames = new ArrayList<String>();
   private final List<JdbcType> jdbcTypes = new ArrayList<JdbcType>();
   private final Map<String, Map<Class<?>, TypeHandler<?>>> typeHandlerMap = new HashMap<String, Map<Class<?>, TypeHandler<?>>>();
   private Map<String, List<String>> mappedColumnNamesMap = new HashMap<String, List<String>>();
   private Map<String, List<String>> unMappedColumnNamesMap = new HashMap<String, List<String>>();
+  private final Map<ResultMap, Map<String, RowMappingPlan>> rowMappingPlans = new HashMap<ResultMap, Map<String, RowMappingPlan>>();
+  private String shape;
 
   public ResultSetWrapper(ResultSet rs, Configuration configuration) throws SQLException {
+    this(rs, configuration, null);
+  }
+
+  /**
+   * @param mappedStatement the statement the column type handlers resolved for this result set are bound to,
+   *     or null to resolve them for this result set only
+   */
+  public ResultSetWrapper(ResultSet rs, Configuration configuration, MappedStatement mappedStatement) throws SQLException {
     super();
     this.typeHandlerRegistry = configuration.getTypeHandlerRegistry();
+    this.rowMappingPlanCache = configuration.getRowMappingPlanCache();
+    this.mappedStatement = mappedStatement;
     this.resultSet = rs;
     final ResultSetMetaData metaData = rs.getMetaData();
     final int columnCount = metaData.getColumnCount();
@@ -88,12 +103,24 @@ class ResultSetWrapper {
     } else {
       handler = columnHandlers.get(propertyType);
     }
+    if (handler == null) {
+      handler = resolveTypeHandler(propertyType, columnName);
+      columnHandlers.put(propertyType, handler);
+    }
+    return handler;
+  }
+
+  private TypeHandler<?> resolveTypeHandler(Class<?> propertyType, String columnName) {
+    final int index = columnNames.indexOf(columnName);
+    // handlers only depend on the property type and the column types, so they are bound to the statement that way
+    final String bindingKey = mappedStatement == null || propertyType == null || index < 0 ? null
+        : propertyType.getName() + '\t' + jdbcTypes.get(index) + '\t' + classNames.get(index);
+    TypeHandler<?> handler = bindingKey == null ? null : mappedStatement.getBoundTypeHandler(bindingKey);
     if (handler == null) {
       handler = typeHandlerRegistry.getTypeHandler(propertyType);
       // Replicate logic of UnknownTypeHandler#resolveTypeHandler
       // See issue #59 comment 10
       if (handler == null || handler instanceof UnknownTypeHandler) {
-        final int index = columnNames.indexOf(columnName);
         final JdbcType jdbcType = jdbcTypes.get(index);
         final Class<?> javaType = resolveClass(classNames.get(index));
         if (javaType != null && jdbcType != null) {
@@ -107,7 +134,9 @@ class ResultSetWrapper {
       if (handler == null || handler instanceof UnknownTypeHandler) {
         handler = new ObjectTypeHandler();
       }
-      columnHandlers.put(propertyType, handler);
+      if (bindingKey != null) {
+        mappedStatement.bindTypeHandler(bindingKey, handler);
+      }
     }
     return handler;
   }
@@ -156,6 +185,41 @@ class ResultSetWrapper {
     return unMappedColumnNames;
   }
 
+  /**
+   * Gets the mapping plan of the result map for the columns of this result set.
+   * Plans are shared with other result sets of the same shape through the configuration.
+   */
+  public RowMappingPlan getRowMappingPlan(ResultMap resultMap, String columnPrefix) throws SQLException {
+    final String prefix = columnPrefix == null ? "" : columnPrefix;
+    Map<String, RowMappingPlan> plans = rowMappingPlans.get(resultMap);
+    if (plans == null) {
+      plans = new HashMap<String, RowMappingPlan>();
+      rowMappingPlans.put(resultMap, plans);
+    }
+    RowMappingPlan plan = plans.get(prefix);
+    if (plan == null) {
+      final String planKey = getShape() + prefix;
+      plan = rowMappingPlanCache.getPlan(resultMap, planKey);
+      if (plan == null) {
+        plan = new RowMappingPlan(this, resultMap, columnPrefix);
+        rowMappingPlanCache.putPlan(resultMap, planKey, plan);
+      }
+      plans.put(prefix, plan);
+    }
+    return plan;
+  }
+
+  private String getShape() {
+    if (shape == null) {
+      final StringBuilder builder = new StringBuilder();
+      for (int i = 0; i < columnNames.size(); i++) {
+        builder.append(columnNames.get(i)).append('\t').append(jdbcTypes.get(i)).append('\t').append(classNames.get(i)).append('\n');
+      }
+      shape = builder.toString();
+    }
+    return shape;
+  }
+
   private String getMapKey(ResultMap resultMap, String columnPrefix) {
     return resultMap.getId() + ":" + columnPrefix;
   }
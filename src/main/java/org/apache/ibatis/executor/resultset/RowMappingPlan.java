@@ -0,0 +1,306 @@
+/*
+ *    Copyright 2009-2014 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.executor.resultset;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.ibatis.mapping.ResultMap;
+import org.apache.ibatis.mapping.ResultMapping;
+import org.apache.ibatis.reflection.ExceptionUtil;
+import org.apache.ibatis.reflection.MetaObject;
+import org.apache.ibatis.reflection.ReflectionException;
+import org.apache.ibatis.reflection.Reflector;
+import org.apache.ibatis.reflection.invoker.Invoker;
+import org.apache.ibatis.reflection.wrapper.BeanWrapper;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.type.TypeHandler;
+
+/**
+ * Column to property mapping steps of a result map, resolved once for a result set shape
+ * (column labels, JDBC types and column classes) and a column prefix.
+ * <p>
+ * Plans are shared by all the result sets with the same shape: they are cached per configuration in a
+ * {@link RowMappingPlanCache} so that the name matching, column index and setter lookups and type handler
+ * resolution are not repeated for every row nor for every execution of the statement.
+ *
+ * @see ResultSetWrapper#getRowMappingPlan(ResultMap, String)
+ */
+public class RowMappingPlan {
+
+  /**
+   * Maximum number of result set shapes cached per result map, statements with dynamic columns
+   * could otherwise fill the cache without bound.
+   */
+  public static final int MAX_CACHED_PLANS = 32;
+
+  /**
+   * Maximum number of result object types whose automatic mappings and property setters are cached per plan.
+   */
+  private static final int MAX_CACHED_TYPES = 8;
+
+  private final String columnPrefix;
+  private final List<PropertyMappingStep> propertyMappings;
+  private final PropertySetter[] metaObjectSetters;
+  private final Map<Class<?>, PropertySetter[]> propertySetters = new ConcurrentHashMap<Class<?>, PropertySetter[]>();
+  private final List<String> unmappedColumnNames;
+  private final int[] unmappedColumnIndexes;
+  private final Map<Class<?>, List<AutoMappingStep>> autoMappings = new ConcurrentHashMap<Class<?>, List<AutoMappingStep>>();
+
+  RowMappingPlan(ResultSetWrapper rsw, ResultMap resultMap, String columnPrefix) throws SQLException {
+    this.columnPrefix = columnPrefix;
+    final List<String> columnNames = rsw.getColumnNames();
+    final List<String> mappedColumnNames = rsw.getMappedColumnNames(resultMap, columnPrefix);
+    final List<PropertyMappingStep> steps = new ArrayList<PropertyMappingStep>();
+    for (ResultMapping propertyMapping : resultMap.getPropertyResultMappings()) {
+      final String column = prependPrefix(propertyMapping.getColumn(), columnPrefix);
+      final String upperColumn = column == null ? null : column.toUpperCase(Locale.ENGLISH);
+      if (propertyMapping.isCompositeResult()
+          || (upperColumn != null && mappedColumnNames.contains(upperColumn))
+          || propertyMapping.getResultSet() != null) {
+        steps.add(new PropertyMappingStep(propertyMapping, column, upperColumn == null ? 0 : columnIndex(columnNames, upperColumn)));
+      }
+    }
+    this.propertyMappings = Collections.unmodifiableList(steps);
+    this.metaObjectSetters = new PropertySetter[steps.size()];
+    for (int i = 0; i < metaObjectSetters.length; i++) {
+      final String property = steps.get(i).getResultMapping().getProperty();
+      metaObjectSetters[i] = property == null ? null : new PropertySetter(property, null, false);
+    }
+    this.unmappedColumnNames = rsw.getUnmappedColumnNames(resultMap, columnPrefix);
+    this.unmappedColumnIndexes = new int[unmappedColumnNames.size()];
+    for (int i = 0; i < unmappedColumnIndexes.length; i++) {
+      unmappedColumnIndexes[i] = columnIndex(columnNames, unmappedColumnNames.get(i).toUpperCase(Locale.ENGLISH));
+    }
+  }
+
+  /**
+   * @return the property mappings whose column is present in the result set (plus composite and
+   *   multiple result set mappings), in result map order.
+   */
+  public List<PropertyMappingStep> getPropertyMappings() {
+    return propertyMappings;
+  }
+
+  /**
+   * @return the setters of the property mappings for the type of the given result object, in the order of
+   *   {@link #getPropertyMappings()}; null for mappings without a property.
+   */
+  public PropertySetter[] getPropertySetters(MetaObject metaObject) {
+    if (!(metaObject.getObjectWrapper() instanceof BeanWrapper)) {
+      return metaObjectSetters;
+    }
+    final Class<?> resultType = metaObject.getOriginalObject().getClass();
+    PropertySetter[] setters = propertySetters.get(resultType);
+    if (setters == null) {
+      setters = createBeanSetters(metaObject.getReflectorFactory().findForClass(resultType));
+      if (propertySetters.size() < MAX_CACHED_TYPES) {
+        propertySetters.put(resultType, setters);
+      }
+    }
+    return setters;
+  }
+
+  private PropertySetter[] createBeanSetters(Reflector reflector) {
+    final PropertySetter[] setters = new PropertySetter[metaObjectSetters.length];
+    for (int i = 0; i < setters.length; i++) {
+      final PropertySetter setter = metaObjectSetters[i];
+      if (setter != null && setter.property.indexOf('.') < 0 && setter.property.indexOf('[') < 0 && reflector.hasSetter(setter.property)) {
+        setters[i] = new PropertySetter(setter.property, reflector.getSetInvoker(setter.property), reflector.getSetterType(setter.property).isPrimitive());
+      } else {
+        // nested paths need the MetaObject to instantiate the intermediate objects
+        setters[i] = setter;
+      }
+    }
+    return setters;
+  }
+
+  /**
+   * @return the automatic mappings of the unmapped columns for the type of the given result object.
+   */
+  public List<AutoMappingStep> getAutoMappings(ResultSetWrapper rsw, MetaObject metaObject, Configuration configuration) {
+    final Object resultObject = metaObject.getOriginalObject();
+    if (configuration.getObjectWrapperFactory().hasWrapperFor(resultObject)) {
+      // custom wrappers may resolve properties per instance
+      return createAutoMappings(rsw, metaObject, configuration);
+    }
+    final Class<?> resultType = resultObject.getClass();
+    List<AutoMappingStep> steps = autoMappings.get(resultType);
+    if (steps == null) {
+      steps = createAutoMappings(rsw, metaObject, configuration);
+      if (autoMappings.size() < MAX_CACHED_TYPES) {
+        autoMappings.put(resultType, steps);
+      }
+    }
+    return steps;
+  }
+
+  private List<AutoMappingStep> createAutoMappings(ResultSetWrapper rsw, MetaObject metaObject, Configuration configuration) {
+    final List<AutoMappingStep> steps = new ArrayList<AutoMappingStep>();
+    for (int i = 0; i < unmappedColumnNames.size(); i++) {
+      final String columnName = unmappedColumnNames.get(i);
+      String propertyName = columnName;
+      if (columnPrefix != null && columnPrefix.length() > 0) {
+        // When columnPrefix is specified,
+        // ignore columns without the prefix.
+        if (columnName.toUpperCase(Locale.ENGLISH).startsWith(columnPrefix)) {
+          propertyName = columnName.substring(columnPrefix.length());
+        } else {
+          continue;
+        }
+      }
+      final String property = metaObject.findProperty(propertyName, configuration.isMapUnderscoreToCamelCase());
+      if (property != null && metaObject.hasSetter(property)) {
+        final Class<?> propertyType = metaObject.getSetterType(property);
+        if (configuration.getTypeHandlerRegistry().hasTypeHandler(propertyType)) {
+          final TypeHandler<?> typeHandler = rsw.getTypeHandler(propertyType, columnName);
+          steps.add(new AutoMappingStep(columnName, unmappedColumnIndexes[i], property, typeHandler, propertyType.isPrimitive()));
+        }
+      }
+    }
+    return Collections.unmodifiableList(steps);
+  }
+
+  private static int columnIndex(List<String> columnNames, String upperColumnName) {
+    // first match, as ResultSet.findColumn does
+    for (int i = 0; i < columnNames.size(); i++) {
+      if (columnNames.get(i).toUpperCase(Locale.ENGLISH).equals(upperColumnName)) {
+        return i + 1;
+      }
+    }
+    return 0;
+  }
+
+  private static String prependPrefix(String columnName, String prefix) {
+    if (columnName == null || columnName.length() == 0 || prefix == null || prefix.length() == 0) {
+      return columnName;
+    }
+    return prefix + columnName;
+  }
+
+  public static class PropertyMappingStep {
+    private final ResultMapping resultMapping;
+    private final String column;
+    private final int columnIndex;
+
+    PropertyMappingStep(ResultMapping resultMapping, String column, int columnIndex) {
+      this.resultMapping = resultMapping;
+      this.column = column;
+      this.columnIndex = columnIndex;
+    }
+
+    public ResultMapping getResultMapping() {
+      return resultMapping;
+    }
+
+    /**
+     * @return the prefixed column name, may be null for composite or multiple result set mappings
+     */
+    public String getColumn() {
+      return column;
+    }
+
+    /**
+     * @return the index of the column in the result set, 0 if there is no such column
+     */
+    public int getColumnIndex() {
+      return columnIndex;
+    }
+  }
+
+  /**
+   * Sets the property of a mapping. Simple properties of beans are set through the cached setter
+   * invoker, any other property through the {@link MetaObject}.
+   */
+  public static class PropertySetter {
+    private final String property;
+    private final Invoker invoker;
+    private final boolean primitive;
+
+    PropertySetter(String property, Invoker invoker, boolean primitive) {
+      this.property = property;
+      this.invoker = invoker;
+      this.primitive = primitive;
+    }
+
+    public String getProperty() {
+      return property;
+    }
+
+    public boolean isPrimitive(MetaObject metaObject) {
+      return invoker == null ? metaObject.getSetterType(property).isPrimitive() : primitive;
+    }
+
+    public void setValue(MetaObject metaObject, Object value) {
+      if (invoker == null) {
+        metaObject.setValue(property, value);
+        return;
+      }
+      final Object object = metaObject.getOriginalObject();
+      try {
+        try {
+          invoker.invoke(object, new Object[] {value});
+        } catch (Throwable t) {
+          throw ExceptionUtil.unwrapThrowable(t);
+        }
+      } catch (Throwable t) {
+        throw new ReflectionException("Could not set property '" + property + "' of '" + object.getClass() + "' with value '" + value + "' Cause: " + t.toString(), t);
+      }
+    }
+  }
+
+  public static class AutoMappingStep {
+    private final String column;
+    private final int columnIndex;
+    private final String property;
+    private final TypeHandler<?> typeHandler;
+    private final boolean primitive;
+
+    AutoMappingStep(String column, int columnIndex, String property, TypeHandler<?> typeHandler, boolean primitive) {
+      this.column = column;
+      this.columnIndex = columnIndex;
+      this.property = property;
+      this.typeHandler = typeHandler;
+      this.primitive = primitive;
+    }
+
+    public String getColumn() {
+      return column;
+    }
+
+    public int getColumnIndex() {
+      return columnIndex;
+    }
+
+    public String getProperty() {
+      return property;
+    }
+
+    public TypeHandler<?> getTypeHandler() {
+      return typeHandler;
+    }
+
+    public boolean isPrimitive() {
+      return primitive;
+    }
+  }
+
+}
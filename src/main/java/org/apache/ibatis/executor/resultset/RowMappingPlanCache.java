@@ -0,0 +1,55 @@
+/*
+ *    Copyright 2009-2014 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.executor.resultset;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.ibatis.mapping.ResultMap;
+
+/**
+ * The {@link RowMappingPlan}s of the result maps of one configuration, by result map and by result set
+ * shape and column prefix. At most {@link RowMappingPlan#MAX_CACHED_PLANS} plans are kept per result map,
+ * statements with dynamic columns could otherwise fill the cache without bound.
+ *
+ * @see org.apache.ibatis.session.Configuration#getRowMappingPlanCache()
+ */
+public class RowMappingPlanCache {
+
+  private final Map<ResultMap, Map<String, RowMappingPlan>> plans = new ConcurrentHashMap<ResultMap, Map<String, RowMappingPlan>>();
+
+  public RowMappingPlan getPlan(ResultMap resultMap, String key) {
+    final Map<String, RowMappingPlan> plansOfResultMap = plans.get(resultMap);
+    return plansOfResultMap == null ? null : plansOfResultMap.get(key);
+  }
+
+  public void putPlan(ResultMap resultMap, String key, RowMappingPlan plan) {
+    Map<String, RowMappingPlan> plansOfResultMap = plans.get(resultMap);
+    if (plansOfResultMap == null) {
+      synchronized (plans) {
+        plansOfResultMap = plans.get(resultMap);
+        if (plansOfResultMap == null) {
+          plansOfResultMap = new ConcurrentHashMap<String, RowMappingPlan>();
+          plans.put(resultMap, plansOfResultMap);
+        }
+      }
+    }
+    if (plansOfResultMap.size() < RowMappingPlan.MAX_CACHED_PLANS) {
+      plansOfResultMap.put(key, plan);
+    }
+  }
+
+}
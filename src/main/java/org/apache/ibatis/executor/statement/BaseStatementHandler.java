@@ -23,6 +23,7 @@ import org.apache.ibatis.executor.ErrorContext;
 import org.apache.ibatis.executor.Executor;
 import org.apache.ibatis.executor.ExecutorException;
 import org.apache.ibatis.executor.keygen.KeyGenerator;
+import org.apache.ibatis.executor.metrics.QueryMetrics;
 import org.apache.ibatis.executor.parameter.ParameterHandler;
 import org.apache.ibatis.executor.resultset.ResultSetHandler;
 import org.apache.ibatis.mapping.BoundSql;
@@ -39,6 +40,7 @@ import org.apache.ibatis.type.TypeHandlerRegistry;
 public abstract class BaseStatementHandler implements StatementHandler {
 
   protected final Configuration configuration;
+  protected final QueryMetrics queryMetrics;
   protected final ObjectFactory objectFactory;
   protected final TypeHandlerRegistry typeHandlerRegistry;
   protected final ResultSetHandler resultSetHandler;
@@ -52,6 +54,7 @@ public abstract class BaseStatementHandler implements StatementHandler {
 
   protected BaseStatementHandler(Executor executor, MappedStatement mappedStatement, Object parameterObject, RowBounds rowBounds, ResultHandler resultHandler, BoundSql boundSql) {
     this.configuration = mappedStatement.getConfiguration();
+    this.queryMetrics = configuration.getQueryMetrics();
     this.executor = executor;
     this.mappedStatement = mappedStatement;
     this.rowBounds = rowBounds;
@@ -82,7 +85,11 @@ public abstract class BaseStatementHandler implements StatementHandler {
     ErrorContext.instance().sql(boundSql.getSql());
     Statement statement = null;
     try {
+      final long start = startTimer();
       statement = instantiateStatement(connection);
+      if (queryMetrics != null) {
+        queryMetrics.recordPrepare(mappedStatement, System.nanoTime() - start);
+      }
       setStatementTimeout(statement);
       setFetchSize(statement);
       return statement;
@@ -114,6 +121,16 @@ public abstract class BaseStatementHandler implements StatementHandler {
     }
   }
 
+  protected long startTimer() {
+    return queryMetrics == null ? 0 : System.nanoTime();
+  }
+
+  protected void recordExecute(long start) {
+    if (queryMetrics != null) {
+      queryMetrics.recordExecute(mappedStatement, System.nanoTime() - start);
+    }
+  }
+
   protected void closeStatement(Statement statement) {
     try {
       if (statement != null) {
@@ -22,6 +22,7 @@ import java.sql.SQLException;
 import java.sql.Statement;
 import java.util.List;
 
+import org.apache.ibatis.cursor.Cursor;
 import org.apache.ibatis.executor.Executor;
 import org.apache.ibatis.executor.ExecutorException;
 import org.apache.ibatis.executor.keygen.KeyGenerator;
@@ -45,7 +46,9 @@ public class CallableStatementHandler extends BaseStatementHandler {
   public int update(Statement statement)
       throws SQLException {
     CallableStatement cs = (CallableStatement) statement;
+    final long start = startTimer();
     cs.execute();
+    recordExecute(start);
     int rows = cs.getUpdateCount();
     Object parameterObject = boundSql.getParameterObject();
     KeyGenerator keyGenerator = mappedStatement.getKeyGenerator();
@@ -63,12 +66,24 @@ public class CallableStatementHandler extends BaseStatementHandler {
   public <E> List<E> query(Statement statement, ResultHandler resultHandler)
       throws SQLException {
     CallableStatement cs = (CallableStatement) statement;
+    final long start = startTimer();
     cs.execute();
+    recordExecute(start);
     List<E> resultList = resultSetHandler.<E>handleResultSets(cs);
     resultSetHandler.handleOutputParameters(cs);
     return resultList;
   }
 
+  public <E> Cursor<E> queryCursor(Statement statement) throws SQLException {
+    CallableStatement cs = (CallableStatement) statement;
+    final long start = startTimer();
+    cs.execute();
+    recordExecute(start);
+    Cursor<E> resultList = resultSetHandler.<E>handleCursorResultSets(cs);
+    resultSetHandler.handleOutputParameters(cs);
+    return resultList;
+  }
+
   protected Statement instantiateStatement(Connection connection) throws SQLException {
     String sql = boundSql.getSql();
     if (mappedStatement.getResultSetType() != null) {
@@ -22,6 +22,7 @@ import java.sql.SQLException;
 import java.sql.Statement;
 import java.util.List;
 
+import org.apache.ibatis.cursor.Cursor;
 import org.apache.ibatis.executor.Executor;
 import org.apache.ibatis.executor.keygen.Jdbc3KeyGenerator;
 import org.apache.ibatis.executor.keygen.KeyGenerator;
@@ -41,7 +42,9 @@ public class PreparedStatementHandler extends BaseStatementHandler {
 
   public int update(Statement statement) throws SQLException {
     PreparedStatement ps = (PreparedStatement) statement;
+    final long start = startTimer();
     ps.execute();
+    recordExecute(start);
     int rows = ps.getUpdateCount();
     Object parameterObject = boundSql.getParameterObject();
     KeyGenerator keyGenerator = mappedStatement.getKeyGenerator();
@@ -56,10 +59,20 @@ public class PreparedStatementHandler extends BaseStatementHandler {
 
   public <E> List<E> query(Statement statement, ResultHandler resultHandler) throws SQLException {
     PreparedStatement ps = (PreparedStatement) statement;
+    final long start = startTimer();
     ps.execute();
+    recordExecute(start);
     return resultSetHandler.<E> handleResultSets(ps);
   }
 
+  public <E> Cursor<E> queryCursor(Statement statement) throws SQLException {
+    PreparedStatement ps = (PreparedStatement) statement;
+    final long start = startTimer();
+    ps.execute();
+    recordExecute(start);
+    return resultSetHandler.<E> handleCursorResultSets(ps);
+  }
+
   protected Statement instantiateStatement(Connection connection) throws SQLException {
     String sql = boundSql.getSql();
     if (mappedStatement.getKeyGenerator() instanceof Jdbc3KeyGenerator) {
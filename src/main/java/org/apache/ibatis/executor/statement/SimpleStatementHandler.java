@@ -21,6 +21,7 @@ import java.sql.SQLException;
 import java.sql.Statement;
 import java.util.List;
 
+import org.apache.ibatis.cursor.Cursor;
 import org.apache.ibatis.executor.Executor;
 import org.apache.ibatis.executor.keygen.Jdbc3KeyGenerator;
 import org.apache.ibatis.executor.keygen.KeyGenerator;
@@ -45,16 +46,20 @@ public class SimpleStatementHandler extends BaseStatementHandler {
 		Object parameterObject = boundSql.getParameterObject();
 		KeyGenerator keyGenerator = mappedStatement.getKeyGenerator();
 		int rows;
+		final long start = startTimer();
 		if (keyGenerator instanceof Jdbc3KeyGenerator) {
 			statement.execute(sql, Statement.RETURN_GENERATED_KEYS);
+			recordExecute(start);
 			rows = statement.getUpdateCount();
 			keyGenerator.processAfter(executor, mappedStatement, statement, parameterObject);
 		} else if (keyGenerator instanceof SelectKeyGenerator) {
 			statement.execute(sql);
+			recordExecute(start);
 			rows = statement.getUpdateCount();
 			keyGenerator.processAfter(executor, mappedStatement, statement, parameterObject);
 		} else {
 			statement.execute(sql);
+			recordExecute(start);
 			rows = statement.getUpdateCount();
 		}
 		return rows;
@@ -72,11 +77,21 @@ public class SimpleStatementHandler extends BaseStatementHandler {
 		// 获取要执行的语句。
 		String sql = boundSql.getSql();
 		// JDBC 中的 Statement 执行语句。
+		final long start = startTimer();
 		statement.execute(sql);
+		recordExecute(start);
 		// 处理并返回结果。
 		return resultSetHandler.<E> handleResultSets(statement);
 	}
 
+	public <E> Cursor<E> queryCursor(Statement statement) throws SQLException {
+		String sql = boundSql.getSql();
+		final long start = startTimer();
+		statement.execute(sql);
+		recordExecute(start);
+		return resultSetHandler.<E> handleCursorResultSets(statement);
+	}
+
 	protected Statement instantiateStatement(Connection connection) throws SQLException {
 		if (mappedStatement.getResultSetType() != null) {
 			return connection.createStatement(mappedStatement.getResultSetType().getValue(), ResultSet.CONCUR_READ_ONLY);
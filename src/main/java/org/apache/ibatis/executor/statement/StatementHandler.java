@@ -20,6 +20,7 @@ import java.sql.SQLException;
 import java.sql.Statement;
 import java.util.List;
 
+import org.apache.ibatis.cursor.Cursor;
 import org.apache.ibatis.executor.parameter.ParameterHandler;
 import org.apache.ibatis.mapping.BoundSql;
 import org.apache.ibatis.session.ResultHandler;
@@ -47,6 +48,8 @@ public interface StatementHandler {
 
 	<E> List<E> query(Statement statement, ResultHandler resultHandler) throws SQLException;
 
+	<E> Cursor<E> queryCursor(Statement statement) throws SQLException;
+
 	BoundSql getBoundSql();
 
 	ParameterHandler getParameterHandler();
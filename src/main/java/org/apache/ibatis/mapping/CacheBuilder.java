@@ -28,6 +28,7 @@ import org.apache.ibatis.cache.decorators.LruCache;
 import org.apache.ibatis.cache.decorators.ScheduledCache;
 import org.apache.ibatis.cache.decorators.SerializedCache;
 import org.apache.ibatis.cache.decorators.SynchronizedCache;
+import org.apache.ibatis.cache.impl.ConcurrentCache;
 import org.apache.ibatis.cache.impl.PerpetualCache;
 import org.apache.ibatis.reflection.MetaObject;
 import org.apache.ibatis.reflection.SystemMetaObject;
@@ -91,6 +92,8 @@ public class CacheBuilder {
         setCacheProperties(cache);
       }
       cache = setStandardDecorators(cache);
+    } else if (ConcurrentCache.class.equals(cache.getClass())) {
+      cache = setConcurrentDecorators(cache);
     } else if (!LoggingCache.class.isAssignableFrom(cache.getClass())) {
       cache = new LoggingCache(cache);
     }
@@ -127,6 +130,34 @@ public class CacheBuilder {
     }
   }
 
+  /*
+   * Same decorators as the default cache except SynchronizedCache, ConcurrentCache evicts by itself
+   * and the remaining decorators are safe for concurrent use.
+   */
+  private Cache setConcurrentDecorators(Cache cache) {
+    for (Class<? extends Cache> decorator : decorators) {
+      // LRU is the default eviction, and what ConcurrentCache does anyway
+      if (!LruCache.class.equals(decorator)) {
+        throw new CacheException("Cache " + id + " of type CONCURRENT evicts least recently used entries by itself and cannot be decorated with "
+            + decorator.getName() + ". Remove the eviction attribute or use the default cache.");
+      }
+    }
+    if (size != null) {
+      if (size < 1) {
+        throw new CacheException("Cache " + id + " of type CONCURRENT needs a positive size, got " + size + ".");
+      }
+      ((ConcurrentCache) cache).setSize(size);
+    }
+    if (clearInterval != null) {
+      cache = new ScheduledCache(cache);
+      ((ScheduledCache) cache).setClearInterval(clearInterval);
+    }
+    if (readWrite) {
+      cache = new SerializedCache(cache);
+    }
+    return new LoggingCache(cache);
+  }
+
   private void setCacheProperties(Cache cache) {
     if (properties != null) {
       MetaObject metaCache = SystemMetaObject.forObject(cache);
@@ -18,6 +18,8 @@ package org.apache.ibatis.mapping;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.apache.ibatis.cache.Cache;
 import org.apache.ibatis.executor.keygen.Jdbc3KeyGenerator;
@@ -27,6 +29,7 @@ import org.apache.ibatis.logging.Log;
 import org.apache.ibatis.logging.LogFactory;
 import org.apache.ibatis.scripting.LanguageDriver;
 import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.type.TypeHandler;
 
 /**
  * <h3>封装 MyBatis 映射文件中的一个映射语句的配置信息</h3>
@@ -39,6 +42,11 @@ import org.apache.ibatis.session.Configuration;
  */
 public final class MappedStatement {
 
+	/**
+	 * 每个语句最多绑定的结果列类型处理器数量，避免列不固定的语句无限制地增长。
+	 */
+	private static final int MAX_BOUND_TYPE_HANDLERS = 256;
+
 	/**
 	 * 
 	 */
@@ -192,6 +200,11 @@ public final class MappedStatement {
 	 * </p>
 	 */
 	private String[] resultSets;
+	/**
+	 * 首次执行后绑定的结果列类型处理器，注册新的类型处理器后失效。
+	 */
+	private final Map<String, TypeHandler<?>> boundTypeHandlers = new ConcurrentHashMap<String, TypeHandler<?>>();
+	private volatile int typeHandlerRegistrations = -1;
 
 	private MappedStatement() {
 		// constructor disabled
@@ -417,6 +430,33 @@ public final class MappedStatement {
 		return resultSets;
 	}
 
+	/**
+	 * 取得之前执行时为结果列解析并绑定的类型处理器。
+	 * 
+	 * @param key 属性类型、列的 JDBC 类型与 Java 类名组成的键
+	 * @return 未绑定时返回 null
+	 */
+	public TypeHandler<?> getBoundTypeHandler(String key) {
+		int registrations = configuration.getTypeHandlerRegistry().getRegistrationCount();
+		if (registrations != typeHandlerRegistrations) {
+			boundTypeHandlers.clear();
+			typeHandlerRegistrations = registrations;
+		}
+		return boundTypeHandlers.get(key);
+	}
+
+	/**
+	 * 绑定为结果列解析出的类型处理器，之后的执行不再查找注册表或加载类。
+	 * 
+	 * @param key 属性类型、列的 JDBC 类型与 Java 类名组成的键
+	 * @param typeHandler 解析出的类型处理器
+	 */
+	public void bindTypeHandler(String key, TypeHandler<?> typeHandler) {
+		if (boundTypeHandlers.size() < MAX_BOUND_TYPE_HANDLERS) {
+			boundTypeHandlers.put(key, typeHandler);
+		}
+	}
+
 	/**
 	 * 
 	 * @param parameterObject
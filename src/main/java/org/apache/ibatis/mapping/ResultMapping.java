@@ -45,6 +45,8 @@ public class ResultMapping {
   private String resultSet;
   private String foreignColumn;
   private boolean lazy;
+  private String batchQueryId;
+  private String batchKey;
 
   private ResultMapping() {
   }
@@ -131,6 +133,16 @@ public class ResultMapping {
       resultMapping.lazy = lazy;
       return this;
     }
+
+    public Builder batchQueryId(String batchQueryId) {
+      resultMapping.batchQueryId = batchQueryId;
+      return this;
+    }
+
+    public Builder batchKey(String batchKey) {
+      resultMapping.batchKey = batchKey;
+      return this;
+    }
     
     public ResultMapping build() {
       // lock down collections
@@ -167,6 +179,14 @@ public class ResultMapping {
           throw new IllegalStateException("There should be the same number of columns and foreignColumns in property " + resultMapping.property);
         }
       }
+      if (resultMapping.batchQueryId != null) {
+        if (resultMapping.nestedQueryId == null) {
+          throw new IllegalStateException("A batchSelect needs a nested select in property " + resultMapping.property);
+        }
+        if (resultMapping.batchKey == null) {
+          throw new IllegalStateException("A batchSelect needs a batchKey in property " + resultMapping.property);
+        }
+      }
     }
     
     private void resolveTypeHandler() {
@@ -250,6 +270,21 @@ public class ResultMapping {
   public void setLazy(boolean lazy) {
     this.lazy = lazy;
   }
+
+  /**
+   * Statement that loads the lazy nested select of many result objects at once. It receives the values of
+   * the column as a list named "list".
+   */
+  public String getBatchQueryId() {
+    return batchQueryId;
+  }
+
+  /**
+   * Property of the objects returned by the batch statement that holds the column value they belong to.
+   */
+  public String getBatchKey() {
+    return batchKey;
+  }
   
   @Override
   public boolean equals(Object o) {
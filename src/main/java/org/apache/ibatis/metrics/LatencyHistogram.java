@@ -0,0 +1,87 @@
+/*
+ *    Copyright 2009-2014 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Counts latencies in buckets that double in size: bucket 0 holds everything under 1 microsecond,
+ * bucket i latencies from 2^(i-1) up to 2^i microseconds and the last bucket everything longer.
+ */
+public class LatencyHistogram {
+
+  public static final int BUCKETS = 32;
+
+  private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+
+  public void record(long nanos) {
+    counts.incrementAndGet(bucketOf(nanos));
+  }
+
+  public long getCount() {
+    long count = 0;
+    for (int i = 0; i < BUCKETS; i++) {
+      count += counts.get(i);
+    }
+    return count;
+  }
+
+  public long[] getBucketCounts() {
+    long[] result = new long[BUCKETS];
+    for (int i = 0; i < BUCKETS; i++) {
+      result[i] = counts.get(i);
+    }
+    return result;
+  }
+
+  /**
+   * @return the upper bound in nanoseconds of the bucket that contains the given percentile,
+   *         or 0 if nothing was recorded
+   */
+  public long getPercentile(double percentile) {
+    long[] snapshot = getBucketCounts();
+    long total = 0;
+    for (long count : snapshot) {
+      total += count;
+    }
+    if (total == 0) {
+      return 0;
+    }
+    long rank = (long) Math.ceil(total * percentile / 100.0);
+    long seen = 0;
+    for (int i = 0; i < BUCKETS; i++) {
+      seen += snapshot[i];
+      if (seen >= rank && snapshot[i] > 0) {
+        return getUpperBound(i);
+      }
+    }
+    return getUpperBound(BUCKETS - 1);
+  }
+
+  public static long getUpperBound(int bucket) {
+    return bucket == BUCKETS - 1 ? Long.MAX_VALUE : (1L << bucket) * 1000L;
+  }
+
+  static int bucketOf(long nanos) {
+    long micros = nanos / 1000L;
+    if (micros <= 0) {
+      return 0;
+    }
+    int bucket = 64 - Long.numberOfLeadingZeros(micros);
+    return bucket < BUCKETS ? bucket : BUCKETS - 1;
+  }
+
+}
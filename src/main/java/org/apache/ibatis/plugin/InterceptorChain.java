@@ -18,6 +18,8 @@ package org.apache.ibatis.plugin;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * @author Clinton Begin
@@ -26,6 +28,11 @@ public class InterceptorChain {
 
 	private final List<Interceptor> interceptors = new ArrayList<Interceptor>();
 
+	/**
+	 * 本拦截器链中各拦截器的签名和代理类构造方法，由 {@link Plugin#wrap(Object, Interceptor)} 在 pluginAll 期间填充。
+	 */
+	private final Map<Class<?>, Plugin.InterceptorMetadata> metadataCache = new ConcurrentHashMap<Class<?>, Plugin.InterceptorMetadata>();
+
 	/**
 	 * <p>
 	 * 简单来说，调用拦截器链里的每个拦截器依次对参数对象进行拦截。
@@ -44,8 +51,13 @@ public class InterceptorChain {
  	 * </p>
 	 */
 	public Object pluginAll(Object target) {
-		for (Interceptor interceptor : interceptors) {
-			target = interceptor.plugin(target);
+		Map<Class<?>, Plugin.InterceptorMetadata> previous = Plugin.bindMetadataCache(metadataCache);
+		try {
+			for (Interceptor interceptor : interceptors) {
+				target = interceptor.plugin(target);
+			}
+		} finally {
+			Plugin.bindMetadataCache(previous);
 		}
 		return target;
 	}
@@ -15,13 +15,16 @@
  */
 package org.apache.ibatis.plugin;
 
+import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.lang.reflect.Proxy;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.apache.ibatis.reflection.ExceptionUtil;
 
@@ -30,6 +33,13 @@ import org.apache.ibatis.reflection.ExceptionUtil;
  */
 public class Plugin implements InvocationHandler {
 
+	/**
+	 * 当前线程正在执行的 {@link InterceptorChain#pluginAll(Object)} 所属拦截器链的元数据缓存。
+	 * 缓存跟随拦截器链（也就是 Configuration）的生命周期，不在静态字段里强引用拦截器类和目标类，
+	 * 避免重新部署后旧的类加载器无法回收。
+	 */
+	private static final ThreadLocal<Map<Class<?>, InterceptorMetadata>> CHAIN_METADATA = new ThreadLocal<Map<Class<?>, InterceptorMetadata>>();
+
 	private Object target;
 	private Interceptor interceptor;
 	private Map<Class<?>, Set<Method>> signatureMap;
@@ -47,11 +57,10 @@ public class Plugin implements InvocationHandler {
 	 * @return
 	 */
 	public static Object wrap(Object target, Interceptor interceptor) {
-		Map<Class<?>, Set<Method>> signatureMap = getSignatureMap(interceptor);
-		Class<?> type = target.getClass();
-		Class<?>[] interfaces = getAllInterfaces(type, signatureMap);
-		if (interfaces.length > 0) {
-			return Proxy.newProxyInstance(type.getClassLoader(), interfaces, new Plugin(target, interceptor, signatureMap));
+		InterceptorMetadata metadata = getMetadata(interceptor);
+		Constructor<?> proxyConstructor = metadata.getProxyConstructor(target.getClass());
+		if (proxyConstructor != null) {
+			return newProxyInstance(proxyConstructor, new Plugin(target, interceptor, metadata.signatureMap));
 		}
 		return target;
 	}
@@ -78,6 +87,45 @@ public class Plugin implements InvocationHandler {
 		}
 	}
 
+	/**
+	 * 把拦截器链的元数据缓存绑定到当前线程，返回之前绑定的缓存，调用者在结束时应重新绑定它。
+	 */
+	static Map<Class<?>, InterceptorMetadata> bindMetadataCache(Map<Class<?>, InterceptorMetadata> metadataCache) {
+		Map<Class<?>, InterceptorMetadata> previous = CHAIN_METADATA.get();
+		if (metadataCache == null) {
+			CHAIN_METADATA.remove();
+		} else {
+			CHAIN_METADATA.set(metadataCache);
+		}
+		return previous;
+	}
+
+	/**
+	 * 在拦截器链之外直接调用 wrap 时没有缓存可用，每次重新解析。
+	 */
+	private static InterceptorMetadata getMetadata(Interceptor interceptor) {
+		Map<Class<?>, InterceptorMetadata> metadataCache = CHAIN_METADATA.get();
+		if (metadataCache == null) {
+			return new InterceptorMetadata(getSignatureMap(interceptor));
+		}
+		InterceptorMetadata metadata = metadataCache.get(interceptor.getClass());
+		if (metadata == null) {
+			metadata = new InterceptorMetadata(getSignatureMap(interceptor));
+			metadataCache.put(interceptor.getClass(), metadata);
+		}
+		return metadata;
+	}
+
+	private static Object newProxyInstance(Constructor<?> proxyConstructor, Plugin plugin) {
+		try {
+			return proxyConstructor.newInstance(plugin);
+		} catch (InvocationTargetException e) {
+			throw new PluginException("Could not create plugin proxy. Cause: " + e.getTargetException(), e.getTargetException());
+		} catch (Exception e) {
+			throw new PluginException("Could not create plugin proxy. Cause: " + e, e);
+		}
+	}
+
 	private static Map<Class<?>, Set<Method>> getSignatureMap(Interceptor interceptor) {
 		Intercepts interceptsAnnotation = interceptor.getClass().getAnnotation(Intercepts.class);
 		if (interceptsAnnotation == null) { // issue #251
@@ -114,4 +162,48 @@ public class Plugin implements InvocationHandler {
 		return interfaces.toArray(new Class<?>[interfaces.size()]);
 	}
 
+	/**
+	 * 一个拦截器类型的拦截元数据：签名表，以及每个目标类型需要代理的接口所对应的代理类构造方法。
+	 */
+	static class InterceptorMetadata {
+
+		private static final Constructor<?> NO_PROXY;
+
+		static {
+			try {
+				NO_PROXY = Object.class.getConstructor();
+			} catch (NoSuchMethodException e) {
+				throw new ExceptionInInitializerError(e);
+			}
+		}
+
+		private final Map<Class<?>, Set<Method>> signatureMap;
+		private final Map<Class<?>, Constructor<?>> proxyConstructors = new ConcurrentHashMap<Class<?>, Constructor<?>>();
+
+		private InterceptorMetadata(Map<Class<?>, Set<Method>> signatureMap) {
+			this.signatureMap = signatureMap;
+		}
+
+		/**
+		 * @return 目标类型的代理类构造方法，目标类型没有需要拦截的接口时返回 null
+		 */
+		private Constructor<?> getProxyConstructor(Class<?> type) {
+			Constructor<?> constructor = proxyConstructors.get(type);
+			if (constructor == null) {
+				Class<?>[] interfaces = getAllInterfaces(type, signatureMap);
+				if (interfaces.length > 0) {
+					try {
+						constructor = Proxy.getProxyClass(type.getClassLoader(), interfaces).getConstructor(InvocationHandler.class);
+					} catch (NoSuchMethodException e) {
+						throw new PluginException("Could not find the constructor of the plugin proxy for " + type + ". Cause: " + e, e);
+					}
+				} else {
+					constructor = NO_PROXY;
+				}
+				proxyConstructors.put(type, constructor);
+			}
+			return constructor == NO_PROXY ? null : constructor;
+		}
+	}
+
 }
@@ -0,0 +1,39 @@
+/*
+ *    Copyright 2009-2014 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.plugin.pagination;
+
+import java.util.List;
+
+import org.apache.ibatis.session.RowBounds;
+
+/**
+ * Rewrites a query so that the database only returns one page of its rows.
+ *
+ * @see PaginationInterceptor
+ */
+public interface Dialect {
+
+  /**
+   * @param sql the query
+   * @param offset the number of rows to skip, may be 0
+   * @param limit the maximum number of rows, may be {@link RowBounds#NO_ROW_LIMIT}
+   * @param parameters receives the values of the placeholders added to sql, in order. Added placeholders
+   *          must come after all the placeholders of sql.
+   * @return the rewritten query
+   */
+  String getLimitSql(String sql, int offset, int limit, List<Object> parameters);
+
+}
@@ -0,0 +1,72 @@
+/*
+ *    Copyright 2009-2014 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.plugin.pagination;
+
+import org.apache.ibatis.session.RowBounds;
+
+/**
+ * Row bounds for keyset (seek) pagination: instead of skipping rows, the next page starts after the
+ * row with the given key values. The query is ordered by the key columns, so it must not have an ORDER BY
+ * of its own, and the columns must identify a row and be returned by the query under these names.
+ */
+public class KeysetBounds extends PageBounds {
+
+  private final String[] columns;
+  private final Object[] lastValues;
+  private final boolean descending;
+
+  /**
+   * Bounds of the first page.
+   */
+  public KeysetBounds(int limit, String... columns) {
+    this(limit, false, columns, null, false);
+  }
+
+  /**
+   * @param limit the maximum number of rows of the page
+   * @param columns the key columns
+   * @param lastValues the values of the key columns in the last row of the previous page, null for the first page
+   */
+  public KeysetBounds(int limit, String[] columns, Object[] lastValues) {
+    this(limit, false, columns, lastValues, false);
+  }
+
+  public KeysetBounds(int limit, boolean count, String[] columns, Object[] lastValues, boolean descending) {
+    super(RowBounds.NO_ROW_OFFSET, limit, count);
+    if (columns == null || columns.length == 0) {
+      throw new IllegalArgumentException("Keyset pagination needs at least one key column");
+    }
+    if (lastValues != null && lastValues.length != columns.length) {
+      throw new IllegalArgumentException("Expected " + columns.length + " last key values but got " + lastValues.length);
+    }
+    this.columns = columns;
+    this.lastValues = lastValues;
+    this.descending = descending;
+  }
+
+  public String[] getColumns() {
+    return columns;
+  }
+
+  public Object[] getLastValues() {
+    return lastValues;
+  }
+
+  public boolean isDescending() {
+    return descending;
+  }
+
+}
@@ -0,0 +1,37 @@
+/*
+ *    Copyright 2009-2014 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.plugin.pagination;
+
+import java.util.List;
+
+import org.apache.ibatis.session.RowBounds;
+
+/**
+ * {@code LIMIT ? OFFSET ?} as understood by MySQL, MariaDB, PostgreSQL, HSQLDB, H2 and SQLite.
+ */
+public class LimitOffsetDialect implements Dialect {
+
+  public String getLimitSql(String sql, int offset, int limit, List<Object> parameters) {
+    StringBuilder pageSql = new StringBuilder(sql.length() + 20).append(sql).append(" LIMIT ?");
+    parameters.add(limit);
+    if (offset > RowBounds.NO_ROW_OFFSET) {
+      pageSql.append(" OFFSET ?");
+      parameters.add(offset);
+    }
+    return pageSql.toString();
+  }
+
+}
@@ -0,0 +1,38 @@
+/*
+ *    Copyright 2009-2014 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.plugin.pagination;
+
+import java.util.List;
+
+import org.apache.ibatis.session.RowBounds;
+
+/**
+ * The standard {@code OFFSET ? ROWS FETCH NEXT ? ROWS ONLY} as understood by SQL Server 2012, Oracle 12c,
+ * DB2 and Derby. SQL Server only accepts it after an ORDER BY clause.
+ */
+public class OffsetFetchDialect implements Dialect {
+
+  public String getLimitSql(String sql, int offset, int limit, List<Object> parameters) {
+    StringBuilder pageSql = new StringBuilder(sql.length() + 40).append(sql).append(" OFFSET ? ROWS");
+    parameters.add(offset);
+    if (limit != RowBounds.NO_ROW_LIMIT) {
+      pageSql.append(" FETCH NEXT ? ROWS ONLY");
+      parameters.add(limit);
+    }
+    return pageSql.toString();
+  }
+
+}
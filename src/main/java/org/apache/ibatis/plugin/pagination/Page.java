@@ -0,0 +1,54 @@
+/*
+ *    Copyright 2009-2014 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.plugin.pagination;
+
+import java.util.ArrayList;
+import java.util.Collection;
+
+/**
+ * The rows of a page returned by the {@link PaginationInterceptor}.
+ */
+public class Page<E> extends ArrayList<E> {
+
+  private static final long serialVersionUID = 1L;
+
+  private final int offset;
+  private final int limit;
+  private final long total;
+
+  public Page(Collection<? extends E> rows, int offset, int limit, long total) {
+    super(rows);
+    this.offset = offset;
+    this.limit = limit;
+    this.total = total;
+  }
+
+  public int getOffset() {
+    return offset;
+  }
+
+  public int getLimit() {
+    return limit;
+  }
+
+  /**
+   * @return the number of rows of the whole query or -1 if they were not counted
+   */
+  public long getTotal() {
+    return total;
+  }
+
+}
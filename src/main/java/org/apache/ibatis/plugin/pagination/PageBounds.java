@@ -0,0 +1,41 @@
+/*
+ *    Copyright 2009-2014 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.plugin.pagination;
+
+import org.apache.ibatis.session.RowBounds;
+
+/**
+ * Row bounds that also ask the {@link PaginationInterceptor} for the total number of rows,
+ * which is then available from the returned {@link Page}.
+ */
+public class PageBounds extends RowBounds {
+
+  private final boolean count;
+
+  public PageBounds(int offset, int limit) {
+    this(offset, limit, false);
+  }
+
+  public PageBounds(int offset, int limit, boolean count) {
+    super(offset, limit);
+    this.count = count;
+  }
+
+  public boolean isCount() {
+    return count;
+  }
+
+}
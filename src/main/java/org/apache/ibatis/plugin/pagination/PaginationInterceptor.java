@@ -0,0 +1,279 @@
+/*
+ *    Copyright 2009-2014 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.plugin.pagination;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.apache.ibatis.cache.CacheKey;
+import org.apache.ibatis.executor.Executor;
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.logging.Log;
+import org.apache.ibatis.logging.LogFactory;
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.mapping.ParameterMapping;
+import org.apache.ibatis.mapping.ResultMap;
+import org.apache.ibatis.mapping.ResultMapping;
+import org.apache.ibatis.mapping.SqlCommandType;
+import org.apache.ibatis.mapping.StatementType;
+import org.apache.ibatis.mapping.VendorDatabaseIdProvider;
+import org.apache.ibatis.plugin.Interceptor;
+import org.apache.ibatis.plugin.Intercepts;
+import org.apache.ibatis.plugin.Invocation;
+import org.apache.ibatis.plugin.Plugin;
+import org.apache.ibatis.plugin.PluginException;
+import org.apache.ibatis.plugin.Signature;
+import org.apache.ibatis.reflection.property.PropertyTokenizer;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.ResultHandler;
+import org.apache.ibatis.session.RowBounds;
+import org.apache.ibatis.type.TypeHandlerRegistry;
+
+/**
+ * Applies {@link RowBounds} on the database instead of skipping rows of the result set.
+ * <p>
+ * Selects called with row bounds are rewritten with the {@link Dialect} of the database: the one named by
+ * the "dialect" property (an alias below or a class name), otherwise the one matching the databaseId, otherwise
+ * the one matching the database product name. {@link PageBounds} with count set also run
+ * "select count(*) from (...)" and {@link KeysetBounds} seek past the last row of the previous page.
+ * The result is a {@link Page}.
+ * <p>
+ * Statements with nested result maps (where row bounds count objects, not rows) and callable statements
+ * are left to the default row bounds handling, as are all statements when no dialect is found.
+ */
+@Intercepts({ @Signature(type = Executor.class, method = "query", args = { MappedStatement.class, Object.class, RowBounds.class, ResultHandler.class }) })
+public class PaginationInterceptor implements Interceptor {
+
+  private static final Log log = LogFactory.getLog(PaginationInterceptor.class);
+
+  private static final String PAGE_PARAMETER_PREFIX = "_page_";
+  private static final String COUNT_STATEMENT_SUFFIX = "!count";
+
+  private static final Map<String, Dialect> DIALECTS = new LinkedHashMap<String, Dialect>();
+
+  static {
+    Dialect limitOffset = new LimitOffsetDialect();
+    Dialect offsetFetch = new OffsetFetchDialect();
+    DIALECTS.put("mysql", limitOffset);
+    DIALECTS.put("mariadb", limitOffset);
+    DIALECTS.put("postgres", limitOffset);
+    DIALECTS.put("hsql", limitOffset);
+    DIALECTS.put("h2", limitOffset);
+    DIALECTS.put("sqlite", limitOffset);
+    DIALECTS.put("oracle", new RownumDialect());
+    DIALECTS.put("sql server", offsetFetch);
+    DIALECTS.put("sqlserver", offsetFetch);
+    DIALECTS.put("mssql", offsetFetch);
+    DIALECTS.put("derby", offsetFetch);
+    DIALECTS.put("db2", offsetFetch);
+  }
+
+  private final ConcurrentMap<String, MappedStatement> countStatements = new ConcurrentHashMap<String, MappedStatement>();
+  private Dialect dialect;
+  private volatile boolean dialectResolved;
+
+  public Object intercept(Invocation invocation) throws Throwable {
+    final Object[] args = invocation.getArgs();
+    final MappedStatement ms = (MappedStatement) args[0];
+    final Object parameter = args[1];
+    final RowBounds rowBounds = (RowBounds) args[2];
+    final ResultHandler resultHandler = (ResultHandler) args[3];
+    if (rowBounds == RowBounds.DEFAULT
+        || ms.hasNestedResultMaps()
+        || ms.getStatementType() == StatementType.CALLABLE) {
+      return invocation.proceed();
+    }
+    final Dialect pageDialect = getDialect(ms.getConfiguration());
+    if (pageDialect == null) {
+      return invocation.proceed();
+    }
+
+    final Executor executor = (Executor) invocation.getTarget();
+    final BoundSql boundSql = ms.getBoundSql(parameter);
+    final String sql = trimSql(boundSql.getSql());
+    long total = -1;
+    if (rowBounds instanceof PageBounds && ((PageBounds) rowBounds).isCount()) {
+      total = count(executor, ms, parameter, boundSql, sql);
+      if (total <= rowBounds.getOffset()) {
+        return new Page<Object>(Collections.emptyList(), rowBounds.getOffset(), rowBounds.getLimit(), total);
+      }
+    }
+
+    final List<Object> pageParameters = new ArrayList<Object>();
+    final String pageSql;
+    if (rowBounds instanceof KeysetBounds) {
+      String keysetSql = getKeysetSql(sql, (KeysetBounds) rowBounds, pageParameters);
+      pageSql = pageDialect.getLimitSql(keysetSql, RowBounds.NO_ROW_OFFSET, rowBounds.getLimit(), pageParameters);
+    } else {
+      pageSql = pageDialect.getLimitSql(sql, rowBounds.getOffset(), rowBounds.getLimit(), pageParameters);
+    }
+    final BoundSql pageBoundSql = copyBoundSql(ms, boundSql, pageSql, pageParameters);
+    final CacheKey cacheKey = executor.createCacheKey(ms, parameter, RowBounds.DEFAULT, pageBoundSql);
+    List<Object> rows = executor.query(ms, parameter, RowBounds.DEFAULT, resultHandler, cacheKey, pageBoundSql);
+    return new Page<Object>(rows, rowBounds.getOffset(), rowBounds.getLimit(), total);
+  }
+
+  public Object plugin(Object target) {
+    return Plugin.wrap(target, this);
+  }
+
+  public void setProperties(Properties properties) {
+    String name = properties.getProperty("dialect");
+    if (name != null) {
+      dialect = DIALECTS.get(name.toLowerCase(Locale.ENGLISH));
+      if (dialect == null) {
+        try {
+          dialect = (Dialect) Resources.classForName(name).newInstance();
+        } catch (Exception e) {
+          throw new PluginException("Error creating pagination dialect '" + name + "'. Cause: " + e, e);
+        }
+      }
+      dialectResolved = true;
+    }
+  }
+
+  private Dialect getDialect(Configuration configuration) {
+    if (!dialectResolved) {
+      Dialect resolved = findDialect(configuration.getDatabaseId());
+      if (resolved == null && configuration.getEnvironment() != null) {
+        resolved = findDialect(new VendorDatabaseIdProvider().getDatabaseId(configuration.getEnvironment().getDataSource()));
+      }
+      if (resolved == null && log.isDebugEnabled()) {
+        log.debug("No pagination dialect found for the database, row bounds will be applied to the result sets.");
+      }
+      dialect = resolved;
+      dialectResolved = true;
+    }
+    return dialect;
+  }
+
+  private static Dialect findDialect(String databaseId) {
+    if (databaseId != null) {
+      String id = databaseId.toLowerCase(Locale.ENGLISH);
+      for (Map.Entry<String, Dialect> entry : DIALECTS.entrySet()) {
+        if (id.contains(entry.getKey())) {
+          return entry.getValue();
+        }
+      }
+    }
+    return null;
+  }
+
+  private long count(Executor executor, MappedStatement ms, Object parameter, BoundSql boundSql, String sql) throws Exception {
+    MappedStatement countStatement = getCountStatement(ms);
+    BoundSql countBoundSql = copyBoundSql(ms, boundSql, "select count(*) from (" + sql + ") count_", Collections.emptyList());
+    CacheKey cacheKey = executor.createCacheKey(countStatement, parameter, RowBounds.DEFAULT, countBoundSql);
+    List<Object> result = executor.query(countStatement, parameter, RowBounds.DEFAULT, Executor.NO_RESULT_HANDLER, cacheKey, countBoundSql);
+    return ((Number) result.get(0)).longValue();
+  }
+
+  private MappedStatement getCountStatement(MappedStatement ms) {
+    MappedStatement countStatement = countStatements.get(ms.getId());
+    if (countStatement == null) {
+      Configuration configuration = ms.getConfiguration();
+      String id = ms.getId() + COUNT_STATEMENT_SUFFIX;
+      List<ResultMap> resultMaps = new ArrayList<ResultMap>();
+      resultMaps.add(new ResultMap.Builder(configuration, id + "-Inline", Long.class, new ArrayList<ResultMapping>()).build());
+      countStatement = new MappedStatement.Builder(configuration, id, ms.getSqlSource(), SqlCommandType.SELECT)
+          .resource(ms.getResource())
+          .statementType(ms.getStatementType())
+          .timeout(ms.getTimeout())
+          .parameterMap(ms.getParameterMap())
+          .resultMaps(resultMaps)
+          .cache(ms.getCache())
+          .useCache(ms.isUseCache())
+          .databaseId(ms.getDatabaseId())
+          .lang(ms.getLang())
+          .build();
+      countStatements.putIfAbsent(ms.getId(), countStatement);
+    }
+    return countStatement;
+  }
+
+  private static String getKeysetSql(String sql, KeysetBounds keyset, List<Object> parameters) {
+    final String[] columns = keyset.getColumns();
+    final Object[] lastValues = keyset.getLastValues();
+    final String comparison = keyset.isDescending() ? " < ?" : " > ?";
+    StringBuilder keysetSql = new StringBuilder(sql.length() + 100).append("select * from (").append(sql).append(") keyset_");
+    if (lastValues != null) {
+      // (a > ?) or (a = ? and b > ?) or ...
+      keysetSql.append(" where ");
+      for (int i = 0; i < columns.length; i++) {
+        if (i > 0) {
+          keysetSql.append(" or ");
+        }
+        keysetSql.append('(');
+        for (int j = 0; j < i; j++) {
+          keysetSql.append(columns[j]).append(" = ? and ");
+          parameters.add(lastValues[j]);
+        }
+        keysetSql.append(columns[i]).append(comparison).append(')');
+        parameters.add(lastValues[i]);
+      }
+    }
+    keysetSql.append(" order by ");
+    for (int i = 0; i < columns.length; i++) {
+      if (i > 0) {
+        keysetSql.append(", ");
+      }
+      keysetSql.append(columns[i]);
+      if (keyset.isDescending()) {
+        keysetSql.append(" desc");
+      }
+    }
+    return keysetSql.toString();
+  }
+
+  private static BoundSql copyBoundSql(MappedStatement ms, BoundSql boundSql, String sql, List<Object> pageParameters) {
+    final Configuration configuration = ms.getConfiguration();
+    final TypeHandlerRegistry typeHandlerRegistry = configuration.getTypeHandlerRegistry();
+    final List<ParameterMapping> parameterMappings = new ArrayList<ParameterMapping>(boundSql.getParameterMappings());
+    for (int i = 0; i < pageParameters.size(); i++) {
+      Object value = pageParameters.get(i);
+      Class<?> javaType = value != null && typeHandlerRegistry.hasTypeHandler(value.getClass()) ? value.getClass() : Object.class;
+      parameterMappings.add(new ParameterMapping.Builder(configuration, PAGE_PARAMETER_PREFIX + i, javaType).build());
+    }
+    final BoundSql pageBoundSql = new BoundSql(configuration, sql, parameterMappings, boundSql.getParameterObject());
+    for (ParameterMapping parameterMapping : boundSql.getParameterMappings()) {
+      // foreach items and bind variables
+      String name = PropertyTokenizer.forName(parameterMapping.getProperty()).getName();
+      if (boundSql.hasAdditionalParameter(name)) {
+        pageBoundSql.setAdditionalParameter(name, boundSql.getAdditionalParameter(name));
+      }
+    }
+    for (int i = 0; i < pageParameters.size(); i++) {
+      pageBoundSql.setAdditionalParameter(PAGE_PARAMETER_PREFIX + i, pageParameters.get(i));
+    }
+    return pageBoundSql;
+  }
+
+  private static String trimSql(String sql) {
+    String trimmed = sql.trim();
+    while (trimmed.endsWith(";")) {
+      trimmed = trimmed.substring(0, trimmed.length() - 1).trim();
+    }
+    return trimmed;
+  }
+
+}
@@ -0,0 +1,41 @@
+/*
+ *    Copyright 2009-2014 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.plugin.pagination;
+
+import java.util.List;
+
+import org.apache.ibatis.session.RowBounds;
+
+/**
+ * Oracle's ROWNUM, for versions before 12c. Pages after the first one add a ROWNUM_ column to the results.
+ */
+public class RownumDialect implements Dialect {
+
+  public String getLimitSql(String sql, int offset, int limit, List<Object> parameters) {
+    long last = limit == RowBounds.NO_ROW_LIMIT ? Long.MAX_VALUE : (long) offset + limit;
+    StringBuilder pageSql = new StringBuilder(sql.length() + 100);
+    if (offset > RowBounds.NO_ROW_OFFSET) {
+      pageSql.append("select * from (select page_.*, rownum rownum_ from (").append(sql).append(") page_ where rownum <= ?) where rownum_ > ?");
+      parameters.add(last);
+      parameters.add((long) offset);
+    } else {
+      pageSql.append("select * from (").append(sql).append(") where rownum <= ?");
+      parameters.add(last);
+    }
+    return pageSql.toString();
+  }
+
+}
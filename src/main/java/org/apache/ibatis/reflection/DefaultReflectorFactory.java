@@ -0,0 +1,69 @@
+/*
+ *    Copyright 2009-2014 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.reflection;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.ibatis.reflection.invoker.InvokerFactory;
+import org.apache.ibatis.reflection.invoker.ReflectiveInvokerFactory;
+
+/**
+ * Caches the reflectors built with one {@link InvokerFactory}, and the {@link PropertyChain}s resolved with them.
+ * The cache can be turned off for all factories with {@link Reflector#setClassCacheEnabled(boolean)}.
+ */
+public class DefaultReflectorFactory implements ReflectorFactory {
+
+  private final InvokerFactory invokerFactory;
+  private final Map<Class<?>, Reflector> reflectorMap = new ConcurrentHashMap<Class<?>, Reflector>();
+  private final Map<Class<?>, Map<String, PropertyChain>> chainsByClass = new ConcurrentHashMap<Class<?>, Map<String, PropertyChain>>();
+
+  public DefaultReflectorFactory() {
+    this(new ReflectiveInvokerFactory());
+  }
+
+  public DefaultReflectorFactory(InvokerFactory invokerFactory) {
+    this.invokerFactory = invokerFactory;
+  }
+
+  public InvokerFactory getInvokerFactory() {
+    return invokerFactory;
+  }
+
+  public Reflector findForClass(Class<?> type) {
+    if (Reflector.isClassCacheEnabled()) {
+      // synchronized (type) removed see issue #461
+      Reflector cached = reflectorMap.get(type);
+      if (cached == null) {
+        cached = new Reflector(type, invokerFactory);
+        reflectorMap.put(type, cached);
+      }
+      return cached;
+    } else {
+      return new Reflector(type, invokerFactory);
+    }
+  }
+
+  Map<String, PropertyChain> chainsFor(Class<?> type) {
+    Map<String, PropertyChain> chains = chainsByClass.get(type);
+    if (chains == null) {
+      chains = new ConcurrentHashMap<String, PropertyChain>();
+      chainsByClass.put(type, chains);
+    }
+    return chains;
+  }
+
+}
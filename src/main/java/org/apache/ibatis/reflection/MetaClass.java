@@ -31,14 +31,20 @@ import org.apache.ibatis.reflection.property.PropertyTokenizer;
  */
 public class MetaClass {
 
+  private ReflectorFactory reflectorFactory;
   private Reflector reflector;
 
-  private MetaClass(Class<?> type) {
-    this.reflector = Reflector.forClass(type);
+  private MetaClass(Class<?> type, ReflectorFactory reflectorFactory) {
+    this.reflectorFactory = reflectorFactory;
+    this.reflector = reflectorFactory.findForClass(type);
   }
 
   public static MetaClass forClass(Class<?> type) {
-    return new MetaClass(type);
+    return forClass(type, SystemMetaObject.DEFAULT_REFLECTOR_FACTORY);
+  }
+
+  public static MetaClass forClass(Class<?> type, ReflectorFactory reflectorFactory) {
+    return new MetaClass(type, reflectorFactory);
   }
 
   public static boolean isClassCacheEnabled() {
@@ -51,7 +57,7 @@ public class MetaClass {
 
   public MetaClass metaClassForProperty(String name) {
     Class<?> propType = reflector.getGetterType(name);
-    return MetaClass.forClass(propType);
+    return MetaClass.forClass(propType, reflectorFactory);
   }
 
   public String findProperty(String name) {
@@ -75,7 +81,7 @@ public class MetaClass {
   }
 
   public Class<?> getSetterType(String name) {
-    PropertyTokenizer prop = new PropertyTokenizer(name);
+    PropertyTokenizer prop = PropertyTokenizer.forName(name);
     if (prop.hasNext()) {
       MetaClass metaProp = metaClassForProperty(prop.getName());
       return metaProp.getSetterType(prop.getChildren());
@@ -85,7 +91,7 @@ public class MetaClass {
   }
 
   public Class<?> getGetterType(String name) {
-    PropertyTokenizer prop = new PropertyTokenizer(name);
+    PropertyTokenizer prop = PropertyTokenizer.forName(name);
     if (prop.hasNext()) {
       MetaClass metaProp = metaClassForProperty(prop);
       return metaProp.getGetterType(prop.getChildren());
@@ -96,7 +102,7 @@ public class MetaClass {
 
   private MetaClass metaClassForProperty(PropertyTokenizer prop) {
     Class<?> propType = getGetterType(prop);
-    return MetaClass.forClass(propType);
+    return MetaClass.forClass(propType, reflectorFactory);
   }
 
   private Class<?> getGetterType(PropertyTokenizer prop) {
@@ -139,7 +145,7 @@ public class MetaClass {
   }
 
   public boolean hasSetter(String name) {
-    PropertyTokenizer prop = new PropertyTokenizer(name);
+    PropertyTokenizer prop = PropertyTokenizer.forName(name);
     if (prop.hasNext()) {
       if (reflector.hasSetter(prop.getName())) {
         MetaClass metaProp = metaClassForProperty(prop.getName());
@@ -153,7 +159,7 @@ public class MetaClass {
   }
 
   public boolean hasGetter(String name) {
-    PropertyTokenizer prop = new PropertyTokenizer(name);
+    PropertyTokenizer prop = PropertyTokenizer.forName(name);
     if (prop.hasNext()) {
       if (reflector.hasGetter(prop.getName())) {
         MetaClass metaProp = metaClassForProperty(prop);
@@ -175,7 +181,7 @@ public class MetaClass {
   }
 
   private StringBuilder buildProperty(String name, StringBuilder builder) {
-    PropertyTokenizer prop = new PropertyTokenizer(name);
+    PropertyTokenizer prop = PropertyTokenizer.forName(name);
     if (prop.hasNext()) {
       String propertyName = reflector.findPropertyName(prop.getName());
       if (propertyName != null) {
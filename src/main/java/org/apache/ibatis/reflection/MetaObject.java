@@ -23,6 +23,7 @@ import org.apache.ibatis.reflection.factory.ObjectFactory;
 import org.apache.ibatis.reflection.property.PropertyTokenizer;
 import org.apache.ibatis.reflection.wrapper.BeanWrapper;
 import org.apache.ibatis.reflection.wrapper.CollectionWrapper;
+import org.apache.ibatis.reflection.wrapper.DefaultObjectWrapperFactory;
 import org.apache.ibatis.reflection.wrapper.MapWrapper;
 import org.apache.ibatis.reflection.wrapper.ObjectWrapper;
 import org.apache.ibatis.reflection.wrapper.ObjectWrapperFactory;
@@ -36,11 +37,15 @@ public class MetaObject {
   private ObjectWrapper objectWrapper;
   private ObjectFactory objectFactory;
   private ObjectWrapperFactory objectWrapperFactory;
+  private ReflectorFactory reflectorFactory;
+  // nested paths of plain beans are resolved with a cached PropertyChain
+  private boolean chainable;
 
-  private MetaObject(Object object, ObjectFactory objectFactory, ObjectWrapperFactory objectWrapperFactory) {
+  private MetaObject(Object object, ObjectFactory objectFactory, ObjectWrapperFactory objectWrapperFactory, ReflectorFactory reflectorFactory) {
     this.originalObject = object;
     this.objectFactory = objectFactory;
     this.objectWrapperFactory = objectWrapperFactory;
+    this.reflectorFactory = reflectorFactory;
 
     if (object instanceof ObjectWrapper) {
       this.objectWrapper = (ObjectWrapper) object;
@@ -52,14 +57,19 @@ public class MetaObject {
       this.objectWrapper = new CollectionWrapper(this, (Collection) object);
     } else {
       this.objectWrapper = new BeanWrapper(this, object);
+      this.chainable = objectWrapperFactory.getClass() == DefaultObjectWrapperFactory.class;
     }
   }
 
   public static MetaObject forObject(Object object, ObjectFactory objectFactory, ObjectWrapperFactory objectWrapperFactory) {
+    return forObject(object, objectFactory, objectWrapperFactory, SystemMetaObject.DEFAULT_REFLECTOR_FACTORY);
+  }
+
+  public static MetaObject forObject(Object object, ObjectFactory objectFactory, ObjectWrapperFactory objectWrapperFactory, ReflectorFactory reflectorFactory) {
     if (object == null) {
       return SystemMetaObject.NULL_META_OBJECT;
     } else {
-      return new MetaObject(object, objectFactory, objectWrapperFactory);
+      return new MetaObject(object, objectFactory, objectWrapperFactory, reflectorFactory);
     }
   }
 
@@ -71,6 +81,10 @@ public class MetaObject {
     return objectWrapperFactory;
   }
 
+  public ReflectorFactory getReflectorFactory() {
+    return reflectorFactory;
+  }
+
   public Object getOriginalObject() {
     return originalObject;
   }
@@ -104,8 +118,15 @@ public class MetaObject {
   }
 
   public Object getValue(String name) {
-    PropertyTokenizer prop = new PropertyTokenizer(name);
+    PropertyTokenizer prop = PropertyTokenizer.forName(name);
     if (prop.hasNext()) {
+      PropertyChain chain = chainable ? PropertyChain.forPath(reflectorFactory, originalObject.getClass(), name) : null;
+      if (chain != null) {
+        Object value = chain.getValue(originalObject, this);
+        if (value != PropertyChain.UNRESOLVED) {
+          return value;
+        }
+      }
       MetaObject metaValue = metaObjectForProperty(prop.getIndexedName());
       if (metaValue == SystemMetaObject.NULL_META_OBJECT) {
         return null;
@@ -118,8 +139,12 @@ public class MetaObject {
   }
 
   public void setValue(String name, Object value) {
-    PropertyTokenizer prop = new PropertyTokenizer(name);
+    PropertyTokenizer prop = PropertyTokenizer.forName(name);
     if (prop.hasNext()) {
+      PropertyChain chain = chainable ? PropertyChain.forPath(reflectorFactory, originalObject.getClass(), name) : null;
+      if (chain != null && chain.setValue(originalObject, value, this)) {
+        return;
+      }
       MetaObject metaValue = metaObjectForProperty(prop.getIndexedName());
       if (metaValue == SystemMetaObject.NULL_META_OBJECT) {
         if (value == null && prop.getChildren() != null) {
@@ -136,7 +161,7 @@ public class MetaObject {
 
   public MetaObject metaObjectForProperty(String name) {
     Object value = getValue(name);
-    return MetaObject.forObject(value, objectFactory, objectWrapperFactory);
+    return MetaObject.forObject(value, objectFactory, objectWrapperFactory, reflectorFactory);
   }
 
   public ObjectWrapper getObjectWrapper() {
@@ -0,0 +1,195 @@
+/*
+ *    Copyright 2009-2014 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.reflection;
+
+import java.util.Collection;
+import java.util.Map;
+
+import org.apache.ibatis.reflection.invoker.Invoker;
+import org.apache.ibatis.reflection.property.PropertyTokenizer;
+import org.apache.ibatis.reflection.wrapper.ObjectWrapper;
+
+/**
+ * Invokers of a dotted property path of a plain bean, resolved once per (class, path) so that
+ * {@link MetaObject} reads and writes nested properties without a MetaObject per segment.
+ * Each step only applies while the object reached has the class the step was resolved against;
+ * otherwise the rest of the path is handed to a regular MetaObject.
+ */
+final class PropertyChain {
+
+  /*
+   * Paths come from mappings, but bounded anyway as maps of unknown keys may be passed around.
+   */
+  private static final int MAX_CACHED_PATHS = 256;
+  private static final Object[] NO_ARGUMENTS = new Object[0];
+  private static final PropertyChain NOT_APPLICABLE = new PropertyChain(null, null, null, null, null);
+
+  static final Object UNRESOLVED = new Object();
+
+  private final String[] names;
+  private final String[] paths;
+  private final Class<?>[] types;
+  private final Invoker[] getters;
+  private final Invoker setter;
+
+  private PropertyChain(String[] names, String[] paths, Class<?>[] types, Invoker[] getters, Invoker setter) {
+    this.names = names;
+    this.paths = paths;
+    this.types = types;
+    this.getters = getters;
+    this.setter = setter;
+  }
+
+  /**
+   * Chains are cached by the {@link DefaultReflectorFactory} whose reflectors they were resolved with.
+   *
+   * @return the chain of a path without indexes, or null if the path has to be resolved by segments
+   */
+  static PropertyChain forPath(ReflectorFactory reflectorFactory, Class<?> type, String path) {
+    if (!Reflector.isClassCacheEnabled() || !(reflectorFactory instanceof DefaultReflectorFactory)) {
+      return null;
+    }
+    Map<String, PropertyChain> chains = ((DefaultReflectorFactory) reflectorFactory).chainsFor(type);
+    PropertyChain chain = chains.get(path);
+    if (chain == null) {
+      chain = build(reflectorFactory, type, path);
+      if (chains.size() < MAX_CACHED_PATHS) {
+        chains.put(path, chain);
+      }
+    }
+    return chain == NOT_APPLICABLE ? null : chain;
+  }
+
+  private static PropertyChain build(ReflectorFactory reflectorFactory, Class<?> type, String path) {
+    int length = 1;
+    for (int i = 0; i < path.length(); i++) {
+      if (path.charAt(i) == '.') {
+        length++;
+      }
+    }
+    String[] names = new String[length];
+    String[] paths = new String[length];
+    Class<?>[] types = new Class<?>[length];
+    Invoker[] getters = new Invoker[length];
+    Invoker setter = null;
+    PropertyTokenizer prop = PropertyTokenizer.forName(path);
+    String remaining = path;
+    Class<?> current = type;
+    for (int i = 0; i < length; i++) {
+      if (prop.getIndex() != null || !isPlainBean(current)) {
+        return NOT_APPLICABLE;
+      }
+      Reflector reflector = reflectorFactory.findForClass(current);
+      names[i] = prop.getName();
+      paths[i] = remaining;
+      types[i] = current;
+      if (reflector.hasGetter(names[i])) {
+        getters[i] = reflector.getGetInvoker(names[i]);
+      }
+      if (i < length - 1) {
+        if (getters[i] == null) {
+          return NOT_APPLICABLE;
+        }
+        current = reflector.getGetterType(names[i]);
+        remaining = prop.getChildren();
+        prop = prop.next();
+      } else if (reflector.hasSetter(names[i])) {
+        setter = reflector.getSetInvoker(names[i]);
+      }
+    }
+    return new PropertyChain(names, paths, types, getters, setter);
+  }
+
+  private static boolean isPlainBean(Class<?> type) {
+    // the classes MetaObject wraps in a BeanWrapper
+    return !type.isInterface() && !type.isPrimitive() && !type.isArray()
+        && !Map.class.isAssignableFrom(type) && !Collection.class.isAssignableFrom(type) && !ObjectWrapper.class.isAssignableFrom(type);
+  }
+
+  /**
+   * @return the value, or {@link #UNRESOLVED} if the root object does not match the chain
+   */
+  Object getValue(Object root, MetaObject metaObject) {
+    Object value = root;
+    for (int i = 0; i < names.length; i++) {
+      if (value.getClass() != types[i] || getters[i] == null) {
+        return i == 0 ? UNRESOLVED : forObject(value, metaObject).getValue(paths[i]);
+      }
+      value = get(i, value);
+      if (value == null) {
+        return null;
+      }
+    }
+    return value;
+  }
+
+  /**
+   * @return false if the root object does not match the chain and nothing was set
+   */
+  boolean setValue(Object root, Object value, MetaObject metaObject) {
+    Object object = root;
+    int last = names.length - 1;
+    for (int i = 0; i < last; i++) {
+      Object next = object.getClass() == types[i] ? get(i, object) : null;
+      if (next == null) {
+        // different class or missing intermediate value to instantiate: regular MetaObject from here
+        if (i == 0) {
+          return false;
+        }
+        forObject(object, metaObject).setValue(paths[i], value);
+        return true;
+      }
+      object = next;
+    }
+    if (object.getClass() != types[last] || setter == null) {
+      if (last == 0) {
+        return false;
+      }
+      forObject(object, metaObject).setValue(paths[last], value);
+      return true;
+    }
+    try {
+      try {
+        setter.invoke(object, new Object[] {value});
+      } catch (Throwable t) {
+        throw ExceptionUtil.unwrapThrowable(t);
+      }
+    } catch (Throwable t) {
+      throw new ReflectionException("Could not set property '" + names[last] + "' of '" + object.getClass() + "' with value '" + value + "' Cause: " + t.toString(), t);
+    }
+    return true;
+  }
+
+  private Object get(int step, Object object) {
+    // same failure handling as BeanWrapper
+    try {
+      try {
+        return getters[step].invoke(object, NO_ARGUMENTS);
+      } catch (Throwable t) {
+        throw ExceptionUtil.unwrapThrowable(t);
+      }
+    } catch (RuntimeException e) {
+      throw e;
+    } catch (Throwable t) {
+      throw new ReflectionException("Could not get property '" + names[step] + "' from " + object.getClass() + ".  Cause: " + t.toString(), t);
+    }
+  }
+
+  private static MetaObject forObject(Object object, MetaObject metaObject) {
+    return MetaObject.forObject(object, metaObject.getObjectFactory(), metaObject.getObjectWrapperFactory(), metaObject.getReflectorFactory());
+  }
+
+}
@@ -27,10 +27,10 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
 
 import org.apache.ibatis.reflection.invoker.GetFieldInvoker;
 import org.apache.ibatis.reflection.invoker.Invoker;
+import org.apache.ibatis.reflection.invoker.InvokerFactory;
 import org.apache.ibatis.reflection.invoker.MethodInvoker;
 import org.apache.ibatis.reflection.invoker.SetFieldInvoker;
 import org.apache.ibatis.reflection.property.PropertyNamer;
@@ -46,7 +46,6 @@ public class Reflector {
 
   private static boolean classCacheEnabled = true;
   private static final String[] EMPTY_STRING_ARRAY = new String[0];
-  private static final Map<Class<?>, Reflector> REFLECTOR_MAP = new ConcurrentHashMap<Class<?>, Reflector>();
 
   private Class<?> type;
   private String[] readablePropertyNames = EMPTY_STRING_ARRAY;
@@ -59,12 +58,13 @@ public class Reflector {
 
   private Map<String, String> caseInsensitivePropertyMap = new HashMap<String, String>();
 
-  private Reflector(Class<?> clazz) {
+  public Reflector(Class<?> clazz, InvokerFactory invokerFactory) {
     type = clazz;
     addDefaultConstructor(clazz);
     addGetMethods(clazz);
     addSetMethods(clazz);
     addFields(clazz);
+    invokerFactory.createInvokers(clazz, getMethods, setMethods);
     readablePropertyNames = getMethods.keySet().toArray(new String[getMethods.keySet().size()]);
     writeablePropertyNames = setMethods.keySet().toArray(new String[setMethods.keySet().size()]);
     for (String propName : readablePropertyNames) {
@@ -453,23 +453,13 @@ public class Reflector {
   }
 
   /*
-   * Gets an instance of ClassInfo for the specified class.
+   * Gets an instance of ClassInfo for the specified class, with reflective invokers.
    *
    * @param clazz The class for which to lookup the method cache.
    * @return The method cache for the class
    */
   public static Reflector forClass(Class<?> clazz) {
-    if (classCacheEnabled) {
-      // synchronized (clazz) removed see issue #461
-      Reflector cached = REFLECTOR_MAP.get(clazz);
-      if (cached == null) {
-        cached = new Reflector(clazz);
-        REFLECTOR_MAP.put(clazz, cached);
-      }
-      return cached;
-    } else {
-      return new Reflector(clazz);
-    }
+    return SystemMetaObject.DEFAULT_REFLECTOR_FACTORY.findForClass(clazz);
   }
 
   public static void setClassCacheEnabled(boolean classCacheEnabled) {
@@ -0,0 +1,39 @@
+/*
+ *    Copyright 2009-2014 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.reflection.invoker;
+
+import java.util.Map;
+
+/**
+ * Strategy used by the {@link org.apache.ibatis.reflection.Reflector} to build the invokers of a class.
+ * <p>
+ * The reflector first discovers the readable and writable properties of a class and creates a reflective
+ * {@link Invoker} for each of them. An invoker factory may then replace any of those invokers by a faster
+ * equivalent. Invokers that cannot be replaced must be left untouched.
+ *
+ * @see ReflectiveInvokerFactory
+ * @see JavassistInvokerFactory
+ */
+public interface InvokerFactory {
+
+  /**
+   * @param type the class being reflected
+   * @param getInvokers reflective getter invokers keyed by property name, may be modified in place
+   * @param setInvokers reflective setter invokers keyed by property name, may be modified in place
+   */
+  void createInvokers(Class<?> type, Map<String, Invoker> getInvokers, Map<String, Invoker> setInvokers);
+
+}
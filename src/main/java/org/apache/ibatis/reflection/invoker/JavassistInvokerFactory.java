@@ -0,0 +1,301 @@
+/*
+ *    Copyright 2009-2014 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.reflection.invoker;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Member;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javassist.ClassClassPath;
+import javassist.ClassPool;
+import javassist.CtClass;
+import javassist.CtNewConstructor;
+import javassist.CtNewMethod;
+import javassist.LoaderClassPath;
+
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.logging.Log;
+import org.apache.ibatis.logging.LogFactory;
+
+/**
+ * Invoker factory that generates, once per class, a {@link BeanAccessor} calling the public getters, setters
+ * and fields of the class directly instead of going through {@link Method#invoke} and {@link Field#get}.
+ * <p>
+ * Only public members of public classes whose types are public can be generated. Any other member, and every
+ * member of a class that cannot be generated (bootstrap classes, interfaces, generation errors), keeps its
+ * reflective invoker.
+ */
+public class JavassistInvokerFactory implements InvokerFactory {
+
+  private static final Log log = LogFactory.getLog(JavassistInvokerFactory.class);
+
+  private static final AtomicInteger ACCESSOR_COUNTER = new AtomicInteger();
+  private static final Map<String, String> UNBOXING = new HashMap<String, String>();
+
+  static {
+    UNBOXING.put("boolean", "((java.lang.Boolean) $3).booleanValue()");
+    UNBOXING.put("char", "((java.lang.Character) $3).charValue()");
+    UNBOXING.put("byte", "((java.lang.Number) $3).byteValue()");
+    UNBOXING.put("short", "((java.lang.Number) $3).shortValue()");
+    UNBOXING.put("int", "((java.lang.Number) $3).intValue()");
+    UNBOXING.put("long", "((java.lang.Number) $3).longValue()");
+    UNBOXING.put("float", "((java.lang.Number) $3).floatValue()");
+    UNBOXING.put("double", "((java.lang.Number) $3).doubleValue()");
+  }
+
+  private final Map<Class<?>, GeneratedAccessor> accessors = new ConcurrentHashMap<Class<?>, GeneratedAccessor>();
+
+  public JavassistInvokerFactory() {
+    try {
+      Resources.classForName("javassist.ClassPool");
+    } catch (Throwable e) {
+      throw new IllegalStateException("Cannot generate property accessors because Javassist is not available. Add Javassist to your classpath.", e);
+    }
+  }
+
+  public void createInvokers(Class<?> type, Map<String, Invoker> getInvokers, Map<String, Invoker> setInvokers) {
+    GeneratedAccessor generated = accessors.get(type);
+    if (generated == null) {
+      generated = generate(type, getInvokers, setInvokers);
+      accessors.put(type, generated);
+    }
+    if (generated.accessor == null) {
+      return;
+    }
+    for (Map.Entry<String, Integer> entry : generated.getterIndexes.entrySet()) {
+      Invoker invoker = getInvokers.get(entry.getKey());
+      if (invoker instanceof MethodInvoker) {
+        getInvokers.put(entry.getKey(), new AccessorMethodInvoker((MethodInvoker) invoker, generated.accessor, entry.getValue(), false));
+      } else if (invoker instanceof GetFieldInvoker) {
+        getInvokers.put(entry.getKey(), new AccessorGetFieldInvoker((GetFieldInvoker) invoker, generated.accessor, entry.getValue()));
+      }
+    }
+    for (Map.Entry<String, Integer> entry : generated.setterIndexes.entrySet()) {
+      Invoker invoker = setInvokers.get(entry.getKey());
+      if (invoker instanceof MethodInvoker) {
+        setInvokers.put(entry.getKey(), new AccessorMethodInvoker((MethodInvoker) invoker, generated.accessor, entry.getValue(), true));
+      } else if (invoker instanceof SetFieldInvoker) {
+        setInvokers.put(entry.getKey(), new AccessorSetFieldInvoker((SetFieldInvoker) invoker, generated.accessor, entry.getValue()));
+      }
+    }
+  }
+
+  private GeneratedAccessor generate(Class<?> type, Map<String, Invoker> getInvokers, Map<String, Invoker> setInvokers) {
+    if (type.isInterface() || type.isArray() || type.isPrimitive() || type.getClassLoader() == null || !isPublic(type)) {
+      return GeneratedAccessor.NONE;
+    }
+    // sorted so that indexes only depend on the class
+    Map<String, Member> getters = accessibleMembers(type, getInvokers, false);
+    Map<String, Member> setters = accessibleMembers(type, setInvokers, true);
+    if (getters.isEmpty() && setters.isEmpty()) {
+      return GeneratedAccessor.NONE;
+    }
+    GeneratedAccessor generated = new GeneratedAccessor();
+    String targetName = type.getName();
+    StringBuilder getSource = new StringBuilder("public Object get(Object target, int index) {\n");
+    getSource.append(targetName).append(" bean = (").append(targetName).append(") $1;\n");
+    getSource.append("switch ($2) {\n");
+    int index = 0;
+    for (Map.Entry<String, Member> entry : getters.entrySet()) {
+      Member member = entry.getValue();
+      getSource.append("case ").append(index).append(": return ($w) bean.").append(member.getName());
+      getSource.append(member instanceof Method ? "();\n" : ";\n");
+      generated.getterIndexes.put(entry.getKey(), index++);
+    }
+    getSource.append("default: throw new IllegalArgumentException(\"No getter with index \" + $2);\n}\n}");
+    StringBuilder setSource = new StringBuilder("public void set(Object target, int index, Object value) {\n");
+    setSource.append(targetName).append(" bean = (").append(targetName).append(") $1;\n");
+    setSource.append("switch ($2) {\n");
+    index = 0;
+    for (Map.Entry<String, Member> entry : setters.entrySet()) {
+      Member member = entry.getValue();
+      String value;
+      if (member instanceof Method) {
+        value = valueExpression(((Method) member).getParameterTypes()[0]);
+        setSource.append("case ").append(index).append(": bean.").append(member.getName()).append("(").append(value).append("); return;\n");
+      } else {
+        value = valueExpression(((Field) member).getType());
+        setSource.append("case ").append(index).append(": bean.").append(member.getName()).append(" = ").append(value).append("; return;\n");
+      }
+      generated.setterIndexes.put(entry.getKey(), index++);
+    }
+    setSource.append("default: throw new IllegalArgumentException(\"No setter with index \" + $2);\n}\n}");
+    try {
+      ClassPool pool = new ClassPool(true);
+      pool.appendClassPath(new LoaderClassPath(type.getClassLoader()));
+      pool.appendClassPath(new ClassClassPath(BeanAccessor.class));
+      CtClass ctClass = pool.makeClass(targetName + "$$MyBatisAccessor_" + ACCESSOR_COUNTER.getAndIncrement());
+      ctClass.addInterface(pool.get(BeanAccessor.class.getName()));
+      ctClass.addConstructor(CtNewConstructor.defaultConstructor(ctClass));
+      ctClass.addMethod(CtNewMethod.make(getSource.toString(), ctClass));
+      ctClass.addMethod(CtNewMethod.make(setSource.toString(), ctClass));
+      Class<?> accessorClass = ctClass.toClass(type.getClassLoader(), type.getProtectionDomain());
+      ctClass.detach();
+      generated.accessor = (BeanAccessor) accessorClass.newInstance();
+      return generated;
+    } catch (Exception e) {
+      logGenerationFailure(type, e);
+    } catch (LinkageError e) {
+      logGenerationFailure(type, e);
+    }
+    return GeneratedAccessor.NONE;
+  }
+
+  private Map<String, Member> accessibleMembers(Class<?> type, Map<String, Invoker> invokers, boolean setter) {
+    Map<String, Member> members = new TreeMap<String, Member>();
+    for (Map.Entry<String, Invoker> entry : invokers.entrySet()) {
+      Invoker invoker = entry.getValue();
+      Member member = null;
+      Class<?> memberType = null;
+      if (invoker instanceof MethodInvoker) {
+        Method method = ((MethodInvoker) invoker).getMethod();
+        member = method;
+        memberType = setter ? method.getParameterTypes()[0] : method.getReturnType();
+      } else if (!setter && invoker instanceof GetFieldInvoker) {
+        member = ((GetFieldInvoker) invoker).getField();
+        memberType = ((Field) member).getType();
+      } else if (setter && invoker instanceof SetFieldInvoker) {
+        member = ((SetFieldInvoker) invoker).getField();
+        memberType = ((Field) member).getType();
+        if (Modifier.isFinal(member.getModifiers())) {
+          continue;
+        }
+      }
+      if (member != null
+          && Modifier.isPublic(member.getModifiers())
+          && !Modifier.isStatic(member.getModifiers())
+          && !member.isSynthetic()
+          && !member.getDeclaringClass().isInterface()
+          && isPublic(member.getDeclaringClass())
+          && isPublic(memberType)) {
+        members.put(entry.getKey(), member);
+      }
+    }
+    return members;
+  }
+
+  private static boolean isPublic(Class<?> type) {
+    if (type.isPrimitive()) {
+      return true;
+    }
+    if (type.isArray()) {
+      return isPublic(type.getComponentType());
+    }
+    if (!Modifier.isPublic(type.getModifiers())) {
+      return false;
+    }
+    Class<?> enclosing = type.getDeclaringClass();
+    return enclosing == null || isPublic(enclosing);
+  }
+
+  private static String valueExpression(Class<?> type) {
+    if (type.isPrimitive()) {
+      return UNBOXING.get(type.getName());
+    }
+    return "(" + sourceName(type) + ") $3";
+  }
+
+  private static String sourceName(Class<?> type) {
+    if (type.isArray()) {
+      return sourceName(type.getComponentType()) + "[]";
+    }
+    return type.getName();
+  }
+
+  private static void logGenerationFailure(Class<?> type, Throwable e) {
+    if (log.isDebugEnabled()) {
+      log.debug("Could not generate property accessor for " + type.getName() + ", using reflection instead. Cause: " + e);
+    }
+  }
+
+  private static class GeneratedAccessor {
+    private static final GeneratedAccessor NONE = new GeneratedAccessor();
+
+    private BeanAccessor accessor;
+    private final Map<String, Integer> getterIndexes = new HashMap<String, Integer>();
+    private final Map<String, Integer> setterIndexes = new HashMap<String, Integer>();
+  }
+
+  /*
+   * The generated invokers extend the reflective ones so that the underlying method or field
+   * remains available to callers that inspect it (e.g. MetaClass for generic return types).
+   */
+
+  private static class AccessorMethodInvoker extends MethodInvoker {
+    private final BeanAccessor accessor;
+    private final int index;
+    private final boolean setter;
+
+    AccessorMethodInvoker(MethodInvoker invoker, BeanAccessor accessor, int index, boolean setter) {
+      super(invoker.getMethod());
+      this.accessor = accessor;
+      this.index = index;
+      this.setter = setter;
+    }
+
+    @Override
+    public Object invoke(Object target, Object[] args) throws IllegalAccessException, InvocationTargetException {
+      if (setter) {
+        accessor.set(target, index, args[0]);
+        return null;
+      }
+      return accessor.get(target, index);
+    }
+  }
+
+  private static class AccessorGetFieldInvoker extends GetFieldInvoker {
+    private final BeanAccessor accessor;
+    private final int index;
+
+    AccessorGetFieldInvoker(GetFieldInvoker invoker, BeanAccessor accessor, int index) {
+      super(invoker.getField());
+      this.accessor = accessor;
+      this.index = index;
+    }
+
+    @Override
+    public Object invoke(Object target, Object[] args) throws IllegalAccessException, InvocationTargetException {
+      return accessor.get(target, index);
+    }
+  }
+
+  private static class AccessorSetFieldInvoker extends SetFieldInvoker {
+    private final BeanAccessor accessor;
+    private final int index;
+
+    AccessorSetFieldInvoker(SetFieldInvoker invoker, BeanAccessor accessor, int index) {
+      super(invoker.getField());
+      this.accessor = accessor;
+      this.index = index;
+    }
+
+    @Override
+    public Object invoke(Object target, Object[] args) throws IllegalAccessException, InvocationTargetException {
+      accessor.set(target, index, args[0]);
+      return null;
+    }
+  }
+
+}
@@ -43,4 +43,8 @@ public class MethodInvoker implements Invoker {
   public Class<?> getType() {
     return type;
   }
+
+  Method getMethod() {
+    return method;
+  }
 }
@@ -36,4 +36,8 @@ public class SetFieldInvoker implements Invoker {
   public Class<?> getType() {
     return field.getType();
   }
+
+  Field getField() {
+    return field;
+  }
 }
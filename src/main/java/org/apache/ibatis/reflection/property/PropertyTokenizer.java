@@ -16,15 +16,39 @@
 package org.apache.ibatis.reflection.property;
 
 import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
+ * Tokenizers never change once built, so {@link #forName(String)} hands out shared instances
+ * instead of splitting the same property paths on every access.
+ *
  * @author Clinton Begin
  */
 public class PropertyTokenizer implements Iterable<PropertyTokenizer>, Iterator<PropertyTokenizer> {
+  /*
+   * Property names come from mappings and are few, but parameter maps may be queried with any key,
+   * so the cache stops growing at this size.
+   */
+  private static final int MAX_CACHED_NAMES = 4096;
+  private static final Map<String, PropertyTokenizer> tokenizerCache = new ConcurrentHashMap<String, PropertyTokenizer>();
+
   private String name;
   private String indexedName;
   private String index;
   private String children;
+  private PropertyTokenizer child;
+
+  public static PropertyTokenizer forName(String fullname) {
+    PropertyTokenizer tokenizer = tokenizerCache.get(fullname);
+    if (tokenizer == null) {
+      tokenizer = new PropertyTokenizer(fullname);
+      if (tokenizerCache.size() < MAX_CACHED_NAMES) {
+        tokenizerCache.put(fullname, tokenizer);
+      }
+    }
+    return tokenizer;
+  }
 
   public PropertyTokenizer(String fullname) {
     int delim = fullname.indexOf('.');
@@ -64,7 +88,10 @@ public class PropertyTokenizer implements Iterable<PropertyTokenizer>, Iterator<
   }
 
   public PropertyTokenizer next() {
-    return new PropertyTokenizer(children);
+    if (child == null) {
+      child = forName(children);
+    }
+    return child;
   }
 
   public void remove() {
@@ -67,7 +67,7 @@ public class MapWrapper extends BaseWrapper {
   }
 
   public Class<?> getSetterType(String name) {
-    PropertyTokenizer prop = new PropertyTokenizer(name);
+    PropertyTokenizer prop = PropertyTokenizer.forName(name);
     if (prop.hasNext()) {
       MetaObject metaValue = metaObject.metaObjectForProperty(prop.getIndexedName());
       if (metaValue == SystemMetaObject.NULL_META_OBJECT) {
@@ -85,7 +85,7 @@ public class MapWrapper extends BaseWrapper {
   }
 
   public Class<?> getGetterType(String name) {
-    PropertyTokenizer prop = new PropertyTokenizer(name);
+    PropertyTokenizer prop = PropertyTokenizer.forName(name);
     if (prop.hasNext()) {
       MetaObject metaValue = metaObject.metaObjectForProperty(prop.getIndexedName());
       if (metaValue == SystemMetaObject.NULL_META_OBJECT) {
@@ -94,8 +94,9 @@ public class MapWrapper extends BaseWrapper {
         return metaValue.getGetterType(prop.getChildren());
       }
     } else {
-      if (map.get(name) != null) {
-        return map.get(name).getClass();
+      Object value = prop.getIndex() != null ? get(prop) : map.get(name);
+      if (value != null) {
+        return value.getClass();
       } else {
         return Object.class;
       }
@@ -107,9 +108,9 @@ public class MapWrapper extends BaseWrapper {
   }
 
   public boolean hasGetter(String name) {
-    PropertyTokenizer prop = new PropertyTokenizer(name);
+    PropertyTokenizer prop = PropertyTokenizer.forName(name);
     if (prop.hasNext()) {
-      if (map.containsKey(prop.getIndexedName())) {
+      if (map.containsKey(prop.getName())) {
         MetaObject metaValue = metaObject.metaObjectForProperty(prop.getIndexedName());
         if (metaValue == SystemMetaObject.NULL_META_OBJECT) {
           return true;
@@ -127,7 +128,7 @@ public class MapWrapper extends BaseWrapper {
   public MetaObject instantiatePropertyValue(String name, PropertyTokenizer prop, ObjectFactory objectFactory) {
     HashMap<String, Object> map = new HashMap<String, Object>();
     set(prop, map);
-    return MetaObject.forObject(map, metaObject.getObjectFactory(), metaObject.getObjectWrapperFactory());
+    return MetaObject.forObject(map, metaObject.getObjectFactory(), metaObject.getObjectWrapperFactory(), metaObject.getReflectorFactory());
   }
 
   public boolean isCollection() {
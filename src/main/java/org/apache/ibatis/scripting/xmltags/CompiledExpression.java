@@ -0,0 +1,300 @@
+/*
+ *    Copyright 2009-2014 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.scripting.xmltags;
+
+import java.beans.BeanInfo;
+import java.beans.IntrospectionException;
+import java.beans.Introspector;
+import java.beans.PropertyDescriptor;
+import java.lang.reflect.Method;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Tree of a test expression compiled by {@link ExpressionCompiler}.
+ * Property reads go through getter methods cached per parameter class instead of
+ * re-interpreting the expression with OGNL on every evaluation.
+ * When a node meets a value it cannot evaluate exactly as OGNL would (a null target,
+ * a field without getter, a mixed type comparison...) it answers {@link #UNSUPPORTED}
+ * and the caller evaluates the expression with OGNL instead.
+ */
+abstract class CompiledExpression {
+
+  static final Object UNSUPPORTED = new Object();
+
+  private static final Map<Class<?>, Map<String, Method>> readMethodsByClass = new ConcurrentHashMap<Class<?>, Map<String, Method>>();
+
+  abstract Object getValue(Object root);
+
+  static boolean isTrue(Object value) {
+    if (value == null) return false;
+    if (value instanceof Boolean) return (Boolean) value;
+    if (value instanceof Number) return ((Number) value).doubleValue() != 0;
+    if (value instanceof Character) return (Character) value != 0;
+    return true;
+  }
+
+  static Object getProperty(Object target, String name) {
+    if (target == null) return UNSUPPORTED;
+    if (target instanceof Map) {
+      // same special names as ognl.MapPropertyAccessor
+      Map<?, ?> map = (Map<?, ?>) target;
+      if ("size".equals(name)) return map.size();
+      if ("isEmpty".equals(name)) return map.isEmpty();
+      if ("keys".equals(name) || "keySet".equals(name)) return map.keySet();
+      if ("values".equals(name)) return map.values();
+      return map.get(name);
+    }
+    if (target instanceof Collection || target.getClass().isArray()) return UNSUPPORTED;
+    Method method = getReadMethods(target.getClass()).get(name);
+    if (method == null) return UNSUPPORTED;
+    try {
+      return method.invoke(target);
+    } catch (Exception e) {
+      // let OGNL report the failure
+      return UNSUPPORTED;
+    }
+  }
+
+  private static Map<String, Method> getReadMethods(Class<?> type) {
+    Map<String, Method> readMethods = readMethodsByClass.get(type);
+    if (readMethods == null) {
+      readMethods = new HashMap<String, Method>();
+      try {
+        BeanInfo beanInfo = Introspector.getBeanInfo(type);
+        for (PropertyDescriptor descriptor : beanInfo.getPropertyDescriptors()) {
+          Method method = descriptor.getReadMethod();
+          if (method != null) {
+            try {
+              method.setAccessible(true);
+              readMethods.put(descriptor.getName(), method);
+            } catch (SecurityException e) {
+              // not accessible, leave it to OGNL
+            }
+          }
+        }
+      } catch (IntrospectionException e) {
+        // no getters, leave it to OGNL
+      }
+      readMethods = Collections.unmodifiableMap(readMethods);
+      readMethodsByClass.put(type, readMethods);
+    }
+    return readMethods;
+  }
+
+  private static boolean isIntegral(Object value) {
+    return value instanceof Integer || value instanceof Long || value instanceof Short || value instanceof Byte;
+  }
+
+  static class Literal extends CompiledExpression {
+    private final Object value;
+
+    Literal(Object value) {
+      this.value = value;
+    }
+
+    Object getValue(Object root) {
+      return value;
+    }
+  }
+
+  static class RootProperty extends CompiledExpression {
+    private final String name;
+
+    RootProperty(String name) {
+      this.name = name;
+    }
+
+    Object getValue(Object root) {
+      if (!(root instanceof DynamicContext.ContextMap)) {
+        return getProperty(root, name);
+      }
+      // same lookup as DynamicContext.ContextAccessor
+      Map<?, ?> bindings = (Map<?, ?>) root;
+      try {
+        Object value = bindings.get(name);
+        if (value != null) return value;
+        Object parameterObject = bindings.get(DynamicContext.PARAMETER_OBJECT_KEY);
+        return parameterObject instanceof Map ? ((Map<?, ?>) parameterObject).get(name) : null;
+      } catch (RuntimeException e) {
+        return UNSUPPORTED;
+      }
+    }
+  }
+
+  static class Property extends CompiledExpression {
+    private final CompiledExpression target;
+    private final String name;
+
+    Property(CompiledExpression target, String name) {
+      this.target = target;
+      this.name = name;
+    }
+
+    Object getValue(Object root) {
+      Object value = target.getValue(root);
+      return value == UNSUPPORTED ? UNSUPPORTED : getProperty(value, name);
+    }
+  }
+
+  static class MethodCall extends CompiledExpression {
+    private final CompiledExpression target;
+    private final String name;
+
+    MethodCall(CompiledExpression target, String name) {
+      this.target = target;
+      this.name = name;
+    }
+
+    Object getValue(Object root) {
+      Object value = target.getValue(root);
+      if (value instanceof Collection) {
+        if ("size".equals(name)) return ((Collection<?>) value).size();
+        if ("isEmpty".equals(name)) return ((Collection<?>) value).isEmpty();
+      } else if (value instanceof Map) {
+        if ("size".equals(name)) return ((Map<?, ?>) value).size();
+        if ("isEmpty".equals(name)) return ((Map<?, ?>) value).isEmpty();
+      } else if (value instanceof String) {
+        if ("length".equals(name)) return ((String) value).length();
+        if ("trim".equals(name)) return ((String) value).trim();
+      }
+      return UNSUPPORTED;
+    }
+  }
+
+  static class Not extends CompiledExpression {
+    private final CompiledExpression operand;
+
+    Not(CompiledExpression operand) {
+      this.operand = operand;
+    }
+
+    Object getValue(Object root) {
+      Object value = operand.getValue(root);
+      return value == UNSUPPORTED ? UNSUPPORTED : Boolean.valueOf(!isTrue(value));
+    }
+  }
+
+  static class And extends CompiledExpression {
+    private final CompiledExpression left;
+    private final CompiledExpression right;
+
+    And(CompiledExpression left, CompiledExpression right) {
+      this.left = left;
+      this.right = right;
+    }
+
+    Object getValue(Object root) {
+      Object value = left.getValue(root);
+      if (value == UNSUPPORTED || !isTrue(value)) return value;
+      return right.getValue(root);
+    }
+  }
+
+  static class Or extends CompiledExpression {
+    private final CompiledExpression left;
+    private final CompiledExpression right;
+
+    Or(CompiledExpression left, CompiledExpression right) {
+      this.left = left;
+      this.right = right;
+    }
+
+    Object getValue(Object root) {
+      Object value = left.getValue(root);
+      if (value == UNSUPPORTED || isTrue(value)) return value;
+      return right.getValue(root);
+    }
+  }
+
+  static class Equal extends CompiledExpression {
+    private final CompiledExpression left;
+    private final CompiledExpression right;
+    private final boolean negated;
+
+    Equal(CompiledExpression left, CompiledExpression right, boolean negated) {
+      this.left = left;
+      this.right = right;
+      this.negated = negated;
+    }
+
+    Object getValue(Object root) {
+      Object leftValue = left.getValue(root);
+      if (leftValue == UNSUPPORTED) return UNSUPPORTED;
+      Object rightValue = right.getValue(root);
+      if (rightValue == UNSUPPORTED) return UNSUPPORTED;
+      boolean equal;
+      if (leftValue == null || rightValue == null) {
+        equal = leftValue == rightValue;
+      } else if (isIntegral(leftValue) && isIntegral(rightValue)) {
+        equal = ((Number) leftValue).longValue() == ((Number) rightValue).longValue();
+      } else if ((leftValue instanceof String && rightValue instanceof String)
+          || (leftValue instanceof Boolean && rightValue instanceof Boolean)) {
+        equal = leftValue.equals(rightValue);
+      } else {
+        return UNSUPPORTED;
+      }
+      return Boolean.valueOf(equal != negated);
+    }
+  }
+
+  static class Compare extends CompiledExpression {
+    static final int LESS = 0;
+    static final int GREATER = 1;
+    static final int LESS_OR_EQUAL = 2;
+    static final int GREATER_OR_EQUAL = 3;
+
+    private final CompiledExpression left;
+    private final CompiledExpression right;
+    private final int operator;
+
+    Compare(CompiledExpression left, CompiledExpression right, int operator) {
+      this.left = left;
+      this.right = right;
+      this.operator = operator;
+    }
+
+    Object getValue(Object root) {
+      Object leftValue = left.getValue(root);
+      if (leftValue == UNSUPPORTED) return UNSUPPORTED;
+      Object rightValue = right.getValue(root);
+      if (rightValue == UNSUPPORTED) return UNSUPPORTED;
+      int result;
+      if (isIntegral(leftValue) && isIntegral(rightValue)) {
+        long l = ((Number) leftValue).longValue();
+        long r = ((Number) rightValue).longValue();
+        result = l < r ? -1 : (l == r ? 0 : 1);
+      } else {
+        // OGNL converts anything else to numbers first
+        return UNSUPPORTED;
+      }
+      switch (operator) {
+        case LESS:
+          return Boolean.valueOf(result < 0);
+        case GREATER:
+          return Boolean.valueOf(result > 0);
+        case LESS_OR_EQUAL:
+          return Boolean.valueOf(result <= 0);
+        default:
+          return Boolean.valueOf(result >= 0);
+      }
+    }
+  }
+
+}
@@ -52,6 +52,14 @@ public class DynamicContext {
     bindings.put(DATABASE_ID_KEY, configuration.getDatabaseId());
   }
 
+  /*
+   * For contexts that only reshape the SQL appended through them: the bindings of the delegate are
+   * shared instead of building a new binding map for each of them.
+   */
+  DynamicContext(DynamicContext delegate) {
+    bindings = delegate.bindings;
+  }
+
   public Map<String, Object> getBindings() {
     return bindings;
   }
@@ -66,7 +74,16 @@ public class DynamicContext {
   }
 
   public String getSql() {
-    return sqlBuilder.toString().trim();
+    // same as toString().trim() without copying the SQL twice
+    int start = 0;
+    int end = sqlBuilder.length();
+    while (start < end && sqlBuilder.charAt(start) <= ' ') {
+      start++;
+    }
+    while (end > start && sqlBuilder.charAt(end - 1) <= ' ') {
+      end--;
+    }
+    return sqlBuilder.substring(start, end);
   }
 
   public int getUniqueNumber() {
@@ -15,20 +15,36 @@
  */
 package org.apache.ibatis.scripting.xmltags;
 
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.apache.ibatis.builder.SqlSourceBuilder;
+import org.apache.ibatis.builder.StaticSqlSource;
 import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.ParameterMapping;
 import org.apache.ibatis.mapping.SqlSource;
+import org.apache.ibatis.reflection.MetaObject;
 import org.apache.ibatis.session.Configuration;
 
 /**
+ * Only the {@link SqlNode} tree is evaluated per call. The text it generates is parsed into a
+ * {@link StaticSqlSource} once per (text, parameter type) and reused, as long as the bindings the
+ * parameter mappings were resolved against still have the same types.
+ *
  * @author Clinton Begin
  */
 public class DynamicSqlSource implements SqlSource {
 
+  /**
+   * Upper bound of cached templates per statement. Statements that inline values with ${} produce a
+   * new text for every value and simply stop being cached once the bound is reached.
+   */
+  private static final int MAX_CACHED_TEMPLATES = 256;
+
   private Configuration configuration;
   private SqlNode rootSqlNode;
+  private final Map<TemplateKey, Template> templateCache = new ConcurrentHashMap<TemplateKey, Template>();
 
   public DynamicSqlSource(Configuration configuration, SqlNode rootSqlNode) {
     this.configuration = configuration;
@@ -38,9 +54,8 @@ public class DynamicSqlSource implements SqlSource {
   public BoundSql getBoundSql(Object parameterObject) {
     DynamicContext context = new DynamicContext(configuration, parameterObject);
     rootSqlNode.apply(context);
-    SqlSourceBuilder sqlSourceParser = new SqlSourceBuilder(configuration);
     Class<?> parameterType = parameterObject == null ? Object.class : parameterObject.getClass();
-    SqlSource sqlSource = sqlSourceParser.parse(context.getSql(), parameterType, context.getBindings());
+    SqlSource sqlSource = getSqlSource(context.getSql(), parameterType, context.getBindings());
     BoundSql boundSql = sqlSource.getBoundSql(parameterObject);
     for (Map.Entry<String, Object> entry : context.getBindings().entrySet()) {
       boundSql.setAdditionalParameter(entry.getKey(), entry.getValue());
@@ -48,4 +63,83 @@ public class DynamicSqlSource implements SqlSource {
     return boundSql;
   }
 
+  private SqlSource getSqlSource(String sql, Class<?> parameterType, Map<String, Object> bindings) {
+    final TemplateKey key = new TemplateKey(sql, parameterType);
+    final MetaObject metaBindings = configuration.newMetaObject(bindings);
+    Template template = templateCache.get(key);
+    if (template != null && template.matches(metaBindings)) {
+      return template.sqlSource;
+    }
+    SqlSourceBuilder sqlSourceParser = new SqlSourceBuilder(configuration);
+    StaticSqlSource sqlSource = (StaticSqlSource) sqlSourceParser.parse(sql, parameterType, bindings);
+    if (template != null || templateCache.size() < MAX_CACHED_TEMPLATES) {
+      templateCache.put(key, new Template(sqlSource, metaBindings));
+    }
+    return sqlSource;
+  }
+
+  private static Class<?> resolveBindingType(MetaObject metaBindings, String property) {
+    // mirrors SqlSourceBuilder: properties found in the bindings take their type from the bound value
+    if (property != null && metaBindings.hasGetter(property)) {
+      return metaBindings.getGetterType(property);
+    }
+    return null;
+  }
+
+  private static class Template {
+
+    private final StaticSqlSource sqlSource;
+    private final String[] properties;
+    private final Class<?>[] bindingTypes;
+
+    public Template(StaticSqlSource sqlSource, MetaObject metaBindings) {
+      this.sqlSource = sqlSource;
+      List<ParameterMapping> parameterMappings = sqlSource.getParameterMappings();
+      int size = parameterMappings == null ? 0 : parameterMappings.size();
+      this.properties = new String[size];
+      this.bindingTypes = new Class<?>[size];
+      for (int i = 0; i < size; i++) {
+        properties[i] = parameterMappings.get(i).getProperty();
+        bindingTypes[i] = resolveBindingType(metaBindings, properties[i]);
+      }
+    }
+
+    public boolean matches(MetaObject metaBindings) {
+      for (int i = 0; i < properties.length; i++) {
+        if (bindingTypes[i] != resolveBindingType(metaBindings, properties[i])) {
+          return false;
+        }
+      }
+      return true;
+    }
+  }
+
+  private static class TemplateKey {
+
+    private final String sql;
+    private final Class<?> parameterType;
+
+    public TemplateKey(String sql, Class<?> parameterType) {
+      this.sql = sql;
+      this.parameterType = parameterType;
+    }
+
+    @Override
+    public int hashCode() {
+      return 31 * sql.hashCode() + parameterType.hashCode();
+    }
+
+    @Override
+    public boolean equals(Object object) {
+      if (this == object) {
+        return true;
+      }
+      if (!(object instanceof TemplateKey)) {
+        return false;
+      }
+      TemplateKey other = (TemplateKey) object;
+      return parameterType.equals(other.parameterType) && sql.equals(other.sql);
+    }
+  }
+
 }
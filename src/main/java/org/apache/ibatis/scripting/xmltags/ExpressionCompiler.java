@@ -0,0 +1,247 @@
+/*
+ *    Copyright 2009-2014 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.scripting.xmltags;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Compiles the common subset of OGNL used in test expressions: property paths,
+ * null/boolean/integer/string literals, comparisons, and/or/not and the
+ * size(), isEmpty(), length() and trim() calls.
+ * Any other expression is left to OGNL.
+ */
+final class ExpressionCompiler {
+
+  private static final Object NOT_COMPILABLE = new Object();
+
+  private static final Map<String, Object> expressionCache = new ConcurrentHashMap<String, Object>();
+
+  private static final Set<String> RESERVED_WORDS = new HashSet<String>(Arrays.asList(
+      "and", "or", "not", "eq", "neq", "lt", "gt", "lte", "gte", "in", "instanceof",
+      "band", "bor", "xor", "shl", "shr", "ushr", "new", "null", "true", "false"));
+
+  private static final Set<String> METHODS = new HashSet<String>(Arrays.asList("size", "isEmpty", "length", "trim"));
+
+  private final String expression;
+  private int position;
+  private String token;
+  private Object literal;
+
+  private ExpressionCompiler(String expression) {
+    this.expression = expression;
+  }
+
+  /**
+   * @return the compiled expression or null when it must be evaluated by OGNL
+   */
+  static CompiledExpression compile(String expression) {
+    Object compiled = expressionCache.get(expression);
+    if (compiled == null) {
+      try {
+        compiled = new ExpressionCompiler(expression).parse();
+      } catch (UnsupportedExpressionException e) {
+        compiled = NOT_COMPILABLE;
+      }
+      expressionCache.put(expression, compiled);
+    }
+    return compiled == NOT_COMPILABLE ? null : (CompiledExpression) compiled;
+  }
+
+  private CompiledExpression parse() {
+    next();
+    CompiledExpression compiled = parseOr();
+    if (token != null) throw new UnsupportedExpressionException();
+    return compiled;
+  }
+
+  private CompiledExpression parseOr() {
+    CompiledExpression left = parseAnd();
+    while ("or".equals(token) || "||".equals(token)) {
+      next();
+      left = new CompiledExpression.Or(left, parseAnd());
+    }
+    return left;
+  }
+
+  private CompiledExpression parseAnd() {
+    CompiledExpression left = parseEquality();
+    while ("and".equals(token) || "&&".equals(token)) {
+      next();
+      left = new CompiledExpression.And(left, parseEquality());
+    }
+    return left;
+  }
+
+  private CompiledExpression parseEquality() {
+    CompiledExpression left = parseRelational();
+    while (true) {
+      if ("==".equals(token) || "eq".equals(token)) {
+        next();
+        left = new CompiledExpression.Equal(left, parseRelational(), false);
+      } else if ("!=".equals(token) || "neq".equals(token)) {
+        next();
+        left = new CompiledExpression.Equal(left, parseRelational(), true);
+      } else {
+        return left;
+      }
+    }
+  }
+
+  private CompiledExpression parseRelational() {
+    CompiledExpression left = parseUnary();
+    while (true) {
+      int operator;
+      if ("<".equals(token) || "lt".equals(token)) {
+        operator = CompiledExpression.Compare.LESS;
+      } else if (">".equals(token) || "gt".equals(token)) {
+        operator = CompiledExpression.Compare.GREATER;
+      } else if ("<=".equals(token) || "lte".equals(token)) {
+        operator = CompiledExpression.Compare.LESS_OR_EQUAL;
+      } else if (">=".equals(token) || "gte".equals(token)) {
+        operator = CompiledExpression.Compare.GREATER_OR_EQUAL;
+      } else {
+        return left;
+      }
+      next();
+      left = new CompiledExpression.Compare(left, parseUnary(), operator);
+    }
+  }
+
+  private CompiledExpression parseUnary() {
+    if ("!".equals(token) || "not".equals(token)) {
+      next();
+      return new CompiledExpression.Not(parseUnary());
+    }
+    return parsePrimary();
+  }
+
+  private CompiledExpression parsePrimary() {
+    if (token == null) throw new UnsupportedExpressionException();
+    if ("(".equals(token)) {
+      next();
+      CompiledExpression inner = parseOr();
+      expect(")");
+      return inner;
+    }
+    if (literal != null || "null".equals(token)) {
+      CompiledExpression compiled = new CompiledExpression.Literal(literal);
+      next();
+      return compiled;
+    }
+    CompiledExpression compiled = new CompiledExpression.RootProperty(identifier());
+    if ("(".equals(token)) {
+      // static or context function calls are left to OGNL
+      throw new UnsupportedExpressionException();
+    }
+    while (".".equals(token)) {
+      next();
+      String name = identifier();
+      if ("(".equals(token)) {
+        if (!METHODS.contains(name)) throw new UnsupportedExpressionException();
+        next();
+        expect(")");
+        compiled = new CompiledExpression.MethodCall(compiled, name);
+      } else {
+        compiled = new CompiledExpression.Property(compiled, name);
+      }
+    }
+    return compiled;
+  }
+
+  private String identifier() {
+    if (token == null || !Character.isJavaIdentifierStart(token.charAt(0)) || RESERVED_WORDS.contains(token)) {
+      throw new UnsupportedExpressionException();
+    }
+    String name = token;
+    next();
+    return name;
+  }
+
+  private void expect(String expected) {
+    if (!expected.equals(token)) throw new UnsupportedExpressionException();
+    next();
+  }
+
+  private void next() {
+    literal = null;
+    int length = expression.length();
+    while (position < length && Character.isWhitespace(expression.charAt(position))) {
+      position++;
+    }
+    if (position >= length) {
+      token = null;
+      return;
+    }
+    int start = position;
+    char c = expression.charAt(position);
+    if (Character.isJavaIdentifierStart(c)) {
+      while (position < length && Character.isJavaIdentifierPart(expression.charAt(position))) {
+        position++;
+      }
+      token = expression.substring(start, position);
+      if ("true".equals(token)) {
+        literal = Boolean.TRUE;
+      } else if ("false".equals(token)) {
+        literal = Boolean.FALSE;
+      }
+    } else if (Character.isDigit(c)) {
+      while (position < length && Character.isDigit(expression.charAt(position))) {
+        position++;
+      }
+      if (position < length && (Character.isJavaIdentifierPart(expression.charAt(position)) || expression.charAt(position) == '.')) {
+        // long, decimal and other typed numbers are left to OGNL
+        throw new UnsupportedExpressionException();
+      }
+      token = expression.substring(start, position);
+      try {
+        literal = Integer.valueOf(token);
+      } catch (NumberFormatException e) {
+        throw new UnsupportedExpressionException();
+      }
+    } else if (c == '\'' || c == '"') {
+      int end = expression.indexOf(c, position + 1);
+      if (end < 0) throw new UnsupportedExpressionException();
+      String value = expression.substring(position + 1, end);
+      if (value.indexOf('\\') >= 0 || (c == '\'' && value.length() == 1)) {
+        // escapes and character literals are left to OGNL
+        throw new UnsupportedExpressionException();
+      }
+      position = end + 1;
+      token = expression.substring(start, position);
+      literal = value;
+    } else {
+      String two = position + 1 < length ? expression.substring(position, position + 2) : null;
+      if ("==".equals(two) || "!=".equals(two) || "<=".equals(two) || ">=".equals(two) || "&&".equals(two) || "||".equals(two)) {
+        position += 2;
+        token = two;
+      } else if (c == '<' || c == '>' || c == '!' || c == '(' || c == ')' || c == '.') {
+        position++;
+        token = String.valueOf(c);
+      } else {
+        throw new UnsupportedExpressionException();
+      }
+    }
+  }
+
+  private static class UnsupportedExpressionException extends RuntimeException {
+    private static final long serialVersionUID = -3394939512917389516L;
+  }
+
+}
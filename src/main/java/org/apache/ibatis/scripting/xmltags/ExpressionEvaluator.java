@@ -28,15 +28,42 @@ import org.apache.ibatis.builder.BuilderException;
  */
 public class ExpressionEvaluator {
 
+  private final boolean compileExpressions;
+
+  public ExpressionEvaluator() {
+    this(false);
+  }
+
+  /**
+   * @param compileExpressions evaluate the simple expressions with {@link ExpressionCompiler}
+   *     and only use OGNL for the rest
+   */
+  public ExpressionEvaluator(boolean compileExpressions) {
+    this.compileExpressions = compileExpressions;
+  }
+
+  public Object evaluate(String expression, Object parameterObject) {
+    if (compileExpressions) {
+      CompiledExpression compiled = ExpressionCompiler.compile(expression);
+      if (compiled != null) {
+        Object value = compiled.getValue(parameterObject);
+        if (value != CompiledExpression.UNSUPPORTED) {
+          return value;
+        }
+      }
+    }
+    return OgnlCache.getValue(expression, parameterObject);
+  }
+
   public boolean evaluateBoolean(String expression, Object parameterObject) {
-    Object value = OgnlCache.getValue(expression, parameterObject);
+    Object value = evaluate(expression, parameterObject);
     if (value instanceof Boolean) return (Boolean) value;
     if (value instanceof Number) return !new BigDecimal(String.valueOf(value)).equals(BigDecimal.ZERO);
     return value != null;
   }
 
   public Iterable<?> evaluateIterable(String expression, Object parameterObject) {
-    Object value = OgnlCache.getValue(expression, parameterObject);
+    Object value = evaluate(expression, parameterObject);
     if (value == null) throw new BuilderException("The expression '" + expression + "' evaluated to a null value.");
     if (value instanceof Iterable) return (Iterable<?>) value;
     if (value.getClass().isArray()) {
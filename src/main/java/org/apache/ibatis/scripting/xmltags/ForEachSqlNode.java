@@ -15,7 +15,12 @@
  */
 package org.apache.ibatis.scripting.xmltags;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 import org.apache.ibatis.parsing.GenericTokenParser;
 import org.apache.ibatis.parsing.TokenHandler;
@@ -27,6 +32,9 @@ import org.apache.ibatis.session.Configuration;
 public class ForEachSqlNode implements SqlNode {
   public static final String ITEM_PREFIX = "__frch_";
 
+  private static final char POSITION_MARK = '\u0000';
+  private static final int MAX_CACHED_TEMPLATES = 64;
+
   private ExpressionEvaluator evaluator;
   private String collectionExpression;
   private SqlNode contents;
@@ -36,9 +44,12 @@ public class ForEachSqlNode implements SqlNode {
   private String item;
   private String index;
   private Configuration configuration;
+  private final Pattern itemPattern;
+  private final Pattern indexPattern;
+  private final Map<String, ItemTemplate> itemTemplates = new ConcurrentHashMap<String, ItemTemplate>();
 
   public ForEachSqlNode(Configuration configuration, SqlNode contents, String collectionExpression, String index, String item, String open, String close, String separator) {
-    this.evaluator = new ExpressionEvaluator();
+    this.evaluator = new ExpressionEvaluator(configuration.isCompileExpressions());
     this.collectionExpression = collectionExpression;
     this.contents = contents;
     this.open = open;
@@ -47,55 +58,57 @@ public class ForEachSqlNode implements SqlNode {
     this.index = index;
     this.item = item;
     this.configuration = configuration;
+    this.itemPattern = tokenPattern(item);
+    this.indexPattern = tokenPattern(index);
   }
 
   public boolean apply(DynamicContext context) {
     Map<String, Object> bindings = context.getBindings();
     final Iterable<?> iterable = evaluator.evaluateIterable(collectionExpression, bindings);
-    boolean first = true;
+    // all items of one iteration are bound as a single list and referenced by position
+    final int uniqueNumber = context.getUniqueNumber();
+    final List<Object> items = item != null ? new ArrayList<Object>() : null;
+    final List<Object> indexes = index != null ? new ArrayList<Object>() : null;
+    if (items != null) {
+      context.bind(itemizeItem(item, uniqueNumber), items);
+    }
+    if (indexes != null) {
+      context.bind(itemizeItem(index, uniqueNumber), indexes);
+    }
     applyOpen(context);
+    final ItemContext itemContext = new ItemContext(context, uniqueNumber);
+    boolean first = true;
     int i = 0;
     for (Object o : iterable) {
-      DynamicContext oldContext = context;
-      if (first) {
-        context = new PrefixedContext(context, "");
-      } else {
-        if (separator != null) {
-          context = new PrefixedContext(context, separator);
-        } else {
-          context = new PrefixedContext(context, "");
-        }
-      }
-      int uniqueNumber = context.getUniqueNumber();
       if (o instanceof Map.Entry) { // Issue #709 
         @SuppressWarnings("unchecked") 
         Map.Entry<Object, Object> mapEntry = (Map.Entry<Object, Object>) o;
-        applyIndex(context, mapEntry.getKey(), uniqueNumber);
-        applyItem(context, mapEntry.getValue(), uniqueNumber);
+        applyIndex(context, indexes, mapEntry.getKey());
+        applyItem(context, items, mapEntry.getValue());
       } else {
-        applyIndex(context, i, uniqueNumber);
-        applyItem(context, o, uniqueNumber);
+        applyIndex(context, indexes, i);
+        applyItem(context, items, o);
       }
-      contents.apply(new FilteredDynamicContext(configuration, context, index, item, uniqueNumber));
-      if (first) first = !((PrefixedContext) context).isPrefixApplied();
-      context = oldContext;
+      itemContext.nextItem(i, first || separator == null ? "" : separator);
+      contents.apply(itemContext);
+      if (first) first = !itemContext.isPrefixApplied();
       i++;
     }
     applyClose(context);
     return true;
   }
 
-  private void applyIndex(DynamicContext context, Object o, int i) {
+  private void applyIndex(DynamicContext context, List<Object> indexes, Object o) {
     if (index != null) {
       context.bind(index, o);
-      context.bind(itemizeItem(index, i), o);
+      indexes.add(o);
     }
   }
 
-  private void applyItem(DynamicContext context, Object o, int i) {
+  private void applyItem(DynamicContext context, List<Object> items, Object o) {
     if (item != null) {
       context.bind(item, o);
-      context.bind(itemizeItem(item, i), o);
+      items.add(o);
     }
   }
 
@@ -115,66 +128,107 @@ public class ForEachSqlNode implements SqlNode {
     return new StringBuilder(ITEM_PREFIX).append(item).append("_").append(i).toString();
   }
 
-  private static class FilteredDynamicContext extends DynamicContext {
-    private DynamicContext delegate;
-    private int index;
-    private String itemIndex;
-    private String item;
-
-    public FilteredDynamicContext(Configuration configuration,DynamicContext delegate, String itemIndex, String item, int i) {
-      super(configuration, null);
-      this.delegate = delegate;
-      this.index = i;
-      this.itemIndex = itemIndex;
-      this.item = item;
-    }
-
-    @Override
-    public Map<String, Object> getBindings() {
-      return delegate.getBindings();
-    }
-
-    @Override
-    public void bind(String name, Object value) {
-      delegate.bind(name, value);
+  private ItemTemplate getItemTemplate(String sql) {
+    ItemTemplate template = itemTemplates.get(sql);
+    if (template == null) {
+      template = new ItemTemplate(sql);
+      if (itemTemplates.size() < MAX_CACHED_TEMPLATES) {
+        itemTemplates.put(sql, template);
+      }
     }
+    return template;
+  }
 
-    @Override
-    public String getSql() {
-      return delegate.getSql();
-    }
+  /*
+   * The text of the contents with #{item} and #{index} already renamed, split where the number of the
+   * iteration and the position of the item go, so that each item only costs a few appends.
+   */
+  private class ItemTemplate {
+    private final String[] parts;
 
-    @Override
-    public void appendSql(String sql) {
-      GenericTokenParser parser = new GenericTokenParser("#{", "}", new TokenHandler() {
+    public ItemTemplate(String sql) {
+      String itemized = new GenericTokenParser("#{", "}", new TokenHandler() {
         public String handleToken(String content) {
-          String newContent = content.replaceFirst("^\\s*" + item + "(?![^.,:\\s])", itemizeItem(item, index));
-          if (itemIndex != null && newContent.equals(content)) {
-            newContent = content.replaceFirst("^\\s*" + itemIndex + "(?![^.,:\\s])", itemizeItem(itemIndex, index));
+          String newContent = itemizeToken(itemPattern, item, content);
+          if (newContent == null) {
+            newContent = itemizeToken(indexPattern, index, content);
           }
-          return new StringBuilder("#{").append(newContent).append("}").toString();
+          return new StringBuilder("#{").append(newContent == null ? content : newContent).append("}").toString();
         }
-      });
+      }).parse(sql);
+      this.parts = split(itemized);
+    }
 
-      delegate.appendSql(parser.parse(sql));
+    public String apply(int uniqueNumber, int position) {
+      if (parts.length == 1) {
+        return parts[0];
+      }
+      final StringBuilder builder = new StringBuilder();
+      builder.append(parts[0]);
+      for (int i = 1; i < parts.length; i++) {
+        builder.append(uniqueNumber).append('[').append(position).append(']').append(parts[i]);
+      }
+      return builder.toString();
     }
+  }
 
-    @Override
-    public int getUniqueNumber() {
-      return delegate.getUniqueNumber();
+  private static String itemizeToken(Pattern pattern, String name, String content) {
+    if (pattern == null) {
+      return null;
     }
+    final Matcher matcher = pattern.matcher(content);
+    if (!matcher.lookingAt()) {
+      return null;
+    }
+    return new StringBuilder(ITEM_PREFIX).append(name).append('_').append(POSITION_MARK).append(content.substring(matcher.end())).toString();
+  }
 
+  private static String[] split(String text) {
+    final List<String> parts = new ArrayList<String>();
+    int offset = 0;
+    int mark;
+    while ((mark = text.indexOf(POSITION_MARK, offset)) > -1) {
+      parts.add(text.substring(offset, mark));
+      offset = mark + 1;
+    }
+    parts.add(text.substring(offset));
+    return parts.toArray(new String[parts.size()]);
   }
 
+  private static Pattern tokenPattern(String name) {
+    return name == null ? null : Pattern.compile("^\\s*" + Pattern.quote(name) + "(?![^.,:\\s])");
+  }
 
-  private class PrefixedContext extends DynamicContext {
-    private DynamicContext delegate;
+  private static boolean hasText(String sql) {
+    if (sql != null) {
+      for (int i = 0; i < sql.length(); i++) {
+        if (sql.charAt(i) > ' ') {
+          return true;
+        }
+      }
+    }
+    return false;
+  }
+
+  /*
+   * One context for all items of an iteration: prepends the separator to the first text an item
+   * generates and renames its #{item} and #{index} placeholders.
+   */
+  private class ItemContext extends DynamicContext {
+    private final DynamicContext delegate;
+    private final int uniqueNumber;
+    private int position;
     private String prefix;
     private boolean prefixApplied;
 
-    public PrefixedContext(DynamicContext delegate, String prefix) {
-      super(configuration, null);
+    public ItemContext(DynamicContext delegate, int uniqueNumber) {
+      super(delegate);
       this.delegate = delegate;
+      this.uniqueNumber = uniqueNumber;
+    }
+
+    public void nextItem(int position, String prefix) {
+      this.position = position;
       this.prefix = prefix;
       this.prefixApplied = false;
     }
@@ -195,11 +249,11 @@ public class ForEachSqlNode implements SqlNode {
 
     @Override
     public void appendSql(String sql) {
-      if (!prefixApplied && sql != null && sql.trim().length() > 0) {
+      if (!prefixApplied && hasText(sql)) {
         delegate.appendSql(prefix);
         prefixApplied = true;
       }
-      delegate.appendSql(sql);
+      delegate.appendSql(getItemTemplate(sql).apply(uniqueNumber, position));
     }
 
     @Override
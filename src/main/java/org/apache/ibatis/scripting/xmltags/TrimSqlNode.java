@@ -25,6 +25,9 @@ import java.util.StringTokenizer;
 import org.apache.ibatis.session.Configuration;
 
 /**
+ * The overrides are prepared when the statement is built, so applying the node only scans the ends
+ * of the generated SQL and copies it once.
+ *
  * @author Clinton Begin
  */
 public class TrimSqlNode implements SqlNode {
@@ -32,9 +35,10 @@ public class TrimSqlNode implements SqlNode {
   private SqlNode contents;
   private String prefix;
   private String suffix;
-  private List<String> prefixesToOverride;
-  private List<String> suffixesToOverride;
   private Configuration configuration;
+  private final String[] prefixOverrides;
+  private final int[] prefixOverrideLengths;
+  private final String[] suffixOverrides;
 
   public TrimSqlNode(Configuration configuration, SqlNode contents, String prefix, String prefixesToOverride, String suffix, String suffixesToOverride) {
     this(configuration, contents, prefix, parseOverrides(prefixesToOverride), suffix, parseOverrides(suffixesToOverride));
@@ -43,10 +47,21 @@ public class TrimSqlNode implements SqlNode {
   protected TrimSqlNode(Configuration configuration, SqlNode contents, String prefix, List<String> prefixesToOverride, String suffix, List<String> suffixesToOverride) {
     this.contents = contents;
     this.prefix = prefix;
-    this.prefixesToOverride = prefixesToOverride;
     this.suffix = suffix;
-    this.suffixesToOverride = suffixesToOverride;
     this.configuration = configuration;
+    int prefixCount = prefixesToOverride == null ? 0 : prefixesToOverride.size();
+    this.prefixOverrides = new String[prefixCount];
+    this.prefixOverrideLengths = new int[prefixCount];
+    for (int i = 0; i < prefixCount; i++) {
+      prefixOverrides[i] = prefixesToOverride.get(i);
+      prefixOverrideLengths[i] = prefixOverrides[i].trim().length();
+    }
+    int suffixCount = suffixesToOverride == null ? 0 : suffixesToOverride.size();
+    this.suffixOverrides = new String[suffixCount];
+    for (int i = 0; i < suffixCount; i++) {
+      // the SQL is trimmed before matching, so only the trimmed suffix can match
+      suffixOverrides[i] = suffixesToOverride.get(i).trim();
+    }
   }
 
   public boolean apply(DynamicContext context) {
@@ -72,28 +87,69 @@ public class TrimSqlNode implements SqlNode {
     return Collections.emptyList();
   }
 
+  /*
+   * Case insensitive match of an upper case override against the generated SQL.
+   */
+  private static boolean matches(StringBuilder sql, int offset, int end, String override) {
+    int length = override.length();
+    if (offset < 0 || offset + length > end) {
+      return false;
+    }
+    for (int i = 0; i < length; i++) {
+      if (Character.toUpperCase(sql.charAt(offset + i)) != override.charAt(i)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
   private class FilteredDynamicContext extends DynamicContext {
     private DynamicContext delegate;
-    private boolean prefixApplied;
-    private boolean suffixApplied;
     private StringBuilder sqlBuffer;
 
     public FilteredDynamicContext(DynamicContext delegate) {
-      super(configuration, null);
+      super(delegate);
       this.delegate = delegate;
-      this.prefixApplied = false;
-      this.suffixApplied = false;
       this.sqlBuffer = new StringBuilder();
     }
 
     public void applyAll() {
-      sqlBuffer = new StringBuilder(sqlBuffer.toString().trim());
-      String trimmedUppercaseSql = sqlBuffer.toString().toUpperCase(Locale.ENGLISH);
-      if (trimmedUppercaseSql.length() > 0) {
-        applyPrefix(sqlBuffer, trimmedUppercaseSql);
-        applySuffix(sqlBuffer, trimmedUppercaseSql);
+      int start = 0;
+      int end = sqlBuffer.length();
+      while (start < end && sqlBuffer.charAt(start) <= ' ') {
+        start++;
+      }
+      while (end > start && sqlBuffer.charAt(end - 1) <= ' ') {
+        end--;
+      }
+      if (start == end) {
+        delegate.appendSql("");
+        return;
+      }
+      int contentStart = start;
+      for (int i = 0; i < prefixOverrides.length; i++) {
+        if (matches(sqlBuffer, start, end, prefixOverrides[i])) {
+          contentStart = start + prefixOverrideLengths[i];
+          break;
+        }
+      }
+      int contentEnd = end;
+      for (String toRemove : suffixOverrides) {
+        if (matches(sqlBuffer, end - toRemove.length(), end, toRemove)) {
+          contentEnd = Math.max(contentStart, end - toRemove.length());
+          break;
+        }
       }
-      delegate.appendSql(sqlBuffer.toString());
+      StringBuilder sql = new StringBuilder(contentEnd - contentStart
+          + (prefix == null ? 0 : prefix.length() + 1) + (suffix == null ? 0 : suffix.length() + 1));
+      if (prefix != null) {
+        sql.append(prefix).append(' ');
+      }
+      sql.append(sqlBuffer, contentStart, contentEnd);
+      if (suffix != null) {
+        sql.append(' ').append(suffix);
+      }
+      delegate.appendSql(sql.toString());
     }
 
     @Override
@@ -121,44 +177,6 @@ public class TrimSqlNode implements SqlNode {
       return delegate.getSql();
     }
 
-    private void applyPrefix(StringBuilder sql, String trimmedUppercaseSql) {
-      if (!prefixApplied) {
-        prefixApplied = true;
-        if (prefixesToOverride != null) {
-          for (String toRemove : prefixesToOverride) {
-            if (trimmedUppercaseSql.startsWith(toRemove)) {
-              sql.delete(0, toRemove.trim().length());
-              break;
-            }
-          }
-        }
-        if (prefix != null) {
-          sql.insert(0, " ");
-          sql.insert(0, prefix);
-        }
-      }
-    }
-
-    private void applySuffix(StringBuilder sql, String trimmedUppercaseSql) {
-      if (!suffixApplied) {
-        suffixApplied = true;
-        if (suffixesToOverride != null) {
-          for (String toRemove : suffixesToOverride) {
-            if (trimmedUppercaseSql.endsWith(toRemove) || trimmedUppercaseSql.endsWith(toRemove.trim())) {
-              int start = sql.length() - toRemove.trim().length();
-              int end = sql.length();
-              sql.delete(start, end);
-              break;
-            }
-          }
-        }
-        if (suffix != null) {
-          sql.append(" ");
-          sql.append(suffix);
-        }
-      }
-    }
-
   }
 
 }
@@ -22,14 +22,20 @@ public class VarDeclSqlNode implements SqlNode {
 
   private final String name;
   private final String expression;
+  private final ExpressionEvaluator evaluator;
 
   public VarDeclSqlNode(String var, String exp) {
+    this(var, exp, new ExpressionEvaluator());
+  }
+
+  public VarDeclSqlNode(String var, String exp, ExpressionEvaluator evaluator) {
     name = var;
     expression = exp;
+    this.evaluator = evaluator;
   }
 
   public boolean apply(DynamicContext context) {
-    final Object value = OgnlCache.getValue(expression, context.getBindings());
+    final Object value = evaluator.evaluate(expression, context.getBindings());
     context.bind(name, value);
     return true;
   }
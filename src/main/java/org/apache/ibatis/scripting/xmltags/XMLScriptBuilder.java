@@ -37,6 +37,12 @@ public class XMLScriptBuilder extends BaseBuilder {
   private XNode context;
   private boolean isDynamic;
   private Class<?> parameterType;
+  private ExpressionEvaluator evaluator;
+  /*
+   * Whether the context the parsed nodes append to separates every appended text with a space.
+   * Contents of trim, where and set are buffered without separators instead.
+   */
+  private boolean spacedContents = true;
 
   public XMLScriptBuilder(Configuration configuration, XNode context) {
     this(configuration, context, null);
@@ -46,6 +52,7 @@ public class XMLScriptBuilder extends BaseBuilder {
     super(configuration);
     this.context = context;
     this.parameterType = parameterType;
+    this.evaluator = new ExpressionEvaluator(configuration.isCompileExpressions());
   }
 
   public SqlSource parseScriptNode() {
@@ -62,6 +69,8 @@ public class XMLScriptBuilder extends BaseBuilder {
 
   private List<SqlNode> parseDynamicTags(XNode node) {
     List<SqlNode> contents = new ArrayList<SqlNode>();
+    // adjacent static texts (split by comments, CDATA sections or included fragments) are merged into one node
+    StringBuilder staticText = null;
     NodeList children = node.getNode().getChildNodes();
     for (int i = 0; i < children.getLength(); i++) {
       XNode child = node.newXNode(children.item(i));
@@ -69,10 +78,14 @@ public class XMLScriptBuilder extends BaseBuilder {
         String data = child.getStringBody("");
         TextSqlNode textSqlNode = new TextSqlNode(data);
         if (textSqlNode.isDynamic()) {
+          addStaticText(contents, staticText);
+          staticText = null;
           contents.add(textSqlNode);
           isDynamic = true;
+        } else if (staticText == null) {
+          staticText = new StringBuilder(data);
         } else {
-          contents.add(new StaticTextSqlNode(data));
+          staticText.append(spacedContents ? " " : "").append(data);
         }
       } else if (child.getNode().getNodeType() == Node.ELEMENT_NODE) { // issue #628
         String nodeName = child.getNode().getNodeName();
@@ -80,13 +93,32 @@ public class XMLScriptBuilder extends BaseBuilder {
         if (handler == null) {
           throw new BuilderException("Unknown element <" + nodeName + "> in SQL statement.");
         }
+        addStaticText(contents, staticText);
+        staticText = null;
         handler.handleNode(child, contents);
         isDynamic = true;
       }
     }
+    addStaticText(contents, staticText);
     return contents;
   }
 
+  private void addStaticText(List<SqlNode> contents, StringBuilder staticText) {
+    if (staticText != null) {
+      contents.add(new StaticTextSqlNode(staticText.toString()));
+    }
+  }
+
+  private List<SqlNode> parseTrimmedTags(XNode node) {
+    boolean spaced = spacedContents;
+    spacedContents = false;
+    try {
+      return parseDynamicTags(node);
+    } finally {
+      spacedContents = spaced;
+    }
+  }
+
   private Map<String, NodeHandler> nodeHandlers = new HashMap<String, NodeHandler>() {
     private static final long serialVersionUID = 7123056019193266281L;
 
@@ -111,14 +143,14 @@ public class XMLScriptBuilder extends BaseBuilder {
     public void handleNode(XNode nodeToHandle, List<SqlNode> targetContents) {
       final String name = nodeToHandle.getStringAttribute("name");
       final String expression = nodeToHandle.getStringAttribute("value");
-      final VarDeclSqlNode node = new VarDeclSqlNode(name, expression);
+      final VarDeclSqlNode node = new VarDeclSqlNode(name, expression, evaluator);
       targetContents.add(node);
     }
   }
 
   private class TrimHandler implements NodeHandler {
     public void handleNode(XNode nodeToHandle, List<SqlNode> targetContents) {
-      List<SqlNode> contents = parseDynamicTags(nodeToHandle);
+      List<SqlNode> contents = parseTrimmedTags(nodeToHandle);
       MixedSqlNode mixedSqlNode = new MixedSqlNode(contents);
       String prefix = nodeToHandle.getStringAttribute("prefix");
       String prefixOverrides = nodeToHandle.getStringAttribute("prefixOverrides");
@@ -131,7 +163,7 @@ public class XMLScriptBuilder extends BaseBuilder {
 
   private class WhereHandler implements NodeHandler {
     public void handleNode(XNode nodeToHandle, List<SqlNode> targetContents) {
-      List<SqlNode> contents = parseDynamicTags(nodeToHandle);
+      List<SqlNode> contents = parseTrimmedTags(nodeToHandle);
       MixedSqlNode mixedSqlNode = new MixedSqlNode(contents);
       WhereSqlNode where = new WhereSqlNode(configuration, mixedSqlNode);
       targetContents.add(where);
@@ -140,7 +172,7 @@ public class XMLScriptBuilder extends BaseBuilder {
 
   private class SetHandler implements NodeHandler {
     public void handleNode(XNode nodeToHandle, List<SqlNode> targetContents) {
-      List<SqlNode> contents = parseDynamicTags(nodeToHandle);
+      List<SqlNode> contents = parseTrimmedTags(nodeToHandle);
       MixedSqlNode mixedSqlNode = new MixedSqlNode(contents);
       SetSqlNode set = new SetSqlNode(configuration, mixedSqlNode);
       targetContents.add(set);
@@ -167,7 +199,7 @@ public class XMLScriptBuilder extends BaseBuilder {
       List<SqlNode> contents = parseDynamicTags(nodeToHandle);
       MixedSqlNode mixedSqlNode = new MixedSqlNode(contents);
       String test = nodeToHandle.getStringAttribute("test");
-      IfSqlNode ifSqlNode = new IfSqlNode(mixedSqlNode, test);
+      IfSqlNode ifSqlNode = new IfSqlNode(mixedSqlNode, test, evaluator);
       targetContents.add(ifSqlNode);
     }
   }
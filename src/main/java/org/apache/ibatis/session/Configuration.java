@@ -24,6 +24,10 @@ import java.util.List;
 import java.util.Map;
 import java.util.Properties;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.ibatis.binding.MapperRegistry;
 import org.apache.ibatis.builder.CacheRefResolver;
@@ -35,8 +39,10 @@ import org.apache.ibatis.cache.decorators.FifoCache;
 import org.apache.ibatis.cache.decorators.LruCache;
 import org.apache.ibatis.cache.decorators.SoftCache;
 import org.apache.ibatis.cache.decorators.WeakCache;
+import org.apache.ibatis.cache.impl.ConcurrentCache;
 import org.apache.ibatis.cache.impl.PerpetualCache;
 import org.apache.ibatis.datasource.jndi.JndiDataSourceFactory;
+import org.apache.ibatis.datasource.pooled.ConcurrentPooledDataSourceFactory;
 import org.apache.ibatis.datasource.pooled.PooledDataSourceFactory;
 import org.apache.ibatis.datasource.unpooled.UnpooledDataSourceFactory;
 import org.apache.ibatis.executor.BaseExecutor;
@@ -49,9 +55,14 @@ import org.apache.ibatis.executor.keygen.KeyGenerator;
 import org.apache.ibatis.executor.loader.ProxyFactory;
 import org.apache.ibatis.executor.loader.cglib.CglibProxyFactory;
 import org.apache.ibatis.executor.loader.javassist.JavassistProxyFactory;
+import org.apache.ibatis.executor.metrics.InMemoryQueryMetrics;
+import org.apache.ibatis.executor.metrics.LoggingSlowQueryReporter;
+import org.apache.ibatis.executor.metrics.QueryMetrics;
+import org.apache.ibatis.executor.metrics.SlowQueryReporter;
 import org.apache.ibatis.executor.parameter.ParameterHandler;
 import org.apache.ibatis.executor.resultset.DefaultResultSetHandler;
 import org.apache.ibatis.executor.resultset.ResultSetHandler;
+import org.apache.ibatis.executor.resultset.RowMappingPlanCache;
 import org.apache.ibatis.executor.statement.RoutingStatementHandler;
 import org.apache.ibatis.executor.statement.StatementHandler;
 import org.apache.ibatis.logging.Log;
@@ -73,8 +84,11 @@ import org.apache.ibatis.parsing.XNode;
 import org.apache.ibatis.plugin.Interceptor;
 import org.apache.ibatis.plugin.InterceptorChain;
 import org.apache.ibatis.reflection.MetaObject;
+import org.apache.ibatis.reflection.DefaultReflectorFactory;
+import org.apache.ibatis.reflection.ReflectorFactory;
 import org.apache.ibatis.reflection.factory.DefaultObjectFactory;
 import org.apache.ibatis.reflection.factory.ObjectFactory;
+import org.apache.ibatis.reflection.invoker.InvokerFactory;
 import org.apache.ibatis.reflection.wrapper.DefaultObjectWrapperFactory;
 import org.apache.ibatis.reflection.wrapper.ObjectWrapperFactory;
 import org.apache.ibatis.scripting.LanguageDriver;
@@ -131,6 +145,37 @@ public class Configuration {
 	 */
 	protected boolean cacheEnabled = true;
 	protected boolean callSettersOnNulls = false;
+	/**
+	 * 是否在多个线程中解析 mapper XML 文件，默认为 false。
+	 */
+	protected boolean parallelMapperParsing = false;
+	/**
+	 * 语句执行的统计，为 null 时不做任何计时。
+	 */
+	protected QueryMetrics queryMetrics;
+	/**
+	 * 执行时间超过该毫秒数的语句交给 {@link #slowQueryReporter} 处理，0 表示不检查。
+	 */
+	protected int slowQueryThreshold = 0;
+	protected SlowQueryReporter slowQueryReporter = new LoggingSlowQueryReporter();
+	/**
+	 * 执行返回 {@link java.util.concurrent.Future} 的 mapper 方法的线程池，未设置时按 {@link #asyncExecutorThreads} 创建。
+	 */
+	protected ExecutorService asyncExecutor;
+	protected int asyncExecutorThreads = Runtime.getRuntime().availableProcessors();
+	/**
+	 * 是否在 {@link #nestedQueryExecutor} 中用各自的连接并发执行同一行的多个非延迟嵌套查询，默认为 false。
+	 */
+	protected boolean parallelNestedQueries = false;
+	/**
+	 * 并发执行嵌套查询的线程池，未设置时按 {@link #asyncExecutorThreads} 创建。与 {@link #asyncExecutor} 分开，
+	 * 这样异步 mapper 方法等待自己的嵌套查询时不会占满同一个线程池。
+	 */
+	protected ExecutorService nestedQueryExecutor;
+	/**
+	 * 是否将 if、when、bind 中的简单表达式编译为按参数类型缓存的取值器，无法编译的部分仍交给 OGNL，默认为 false。
+	 */
+	protected boolean compileExpressions = false;
 	protected String logPrefix;
 	protected Class<? extends Log> logImpl;
 	protected LocalCacheScope localCacheScope = LocalCacheScope.SESSION;
@@ -142,15 +187,41 @@ public class Configuration {
 	 * {@link Executor} 默认的执行方式：{@link ExecutorType#SIMPLE}。
 	 */
 	protected ExecutorType defaultExecutorType = ExecutorType.SIMPLE;
+	/**
+	 * {@link ExecutorType#BATCH} 执行时，把连续的单行 INSERT 合并成多行 VALUES 语句，每条语句最多包含的行数。0 表示不合并。
+	 */
+	protected int batchInsertRowsPerStatement = 0;
+	/**
+	 * {@link ExecutorType#BATCH} 执行时，允许交替执行的 INSERT 加入之前同一语句、同一 SQL 的批次，遇到 UPDATE、DELETE 时不再跨越重排。
+	 */
+	protected boolean batchReordering = false;
+	/**
+	 * {@link ExecutorType#BATCH} 执行时，待执行的行数达到该值后自动执行批次。0 表示只在提交或手动刷新时执行。
+	 */
+	protected int batchFlushRows = 0;
+	/**
+	 * {@link ExecutorType#BATCH} 执行时，待执行批次估算的字节数达到该值后自动执行批次。0 表示不按字节数刷新。
+	 */
+	protected int batchFlushBytes = 0;
 	protected AutoMappingBehavior autoMappingBehavior = AutoMappingBehavior.PARTIAL;
 
 	protected Properties variables = new Properties();
 	protected ObjectFactory objectFactory = new DefaultObjectFactory();
 	protected ObjectWrapperFactory objectWrapperFactory = new DefaultObjectWrapperFactory();
+	protected ReflectorFactory reflectorFactory = new DefaultReflectorFactory();
+	/**
+	 * 各结果映射针对不同结果集形状解析好的映射计划，随本配置一起释放。
+	 */
+	protected final RowMappingPlanCache rowMappingPlanCache = new RowMappingPlanCache();
 	protected MapperRegistry mapperRegistry = new MapperRegistry(this);
 
 	protected boolean lazyLoadingEnabled = false;
+	/**
+	 * 使用 batchSelect 延迟加载时，一个批次最多包含的结果对象个数，读取其中一个的延迟属性时整个批次用一条语句加载。
+	 */
+	protected int lazyLoadBatchSize = 100;
 	protected ProxyFactory proxyFactory;
+	protected InvokerFactory invokerFactory;
 
 	protected String databaseId;
 	/**
@@ -196,9 +267,11 @@ public class Configuration {
 
 		typeAliasRegistry.registerAlias("JNDI", JndiDataSourceFactory.class);
 		typeAliasRegistry.registerAlias("POOLED", PooledDataSourceFactory.class);
+		typeAliasRegistry.registerAlias("CONCURRENT_POOLED", ConcurrentPooledDataSourceFactory.class);
 		typeAliasRegistry.registerAlias("UNPOOLED", UnpooledDataSourceFactory.class);
 
 		typeAliasRegistry.registerAlias("PERPETUAL", PerpetualCache.class);
+		typeAliasRegistry.registerAlias("CONCURRENT", ConcurrentCache.class);
 		typeAliasRegistry.registerAlias("FIFO", FifoCache.class);
 		typeAliasRegistry.registerAlias("LRU", LruCache.class);
 		typeAliasRegistry.registerAlias("SOFT", SoftCache.class);
@@ -220,6 +293,8 @@ public class Configuration {
 		typeAliasRegistry.registerAlias("CGLIB", CglibProxyFactory.class);
 		typeAliasRegistry.registerAlias("JAVASSIST", JavassistProxyFactory.class);
 
+		typeAliasRegistry.registerAlias("IN_MEMORY", InMemoryQueryMetrics.class);
+
 		languageRegistry.setDefaultDriverClass(XMLLanguageDriver.class);
 		languageRegistry.register(RawLanguageDriver.class);
 	}
@@ -252,6 +327,86 @@ public class Configuration {
 		this.callSettersOnNulls = callSettersOnNulls;
 	}
 
+	public boolean isParallelMapperParsing() {
+		return parallelMapperParsing;
+	}
+
+	public void setParallelMapperParsing(boolean parallelMapperParsing) {
+		this.parallelMapperParsing = parallelMapperParsing;
+	}
+
+	public QueryMetrics getQueryMetrics() {
+		return queryMetrics;
+	}
+
+	public void setQueryMetrics(QueryMetrics queryMetrics) {
+		this.queryMetrics = queryMetrics;
+	}
+
+	public int getSlowQueryThreshold() {
+		return slowQueryThreshold;
+	}
+
+	public void setSlowQueryThreshold(int slowQueryThreshold) {
+		this.slowQueryThreshold = slowQueryThreshold;
+	}
+
+	public SlowQueryReporter getSlowQueryReporter() {
+		return slowQueryReporter;
+	}
+
+	public void setSlowQueryReporter(SlowQueryReporter slowQueryReporter) {
+		if (slowQueryReporter != null) {
+			this.slowQueryReporter = slowQueryReporter;
+		}
+	}
+
+	public synchronized ExecutorService getAsyncExecutor() {
+		if (asyncExecutor == null) {
+			asyncExecutor = Executors.newFixedThreadPool(asyncExecutorThreads, new AsyncThreadFactory("mybatis-async-mapper-"));
+		}
+		return asyncExecutor;
+	}
+
+	public synchronized void setAsyncExecutor(ExecutorService asyncExecutor) {
+		this.asyncExecutor = asyncExecutor;
+	}
+
+	public int getAsyncExecutorThreads() {
+		return asyncExecutorThreads;
+	}
+
+	public void setAsyncExecutorThreads(int asyncExecutorThreads) {
+		this.asyncExecutorThreads = asyncExecutorThreads;
+	}
+
+	public synchronized ExecutorService getNestedQueryExecutor() {
+		if (nestedQueryExecutor == null) {
+			nestedQueryExecutor = Executors.newFixedThreadPool(asyncExecutorThreads, new AsyncThreadFactory("mybatis-nested-query-"));
+		}
+		return nestedQueryExecutor;
+	}
+
+	public synchronized void setNestedQueryExecutor(ExecutorService nestedQueryExecutor) {
+		this.nestedQueryExecutor = nestedQueryExecutor;
+	}
+
+	public boolean isParallelNestedQueries() {
+		return parallelNestedQueries;
+	}
+
+	public void setParallelNestedQueries(boolean parallelNestedQueries) {
+		this.parallelNestedQueries = parallelNestedQueries;
+	}
+
+	public boolean isCompileExpressions() {
+		return compileExpressions;
+	}
+
+	public void setCompileExpressions(boolean compileExpressions) {
+		this.compileExpressions = compileExpressions;
+	}
+
 	public String getDatabaseId() {
 		return databaseId;
 	}
@@ -336,6 +491,20 @@ public class Configuration {
 		this.proxyFactory = proxyFactory;
 	}
 
+	public InvokerFactory getInvokerFactory() {
+		return invokerFactory;
+	}
+
+	/**
+	 * 设置 {@link org.apache.ibatis.reflection.Reflector} 创建属性访问器的策略，只对本 Configuration 生效。
+	 */
+	public void setInvokerFactory(InvokerFactory invokerFactory) {
+		if (invokerFactory != null) {
+			this.invokerFactory = invokerFactory;
+			this.reflectorFactory = new DefaultReflectorFactory(invokerFactory);
+		}
+	}
+
 	public boolean isAggressiveLazyLoading() {
 		return aggressiveLazyLoading;
 	}
@@ -344,6 +513,14 @@ public class Configuration {
 		this.aggressiveLazyLoading = aggressiveLazyLoading;
 	}
 
+	public int getLazyLoadBatchSize() {
+		return lazyLoadBatchSize;
+	}
+
+	public void setLazyLoadBatchSize(int lazyLoadBatchSize) {
+		this.lazyLoadBatchSize = lazyLoadBatchSize;
+	}
+
 	public boolean isMultipleResultSetsEnabled() {
 		return multipleResultSetsEnabled;
 	}
@@ -376,6 +553,38 @@ public class Configuration {
 		this.defaultExecutorType = defaultExecutorType;
 	}
 
+	public int getBatchInsertRowsPerStatement() {
+		return batchInsertRowsPerStatement;
+	}
+
+	public void setBatchInsertRowsPerStatement(int batchInsertRowsPerStatement) {
+		this.batchInsertRowsPerStatement = batchInsertRowsPerStatement;
+	}
+
+	public boolean isBatchReordering() {
+		return batchReordering;
+	}
+
+	public void setBatchReordering(boolean batchReordering) {
+		this.batchReordering = batchReordering;
+	}
+
+	public int getBatchFlushRows() {
+		return batchFlushRows;
+	}
+
+	public void setBatchFlushRows(int batchFlushRows) {
+		this.batchFlushRows = batchFlushRows;
+	}
+
+	public int getBatchFlushBytes() {
+		return batchFlushBytes;
+	}
+
+	public void setBatchFlushBytes(int batchFlushBytes) {
+		this.batchFlushBytes = batchFlushBytes;
+	}
+
 	public boolean isCacheEnabled() {
 		return cacheEnabled;
 	}
@@ -455,6 +664,14 @@ public class Configuration {
 		this.objectWrapperFactory = objectWrapperFactory;
 	}
 
+	public ReflectorFactory getReflectorFactory() {
+		return reflectorFactory;
+	}
+
+	public RowMappingPlanCache getRowMappingPlanCache() {
+		return rowMappingPlanCache;
+	}
+
 	/**
 	 * @since 3.2.2
 	 */
@@ -478,7 +695,7 @@ public class Configuration {
 	}
 
 	public MetaObject newMetaObject(Object object) {
-		return MetaObject.forObject(object, objectFactory, objectWrapperFactory);
+		return MetaObject.forObject(object, objectFactory, objectWrapperFactory, reflectorFactory);
 	}
 
 	public ParameterHandler newParameterHandler(MappedStatement mappedStatement, Object parameterObject, BoundSql boundSql) {
@@ -898,4 +1115,19 @@ public class Configuration {
 		}
 	}
 
+	private static class AsyncThreadFactory implements ThreadFactory {
+		private final String namePrefix;
+		private final AtomicInteger threadNumber = new AtomicInteger();
+
+		AsyncThreadFactory(String namePrefix) {
+			this.namePrefix = namePrefix;
+		}
+
+		public Thread newThread(Runnable runnable) {
+			Thread thread = new Thread(runnable, namePrefix + threadNumber.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		}
+	}
+
 }
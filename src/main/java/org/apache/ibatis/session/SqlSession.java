@@ -21,6 +21,7 @@ import java.util.List;
 import java.util.Map;
 
 import org.apache.ibatis.binding.MapperRegistry;
+import org.apache.ibatis.cursor.Cursor;
 import org.apache.ibatis.executor.BatchResult;
 
 /**
@@ -158,6 +159,53 @@ public interface SqlSession extends Closeable {
 	<K, V> Map<K, V> selectMap(String statement, Object parameter,
 			String mapKey, RowBounds rowBounds);
 
+	/**
+	 * <p>
+	 * A Cursor offers the same results as a List, except it fetches data lazily
+	 * using an Iterator.
+	 * </p>
+	 * <p>
+	 * 游标与 List 提供相同的结果，区别在于它通过迭代器按需获取数据。
+	 * </p>
+	 * 
+	 * @param <T>
+	 *            the returned cursor element type.
+	 * @param statement
+	 *            Unique identifier matching the statement to use.
+	 * @return Cursor of mapped objects
+	 */
+	<T> Cursor<T> selectCursor(String statement);
+
+	/**
+	 * A Cursor offers the same results as a List, except it fetches data lazily
+	 * using an Iterator.
+	 * 
+	 * @param <T>
+	 *            the returned cursor element type.
+	 * @param statement
+	 *            Unique identifier matching the statement to use.
+	 * @param parameter
+	 *            A parameter object to pass to the statement.
+	 * @return Cursor of mapped objects
+	 */
+	<T> Cursor<T> selectCursor(String statement, Object parameter);
+
+	/**
+	 * A Cursor offers the same results as a List, except it fetches data lazily
+	 * using an Iterator.
+	 * 
+	 * @param <T>
+	 *            the returned cursor element type.
+	 * @param statement
+	 *            Unique identifier matching the statement to use.
+	 * @param parameter
+	 *            A parameter object to pass to the statement.
+	 * @param rowBounds
+	 *            Bounds to limit object retrieval
+	 * @return Cursor of mapped objects
+	 */
+	<T> Cursor<T> selectCursor(String statement, Object parameter, RowBounds rowBounds);
+
 	/**
 	 * <h3></h3>
 	 * 
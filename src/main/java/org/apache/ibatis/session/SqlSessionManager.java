@@ -25,6 +25,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Properties;
 
+import org.apache.ibatis.cursor.Cursor;
 import org.apache.ibatis.executor.BatchResult;
 import org.apache.ibatis.reflection.ExceptionUtil;
 
@@ -194,6 +195,18 @@ public class SqlSessionManager implements SqlSessionFactory, SqlSession {
 		return sqlSessionProxy.<E> selectList(statement, parameter, rowBounds);
 	}
 
+	public <T> Cursor<T> selectCursor(String statement) {
+		return sqlSessionProxy.<T> selectCursor(statement);
+	}
+
+	public <T> Cursor<T> selectCursor(String statement, Object parameter) {
+		return sqlSessionProxy.<T> selectCursor(statement, parameter);
+	}
+
+	public <T> Cursor<T> selectCursor(String statement, Object parameter, RowBounds rowBounds) {
+		return sqlSessionProxy.<T> selectCursor(statement, parameter, rowBounds);
+	}
+
 	public void select(String statement, ResultHandler handler) {
 		sqlSessionProxy.select(statement, handler);
 	}
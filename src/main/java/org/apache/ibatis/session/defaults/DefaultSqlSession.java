@@ -17,11 +17,14 @@ package org.apache.ibatis.session.defaults;
 
 import java.sql.Connection;
 import java.sql.SQLException;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
 import org.apache.ibatis.binding.BindingException;
+import org.apache.ibatis.cursor.Cursor;
+import org.apache.ibatis.cursor.defaults.DefaultCursor;
 import org.apache.ibatis.exceptions.ExceptionFactory;
 import org.apache.ibatis.exceptions.TooManyResultsException;
 import org.apache.ibatis.executor.BatchResult;
@@ -51,6 +54,7 @@ public class DefaultSqlSession implements SqlSession {
 
 	private boolean autoCommit;
 	private boolean dirty;
+	private List<Cursor<?>> cursorList;
 
 	public DefaultSqlSession(Configuration configuration, Executor executor, boolean autoCommit) {
 		this.configuration = configuration;
@@ -91,7 +95,7 @@ public class DefaultSqlSession implements SqlSession {
 	public <K, V> Map<K, V> selectMap(String statement, Object parameter, String mapKey, RowBounds rowBounds) {
 		final List<?> list = selectList(statement, parameter, rowBounds);
 		final DefaultMapResultHandler<K, V> mapResultHandler = new DefaultMapResultHandler<K, V>(mapKey, configuration.getObjectFactory(),
-				configuration.getObjectWrapperFactory());
+				configuration.getObjectWrapperFactory(), configuration.getReflectorFactory());
 		final DefaultResultContext context = new DefaultResultContext();
 		for (Object o : list) {
 			context.nextResultObject(o);
@@ -127,6 +131,27 @@ public class DefaultSqlSession implements SqlSession {
 		}
 	}
 
+	public <T> Cursor<T> selectCursor(String statement) {
+		return selectCursor(statement, null);
+	}
+
+	public <T> Cursor<T> selectCursor(String statement, Object parameter) {
+		return selectCursor(statement, parameter, RowBounds.DEFAULT);
+	}
+
+	public <T> Cursor<T> selectCursor(String statement, Object parameter, RowBounds rowBounds) {
+		try {
+			MappedStatement ms = configuration.getMappedStatement(statement);
+			Cursor<T> cursor = executor.queryCursor(ms, wrapCollection(parameter), rowBounds);
+			registerCursor(cursor);
+			return cursor;
+		} catch (Exception e) {
+			throw ExceptionFactory.wrapException("Error querying database.  Cause: " + e, e);
+		} finally {
+			ErrorContext.instance().reset();
+		}
+	}
+
 	public void select(String statement, Object parameter, ResultHandler handler) {
 		select(statement, parameter, RowBounds.DEFAULT, handler);
 	}
@@ -220,6 +245,7 @@ public class DefaultSqlSession implements SqlSession {
 
 	public void close() {
 		try {
+			closeCursors();
 			executor.close(isCommitOrRollbackRequired(false));
 			dirty = false;
 		} finally {
@@ -247,6 +273,34 @@ public class DefaultSqlSession implements SqlSession {
 		executor.clearLocalCache();
 	}
 
+	/**
+	 * <p>会话关闭时，关闭所有由本会话打开的游标。</p>
+	 */
+	private void closeCursors() {
+		if (cursorList != null && cursorList.size() != 0) {
+			// 关闭的游标会把自己从列表中移除，所以遍历副本
+			for (Cursor<?> cursor : new ArrayList<Cursor<?>>(cursorList)) {
+				cursor.close();
+			}
+			cursorList.clear();
+		}
+	}
+
+	private <T> void registerCursor(Cursor<T> cursor) {
+		if (cursorList == null) {
+			cursorList = new ArrayList<Cursor<?>>();
+		}
+		cursorList.add(cursor);
+		if (cursor instanceof DefaultCursor) {
+			// 游标关闭后不再由会话持有
+			((DefaultCursor<T>) cursor).setCloseListener(new DefaultCursor.CloseListener() {
+				public void cursorClosed(Cursor<?> closed) {
+					cursorList.remove(closed);
+				}
+			});
+		}
+	}
+
 	private boolean isCommitOrRollbackRequired(boolean force) {
 		return (!autoCommit && dirty) || force;
 	}
@@ -27,6 +27,8 @@ import java.util.EnumMap;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
 import org.apache.ibatis.io.ResolverUtil;
 
@@ -53,6 +55,14 @@ public final class TypeHandlerRegistry {
   private final Map<Type, Map<JdbcType, TypeHandler<?>>> TYPE_HANDLER_MAP = new HashMap<Type, Map<JdbcType, TypeHandler<?>>>();
   private final TypeHandler<Object> UNKNOWN_TYPE_HANDLER = new UnknownTypeHandler(this);
   private final Map<Class<?>, TypeHandler<?>> ALL_TYPE_HANDLERS_MAP = new HashMap<Class<?>, TypeHandler<?>>();
+  /*
+   * Resolved handlers (or NO_TYPE_HANDLER) per java type, indexed by JDBC type ordinal + 1 and 0 for
+   * no JDBC type. Cleared on every registration.
+   */
+  private final Map<Type, AtomicReferenceArray<Object>> RESOLVED_TYPE_HANDLER_MAP = new ConcurrentHashMap<Type, AtomicReferenceArray<Object>>();
+  private static final Object NO_TYPE_HANDLER = new Object();
+  private static final int JDBC_TYPE_COUNT = JdbcType.values().length;
+  private volatile int registrationCount;
 
   public TypeHandlerRegistry() {
     register(Boolean.class, new BooleanTypeHandler());
@@ -180,6 +190,27 @@ public final class TypeHandlerRegistry {
   }
 
   private <T> TypeHandler<T> getTypeHandler(Type type, JdbcType jdbcType) {
+    if (type == null) {
+      return resolveTypeHandler(null, jdbcType);
+    }
+    AtomicReferenceArray<Object> resolvedHandlers = RESOLVED_TYPE_HANDLER_MAP.get(type);
+    if (resolvedHandlers == null) {
+      resolvedHandlers = new AtomicReferenceArray<Object>(JDBC_TYPE_COUNT + 1);
+      RESOLVED_TYPE_HANDLER_MAP.put(type, resolvedHandlers);
+    }
+    int slot = jdbcType == null ? 0 : jdbcType.ordinal() + 1;
+    Object handler = resolvedHandlers.get(slot);
+    if (handler == null) {
+      handler = resolveTypeHandler(type, jdbcType);
+      resolvedHandlers.set(slot, handler == null ? NO_TYPE_HANDLER : handler);
+    }
+    @SuppressWarnings("unchecked")
+    // type drives generics here
+    TypeHandler<T> returned = handler == NO_TYPE_HANDLER ? null : (TypeHandler<T>) handler;
+    return returned;
+  }
+
+  private <T> TypeHandler<T> resolveTypeHandler(Type type, JdbcType jdbcType) {
     Map<JdbcType, TypeHandler<?>> jdbcHandlerMap = TYPE_HANDLER_MAP.get(type);
     TypeHandler<?> handler = null;
     if (jdbcHandlerMap != null) {
@@ -197,12 +228,21 @@ public final class TypeHandlerRegistry {
     return returned;
   }
 
+  /**
+   * Changes whenever a type handler is registered, so that callers keeping resolved handlers
+   * can tell when they have to resolve them again.
+   */
+  public int getRegistrationCount() {
+    return registrationCount;
+  }
+
   public TypeHandler<Object> getUnknownTypeHandler() {
     return UNKNOWN_TYPE_HANDLER;
   }
 
   public void register(JdbcType jdbcType, TypeHandler<?> handler) {
     JDBC_TYPE_HANDLER_MAP.put(jdbcType, handler);
+    registrationCount++;
   }
 
   //
@@ -279,6 +319,8 @@ public final class TypeHandlerRegistry {
       }
     }
     ALL_TYPE_HANDLERS_MAP.put(handler.getClass(), handler);
+    RESOLVED_TYPE_HANDLER_MAP.clear();
+    registrationCount++;
   }
 
   //
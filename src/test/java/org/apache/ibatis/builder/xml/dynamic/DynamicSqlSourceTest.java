@@ -16,6 +16,7 @@
 package org.apache.ibatis.builder.xml.dynamic;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 
 import java.io.IOException;
 import java.io.Reader;
@@ -29,6 +30,7 @@ import java.util.Map;
 import org.apache.ibatis.BaseDataTest;
 import org.apache.ibatis.io.Resources;
 import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.SqlSource;
 import org.apache.ibatis.scripting.xmltags.ChooseSqlNode;
 import org.apache.ibatis.scripting.xmltags.DynamicSqlSource;
 import org.apache.ibatis.scripting.xmltags.ForEachSqlNode;
@@ -38,6 +40,7 @@ import org.apache.ibatis.scripting.xmltags.SetSqlNode;
 import org.apache.ibatis.scripting.xmltags.SqlNode;
 import org.apache.ibatis.scripting.xmltags.TextSqlNode;
 import org.apache.ibatis.scripting.xmltags.WhereSqlNode;
+import org.apache.ibatis.scripting.xmltags.XMLLanguageDriver;
 import org.apache.ibatis.session.Configuration;
 import org.apache.ibatis.session.SqlSessionFactory;
 import org.apache.ibatis.session.SqlSessionFactoryBuilder;
@@ -312,9 +315,28 @@ public class DynamicSqlSourceTest extends BaseDataTest {
     BoundSql boundSql = source.getBoundSql(parameterObject);
     assertEquals(expected, boundSql.getSql());
     assertEquals(3, boundSql.getParameterMappings().size());
-    assertEquals("__frch_item_0", boundSql.getParameterMappings().get(0).getProperty());
-    assertEquals("__frch_item_1", boundSql.getParameterMappings().get(1).getProperty());
-    assertEquals("__frch_item_2", boundSql.getParameterMappings().get(2).getProperty());
+    assertEquals("__frch_item_0[0]", boundSql.getParameterMappings().get(0).getProperty());
+    assertEquals("__frch_item_0[1]", boundSql.getParameterMappings().get(1).getProperty());
+    assertEquals("__frch_item_0[2]", boundSql.getParameterMappings().get(2).getProperty());
+  }
+
+  @Test
+  public void shouldBindForEachItemsAsOneListReferencedByPosition() throws Exception {
+    final Map<String, Object> parameterObject = new HashMap<String, Object>();
+    parameterObject.put("outer", Arrays.asList(Arrays.asList("a", "b"), Arrays.asList("c")));
+    DynamicSqlSource source = createDynamicSqlSource(
+        new TextSqlNode("SELECT * FROM BLOG WHERE"),
+        new ForEachSqlNode(new Configuration(), mixedContents(
+            new ForEachSqlNode(new Configuration(), mixedContents(new TextSqlNode("#{ inner } = #{i}")), "list", "i", "inner", "(", ")", "AND")),
+            "outer", null, "list", null, null, "OR"));
+    BoundSql boundSql = source.getBoundSql(parameterObject);
+    assertEquals("SELECT * FROM BLOG WHERE  (  ? = ? AND ? = ? ) OR (  ? = ? )", boundSql.getSql());
+    assertEquals("__frch_inner_1[1]", boundSql.getParameterMappings().get(2).getProperty());
+    assertEquals("__frch_i_1[1]", boundSql.getParameterMappings().get(3).getProperty());
+    assertEquals("b", boundSql.getAdditionalParameter("__frch_inner_1[1]"));
+    assertEquals(1, boundSql.getAdditionalParameter("__frch_i_1[1]"));
+    assertEquals("c", boundSql.getAdditionalParameter(boundSql.getParameterMappings().get(4).getProperty()));
+    assertFalse(boundSql.hasAdditionalParameter("__frch_inner_3"));
   }
 
   @Test
@@ -334,9 +356,52 @@ public class DynamicSqlSourceTest extends BaseDataTest {
     BoundSql boundSql = source.getBoundSql(param);
     assertEquals(4, boundSql.getParameterMappings().size());
     assertEquals("uuu.u", boundSql.getParameterMappings().get(0).getProperty());
-    assertEquals("__frch_u_0.id", boundSql.getParameterMappings().get(1).getProperty());
-    assertEquals("__frch_u_0", boundSql.getParameterMappings().get(2).getProperty());
-    assertEquals("__frch_u_0", boundSql.getParameterMappings().get(3).getProperty());
+    assertEquals("__frch_u_0[0].id", boundSql.getParameterMappings().get(1).getProperty());
+    assertEquals("__frch_u_0[0]", boundSql.getParameterMappings().get(2).getProperty());
+    assertEquals("__frch_u_0[0]", boundSql.getParameterMappings().get(3).getProperty());
+  }
+
+  @Test
+  public void shouldReuseParsedTemplateForSameGeneratedSql() throws Exception {
+    final Map<String, Object> parameterObject = new HashMap<String, Object>();
+    parameterObject.put("list", Arrays.asList("one", "two"));
+    DynamicSqlSource source = createDynamicSqlSource(
+        new TextSqlNode("SELECT * FROM BLOG WHERE ID in"),
+        new ForEachSqlNode(new Configuration(), mixedContents(new TextSqlNode("#{item}")), "list", "index", "item", "(", ")", ","));
+    BoundSql first = source.getBoundSql(parameterObject);
+    BoundSql second = source.getBoundSql(parameterObject);
+    assertEquals(first.getSql(), second.getSql());
+    Assert.assertSame(first.getParameterMappings(), second.getParameterMappings());
+    assertEquals(String.class, second.getParameterMappings().get(0).getJavaType());
+  }
+
+  @Test
+  public void shouldReparseTemplateWhenBindingTypesChange() throws Exception {
+    final Map<String, Object> parameterObject = new HashMap<String, Object>();
+    parameterObject.put("list", Arrays.asList("one", "two"));
+    DynamicSqlSource source = createDynamicSqlSource(
+        new TextSqlNode("SELECT * FROM BLOG WHERE ID in"),
+        new ForEachSqlNode(new Configuration(), mixedContents(new TextSqlNode("#{item}")), "list", "index", "item", "(", ")", ","));
+    BoundSql first = source.getBoundSql(parameterObject);
+    parameterObject.put("list", Arrays.asList(1, 2));
+    BoundSql second = source.getBoundSql(parameterObject);
+    assertEquals(first.getSql(), second.getSql());
+    Assert.assertNotSame(first.getParameterMappings(), second.getParameterMappings());
+    assertEquals(Integer.class, second.getParameterMappings().get(0).getJavaType());
+  }
+
+  @Test
+  public void shouldMergeStaticTextsAndTrimOverridesIgnoringCase() throws Exception {
+    String script = "<script>SELECT *<!-- all columns --> FROM BLOG"
+        + "<trim prefix='WHERE' prefixOverrides='AND |OR ' suffixOverrides=','>"
+        + "  <if test='id != null'>and id = #{id}</if><!-- between --><![CDATA[ AND title <> 'x', ]]>"
+        + "</trim> ORDER BY id</script>";
+    SqlSource source = new XMLLanguageDriver().createSqlSource(new Configuration(), script, Object.class);
+    Map<String, Object> parameterObject = new HashMap<String, Object>();
+    parameterObject.put("id", 1);
+    assertEquals("SELECT * FROM BLOG WHERE  id = ? AND title <> 'x'  ORDER BY id", source.getBoundSql(parameterObject).getSql());
+    parameterObject.put("id", null);
+    assertEquals("SELECT * FROM BLOG WHERE  title <> 'x'  ORDER BY id", source.getBoundSql(parameterObject).getSql());
   }
 
   private DynamicSqlSource createDynamicSqlSource(SqlNode... contents) throws IOException, SQLException {
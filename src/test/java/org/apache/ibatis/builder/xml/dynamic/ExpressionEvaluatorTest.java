@@ -17,9 +17,13 @@ package org.apache.ibatis.builder.xml.dynamic;
 
 import domain.blog.Author;
 import domain.blog.Section;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.Map;
+import org.apache.ibatis.builder.BuilderException;
 import org.apache.ibatis.scripting.xmltags.ExpressionEvaluator;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
 import org.junit.Test;
 
 public class ExpressionEvaluatorTest {
@@ -74,5 +78,54 @@ public class ExpressionEvaluatorTest {
     }
   }
 
+  @Test
+  public void shouldCompileExpressionsWithSameResultsAsOgnl() {
+    ExpressionEvaluator compiled = new ExpressionEvaluator(true);
+    Map<String, Object> parameterObject = new HashMap<String, Object>();
+    parameterObject.put("author", new Author(3, "cbegin", null, "cbegin@apache.org", "N/A", Section.NEWS));
+    parameterObject.put("ids", Arrays.asList(1, 2, 3));
+    parameterObject.put("name", " jdoe ");
+    parameterObject.put("limit", 10L);
+    parameterObject.put("flag", Boolean.TRUE);
+    parameterObject.put("nothing", null);
+    String[] expressions = {
+        "author != null and author.username == 'cbegin'",
+        "author.username eq \"cbegin\" && author.id gt 2",
+        "author.password == null or author.id <= 1",
+        "!(ids.size() > 2) || name.trim().length() == 4",
+        "not flag",
+        "ids != null and ids.size() > 0 and limit >= 10",
+        "limit lt 3 or limit gte 11",
+        "name.trim() != ''",
+        "nothing",
+        "author.id",
+        "ids.size() neq 3",
+        "author.id > 1 and author.id < limit",
+        "author.favouriteSection == 'NEWS'",
+        "author.id == 3.0",
+        "name.substring(1)",
+        "ids[0] == 1",
+        "@java.lang.Math@max(1, 2) == 2",
+        "author.id + 1 == 4",
+        "name.charAt(1) == 'j'"
+    };
+    for (String expression : expressions) {
+      assertEquals(expression, evaluator.evaluate(expression, parameterObject), compiled.evaluate(expression, parameterObject));
+      assertEquals(expression, evaluator.evaluateBoolean(expression, parameterObject), compiled.evaluateBoolean(expression, parameterObject));
+    }
+  }
+
+  @Test
+  public void shouldReportOgnlErrorsForCompiledExpressions() {
+    ExpressionEvaluator compiled = new ExpressionEvaluator(true);
+    Map<String, Object> parameterObject = new HashMap<String, Object>();
+    parameterObject.put("author", null);
+    try {
+      compiled.evaluateBoolean("author.username != null", parameterObject);
+      fail();
+    } catch (BuilderException e) {
+      assertEquals(true, e.getMessage().contains("author.username != null"));
+    }
+  }
 
 }
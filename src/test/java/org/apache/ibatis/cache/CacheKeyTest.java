@@ -16,8 +16,14 @@
 package org.apache.ibatis.cache;
 
 import static org.junit.Assert.*;
+import org.apache.ibatis.io.Resources;
 import org.junit.Test;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
 import java.util.Date;
 
 public class CacheKeyTest {
@@ -80,4 +86,82 @@ public class CacheKeyTest {
     assertTrue(key1.equals(key2));
   }
 
+  @Test
+  public void shouldTestCacheKeysNotEqualWithDifferentBinaryArrays() throws Exception {
+    CacheKey key1 = new CacheKey(new Object[] { new byte[] { 1, 2 } });
+    CacheKey key2 = new CacheKey(new Object[] { new byte[] { 2, 1 } });
+    assertFalse(key1.equals(key2));
+  }
+
+  @Test
+  public void shouldNotChangeWhenUpdatedArrayIsModified() throws Exception {
+    int[] values = new int[] { 1, 2, 3 };
+    CacheKey key1 = new CacheKey(new Object[] { "select", values });
+    CacheKey key2 = new CacheKey(new Object[] { "select", new int[] { 1, 2, 3 } });
+    values[0] = 4;
+    assertEquals(key1, key2);
+    assertEquals(key1.hashCode(), key2.hashCode());
+    assertEquals(key1.toString(), key2.toString());
+  }
+
+  @Test
+  public void shouldGrowBeyondExpectedUpdates() throws Exception {
+    CacheKey key1 = new CacheKey(1);
+    CacheKey key2 = new CacheKey(50);
+    for (int i = 0; i < 50; i++) {
+      key1.update(i);
+      key2.update(i);
+    }
+    assertEquals(50, key1.getUpdateCount());
+    assertEquals(key1, key2);
+    assertEquals(key1.hashCode(), key2.hashCode());
+  }
+
+  @Test
+  public void shouldCloneIndependently() throws Exception {
+    CacheKey key1 = new CacheKey(new Object[] { "id", 1 });
+    CacheKey key2 = key1.clone();
+    assertEquals(key1, key2);
+    key2.update(new CacheKey(new Object[] { "parent", 2 }));
+    assertEquals(2, key1.getUpdateCount());
+    assertEquals(3, key2.getUpdateCount());
+    assertFalse(key1.equals(key2));
+    key2.update("more");
+    assertEquals(4, key2.getUpdateCount());
+  }
+
+  @Test
+  public void shouldAddPrimitiveArraysElementByElement() throws Exception {
+    CacheKey key1 = new CacheKey(new Object[] { "select", new int[] { 1, 2 } });
+    CacheKey key2 = new CacheKey(new Object[] { "select", 1, 2 });
+    assertEquals(3, key1.getUpdateCount());
+    assertEquals(key1, key2);
+    assertEquals(key1.hashCode(), key2.hashCode());
+  }
+
+  @Test
+  public void shouldSerializeAndDeserialize() throws Exception {
+    CacheKey key = new CacheKey(new Object[] { "select", 1, null, new byte[] { 1, 2 } });
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    ObjectOutputStream out = new ObjectOutputStream(bytes);
+    out.writeObject(key);
+    out.close();
+    CacheKey read = (CacheKey) new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray())).readObject();
+    assertEquals(key, read);
+    assertEquals(key.hashCode(), read.hashCode());
+    read.update("more");
+    assertEquals(6, read.getUpdateCount());
+  }
+
+  @Test
+  public void shouldReadKeysSerializedByThePreviousVersion() throws Exception {
+    InputStream in = Resources.getResourceAsStream("org/apache/ibatis/cache/PreviousCacheKey.ser");
+    try {
+      CacheKey read = (CacheKey) new ObjectInputStream(in).readObject();
+      assertEquals(new CacheKey(new Object[] { "ns.select", 0, Integer.MAX_VALUE, "select * from t where id = ?", new int[] { 1, 2 }, null }), read);
+    } finally {
+      in.close();
+    }
+  }
+
 }
@@ -0,0 +1,211 @@
+/*
+ *    Copyright 2009-2014 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cache;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.ibatis.cache.decorators.FifoCache;
+import org.apache.ibatis.cache.decorators.LoggingCache;
+import org.apache.ibatis.cache.decorators.LruCache;
+import org.apache.ibatis.cache.impl.PerpetualCache;
+import org.apache.ibatis.cache.impl.ConcurrentCache;
+import org.apache.ibatis.mapping.CacheBuilder;
+import org.junit.Test;
+
+public class ConcurrentCacheTest {
+
+  @Test
+  public void shouldKeepCacheBounded() {
+    ConcurrentCache cache = new ConcurrentCache("default");
+    cache.setSize(64);
+    for (int i = 0; i < 10000; i++) {
+      cache.putObject(i, i);
+    }
+    assertTrue(cache.getSize() <= 64);
+    assertEquals(9999, cache.getObject(9999));
+  }
+
+  @Test
+  public void shouldKeepRecentlyReadItems() {
+    ConcurrentCache cache = new ConcurrentCache("default");
+    cache.setSize(160);
+    cache.putObject(0, 0);
+    for (int i = 1; i < 10000; i++) {
+      assertEquals(0, cache.getObject(0));
+      cache.putObject(i, i);
+    }
+    assertEquals(0, cache.getObject(0));
+  }
+
+  @Test
+  public void shouldExpireItemsAfterTimeToLive() throws Exception {
+    ConcurrentCache cache = new ConcurrentCache("default");
+    cache.setTimeToLive(50);
+    cache.putObject(0, 0);
+    assertEquals(0, cache.getObject(0));
+    Thread.sleep(100);
+    assertNull(cache.getObject(0));
+    assertEquals(0, cache.getSize());
+  }
+
+  @Test
+  public void shouldStoreNullValues() {
+    Cache cache = new ConcurrentCache("default");
+    cache.putObject(0, null);
+    assertNull(cache.getObject(0));
+    assertEquals(1, cache.getSize());
+  }
+
+  @Test
+  public void shouldRemoveItemOnDemand() {
+    Cache cache = new ConcurrentCache("default");
+    cache.putObject(0, 0);
+    assertNotNull(cache.getObject(0));
+    assertEquals(0, cache.removeObject(0));
+    assertNull(cache.getObject(0));
+  }
+
+  @Test
+  public void shouldFlushAllItemsOnDemand() {
+    Cache cache = new ConcurrentCache("default");
+    for (int i = 0; i < 5; i++) {
+      cache.putObject(i, i);
+    }
+    assertNotNull(cache.getObject(0));
+    assertNotNull(cache.getObject(4));
+    cache.clear();
+    assertNull(cache.getObject(0));
+    assertNull(cache.getObject(4));
+    assertEquals(0, cache.getSize());
+  }
+
+  @Test
+  public void shouldBeBuiltWithoutSynchronizedDecorator() {
+    Cache cache = new CacheBuilder("default").implementation(ConcurrentCache.class).size(32).build();
+    assertTrue(cache instanceof LoggingCache);
+    for (int i = 0; i < 1000; i++) {
+      cache.putObject(i, i);
+    }
+    assertTrue(cache.getSize() <= 32);
+  }
+
+  @Test
+  public void shouldAcceptTheDefaultEviction() {
+    Cache cache = new CacheBuilder("default").implementation(ConcurrentCache.class).addDecorator(LruCache.class).build();
+    assertTrue(cache instanceof LoggingCache);
+  }
+
+  @Test(expected = CacheException.class)
+  public void shouldRejectOtherEvictions() {
+    new CacheBuilder("default").implementation(ConcurrentCache.class).addDecorator(FifoCache.class).build();
+  }
+
+  @Test(expected = CacheException.class)
+  public void shouldRejectSizesThatCannotBeHonored() {
+    new CacheBuilder("default").implementation(ConcurrentCache.class).size(0).build();
+  }
+
+  @Test
+  public void shouldCountEveryRequestOfConcurrentReaders() throws Exception {
+    Cache delegate = new PerpetualCache("default");
+    delegate.putObject("hit", "value");
+    final CountingLoggingCache cache = new CountingLoggingCache(delegate);
+    final CountDownLatch start = new CountDownLatch(1);
+    ExecutorService executor = Executors.newFixedThreadPool(8);
+    try {
+      List<Future<Object>> futures = new ArrayList<Future<Object>>();
+      for (int t = 0; t < 8; t++) {
+        futures.add(executor.submit(new Callable<Object>() {
+          public Object call() throws Exception {
+            start.await();
+            for (int i = 0; i < 100000; i++) {
+              cache.getObject(i % 2 == 0 ? "hit" : "miss");
+            }
+            return null;
+          }
+        }));
+      }
+      start.countDown();
+      for (Future<Object> future : futures) {
+        future.get(30, TimeUnit.SECONDS);
+      }
+      assertEquals(800000, cache.getRequests());
+      assertEquals(400000, cache.getHits());
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  private static class CountingLoggingCache extends LoggingCache {
+    CountingLoggingCache(Cache delegate) {
+      super(delegate);
+    }
+
+    int getRequests() {
+      return requests;
+    }
+
+    int getHits() {
+      return hits;
+    }
+  }
+
+  @Test
+  public void shouldSupportConcurrentReadsAndWrites() throws Exception {
+    final Cache cache = new ConcurrentCache("default");
+    ExecutorService executor = Executors.newFixedThreadPool(8);
+    try {
+      List<Future<Object>> futures = new ArrayList<Future<Object>>();
+      for (int t = 0; t < 8; t++) {
+        final int offset = t * 10000;
+        futures.add(executor.submit(new Callable<Object>() {
+          public Object call() throws Exception {
+            for (int i = 0; i < 10000; i++) {
+              cache.putObject(offset + i, offset + i);
+              Object value = cache.getObject(offset + i / 2);
+              if (value != null) {
+                assertEquals(offset + i / 2, value);
+              }
+              if (i % 100 == 0) {
+                cache.removeObject(offset + i);
+              }
+            }
+            return null;
+          }
+        }));
+      }
+      for (Future<Object> future : futures) {
+        future.get(30, TimeUnit.SECONDS);
+      }
+      assertTrue(cache.getSize() <= 1024);
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+}
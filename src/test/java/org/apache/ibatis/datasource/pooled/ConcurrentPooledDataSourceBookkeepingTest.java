@@ -0,0 +1,215 @@
+/*
+ *    Copyright 2009-2014 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.datasource.pooled;
+
+import static org.junit.Assert.*;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.Driver;
+import java.sql.DriverManager;
+import java.sql.DriverPropertyInfo;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.util.Collection;
+import java.util.Properties;
+import java.util.logging.Logger;
+
+import org.apache.ibatis.BaseDataTest;
+import org.apache.ibatis.io.Resources;
+import org.junit.Test;
+
+public class ConcurrentPooledDataSourceBookkeepingTest {
+
+  @Test
+  public void shouldNotGrowTheIdleQueueWhenTheSameConnectionIsReused() throws Exception {
+    ConcurrentPooledDataSource ds = createDataSource();
+    try {
+      for (int i = 0; i < 1000; i++) {
+        ds.getConnection().close();
+      }
+      assertEquals(1, ds.getPoolState().getIdleConnectionCount());
+      assertEquals(1, idleQueueSize(ds));
+    } finally {
+      ds.forceCloseAll();
+    }
+  }
+
+  @Test(timeout = 10000)
+  public void shouldFreeTheSlotWhenRollbackFailsOnReturn() throws Exception {
+    ConcurrentPooledDataSource ds = createDataSource();
+    try {
+      Connection c = ds.getConnection();
+      c.setAutoCommit(false);
+      PooledDataSource.unwrapConnection(c).close();
+      try {
+        c.close();
+        fail();
+      } catch (SQLException e) {
+        // expected
+      }
+      assertEquals(0, ds.getPoolState().getActiveConnectionCount());
+      ds.getConnection().close();
+    } finally {
+      ds.forceCloseAll();
+    }
+  }
+
+  @Test(timeout = 10000)
+  public void shouldFreeTheSlotWhenRollbackFailsOnCheckout() throws Exception {
+    ConcurrentPooledDataSource ds = createDataSource();
+    try {
+      Connection c = ds.getConnection();
+      Connection real = PooledDataSource.unwrapConnection(c);
+      c.close();
+      real.close();
+      try {
+        ds.getConnection();
+        fail();
+      } catch (SQLException e) {
+        // expected
+      }
+      assertEquals(0, ds.getPoolState().getIdleConnectionCount());
+      Connection other = ds.getConnection();
+      assertNotSame(real, PooledDataSource.unwrapConnection(other));
+      other.close();
+    } finally {
+      ds.forceCloseAll();
+    }
+  }
+
+  @Test(timeout = 10000)
+  public void shouldFreeTheSlotWhenClosingAnExcessConnectionFails() throws Exception {
+    ConcurrentPooledDataSource ds = createDataSource();
+    try {
+      useFailingClose(ds);
+      ds.setPoolMaximumIdleConnections(0);
+      for (int i = 0; i < 3; i++) {
+        ds.getConnection().close();
+      }
+      assertEquals(0, ds.getPoolState().getActiveConnectionCount());
+    } finally {
+      ds.forceCloseAll();
+    }
+  }
+
+  @Test(timeout = 10000)
+  public void shouldFreeTheSlotWhenClosingAnExpiredConnectionFails() throws Exception {
+    ConcurrentPooledDataSource ds = createDataSource();
+    try {
+      useFailingClose(ds);
+      // the setter would reset the pool
+      ds.poolMaximumLifetime = 60000;
+      for (int i = 0; i < 3; i++) {
+        Connection c = ds.getConnection();
+        ((PooledConnection) Proxy.getInvocationHandler(c)).setCreatedTimestamp(System.currentTimeMillis() - 120000);
+        c.close();
+      }
+      assertEquals(0, ds.getPoolState().getIdleConnectionCount());
+    } finally {
+      ds.forceCloseAll();
+    }
+  }
+
+  private static void useFailingClose(ConcurrentPooledDataSource ds) {
+    ds.setDriver(FailingCloseDriver.class.getName());
+    ds.setUrl(FailingCloseDriver.PREFIX + ds.getUrl());
+  }
+
+  private static int idleQueueSize(ConcurrentPooledDataSource ds) throws Exception {
+    Field field = ConcurrentPooledDataSource.class.getDeclaredField("idleConnections");
+    field.setAccessible(true);
+    return ((Collection<?>) field.get(ds)).size();
+  }
+
+  /*
+   * One connection at most, and connections closed behind the pool's back still pass as valid.
+   */
+  private static ConcurrentPooledDataSource createDataSource() throws Exception {
+    Properties props = Resources.getResourceAsProperties(BaseDataTest.JPETSTORE_PROPERTIES);
+    ConcurrentPooledDataSource ds = new ConcurrentPooledDataSource() {
+      @Override
+      protected boolean pingConnection(PooledConnection conn) {
+        return true;
+      }
+    };
+    ds.setDriver(props.getProperty("driver"));
+    ds.setUrl(props.getProperty("url"));
+    ds.setUsername(props.getProperty("username"));
+    ds.setPassword(props.getProperty("password"));
+    ds.setPoolMaximumActiveConnections(1);
+    ds.setPoolTimeToWait(100);
+    return ds;
+  }
+
+  /*
+   * Opens connections of the wrapped URL whose close() throws once the connection is closed.
+   */
+  public static class FailingCloseDriver implements Driver {
+
+    static final String PREFIX = "jdbc:failing-close:";
+
+    public Connection connect(String url, Properties info) throws SQLException {
+      if (!acceptsURL(url)) {
+        return null;
+      }
+      final Connection connection = DriverManager.getConnection(url.substring(PREFIX.length()), info);
+      return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[] { Connection.class }, new InvocationHandler() {
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+          Object result;
+          try {
+            result = method.invoke(connection, args);
+          } catch (InvocationTargetException e) {
+            throw e.getCause();
+          }
+          if ("close".equals(method.getName())) {
+            throw new SQLException("close failed");
+          }
+          return result;
+        }
+      });
+    }
+
+    public boolean acceptsURL(String url) {
+      return url.startsWith(PREFIX);
+    }
+
+    public DriverPropertyInfo[] getPropertyInfo(String url, Properties info) {
+      return new DriverPropertyInfo[0];
+    }
+
+    public int getMajorVersion() {
+      return 1;
+    }
+
+    public int getMinorVersion() {
+      return 0;
+    }
+
+    public boolean jdbcCompliant() {
+      return false;
+    }
+
+    public Logger getParentLogger() throws SQLFeatureNotSupportedException {
+      throw new SQLFeatureNotSupportedException();
+    }
+  }
+
+}
@@ -0,0 +1,140 @@
+/*
+ *    Copyright 2009-2014 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.datasource.pooled;
+
+import static org.junit.Assert.*;
+
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.util.Properties;
+
+import org.apache.ibatis.BaseDataTest;
+import org.apache.ibatis.io.Resources;
+import org.junit.Test;
+
+/*
+ * Runs the housekeeping directly and moves connection timestamps back instead of waiting.
+ */
+public class PoolHousekeepingTest {
+
+  @Test
+  public void shouldValidateIdleConnectionsAheadOfCheckout() throws Exception {
+    PooledDataSource ds = setUp(new PooledDataSource());
+    try {
+      ds.setPoolPingEnabled(true);
+      ds.setPoolPingQuery("SELECT 1 FROM INFORMATION_SCHEMA.SYSTEM_USERS");
+      ds.setPoolPingConnectionsNotUsedFor(60000);
+      Connection c = ds.getConnection();
+      pooledConnection(c).setLastUsedTimestamp(System.currentTimeMillis() - 120000);
+      c.close();
+      ds.housekeep();
+      assertEquals(1, ds.getPoolMetrics().getPingTimes().getCount());
+      ds.getConnection().close();
+      assertEquals(1, ds.getPoolMetrics().getPingTimes().getCount());
+      assertEquals(1, ds.getPoolState().getIdleConnectionCount());
+    } finally {
+      ds.forceCloseAll();
+    }
+  }
+
+  @Test
+  public void shouldOpenMinimumIdleConnections() throws Exception {
+    PooledDataSource ds = setUp(new PooledDataSource());
+    try {
+      ds.setPoolMinimumIdleConnections(2);
+      ds.housekeep();
+      assertEquals(2, ds.getPoolState().getIdleConnectionCount());
+      ds.housekeep();
+      assertEquals(2, ds.getPoolState().getIdleConnectionCount());
+    } finally {
+      ds.forceCloseAll();
+    }
+  }
+
+  @Test
+  public void shouldNotOpenIdleConnectionsBeyondTheMaximumActiveConnections() throws Exception {
+    PooledDataSource ds = setUp(new PooledDataSource());
+    try {
+      ds.setPoolMaximumActiveConnections(2);
+      ds.setPoolMinimumIdleConnections(2);
+      Connection c = ds.getConnection();
+      ds.housekeep();
+      assertEquals(1, ds.getPoolState().getIdleConnectionCount());
+      c.close();
+    } finally {
+      ds.forceCloseAll();
+    }
+  }
+
+  @Test
+  public void shouldCloseConnectionsPastTheirMaximumLifetimeOnReturn() throws Exception {
+    PooledDataSource ds = setUp(new PooledDataSource());
+    try {
+      ds.setPoolMaximumLifetime(60000);
+      Connection c = ds.getConnection();
+      Connection real = PooledDataSource.unwrapConnection(c);
+      pooledConnection(c).setCreatedTimestamp(System.currentTimeMillis() - 120000);
+      c.close();
+      assertEquals(0, ds.getPoolState().getIdleConnectionCount());
+      assertTrue(real.isClosed());
+    } finally {
+      ds.forceCloseAll();
+    }
+  }
+
+  @Test
+  public void shouldRetireAndReopenIdleConnections() throws Exception {
+    shouldRetireAndReopenIdleConnections(setUp(new PooledDataSource()));
+  }
+
+  @Test
+  public void shouldRetireAndReopenIdleConnectionsOfConcurrentPool() throws Exception {
+    shouldRetireAndReopenIdleConnections(setUp(new ConcurrentPooledDataSource()));
+  }
+
+  private void shouldRetireAndReopenIdleConnections(PooledDataSource ds) throws Exception {
+    try {
+      ds.setPoolMinimumIdleConnections(2);
+      ds.housekeep();
+      assertEquals(2, ds.getPoolState().getIdleConnectionCount());
+      Connection c = ds.getConnection();
+      Connection first = PooledDataSource.unwrapConnection(c);
+      pooledConnection(c).setCreatedTimestamp(System.currentTimeMillis() - 120000);
+      c.close();
+      // the setter would reset the pool
+      ds.poolMaximumLifetime = 60000;
+      ds.housekeep();
+      assertEquals(2, ds.getPoolState().getIdleConnectionCount());
+      assertTrue(first.isClosed());
+    } finally {
+      ds.forceCloseAll();
+    }
+  }
+
+  private static PooledConnection pooledConnection(Connection c) {
+    return (PooledConnection) Proxy.getInvocationHandler(c);
+  }
+
+  private static <T extends PooledDataSource> T setUp(T ds) throws Exception {
+    Properties props = Resources.getResourceAsProperties(BaseDataTest.JPETSTORE_PROPERTIES);
+    ds.setDriver(props.getProperty("driver"));
+    ds.setUrl(props.getProperty("url"));
+    ds.setUsername(props.getProperty("username"));
+    ds.setPassword(props.getProperty("password"));
+    return ds;
+  }
+
+}
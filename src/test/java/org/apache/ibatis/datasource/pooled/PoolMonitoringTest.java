@@ -0,0 +1,186 @@
+/*
+ *    Copyright 2009-2014 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.datasource.pooled;
+
+import static org.junit.Assert.*;
+
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.ibatis.BaseDataTest;
+import org.apache.ibatis.io.Resources;
+import org.junit.Test;
+
+/*
+ * Connection timestamps, leak detection and the adaptive idle limit read the pool's clock, which these tests move
+ * forward.
+ */
+public class PoolMonitoringTest {
+
+  private final AtomicLong clock = new AtomicLong(System.currentTimeMillis());
+
+  @Test
+  public void shouldReportConnectionsHeldPastTheLeakDetectionThreshold() throws Exception {
+    shouldReportConnectionsHeldPastTheLeakDetectionThreshold(pooledDataSource());
+  }
+
+  @Test
+  public void shouldReportConnectionsHeldPastTheLeakDetectionThresholdInConcurrentPool() throws Exception {
+    shouldReportConnectionsHeldPastTheLeakDetectionThreshold(concurrentPooledDataSource());
+  }
+
+  private void shouldReportConnectionsHeldPastTheLeakDetectionThreshold(PooledDataSource ds) throws Exception {
+    try {
+      ds.setPoolLeakDetectionThreshold(60000);
+      Connection leaked = ds.getConnection();
+      clock.addAndGet(120000);
+      ds.getConnection().close();
+      assertEquals(1, ds.getPoolMetrics().getLeakedConnectionCount());
+      clock.addAndGet(120000);
+      ds.getConnection().close();
+      assertEquals(1, ds.getPoolMetrics().getLeakedConnectionCount());
+      leaked.close();
+    } finally {
+      ds.forceCloseAll();
+    }
+  }
+
+  @Test
+  public void shouldDetectLeaksWhileWaitingForAConnection() throws Exception {
+    shouldDetectLeaksWhileWaitingForAConnection(pooledDataSource());
+  }
+
+  @Test
+  public void shouldDetectLeaksWhileWaitingForAConnectionInConcurrentPool() throws Exception {
+    shouldDetectLeaksWhileWaitingForAConnection(concurrentPooledDataSource());
+  }
+
+  private void shouldDetectLeaksWhileWaitingForAConnection(final PooledDataSource ds) throws Exception {
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    try {
+      ds.setPoolMaximumActiveConnections(1);
+      ds.setPoolMaximumCheckoutTime(600000);
+      ds.setPoolLeakDetectionThreshold(60000);
+      Connection leaked = ds.getConnection();
+      clock.addAndGet(120000);
+      Future<Object> waiting = executor.submit(new Callable<Object>() {
+        public Object call() throws Exception {
+          ds.getConnection().close();
+          return null;
+        }
+      });
+      for (int i = 0; i < 1000 && ds.getPoolMetrics().getLeakedConnectionCount() == 0; i++) {
+        Thread.sleep(10);
+      }
+      assertEquals(1, ds.getPoolMetrics().getLeakedConnectionCount());
+      leaked.close();
+      waiting.get(10, TimeUnit.SECONDS);
+    } finally {
+      executor.shutdownNow();
+      ds.forceCloseAll();
+    }
+  }
+
+  @Test
+  public void shouldDetectLeaksFromTheHousekeeper() throws Exception {
+    shouldDetectLeaksFromTheHousekeeper(pooledDataSource());
+  }
+
+  @Test
+  public void shouldDetectLeaksFromTheHousekeeperOfConcurrentPool() throws Exception {
+    shouldDetectLeaksFromTheHousekeeper(concurrentPooledDataSource());
+  }
+
+  private void shouldDetectLeaksFromTheHousekeeper(PooledDataSource ds) throws Exception {
+    try {
+      ds.setPoolLeakDetectionThreshold(60000);
+      Connection leaked = ds.getConnection();
+      clock.addAndGet(120000);
+      ds.housekeep();
+      assertEquals(1, ds.getPoolMetrics().getLeakedConnectionCount());
+      leaked.close();
+    } finally {
+      ds.forceCloseAll();
+    }
+  }
+
+  @Test
+  public void shouldShrinkIdleConnectionsWhenDemandDrops() throws Exception {
+    shouldShrinkIdleConnectionsWhenDemandDrops(pooledDataSource());
+  }
+
+  @Test
+  public void shouldShrinkIdleConnectionsOfConcurrentPoolWhenDemandDrops() throws Exception {
+    shouldShrinkIdleConnectionsWhenDemandDrops(concurrentPooledDataSource());
+  }
+
+  private void shouldShrinkIdleConnectionsWhenDemandDrops(PooledDataSource ds) throws Exception {
+    try {
+      ds.setPoolMaximumIdleConnections(1);
+      ds.setPoolAdaptiveIdleWindow(60000);
+      List<Connection> connections = new ArrayList<Connection>();
+      for (int i = 0; i < 4; i++) {
+        connections.add(ds.getConnection());
+      }
+      for (Connection c : connections) {
+        c.close();
+      }
+      assertEquals(4, ds.getPoolState().getIdleConnectionCount());
+      assertEquals(4, ds.getPoolMetrics().getCheckoutTimes().getCount());
+      clock.addAndGet(150000);
+      ds.getConnection().close();
+      assertEquals(1, ds.getPoolState().getIdleConnectionCount());
+    } finally {
+      ds.forceCloseAll();
+    }
+  }
+
+  private PooledDataSource pooledDataSource() throws Exception {
+    return setUp(new PooledDataSource() {
+      @Override
+      long currentTimeMillis() {
+        return clock.get();
+      }
+    });
+  }
+
+  private PooledDataSource concurrentPooledDataSource() throws Exception {
+    return setUp(new ConcurrentPooledDataSource() {
+      @Override
+      long currentTimeMillis() {
+        return clock.get();
+      }
+    });
+  }
+
+  private static PooledDataSource setUp(PooledDataSource ds) throws Exception {
+    Properties props = Resources.getResourceAsProperties(BaseDataTest.JPETSTORE_PROPERTIES);
+    ds.setDriver(props.getProperty("driver"));
+    ds.setUrl(props.getProperty("url"));
+    ds.setUsername(props.getProperty("username"));
+    ds.setPassword(props.getProperty("password"));
+    return ds;
+  }
+
+}
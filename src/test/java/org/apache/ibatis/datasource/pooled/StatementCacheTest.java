@@ -0,0 +1,88 @@
+/*
+ *    Copyright 2009-2014 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.datasource.pooled;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+
+import org.junit.Test;
+
+public class StatementCacheTest {
+
+  @Test
+  public void shouldTakeReleasedStatementsOnce() throws Exception {
+    StatementCache cache = new StatementCache(2);
+    PreparedStatement stmt = openStatement();
+    assertNull(cache.take("a"));
+    cache.release("a", stmt);
+    assertSame(stmt, cache.take("a"));
+    assertNull(cache.take("a"));
+    assertEquals(1, cache.getHits());
+    assertEquals(2, cache.getMisses());
+  }
+
+  @Test
+  public void shouldCloseLeastRecentlyReleasedStatements() throws Exception {
+    StatementCache cache = new StatementCache(2);
+    PreparedStatement a = openStatement();
+    PreparedStatement b = openStatement();
+    PreparedStatement c = openStatement();
+    cache.release("a", a);
+    cache.release("b", b);
+    cache.release("a", cache.take("a"));
+    cache.release("c", c);
+    assertEquals(2, cache.size());
+    verify(b).close();
+    verify(a, never()).close();
+    verify(c, never()).close();
+    assertSame(a, cache.take("a"));
+    assertSame(c, cache.take("c"));
+  }
+
+  @Test
+  public void shouldNotReturnStatementsOfClosedConnections() throws Exception {
+    StatementCache cache = new StatementCache(2);
+    PreparedStatement stmt = openStatement();
+    cache.release("a", stmt);
+    when(stmt.getConnection().isClosed()).thenReturn(true);
+    assertNull(cache.take("a"));
+    verify(stmt).close();
+  }
+
+  @Test
+  public void shouldCloseAllStatementsOnClear() throws Exception {
+    StatementCache cache = new StatementCache(2);
+    PreparedStatement a = openStatement();
+    PreparedStatement b = openStatement();
+    cache.release("a", a);
+    cache.release("b", b);
+    cache.clear();
+    assertEquals(0, cache.size());
+    verify(a).close();
+    verify(b).close();
+  }
+
+  private PreparedStatement openStatement() throws Exception {
+    Connection connection = mock(Connection.class);
+    PreparedStatement stmt = mock(PreparedStatement.class);
+    when(stmt.getConnection()).thenReturn(connection);
+    return stmt;
+  }
+
+}
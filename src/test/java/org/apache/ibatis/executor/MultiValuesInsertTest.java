@@ -0,0 +1,53 @@
+/*
+ *    Copyright 2009-2014 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.executor;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+public class MultiValuesInsertTest {
+
+  @Test
+  public void shouldSplitSingleRowInsert() {
+    String[] parts = MultiValuesInsert.splitValues("insert into users (id, name) values (?, ?)");
+    assertArrayEquals(new String[] { "insert into users (id, name) values ", "(?, ?)", "" }, parts);
+  }
+
+  @Test
+  public void shouldSplitInsertWithFunctionsAndLiterals() {
+    String[] parts = MultiValuesInsert.splitValues("INSERT INTO t (a, b, c) VALUES (lower(?), 'x) values (', ?)\n");
+    assertArrayEquals(new String[] { "INSERT INTO t (a, b, c) VALUES ", "(lower(?), 'x) values (', ?)", "\n" }, parts);
+  }
+
+  @Test
+  public void shouldNotSplitWithParametersOutsideOfValues() {
+    assertNull(MultiValuesInsert.splitValues("insert into t (a) values (?) on duplicate key update a = ?"));
+    assertNull(MultiValuesInsert.splitValues("insert into t (a) values (?) returning id"));
+  }
+
+  @Test
+  public void shouldNotSplitMultiRowInsert() {
+    assertNull(MultiValuesInsert.splitValues("insert into t (a) values (?), (?)"));
+  }
+
+  @Test
+  public void shouldNotSplitInsertSelect() {
+    assertNull(MultiValuesInsert.splitValues("insert into t (a) select a from u where b = ?"));
+    assertNull(MultiValuesInsert.splitValues("insert into t_values (a) select ?"));
+  }
+
+}
@@ -16,6 +16,12 @@
 package org.apache.ibatis.executor.resultset;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import java.sql.Connection;
@@ -39,12 +45,17 @@ import org.apache.ibatis.mapping.SqlCommandType;
 import org.apache.ibatis.session.Configuration;
 import org.apache.ibatis.session.ResultHandler;
 import org.apache.ibatis.session.RowBounds;
+import org.apache.ibatis.type.JdbcType;
+import org.apache.ibatis.type.ObjectTypeHandler;
+import org.apache.ibatis.type.TypeHandler;
 import org.apache.ibatis.type.TypeHandlerRegistry;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.Mock;
 import org.mockito.runners.MockitoJUnitRunner;
 
+import domain.blog.Author;
+
 @RunWith(MockitoJUnitRunner.class)
 public class DefaultResultSetHandlerTest {
 
@@ -91,7 +102,8 @@ public class DefaultResultSetHandlerTest {
     when(rs.getMetaData()).thenReturn(rsmd);
     when(rs.getType()).thenReturn(ResultSet.TYPE_FORWARD_ONLY);
     when(rs.next()).thenReturn(true).thenReturn(false);
-    when(rs.getInt("CoLuMn1")).thenReturn(100);
+    // read by the index of the column, its label is matched ignoring case
+    when(rs.getInt(1)).thenReturn(100);
     when(rs.wasNull()).thenReturn(false);
     when(rsmd.getColumnCount()).thenReturn(1);
     when(rsmd.getColumnLabel(1)).thenReturn("CoLuMn1");
@@ -106,4 +118,107 @@ public class DefaultResultSetHandlerTest {
     assertEquals(Integer.valueOf(100), ((HashMap) results.get(0)).get("cOlUmN1"));
   }
 
+  @Test
+  public void shouldShareRowMappingPlanBetweenResultSetsOfSameShape() throws Exception {
+    final Configuration config = new Configuration();
+    final ResultMap resultMap = new ResultMap.Builder(config, "testMap", HashMap.class, new ArrayList<ResultMapping>()).build();
+    final MappedStatement ms = new MappedStatement.Builder(config, "testSelect", new StaticSqlSource(config, "some select statement"), SqlCommandType.SELECT).resultMaps(
+        new ArrayList<ResultMap>() {
+          {
+            add(resultMap);
+          }
+        }).build();
+
+    when(stmt.getResultSet()).thenReturn(rs);
+    when(rs.getMetaData()).thenReturn(rsmd);
+    when(rs.getType()).thenReturn(ResultSet.TYPE_FORWARD_ONLY);
+    when(rs.next()).thenReturn(true).thenReturn(false).thenReturn(true).thenReturn(false);
+    when(rs.getInt(1)).thenReturn(100);
+    when(rs.wasNull()).thenReturn(false);
+    when(rsmd.getColumnCount()).thenReturn(1);
+    when(rsmd.getColumnLabel(1)).thenReturn("column1");
+    when(rsmd.getColumnType(1)).thenReturn(Types.INTEGER);
+    when(rsmd.getColumnClassName(1)).thenReturn(Integer.class.getCanonicalName());
+    when(stmt.getConnection()).thenReturn(conn);
+    when(conn.getMetaData()).thenReturn(dbmd);
+    when(dbmd.supportsMultipleResultSets()).thenReturn(false); // for simplicity.
+
+    final ResultSetWrapper first = new ResultSetWrapper(rs, config);
+    final ResultSetWrapper second = new ResultSetWrapper(rs, config);
+    final RowMappingPlan plan = first.getRowMappingPlan(resultMap, null);
+    assertSame(plan, second.getRowMappingPlan(resultMap, null));
+    assertNotSame(plan, second.getRowMappingPlan(resultMap, "prefix_"));
+
+    final RowBounds rowBounds = new RowBounds(0, 100);
+    for (int i = 0; i < 2; i++) {
+      final List<Object> results = new DefaultResultSetHandler(null, ms, null, null, null, rowBounds).handleResultSets(stmt);
+      assertEquals(1, results.size());
+      assertEquals(Integer.valueOf(100), ((HashMap) results.get(0)).get("column1"));
+    }
+    assertSame(plan, new ResultSetWrapper(rs, config).getRowMappingPlan(resultMap, null));
+    assertNotSame(plan, new ResultSetWrapper(rs, new Configuration()).getRowMappingPlan(resultMap, null));
+  }
+
+  @Test
+  public void shouldReadExplicitMappingsByColumnIndex() throws Exception {
+    final Configuration config = new Configuration();
+    final TypeHandlerRegistry registry = config.getTypeHandlerRegistry();
+    final List<ResultMapping> resultMappings = new ArrayList<ResultMapping>();
+    resultMappings.add(new ResultMapping.Builder(config, "username", "name", registry.getTypeHandler(String.class)).build());
+    resultMappings.add(new ResultMapping.Builder(config, "id", "ID", registry.getTypeHandler(Integer.class)).build());
+    final ResultMap resultMap = new ResultMap.Builder(config, "authorMap", Author.class, resultMappings).build();
+    final MappedStatement ms = new MappedStatement.Builder(config, "testSelect", new StaticSqlSource(config, "some select statement"), SqlCommandType.SELECT).resultMaps(
+        new ArrayList<ResultMap>() {
+          {
+            add(resultMap);
+          }
+        }).build();
+
+    when(stmt.getResultSet()).thenReturn(rs);
+    when(rs.getMetaData()).thenReturn(rsmd);
+    when(rs.getType()).thenReturn(ResultSet.TYPE_FORWARD_ONLY);
+    when(rs.next()).thenReturn(true).thenReturn(true).thenReturn(false);
+    when(rs.getInt(1)).thenReturn(101).thenReturn(102);
+    when(rs.getString(2)).thenReturn("jim").thenReturn("sally");
+    when(rs.wasNull()).thenReturn(false);
+    when(rsmd.getColumnCount()).thenReturn(2);
+    when(rsmd.getColumnLabel(1)).thenReturn("id");
+    when(rsmd.getColumnType(1)).thenReturn(Types.INTEGER);
+    when(rsmd.getColumnClassName(1)).thenReturn(Integer.class.getCanonicalName());
+    when(rsmd.getColumnLabel(2)).thenReturn("NAME");
+    when(rsmd.getColumnType(2)).thenReturn(Types.VARCHAR);
+    when(rsmd.getColumnClassName(2)).thenReturn(String.class.getCanonicalName());
+    when(stmt.getConnection()).thenReturn(conn);
+    when(conn.getMetaData()).thenReturn(dbmd);
+    when(dbmd.supportsMultipleResultSets()).thenReturn(false); // for simplicity.
+
+    final List<Object> results = new DefaultResultSetHandler(null, ms, null, null, null, new RowBounds(0, 100)).handleResultSets(stmt);
+    assertEquals(2, results.size());
+    assertEquals(101, ((Author) results.get(0)).getId());
+    assertEquals("jim", ((Author) results.get(0)).getUsername());
+    assertEquals(102, ((Author) results.get(1)).getId());
+    assertEquals("sally", ((Author) results.get(1)).getUsername());
+    verify(rs, never()).getInt(anyString());
+    verify(rs, never()).getString(anyString());
+  }
+
+  @Test
+  public void shouldBindResolvedColumnTypeHandlersToTheStatement() throws Exception {
+    final Configuration config = new Configuration();
+    final MappedStatement ms = new MappedStatement.Builder(config, "testSelect", new StaticSqlSource(config, "some select statement"), SqlCommandType.SELECT).build();
+    when(rs.getMetaData()).thenReturn(rsmd);
+    when(rsmd.getColumnCount()).thenReturn(1);
+    when(rsmd.getColumnLabel(1)).thenReturn("column1");
+    when(rsmd.getColumnType(1)).thenReturn(-12345);
+    when(rsmd.getColumnClassName(1)).thenReturn("no.such.ColumnClass");
+
+    final TypeHandler<?> handler = new ResultSetWrapper(rs, config, ms).getTypeHandler(Object.class, "column1");
+    assertTrue(handler instanceof ObjectTypeHandler);
+    assertSame(handler, new ResultSetWrapper(rs, config, ms).getTypeHandler(Object.class, "column1"));
+    assertNotSame(handler, new ResultSetWrapper(rs, config).getTypeHandler(Object.class, "column1"));
+
+    config.getTypeHandlerRegistry().register(JdbcType.OTHER, new ObjectTypeHandler());
+    assertNotSame(handler, new ResultSetWrapper(rs, config, ms).getTypeHandler(Object.class, "column1"));
+  }
+
 }
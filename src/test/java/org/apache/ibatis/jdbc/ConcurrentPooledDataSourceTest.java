@@ -0,0 +1,174 @@
+/*
+ *    Copyright 2009-2014 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.jdbc;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.ibatis.BaseDataTest;
+import org.apache.ibatis.datasource.pooled.ConcurrentPooledDataSource;
+import org.apache.ibatis.datasource.pooled.PooledDataSource;
+import org.apache.ibatis.io.Resources;
+import org.junit.Test;
+
+public class ConcurrentPooledDataSourceTest extends BaseDataTest {
+
+  @Test
+  public void shouldProperlyMaintainPoolOf3ActiveAnd2IdleConnections() throws Exception {
+    ConcurrentPooledDataSource ds = createDataSource();
+    try {
+      runScript(ds, JPETSTORE_DDL);
+      ds.setDefaultAutoCommit(false);
+      ds.setDriverProperties(new Properties() {
+        {
+          setProperty("username", "sa");
+          setProperty("password", "");
+        }
+      });
+      ds.setPoolMaximumActiveConnections(3);
+      ds.setPoolMaximumIdleConnections(2);
+      ds.setPoolMaximumCheckoutTime(10000);
+      ds.setPoolPingConnectionsNotUsedFor(1);
+      ds.setPoolPingEnabled(true);
+      ds.setPoolPingQuery("SELECT * FROM PRODUCT");
+      ds.setPoolTimeToWait(10000);
+      ds.setLogWriter(null);
+      List<Connection> connections = new ArrayList<Connection>();
+      for (int i = 0; i < 3; i++) {
+        connections.add(ds.getConnection());
+      }
+      assertEquals(3, ds.getPoolState().getActiveConnectionCount());
+      for (Connection c : connections) {
+        c.close();
+      }
+      assertEquals(0, ds.getPoolState().getActiveConnectionCount());
+      assertEquals(2, ds.getPoolState().getIdleConnectionCount());
+      assertEquals(4, ds.getPoolState().getRequestCount());
+      assertEquals(0, ds.getPoolState().getBadConnectionCount());
+      assertEquals(0, ds.getPoolState().getHadToWaitCount());
+      assertEquals(0, ds.getPoolState().getAverageOverdueCheckoutTime());
+      assertEquals(0, ds.getPoolState().getClaimedOverdueConnectionCount());
+      assertEquals(0, ds.getPoolState().getAverageWaitTime());
+      assertNotNull(ds.getPoolState().toString());
+    } finally {
+      ds.forceCloseAll();
+    }
+  }
+
+  @Test
+  public void shouldReuseTheConnectionLastReturnedByTheSameThread() throws Exception {
+    ConcurrentPooledDataSource ds = createDataSource();
+    try {
+      Connection first = ds.getConnection();
+      Connection second = ds.getConnection();
+      Connection realSecond = PooledDataSource.unwrapConnection(second);
+      first.close();
+      second.close();
+      Connection c = ds.getConnection();
+      assertSame(realSecond, PooledDataSource.unwrapConnection(c));
+      c.close();
+    } finally {
+      ds.forceCloseAll();
+    }
+  }
+
+  @Test
+  public void shouldHandOffReturnedConnectionToWaitingThread() throws Exception {
+    final ConcurrentPooledDataSource ds = createDataSource();
+    ds.setPoolMaximumActiveConnections(1);
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    try {
+      Connection c = ds.getConnection();
+      Connection real = PooledDataSource.unwrapConnection(c);
+      Future<Connection> waiting = executor.submit(new Callable<Connection>() {
+        public Connection call() throws Exception {
+          Connection c = ds.getConnection();
+          Connection real = PooledDataSource.unwrapConnection(c);
+          c.close();
+          return real;
+        }
+      });
+      while (ds.getPoolState().getHadToWaitCount() == 0) {
+        Thread.sleep(10);
+      }
+      c.close();
+      assertSame(real, waiting.get(10, TimeUnit.SECONDS));
+      assertEquals(1, ds.getPoolState().getIdleConnectionCount());
+    } finally {
+      executor.shutdownNow();
+      ds.forceCloseAll();
+    }
+  }
+
+  @Test
+  public void shouldServeManyThreadsWithFewConnections() throws Exception {
+    final ConcurrentPooledDataSource ds = createDataSource();
+    ds.setPoolMaximumActiveConnections(4);
+    ds.setPoolMaximumIdleConnections(4);
+    final int threads = 16;
+    final int iterations = 50;
+    ExecutorService executor = Executors.newFixedThreadPool(threads);
+    try {
+      List<Future<Object>> futures = new ArrayList<Future<Object>>();
+      for (int i = 0; i < threads; i++) {
+        futures.add(executor.submit(new Callable<Object>() {
+          public Object call() throws Exception {
+            for (int j = 0; j < iterations; j++) {
+              Connection c = ds.getConnection();
+              assertTrue(ds.getPoolState().getActiveConnectionCount() <= 4);
+              c.createStatement().close();
+              c.close();
+            }
+            return null;
+          }
+        }));
+      }
+      for (Future<Object> future : futures) {
+        future.get(30, TimeUnit.SECONDS);
+      }
+      assertEquals(0, ds.getPoolState().getActiveConnectionCount());
+      assertTrue(ds.getPoolState().getIdleConnectionCount() <= 4);
+      assertEquals(threads * iterations, ds.getPoolState().getRequestCount());
+      assertEquals(0, ds.getPoolState().getBadConnectionCount());
+    } finally {
+      executor.shutdownNow();
+      ds.forceCloseAll();
+    }
+  }
+
+  private static ConcurrentPooledDataSource createDataSource() throws Exception {
+    Properties props = Resources.getResourceAsProperties(JPETSTORE_PROPERTIES);
+    ConcurrentPooledDataSource ds = new ConcurrentPooledDataSource();
+    ds.setDriver(props.getProperty("driver"));
+    ds.setUrl(props.getProperty("url"));
+    ds.setUsername(props.getProperty("username"));
+    ds.setPassword(props.getProperty("password"));
+    return ds;
+  }
+
+}
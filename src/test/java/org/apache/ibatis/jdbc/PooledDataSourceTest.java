@@ -16,9 +16,11 @@
 package org.apache.ibatis.jdbc;
 
 import org.apache.ibatis.BaseDataTest;
+import org.apache.ibatis.datasource.pooled.PoolMetrics;
 import org.apache.ibatis.datasource.pooled.PooledDataSource;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
 
 import org.hsqldb.jdbc.JDBCConnection;
 import org.junit.Test;
@@ -85,4 +87,30 @@ public class PooledDataSourceTest extends BaseDataTest {
     Connection c = ds.getConnection();
     JDBCConnection realConnection = (JDBCConnection) PooledDataSource.unwrapConnection(c);
   }
+
+  @Test
+  public void shouldRecordPoolMetrics() throws Exception {
+    PooledDataSource ds = createPooledDataSource(JPETSTORE_PROPERTIES);
+    try {
+      ds.setPoolMaximumActiveConnections(4);
+      ds.setPoolPingEnabled(true);
+      ds.setPoolPingQuery("SELECT 1 FROM INFORMATION_SCHEMA.SYSTEM_USERS");
+      Connection first = ds.getConnection();
+      Connection second = ds.getConnection();
+      first.close();
+      second.close();
+      Thread.sleep(10);
+      ds.getConnection().close();
+      PoolMetrics metrics = ds.getPoolMetrics();
+      assertEquals(3, metrics.getRequestTimes().getCount());
+      assertEquals(3, metrics.getCheckoutTimes().getCount());
+      assertTrue(metrics.getPingTimes().getCount() > 0);
+      assertEquals(2, metrics.getPeakActiveConnections());
+      long[] utilization = metrics.getUtilization();
+      assertEquals(2, utilization[2]);
+      assertEquals(1, utilization[5]);
+    } finally {
+      ds.forceCloseAll();
+    }
+  }
 }
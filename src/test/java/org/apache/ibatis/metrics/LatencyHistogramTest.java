@@ -0,0 +1,48 @@
+/*
+ *    Copyright 2009-2014 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.metrics;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+public class LatencyHistogramTest {
+
+  @Test
+  public void shouldPutLatenciesInPowerOfTwoBuckets() {
+    assertEquals(0, LatencyHistogram.bucketOf(999));
+    assertEquals(1, LatencyHistogram.bucketOf(1000));
+    assertEquals(1, LatencyHistogram.bucketOf(1999));
+    assertEquals(2, LatencyHistogram.bucketOf(2000));
+    assertEquals(11, LatencyHistogram.bucketOf(1500000));
+    assertEquals(LatencyHistogram.BUCKETS - 1, LatencyHistogram.bucketOf(Long.MAX_VALUE));
+  }
+
+  @Test
+  public void shouldReportPercentilesAsBucketUpperBounds() {
+    LatencyHistogram histogram = new LatencyHistogram();
+    assertEquals(0, histogram.getPercentile(99));
+    for (int i = 0; i < 99; i++) {
+      histogram.record(500);
+    }
+    histogram.record(1500000);
+    assertEquals(100, histogram.getCount());
+    assertEquals(1000, histogram.getPercentile(50));
+    assertEquals(1000, histogram.getPercentile(99));
+    assertEquals(2048000, histogram.getPercentile(100));
+  }
+
+}
@@ -17,8 +17,11 @@ package org.apache.ibatis.plugin;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import org.junit.Test;
 
+import java.lang.reflect.Field;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Properties;
@@ -39,6 +42,55 @@ public class PluginTest {
     assertFalse("Always".equals(map.toString()));
   }
 
+  @Test
+  public void shouldReuseProxyClassForSameTargetType() {
+    Map first = (Map) new AlwaysMapPlugin().plugin(new HashMap());
+    Map second = (Map) new AlwaysMapPlugin().plugin(new HashMap());
+    assertSame(first.getClass(), second.getClass());
+    assertEquals("Always", second.get("Anything"));
+  }
+
+  @Test
+  public void shouldNotWrapTargetWithoutInterceptedInterfaces() {
+    Object target = new Object();
+    assertSame(target, new AlwaysMapPlugin().plugin(target));
+    assertSame(target, new AlwaysMapPlugin().plugin(target));
+  }
+
+  @Test(expected = PluginException.class)
+  public void shouldFailEveryTimeWithoutInterceptsAnnotation() {
+    try {
+      Plugin.wrap(new HashMap(), new NotAnnotatedPlugin());
+    } catch (PluginException e) {
+      // not cached, fails again
+    }
+    Plugin.wrap(new HashMap(), new NotAnnotatedPlugin());
+  }
+
+  @Test
+  public void shouldKeepMetadataInTheInterceptorChain() throws Exception {
+    InterceptorChain chain = new InterceptorChain();
+    chain.addInterceptor(new AlwaysMapPlugin());
+    Map map = (Map) chain.pluginAll(new HashMap());
+    assertEquals("Always", map.get("Anything"));
+    assertEquals(1, metadataCacheOf(chain).size());
+    assertEquals(0, metadataCacheOf(new InterceptorChain()).size());
+  }
+
+  @Test
+  public void shouldUnbindTheChainAfterPluginAll() {
+    InterceptorChain chain = new InterceptorChain();
+    chain.addInterceptor(new AlwaysMapPlugin());
+    chain.pluginAll(new HashMap());
+    assertNull(Plugin.bindMetadataCache(null));
+  }
+
+  private static Map<?, ?> metadataCacheOf(InterceptorChain chain) throws Exception {
+    Field field = InterceptorChain.class.getDeclaredField("metadataCache");
+    field.setAccessible(true);
+    return (Map<?, ?>) field.get(chain);
+  }
+
   @Intercepts({
       @Signature(type = Map.class, method = "get", args = {Object.class})})
   public static class AlwaysMapPlugin implements Interceptor {
@@ -54,4 +106,17 @@ public class PluginTest {
     }
   }
 
+  public static class NotAnnotatedPlugin implements Interceptor {
+    public Object intercept(Invocation invocation) throws Throwable {
+      return invocation.proceed();
+    }
+
+    public Object plugin(Object target) {
+      return Plugin.wrap(target, this);
+    }
+
+    public void setProperties(Properties properties) {
+    }
+  }
+
 }
@@ -0,0 +1,62 @@
+/*
+ *    Copyright 2009-2014 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.plugin.pagination;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.ibatis.session.RowBounds;
+import org.junit.Test;
+
+public class DialectTest {
+
+  private static final String SQL = "select * from users where name = ?";
+
+  @Test
+  public void shouldAppendLimitAndOffset() {
+    List<Object> parameters = new ArrayList<Object>();
+    assertEquals(SQL + " LIMIT ? OFFSET ?", new LimitOffsetDialect().getLimitSql(SQL, 20, 10, parameters));
+    assertEquals(Arrays.<Object>asList(10, 20), parameters);
+    parameters.clear();
+    assertEquals(SQL + " LIMIT ?", new LimitOffsetDialect().getLimitSql(SQL, 0, 10, parameters));
+    assertEquals(Arrays.<Object>asList(10), parameters);
+  }
+
+  @Test
+  public void shouldAppendOffsetFetch() {
+    List<Object> parameters = new ArrayList<Object>();
+    assertEquals(SQL + " OFFSET ? ROWS FETCH NEXT ? ROWS ONLY", new OffsetFetchDialect().getLimitSql(SQL, 20, 10, parameters));
+    assertEquals(Arrays.<Object>asList(20, 10), parameters);
+    parameters.clear();
+    assertEquals(SQL + " OFFSET ? ROWS", new OffsetFetchDialect().getLimitSql(SQL, 20, RowBounds.NO_ROW_LIMIT, parameters));
+    assertEquals(Arrays.<Object>asList(20), parameters);
+  }
+
+  @Test
+  public void shouldWrapWithRownum() {
+    List<Object> parameters = new ArrayList<Object>();
+    assertEquals("select * from (select page_.*, rownum rownum_ from (" + SQL + ") page_ where rownum <= ?) where rownum_ > ?",
+        new RownumDialect().getLimitSql(SQL, 20, 10, parameters));
+    assertEquals(Arrays.<Object>asList(30L, 20L), parameters);
+    parameters.clear();
+    assertEquals("select * from (" + SQL + ") where rownum <= ?", new RownumDialect().getLimitSql(SQL, 0, 10, parameters));
+    assertEquals(Arrays.<Object>asList(10L), parameters);
+  }
+
+}
@@ -19,6 +19,7 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
 import java.util.ArrayList;
@@ -27,6 +28,7 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
+import org.apache.ibatis.reflection.property.PropertyTokenizer;
 import org.junit.Test;
 
 import domain.blog.Author;
@@ -69,6 +71,29 @@ public class MetaObjectTest {
     assertEquals("foo", meta.getValue("richType.richProperty"));
   }
 
+  @Test
+  public void shouldGetAndSetDeepPropertiesThroughSubclassesAndNullValues() {
+    RichType rich = new RichType();
+    MetaObject meta = SystemMetaObject.forObject(rich);
+    meta.setValue("richType.richType.richProperty", "foo");
+    assertEquals("foo", meta.getValue("richType.richType.richProperty"));
+    assertEquals("foo", rich.getRichType().getRichType().getRichProperty());
+
+    rich.setRichType(new RichType() {
+      @Override
+      public String getRichProperty() {
+        return "sub";
+      }
+    });
+    assertNull(meta.getValue("richType.richType.richProperty"));
+    assertEquals("sub", meta.getValue("richType.richProperty"));
+    meta.setValue("richType.richType.richProperty", "bar");
+    assertEquals("bar", meta.getValue("richType.richType.richProperty"));
+    meta.setValue("richType.richMap.key", "value");
+    assertEquals("value", meta.getValue("richType.richMap.key"));
+    assertSame(PropertyTokenizer.forName("richType.richProperty"), PropertyTokenizer.forName("richType.richProperty"));
+  }
+
   @Test
   public void shouldGetAndSetMapPair() {
     RichType rich = new RichType();
@@ -0,0 +1,169 @@
+/*
+ *    Copyright 2009-2014 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.reflection.invoker;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.ibatis.reflection.DefaultReflectorFactory;
+import org.apache.ibatis.reflection.MetaClass;
+import org.apache.ibatis.reflection.MetaObject;
+import org.apache.ibatis.reflection.Reflector;
+import org.apache.ibatis.reflection.ReflectorFactory;
+import org.apache.ibatis.reflection.SystemMetaObject;
+import org.apache.ibatis.session.Configuration;
+import org.junit.Test;
+
+public class JavassistInvokerFactoryTest {
+
+  private final ReflectorFactory reflectorFactory = new DefaultReflectorFactory(new JavassistInvokerFactory());
+
+  @Test
+  public void shouldGenerateInvokersForPublicMembers() throws Exception {
+    Reflector reflector = reflectorFactory.findForClass(Bean.class);
+    assertNotSame(MethodInvoker.class, reflector.getGetInvoker("name").getClass());
+    assertNotSame(MethodInvoker.class, reflector.getSetInvoker("age").getClass());
+    assertNotSame(GetFieldInvoker.class, reflector.getGetInvoker("code").getClass());
+    assertNotSame(SetFieldInvoker.class, reflector.getSetInvoker("code").getClass());
+    assertSame(MethodInvoker.class, reflector.getGetInvoker("secret").getClass());
+    assertSame(GetFieldInvoker.class, reflector.getGetInvoker("hidden").getClass());
+  }
+
+  @Test
+  public void shouldReadAndWriteThroughGeneratedInvokers() {
+    Bean bean = new Bean();
+    MetaObject metaObject = MetaObject.forObject(bean, SystemMetaObject.DEFAULT_OBJECT_FACTORY, SystemMetaObject.DEFAULT_OBJECT_WRAPPER_FACTORY, reflectorFactory);
+    metaObject.setValue("name", "John");
+    metaObject.setValue("age", 42);
+    metaObject.setValue("amount", 10);
+    metaObject.setValue("active", Boolean.TRUE);
+    metaObject.setValue("code", "A1");
+    metaObject.setValue("tags", new String[] { "x", "y" });
+    metaObject.setValue("hidden", 7);
+    assertEquals("John", metaObject.getValue("name"));
+    assertEquals(42, metaObject.getValue("age"));
+    assertEquals(10L, metaObject.getValue("amount"));
+    assertEquals(Boolean.TRUE, metaObject.getValue("active"));
+    assertEquals("A1", metaObject.getValue("code"));
+    assertEquals(2, ((String[]) metaObject.getValue("tags")).length);
+    assertEquals(7, metaObject.getValue("hidden"));
+    assertEquals("secret", metaObject.getValue("secret"));
+  }
+
+  @Test
+  public void shouldKeepGenericTypeInformation() {
+    MetaClass metaClass = MetaClass.forClass(Bean.class, reflectorFactory);
+    assertEquals(String.class, metaClass.getGetterType("items[0]"));
+  }
+
+  @Test
+  public void shouldKeepReflectiveInvokersForNonPublicClasses() {
+    Reflector reflector = reflectorFactory.findForClass(PackageBean.class);
+    assertSame(MethodInvoker.class, reflector.getGetInvoker("value").getClass());
+  }
+
+  @Test
+  public void shouldKeepTheInvokerFactoryOfEachConfiguration() {
+    Configuration javassist = new Configuration();
+    javassist.setInvokerFactory(new JavassistInvokerFactory());
+    Configuration reflective = new Configuration();
+    Reflector generated = javassist.getReflectorFactory().findForClass(Bean.class);
+    assertNotSame(MethodInvoker.class, generated.getGetInvoker("name").getClass());
+    assertSame(MethodInvoker.class, reflective.getReflectorFactory().findForClass(Bean.class).getGetInvoker("name").getClass());
+    assertSame(MethodInvoker.class, Reflector.forClass(Bean.class).getGetInvoker("name").getClass());
+    new Configuration().setInvokerFactory(new JavassistInvokerFactory());
+    assertSame(generated, javassist.getReflectorFactory().findForClass(Bean.class));
+    Bean bean = new Bean();
+    javassist.newMetaObject(bean).setValue("name", "John");
+    assertEquals("John", reflective.newMetaObject(bean).getValue("name"));
+  }
+
+  public static class Bean {
+    public String code;
+    private int hidden;
+    private String name;
+    private int age;
+    private long amount;
+    private boolean active;
+    private String[] tags;
+    private List<String> items = new ArrayList<String>();
+
+    public String getName() {
+      return name;
+    }
+
+    public void setName(String name) {
+      this.name = name;
+    }
+
+    public int getAge() {
+      return age;
+    }
+
+    public void setAge(int age) {
+      this.age = age;
+    }
+
+    public long getAmount() {
+      return amount;
+    }
+
+    public void setAmount(long amount) {
+      this.amount = amount;
+    }
+
+    public boolean isActive() {
+      return active;
+    }
+
+    public void setActive(boolean active) {
+      this.active = active;
+    }
+
+    public String[] getTags() {
+      return tags;
+    }
+
+    public void setTags(String[] tags) {
+      this.tags = tags;
+    }
+
+    public List<String> getItems() {
+      return items;
+    }
+
+    public void setItems(List<String> items) {
+      this.items = items;
+    }
+
+    private String getSecret() {
+      return "secret";
+    }
+  }
+
+  static class PackageBean {
+    private String value;
+
+    public String getValue() {
+      return value;
+    }
+  }
+
+}
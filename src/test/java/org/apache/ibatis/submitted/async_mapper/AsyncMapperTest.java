@@ -0,0 +1,109 @@
+/*
+ *    Copyright 2009-2014 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.submitted.async_mapper;
+
+import static org.junit.Assert.*;
+
+import java.io.Reader;
+import java.sql.Connection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.jdbc.ScriptRunner;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.junit.Before;
+import org.junit.Test;
+
+public class AsyncMapperTest {
+
+  private SqlSessionFactory sqlSessionFactory;
+
+  @Before
+  public void setUp() throws Exception {
+    Reader reader = Resources.getResourceAsReader("org/apache/ibatis/submitted/async_mapper/mybatis-config.xml");
+    sqlSessionFactory = new SqlSessionFactoryBuilder().build(reader);
+    reader.close();
+
+    SqlSession session = sqlSessionFactory.openSession();
+    Connection conn = session.getConnection();
+    reader = Resources.getResourceAsReader("org/apache/ibatis/submitted/async_mapper/CreateDB.sql");
+    ScriptRunner runner = new ScriptRunner(conn);
+    runner.setLogWriter(null);
+    runner.runScript(reader);
+    reader.close();
+    session.close();
+  }
+
+  @Test
+  public void shouldRunIndependentQueriesInParallel() throws Exception {
+    SqlSession sqlSession = sqlSessionFactory.openSession();
+    try {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      Future<User> user = mapper.getUser(2);
+      Future<List<User>> users = mapper.getUsers();
+      Future<Map<Integer, User>> usersById = mapper.getUsersById();
+      Future<Integer> count = mapper.countUsers();
+      assertEquals("User2", user.get(10, TimeUnit.SECONDS).getName());
+      assertEquals(3, users.get(10, TimeUnit.SECONDS).size());
+      assertEquals("User3", usersById.get(10, TimeUnit.SECONDS).get(3).getName());
+      assertEquals(Integer.valueOf(3), count.get(10, TimeUnit.SECONDS));
+    } finally {
+      sqlSession.close();
+    }
+  }
+
+  @Test
+  public void shouldCommitUpdatesInTheirOwnSession() throws Exception {
+    SqlSession sqlSession = sqlSessionFactory.openSession();
+    try {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      assertEquals(Integer.valueOf(1), mapper.insertUser(4, "User4").get(10, TimeUnit.SECONDS));
+      assertNull(mapper.insertUserWithoutCount(5, "User5").get(10, TimeUnit.SECONDS));
+      // the calling session is rolled back on close, the asynchronous inserts have been committed already
+    } finally {
+      sqlSession.close();
+    }
+    sqlSession = sqlSessionFactory.openSession();
+    try {
+      assertEquals(5, sqlSession.getMapper(Mapper.class).countUsersNow());
+    } finally {
+      sqlSession.close();
+    }
+  }
+
+  @Test
+  public void shouldReportFailuresThroughTheFuture() throws Exception {
+    SqlSession sqlSession = sqlSessionFactory.openSession();
+    try {
+      Future<Integer> failed = sqlSession.getMapper(Mapper.class).insertUser(6, "a name that is too long for the column");
+      try {
+        failed.get(10, TimeUnit.SECONDS);
+        fail("Expected an ExecutionException");
+      } catch (ExecutionException e) {
+        assertNotNull(e.getCause());
+      }
+    } finally {
+      sqlSession.close();
+    }
+  }
+
+}
@@ -0,0 +1,51 @@
+/*
+ *    Copyright 2009-2014 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.submitted.async_mapper;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Future;
+
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.MapKey;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+
+public interface Mapper {
+
+  @Select("select * from users where id = #{id}")
+  Future<User> getUser(Integer id);
+
+  @Select("select * from users order by id")
+  Future<List<User>> getUsers();
+
+  @Select("select * from users")
+  @MapKey("id")
+  Future<Map<Integer, User>> getUsersById();
+
+  @Select("select count(*) from users")
+  Future<Integer> countUsers();
+
+  @Select("select count(*) from users")
+  int countUsersNow();
+
+  @Insert("insert into users (id, name) values (#{id}, #{name})")
+  Future<Integer> insertUser(@Param("id") Integer id, @Param("name") String name);
+
+  @Insert("insert into users (id, name) values (#{id}, #{name})")
+  Future<Void> insertUserWithoutCount(@Param("id") Integer id, @Param("name") String name);
+
+}
@@ -0,0 +1,158 @@
+/*
+ *    Copyright 2009-2014 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.submitted.batch_lazy_loading;
+
+import static org.junit.Assert.*;
+
+import java.io.Reader;
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.ibatis.cursor.Cursor;
+
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.jdbc.ScriptRunner;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class BatchLazyLoadingTest {
+
+  private static SqlSessionFactory sqlSessionFactory;
+
+  @BeforeClass
+  public static void setUp() throws Exception {
+    Reader reader = Resources.getResourceAsReader("org/apache/ibatis/submitted/batch_lazy_loading/mybatis-config.xml");
+    sqlSessionFactory = new SqlSessionFactoryBuilder().build(reader);
+    reader.close();
+
+    SqlSession session = sqlSessionFactory.openSession();
+    Connection conn = session.getConnection();
+    reader = Resources.getResourceAsReader("org/apache/ibatis/submitted/batch_lazy_loading/CreateDB.sql");
+    ScriptRunner runner = new ScriptRunner(conn);
+    runner.setLogWriter(null);
+    runner.runScript(reader);
+    reader.close();
+    session.close();
+  }
+
+  @Before
+  public void resetCounter() {
+    StatementCounter.reset();
+  }
+
+  @Test
+  public void shouldLoadAssociationsOfPurchasesInBatches() {
+    SqlSession sqlSession = sqlSessionFactory.openSession();
+    try {
+      List<Purchase> purchases = sqlSession.getMapper(Mapper.class).getPurchases();
+      assertEquals(0, StatementCounter.count("customer"));
+
+      assertEquals("customer1", purchases.get(0).getCustomer().getName());
+      // only the batch of the first two purchases
+      assertEquals(1, StatementCounter.count("customer"));
+
+      assertEquals("customer2", purchases.get(1).getCustomer().getName());
+      assertEquals(1, StatementCounter.count("customer"));
+      assertEquals("customer1", purchases.get(2).getCustomer().getName());
+      assertEquals("customer3", purchases.get(3).getCustomer().getName());
+      assertNull(purchases.get(4).getCustomer());
+      assertEquals(2, StatementCounter.count("customer"));
+      assertEquals(0, StatementCounter.count("purchase_item"));
+    } finally {
+      sqlSession.close();
+    }
+  }
+
+  @Test
+  public void shouldLoadCollectionsOfPurchasesInBatches() {
+    SqlSession sqlSession = sqlSessionFactory.openSession();
+    try {
+      List<Purchase> purchases = sqlSession.getMapper(Mapper.class).getPurchases();
+
+      assertEquals(2, purchases.get(0).getItems().size());
+      assertEquals(1, StatementCounter.count("purchase_item"));
+
+      assertEquals("apple", purchases.get(0).getItems().get(0).getProduct());
+      assertEquals("pear", purchases.get(0).getItems().get(1).getProduct());
+      assertEquals(1, purchases.get(1).getItems().size());
+      assertTrue(purchases.get(2).getItems().isEmpty());
+      assertEquals(3, purchases.get(3).getItems().size());
+      assertEquals("melon", purchases.get(3).getItems().get(2).getProduct());
+      assertTrue(purchases.get(4).getItems().isEmpty());
+      assertEquals(3, StatementCounter.count("purchase_item"));
+    } finally {
+      sqlSession.close();
+    }
+  }
+
+  @Test
+  public void shouldMatchKeysOfDifferentNumberTypes() {
+    SqlSession sqlSession = sqlSessionFactory.openSession();
+    try {
+      // the parent passes Long values, the batch returns Integer ids
+      List<Purchase> purchases = sqlSession.getMapper(Mapper.class).getPurchasesWithLongCustomerId();
+      assertEquals("customer1", purchases.get(0).getCustomer().getName());
+      assertEquals("customer2", purchases.get(1).getCustomer().getName());
+      assertEquals("customer3", purchases.get(3).getCustomer().getName());
+      assertEquals(2, StatementCounter.count("customer"));
+    } finally {
+      sqlSession.close();
+    }
+  }
+
+  @Test
+  public void shouldLoadBatchesAfterTheCursorIsClosed() {
+    SqlSession sqlSession = sqlSessionFactory.openSession();
+    try {
+      Cursor<Purchase> cursor = sqlSession.getMapper(Mapper.class).getPurchasesCursor();
+      List<Purchase> purchases = new ArrayList<Purchase>();
+      for (Purchase purchase : cursor) {
+        purchases.add(purchase);
+      }
+      assertFalse(cursor.isOpen());
+      assertEquals(5, purchases.size());
+
+      assertEquals("customer3", purchases.get(3).getCustomer().getName());
+      assertEquals("customer1", purchases.get(2).getCustomer().getName());
+      assertEquals(1, StatementCounter.count("customer"));
+      assertEquals("customer1", purchases.get(0).getCustomer().getName());
+      assertEquals("customer2", purchases.get(1).getCustomer().getName());
+      assertEquals(2, StatementCounter.count("customer"));
+    } finally {
+      sqlSession.close();
+    }
+  }
+
+  @Test
+  public void shouldLoadOneByOneWithoutBatchSelect() {
+    SqlSession sqlSession = sqlSessionFactory.openSession();
+    try {
+      List<Purchase> purchases = sqlSession.getMapper(Mapper.class).getPurchasesWithoutBatch();
+      for (Purchase purchase : purchases) {
+        purchase.getCustomer();
+      }
+      assertEquals(3, StatementCounter.count("customer"));
+    } finally {
+      sqlSession.close();
+    }
+  }
+
+}
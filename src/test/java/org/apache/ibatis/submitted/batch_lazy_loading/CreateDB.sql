@@ -0,0 +1,52 @@
+--
+--    Copyright 2009-2014 the original author or authors.
+--
+--    Licensed under the Apache License, Version 2.0 (the "License");
+--    you may not use this file except in compliance with the License.
+--    You may obtain a copy of the License at
+--
+--       http://www.apache.org/licenses/LICENSE-2.0
+--
+--    Unless required by applicable law or agreed to in writing, software
+--    distributed under the License is distributed on an "AS IS" BASIS,
+--    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+--    See the License for the specific language governing permissions and
+--    limitations under the License.
+--
+
+drop table purchase_item if exists;
+drop table purchase if exists;
+drop table customer if exists;
+
+create table customer (
+  id int,
+  name varchar(20)
+);
+
+create table purchase (
+  id int,
+  customer_id int
+);
+
+create table purchase_item (
+  id int,
+  purchase_id int,
+  product varchar(20)
+);
+
+insert into customer (id, name) values (1, 'customer1');
+insert into customer (id, name) values (2, 'customer2');
+insert into customer (id, name) values (3, 'customer3');
+
+insert into purchase (id, customer_id) values (1, 1);
+insert into purchase (id, customer_id) values (2, 2);
+insert into purchase (id, customer_id) values (3, 1);
+insert into purchase (id, customer_id) values (4, 3);
+insert into purchase (id, customer_id) values (5, null);
+
+insert into purchase_item (id, purchase_id, product) values (1, 1, 'apple');
+insert into purchase_item (id, purchase_id, product) values (2, 1, 'pear');
+insert into purchase_item (id, purchase_id, product) values (3, 2, 'plum');
+insert into purchase_item (id, purchase_id, product) values (4, 4, 'cherry');
+insert into purchase_item (id, purchase_id, product) values (5, 4, 'grape');
+insert into purchase_item (id, purchase_id, product) values (6, 4, 'melon');
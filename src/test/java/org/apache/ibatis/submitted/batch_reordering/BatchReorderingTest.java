@@ -0,0 +1,163 @@
+/*
+ *    Copyright 2009-2014 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.submitted.batch_reordering;
+
+import static org.junit.Assert.*;
+
+import java.io.Reader;
+import java.sql.Connection;
+import java.util.List;
+
+import org.apache.ibatis.executor.BatchResult;
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.jdbc.ScriptRunner;
+import org.apache.ibatis.session.ExecutorType;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.junit.Before;
+import org.junit.Test;
+
+public class BatchReorderingTest {
+
+  private SqlSessionFactory sqlSessionFactory;
+
+  @Before
+  public void setUp() throws Exception {
+    Reader reader = Resources.getResourceAsReader("org/apache/ibatis/submitted/batch_reordering/mybatis-config.xml");
+    sqlSessionFactory = new SqlSessionFactoryBuilder().build(reader);
+    reader.close();
+
+    SqlSession session = sqlSessionFactory.openSession();
+    Connection conn = session.getConnection();
+    reader = Resources.getResourceAsReader("org/apache/ibatis/submitted/batch_reordering/CreateDB.sql");
+    ScriptRunner runner = new ScriptRunner(conn);
+    runner.setLogWriter(null);
+    runner.runScript(reader);
+    reader.close();
+    session.close();
+  }
+
+  @Test
+  public void shouldGroupInterleavedInserts() {
+    SqlSession sqlSession = sqlSessionFactory.openSession(ExecutorType.BATCH);
+    try {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      for (int i = 1; i <= 3; i++) {
+        mapper.insertParent(i, "parent" + i);
+        mapper.insertChild(i, i, "child" + i);
+      }
+      List<BatchResult> results = sqlSession.flushStatements();
+      assertEquals(2, results.size());
+      assertTrue(results.get(0).getMappedStatement().getId().endsWith("insertParent"));
+      assertEquals(3, results.get(0).getBatchSize());
+      assertEquals(3, results.get(0).getUpdateCounts().length);
+      assertTrue(results.get(1).getMappedStatement().getId().endsWith("insertChild"));
+      assertEquals(3, results.get(1).getBatchSize());
+      sqlSession.commit();
+      assertEquals(3, mapper.countChildren());
+    } finally {
+      sqlSession.close();
+    }
+  }
+
+  @Test
+  public void shouldNotMoveInsertsBeforeUpdatesOrDeletes() {
+    SqlSession sqlSession = sqlSessionFactory.openSession(ExecutorType.BATCH);
+    try {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      mapper.insertParent(1, "a");
+      mapper.insertChild(1, 1, "a");
+      mapper.insertParent(2, "a");
+      mapper.insertChild(2, 2, "a");
+      mapper.updateParent(1, "b");
+      mapper.insertParent(3, "a");
+      mapper.insertChild(3, 3, "a");
+      mapper.deleteChildren(1);
+      mapper.insertParent(4, "a");
+      mapper.insertChild(4, 4, "a");
+      List<BatchResult> results = sqlSession.flushStatements();
+      assertEquals(8, results.size());
+      assertEquals(2, results.get(0).getBatchSize());
+      assertEquals(2, results.get(1).getBatchSize());
+      for (int i = 2; i < 8; i++) {
+        assertEquals(1, results.get(i).getBatchSize());
+      }
+      sqlSession.commit();
+      assertEquals("b", mapper.selectParentName(1));
+      assertEquals(3, mapper.countChildren());
+    } finally {
+      sqlSession.close();
+    }
+  }
+
+  @Test
+  public void shouldFlushWhenRowThresholdIsReached() {
+    sqlSessionFactory.getConfiguration().setBatchFlushRows(2);
+    SqlSession sqlSession = sqlSessionFactory.openSession(ExecutorType.BATCH);
+    try {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      for (int i = 1; i <= 5; i++) {
+        mapper.insertParent(i, "parent" + i);
+      }
+      List<BatchResult> results = sqlSession.flushStatements();
+      assertEquals(3, results.size());
+      assertEquals(2, results.get(0).getBatchSize());
+      assertEquals(2, results.get(1).getBatchSize());
+      assertEquals(1, results.get(2).getBatchSize());
+      assertTrue(sqlSession.flushStatements().isEmpty());
+      sqlSession.commit();
+      assertEquals("parent5", mapper.selectParentName(5));
+    } finally {
+      sqlSession.close();
+    }
+  }
+
+  @Test
+  public void shouldFlushWhenByteThresholdIsReached() {
+    sqlSessionFactory.getConfiguration().setBatchFlushBytes(1);
+    SqlSession sqlSession = sqlSessionFactory.openSession(ExecutorType.BATCH);
+    try {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      mapper.insertParent(1, "parent1");
+      mapper.insertParent(2, "parent2");
+      List<BatchResult> results = sqlSession.flushStatements();
+      assertEquals(2, results.size());
+      assertEquals(1, results.get(0).getBatchSize());
+      assertEquals(1, results.get(1).getBatchSize());
+    } finally {
+      sqlSession.close();
+    }
+  }
+
+  @Test
+  public void shouldRollbackAutoFlushedBatches() {
+    sqlSessionFactory.getConfiguration().setBatchFlushRows(2);
+    SqlSession sqlSession = sqlSessionFactory.openSession(ExecutorType.BATCH);
+    try {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      for (int i = 1; i <= 3; i++) {
+        mapper.insertParent(i, "parent" + i);
+      }
+      sqlSession.rollback(true);
+      assertTrue(sqlSession.flushStatements().isEmpty());
+      assertNull(mapper.selectParentName(1));
+    } finally {
+      sqlSession.close();
+    }
+  }
+
+}
@@ -0,0 +1,208 @@
+/*
+ *    Copyright 2009-2014 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.submitted.cursor;
+
+import java.io.Reader;
+import java.lang.reflect.Field;
+import java.sql.Connection;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import org.apache.ibatis.cursor.Cursor;
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.jdbc.ScriptRunner;
+import org.apache.ibatis.session.RowBounds;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class CursorTest {
+
+  private static SqlSessionFactory sqlSessionFactory;
+
+  @BeforeClass
+  public static void setUp() throws Exception {
+    // create a SqlSessionFactory
+    Reader reader = Resources.getResourceAsReader("org/apache/ibatis/submitted/cursor/mybatis-config.xml");
+    sqlSessionFactory = new SqlSessionFactoryBuilder().build(reader);
+    reader.close();
+
+    // populate in-memory database
+    SqlSession session = sqlSessionFactory.openSession();
+    Connection conn = session.getConnection();
+    reader = Resources.getResourceAsReader("org/apache/ibatis/submitted/cursor/CreateDB.sql");
+    ScriptRunner runner = new ScriptRunner(conn);
+    runner.setLogWriter(null);
+    runner.runScript(reader);
+    reader.close();
+    session.close();
+  }
+
+  @Test
+  public void shouldFlushNestedResultsWhenParentKeyChanges() {
+    SqlSession sqlSession = sqlSessionFactory.openSession();
+    try {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      Cursor<Person> persons = mapper.getPersons();
+      Assert.assertFalse(persons.isOpen());
+      Assert.assertEquals(-1, persons.getCurrentIndex());
+
+      Iterator<Person> iterator = persons.iterator();
+      Assert.assertTrue(iterator.hasNext());
+      Person person = iterator.next();
+      Assert.assertTrue(persons.isOpen());
+      Assert.assertEquals(0, persons.getCurrentIndex());
+      Assert.assertEquals("grandma", person.getName());
+      Assert.assertEquals(2, person.getItems().size());
+
+      person = iterator.next();
+      Assert.assertEquals("sister", person.getName());
+      Assert.assertEquals(2, person.getItems().size());
+
+      person = iterator.next();
+      Assert.assertEquals("brother", person.getName());
+      Assert.assertEquals(1, person.getItems().size());
+      Assert.assertEquals(2, persons.getCurrentIndex());
+
+      Assert.assertFalse(iterator.hasNext());
+      Assert.assertTrue(persons.isConsumed());
+      Assert.assertFalse(persons.isOpen());
+    } finally {
+      sqlSession.close();
+    }
+  }
+
+  @Test
+  public void shouldApplyRowBounds() {
+    SqlSession sqlSession = sqlSessionFactory.openSession();
+    try {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      Cursor<Item> items = mapper.getItems(new RowBounds(1, 2));
+      Assert.assertEquals(-1, items.getCurrentIndex());
+      Iterator<Item> iterator = items.iterator();
+      Assert.assertEquals(Integer.valueOf(2), iterator.next().getId());
+      Assert.assertEquals(1, items.getCurrentIndex());
+      Assert.assertEquals(Integer.valueOf(3), iterator.next().getId());
+      Assert.assertFalse(iterator.hasNext());
+      Assert.assertTrue(items.isConsumed());
+    } finally {
+      sqlSession.close();
+    }
+  }
+
+  @Test
+  public void shouldIterateFromSqlSession() {
+    SqlSession sqlSession = sqlSessionFactory.openSession();
+    try {
+      Cursor<Item> items = sqlSession.selectCursor("org.apache.ibatis.submitted.cursor.Mapper.getItems");
+      int count = 0;
+      for (Item item : items) {
+        Assert.assertNotNull(item.getName());
+        count++;
+      }
+      Assert.assertEquals(5, count);
+      Assert.assertTrue(items.isConsumed());
+    } finally {
+      sqlSession.close();
+    }
+  }
+
+  @Test
+  public void shouldStopIteratingOnceClosed() {
+    SqlSession sqlSession = sqlSessionFactory.openSession();
+    try {
+      Cursor<Item> items = sqlSession.getMapper(Mapper.class).getItems(RowBounds.DEFAULT);
+      Iterator<Item> iterator = items.iterator();
+      Assert.assertEquals(Integer.valueOf(1), iterator.next().getId());
+      items.close();
+      Assert.assertFalse(items.isOpen());
+      Assert.assertFalse(items.isConsumed());
+      Assert.assertFalse(iterator.hasNext());
+    } finally {
+      sqlSession.close();
+    }
+  }
+
+  @Test
+  public void shouldCloseCursorsWithSession() {
+    SqlSession sqlSession = sqlSessionFactory.openSession();
+    Cursor<Item> items;
+    try {
+      items = sqlSession.getMapper(Mapper.class).getItems(RowBounds.DEFAULT);
+      items.iterator().next();
+      Assert.assertTrue(items.isOpen());
+    } finally {
+      sqlSession.close();
+    }
+    Assert.assertFalse(items.isOpen());
+  }
+
+  @Test
+  public void shouldForgetClosedCursors() throws Exception {
+    SqlSession sqlSession = sqlSessionFactory.openSession();
+    try {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      Cursor<Item> closed = mapper.getItems(RowBounds.DEFAULT);
+      closed.close();
+      Cursor<Item> consumed = mapper.getItems(RowBounds.DEFAULT);
+      for (Item item : consumed) {
+        Assert.assertNotNull(item);
+      }
+      Cursor<Item> open = mapper.getItems(RowBounds.DEFAULT);
+      Collection<?> cursors = cursorsOf(sqlSession);
+      Assert.assertEquals(1, cursors.size());
+      Assert.assertSame(open, cursors.iterator().next());
+    } finally {
+      sqlSession.close();
+    }
+  }
+
+  private static Collection<?> cursorsOf(SqlSession sqlSession) throws Exception {
+    Field field = sqlSession.getClass().getDeclaredField("cursorList");
+    field.setAccessible(true);
+    return (Collection<?>) field.get(sqlSession);
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void shouldNotOpenTwoIterators() {
+    SqlSession sqlSession = sqlSessionFactory.openSession();
+    try {
+      Cursor<Item> items = sqlSession.getMapper(Mapper.class).getItems(RowBounds.DEFAULT);
+      items.iterator();
+      items.iterator();
+    } finally {
+      sqlSession.close();
+    }
+  }
+
+  @Test(expected = NoSuchElementException.class)
+  public void shouldThrowWhenIteratingPastTheEnd() {
+    SqlSession sqlSession = sqlSessionFactory.openSession();
+    try {
+      Cursor<Item> items = sqlSession.getMapper(Mapper.class).getItems(new RowBounds(4, 10));
+      Iterator<Item> iterator = items.iterator();
+      Assert.assertEquals(Integer.valueOf(5), iterator.next().getId());
+      iterator.next();
+    } finally {
+      sqlSession.close();
+    }
+  }
+
+}
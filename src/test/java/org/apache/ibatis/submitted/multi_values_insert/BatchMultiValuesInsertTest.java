@@ -0,0 +1,160 @@
+/*
+ *    Copyright 2009-2014 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.submitted.multi_values_insert;
+
+import static org.junit.Assert.*;
+
+import java.io.Reader;
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.ibatis.executor.BatchResult;
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.jdbc.ScriptRunner;
+import org.apache.ibatis.plugin.PreparedSqlCollector;
+import org.apache.ibatis.session.ExecutorType;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.junit.Before;
+import org.junit.Test;
+
+public class BatchMultiValuesInsertTest {
+
+  private SqlSessionFactory sqlSessionFactory;
+
+  @Before
+  public void setUp() throws Exception {
+    Reader reader = Resources.getResourceAsReader("org/apache/ibatis/submitted/multi_values_insert/Config.xml");
+    sqlSessionFactory = new SqlSessionFactoryBuilder().build(reader);
+    reader.close();
+
+    SqlSession session = sqlSessionFactory.openSession();
+    Connection conn = session.getConnection();
+    reader = Resources.getResourceAsReader("org/apache/ibatis/submitted/multi_values_insert/CreateDB.sql");
+    ScriptRunner runner = new ScriptRunner(conn);
+    runner.setLogWriter(null);
+    runner.runScript(reader);
+    reader.close();
+    session.close();
+    PreparedSqlCollector.sqls.clear();
+  }
+
+  @Test
+  public void shouldInsertSeveralRowsPerStatementAndSetGeneratedKeys() {
+    List<User> users = new ArrayList<User>();
+    SqlSession sqlSession = sqlSessionFactory.openSession(ExecutorType.BATCH);
+    try {
+      for (int i = 0; i < 7; i++) {
+        User user = new User("user" + i);
+        users.add(user);
+        sqlSession.insert("insert", user);
+      }
+      List<BatchResult> results = sqlSession.flushStatements();
+      assertEquals(1, results.size());
+      assertEquals(7, results.get(0).getParameterObjects().size());
+      assertArrayEquals(new int[] { 1, 1, 1, 1, 1, 1, 1 }, results.get(0).getUpdateCounts());
+      sqlSession.commit();
+    } finally {
+      sqlSession.close();
+    }
+
+    // two full statements share one prepared statement, the last row has its own
+    assertEquals(2, PreparedSqlCollector.sqls.size());
+    assertEquals("insert into users (name) values (?), (?), (?)", PreparedSqlCollector.sqls.get(0));
+    assertEquals("insert into users (name) values (?)", PreparedSqlCollector.sqls.get(1));
+
+    sqlSession = sqlSessionFactory.openSession();
+    try {
+      List<User> inserted = sqlSession.selectList("select");
+      assertEquals(7, inserted.size());
+      for (int i = 0; i < 7; i++) {
+        assertEquals("user" + i, inserted.get(i).getName());
+        assertEquals(inserted.get(i).getId(), users.get(i).getId());
+      }
+    } finally {
+      sqlSession.close();
+    }
+  }
+
+  @Test
+  public void shouldKeepStatementsInOrder() {
+    SqlSession sqlSession = sqlSessionFactory.openSession(ExecutorType.BATCH);
+    try {
+      sqlSession.insert("insertWithoutKeys", new User("a"));
+      sqlSession.insert("insertWithoutKeys", new User("b"));
+      sqlSession.update("insert", new User("c"));
+      sqlSession.insert("insertWithoutKeys", new User("d"));
+      List<BatchResult> results = sqlSession.flushStatements();
+      assertEquals(3, results.size());
+      assertEquals(2, results.get(0).getUpdateCounts().length);
+      sqlSession.commit();
+
+      List<User> inserted = sqlSession.selectList("select");
+      assertEquals(4, inserted.size());
+      assertEquals("a", inserted.get(0).getName());
+      assertEquals("b", inserted.get(1).getName());
+      assertEquals("c", inserted.get(2).getName());
+      assertEquals("d", inserted.get(3).getName());
+    } finally {
+      sqlSession.close();
+    }
+  }
+
+  @Test
+  public void shouldNotRewriteInsertsWithSelectKey() {
+    SqlSession sqlSession = sqlSessionFactory.openSession(ExecutorType.BATCH);
+    try {
+      User user1 = new User("a");
+      User user2 = new User("b");
+      sqlSession.insert("insertWithSelectKey", user1);
+      sqlSession.insert("insertWithSelectKey", user2);
+      sqlSession.flushStatements();
+      assertEquals(Integer.valueOf(50), user1.getId());
+      assertEquals(Integer.valueOf(50), user2.getId());
+      assertTrue(PreparedSqlCollector.sqls.contains("insert into users (name) values (?)"));
+      for (String sql : PreparedSqlCollector.sqls) {
+        assertFalse(sql.contains("(?), (?)"));
+      }
+    } finally {
+      sqlSession.close();
+    }
+  }
+
+  @Test
+  public void shouldBindEachRowWhenItIsAdded() {
+    SqlSession sqlSession = sqlSessionFactory.openSession(ExecutorType.BATCH);
+    try {
+      User user = new User();
+      for (int i = 1; i <= 5; i++) {
+        user.setName("n" + i);
+        sqlSession.insert("insertWithoutKeys", user);
+      }
+      sqlSession.flushStatements();
+      sqlSession.commit();
+
+      List<User> inserted = sqlSession.selectList("select");
+      assertEquals(5, inserted.size());
+      for (int i = 1; i <= 5; i++) {
+        assertEquals("n" + i, inserted.get(i - 1).getName());
+      }
+    } finally {
+      sqlSession.close();
+    }
+  }
+
+}
@@ -0,0 +1,33 @@
+--
+--    Copyright 2009-2014 the original author or authors.
+--
+--    Licensed under the Apache License, Version 2.0 (the "License");
+--    you may not use this file except in compliance with the License.
+--    You may obtain a copy of the License at
+--
+--       http://www.apache.org/licenses/LICENSE-2.0
+--
+--    Unless required by applicable law or agreed to in writing, software
+--    distributed under the License is distributed on an "AS IS" BASIS,
+--    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+--    See the License for the specific language governing permissions and
+--    limitations under the License.
+--
+
+drop table users if exists;
+
+create table users (
+id int,
+name varchar(20)
+);
+
+insert into users (id, name) values(1, 'b');
+insert into users (id, name) values(2, 'a');
+insert into users (id, name) values(3, 'b');
+insert into users (id, name) values(4, 'a');
+insert into users (id, name) values(5, 'b');
+insert into users (id, name) values(6, 'a');
+insert into users (id, name) values(7, 'b');
+insert into users (id, name) values(8, 'a');
+insert into users (id, name) values(9, 'b');
+insert into users (id, name) values(10, 'a');
@@ -0,0 +1,140 @@
+/*
+ *    Copyright 2009-2014 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.submitted.pagination;
+
+import static org.junit.Assert.*;
+
+import java.io.Reader;
+import java.sql.Connection;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.jdbc.ScriptRunner;
+import org.apache.ibatis.plugin.PreparedSqlCollector;
+import org.apache.ibatis.plugin.pagination.KeysetBounds;
+import org.apache.ibatis.plugin.pagination.Page;
+import org.apache.ibatis.plugin.pagination.PageBounds;
+import org.apache.ibatis.session.RowBounds;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class PaginationTest {
+
+  private static SqlSessionFactory sqlSessionFactory;
+
+  private SqlSession sqlSession;
+  private Mapper mapper;
+
+  @BeforeClass
+  public static void setUp() throws Exception {
+    Reader reader = Resources.getResourceAsReader("org/apache/ibatis/submitted/pagination/mybatis-config.xml");
+    sqlSessionFactory = new SqlSessionFactoryBuilder().build(reader);
+    reader.close();
+
+    SqlSession session = sqlSessionFactory.openSession();
+    Connection conn = session.getConnection();
+    reader = Resources.getResourceAsReader("org/apache/ibatis/submitted/pagination/CreateDB.sql");
+    ScriptRunner runner = new ScriptRunner(conn);
+    runner.setLogWriter(null);
+    runner.runScript(reader);
+    reader.close();
+    session.close();
+  }
+
+  @Before
+  public void openSession() {
+    PreparedSqlCollector.sqls.clear();
+    sqlSession = sqlSessionFactory.openSession();
+    mapper = sqlSession.getMapper(Mapper.class);
+  }
+
+  @After
+  public void closeSession() {
+    sqlSession.close();
+  }
+
+  @Test
+  public void shouldLimitRowsOnTheDatabase() {
+    List<User> users = mapper.selectAll(new RowBounds(3, 2));
+    assertEquals(Arrays.asList(4, 5), ids(users));
+    assertEquals(-1, ((Page<User>) users).getTotal());
+    assertEquals(Arrays.asList("select id, name from users order by id LIMIT ? OFFSET ?"), PreparedSqlCollector.sqls);
+  }
+
+  @Test
+  public void shouldNotRewriteQueriesWithoutRowBounds() {
+    assertEquals(10, mapper.selectAll(RowBounds.DEFAULT).size());
+    assertEquals(Arrays.asList("select id, name from users order by id"), PreparedSqlCollector.sqls);
+  }
+
+  @Test
+  public void shouldCountRows() {
+    Page<User> page = (Page<User>) mapper.selectByName("a", new PageBounds(0, 2, true));
+    assertEquals(Arrays.asList(2, 4), ids(page));
+    assertEquals(5, page.getTotal());
+    assertEquals(0, page.getOffset());
+    assertEquals(2, page.getLimit());
+    assertEquals("select count(*) from (select id, name from users where name = ?) count_", PreparedSqlCollector.sqls.get(0));
+  }
+
+  @Test
+  public void shouldNotQueryPagesAfterTheLastRow() {
+    Page<User> page = (Page<User>) mapper.selectAll(new PageBounds(10, 5, true));
+    assertTrue(page.isEmpty());
+    assertEquals(10, page.getTotal());
+    assertEquals(1, PreparedSqlCollector.sqls.size());
+  }
+
+  @Test
+  public void shouldBindForeachParameters() {
+    Page<User> page = (Page<User>) mapper.selectByIds(Arrays.asList(2, 3, 5, 7, 9), new PageBounds(1, 3, true));
+    assertEquals(Arrays.asList(3, 5, 7), ids(page));
+    assertEquals(5, page.getTotal());
+  }
+
+  @Test
+  public void shouldSeekPastTheLastKey() {
+    List<User> users = mapper.selectUnordered(new KeysetBounds(4, "id"));
+    assertEquals(Arrays.asList(1, 2, 3, 4), ids(users));
+    users = mapper.selectUnordered(new KeysetBounds(4, new String[] { "id" }, new Object[] { 4 }));
+    assertEquals(Arrays.asList(5, 6, 7, 8), ids(users));
+    assertEquals("select * from (select id, name from users) keyset_ where (id > ?) order by id LIMIT ?", PreparedSqlCollector.sqls.get(1));
+    users = mapper.selectUnordered(new KeysetBounds(4, false, new String[] { "id" }, new Object[] { 8 }, true));
+    assertEquals(Arrays.asList(7, 6, 5, 4), ids(users));
+  }
+
+  @Test
+  public void shouldSeekPastTheLastCompositeKey() {
+    List<User> users = mapper.selectUnordered(new KeysetBounds(3, new String[] { "name", "id" }, new Object[] { "a", 8 }));
+    assertEquals(Arrays.asList(10, 1, 3), ids(users));
+    assertEquals(Arrays.asList("a", "b", "b"), Arrays.asList(users.get(0).getName(), users.get(1).getName(), users.get(2).getName()));
+  }
+
+  private static List<Integer> ids(List<User> users) {
+    Integer[] ids = new Integer[users.size()];
+    for (int i = 0; i < ids.length; i++) {
+      ids[i] = users.get(i).getId();
+    }
+    return Arrays.asList(ids);
+  }
+
+}
@@ -0,0 +1,113 @@
+/*
+ *    Copyright 2009-2014 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.submitted.parallel_nested_queries;
+
+import static org.junit.Assert.*;
+
+import java.io.Reader;
+import java.sql.Connection;
+import java.util.List;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.jdbc.ScriptRunner;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ParallelNestedQueriesTest {
+
+  private SqlSessionFactory sqlSessionFactory;
+
+  @Before
+  public void setUp() throws Exception {
+    Reader reader = Resources.getResourceAsReader("org/apache/ibatis/submitted/parallel_nested_queries/mybatis-config.xml");
+    sqlSessionFactory = new SqlSessionFactoryBuilder().build(reader);
+    reader.close();
+
+    SqlSession session = sqlSessionFactory.openSession();
+    Connection conn = session.getConnection();
+    reader = Resources.getResourceAsReader("org/apache/ibatis/submitted/parallel_nested_queries/CreateDB.sql");
+    ScriptRunner runner = new ScriptRunner(conn);
+    runner.setLogWriter(null);
+    runner.runScript(reader);
+    reader.close();
+    session.close();
+    QueryThreadRecorder.threads.clear();
+  }
+
+  @Test
+  public void shouldLoadIndependentNestedQueriesConcurrently() {
+    SqlSession sqlSession = sqlSessionFactory.openSession();
+    try {
+      List<Blog> blogs = sqlSession.getMapper(Mapper.class).getBlogs();
+      assertEquals(2, blogs.size());
+      assertEquals("Author1", blogs.get(0).getAuthor().getName());
+      assertEquals("Author2", blogs.get(0).getEditor().getName());
+      assertEquals(2, blogs.get(0).getPosts().size());
+      assertEquals("Post2", blogs.get(0).getPosts().get(1).getSubject());
+      assertEquals("Author2", blogs.get(1).getAuthor().getName());
+      assertEquals("Author1", blogs.get(1).getEditor().getName());
+      assertEquals(1, blogs.get(1).getPosts().size());
+    } finally {
+      sqlSession.close();
+    }
+    String mainThread = Thread.currentThread().getName();
+    assertEquals(mainThread, QueryThreadRecorder.threads.get(0));
+    int asyncQueries = 0;
+    for (String thread : QueryThreadRecorder.threads) {
+      if (!thread.equals(mainThread)) {
+        asyncQueries++;
+      }
+    }
+    assertTrue(asyncQueries > 0);
+  }
+
+  @Test
+  public void shouldLoadSequentiallyWhenDisabled() {
+    sqlSessionFactory.getConfiguration().setParallelNestedQueries(false);
+    SqlSession sqlSession = sqlSessionFactory.openSession();
+    try {
+      List<Blog> blogs = sqlSession.getMapper(Mapper.class).getBlogs();
+      assertEquals("Author2", blogs.get(0).getEditor().getName());
+      assertEquals(1, blogs.get(1).getPosts().size());
+    } finally {
+      sqlSession.close();
+    }
+    for (String thread : QueryThreadRecorder.threads) {
+      assertEquals(Thread.currentThread().getName(), thread);
+    }
+  }
+
+  @Test
+  public void shouldNotStarveAsyncMapperThreads() throws Exception {
+    sqlSessionFactory.getConfiguration().setAsyncExecutorThreads(1);
+    SqlSession sqlSession = sqlSessionFactory.openSession();
+    try {
+      Future<List<Blog>> blogs = sqlSession.getMapper(Mapper.class).getBlogsAsync();
+      List<Blog> result = blogs.get(10, TimeUnit.SECONDS);
+      assertEquals(2, result.size());
+      assertEquals("Author2", result.get(0).getEditor().getName());
+      assertEquals(1, result.get(1).getPosts().size());
+    } finally {
+      sqlSession.close();
+    }
+  }
+
+}
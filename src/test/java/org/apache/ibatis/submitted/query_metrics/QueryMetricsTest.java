@@ -0,0 +1,151 @@
+/*
+ *    Copyright 2009-2014 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.submitted.query_metrics;
+
+import static org.junit.Assert.*;
+
+import java.io.Reader;
+import java.sql.Connection;
+
+import org.apache.ibatis.executor.metrics.InMemoryQueryMetrics;
+import org.apache.ibatis.executor.metrics.StatementMetrics;
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.jdbc.ScriptRunner;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.junit.Before;
+import org.junit.Test;
+
+public class QueryMetricsTest {
+
+  private static final String NAMESPACE = "org.apache.ibatis.submitted.query_metrics.Mapper.";
+
+  private SqlSessionFactory sqlSessionFactory;
+  private InMemoryQueryMetrics metrics;
+
+  @Before
+  public void setUp() throws Exception {
+    Reader reader = Resources.getResourceAsReader("org/apache/ibatis/submitted/query_metrics/mybatis-config.xml");
+    sqlSessionFactory = new SqlSessionFactoryBuilder().build(reader);
+    reader.close();
+
+    SqlSession session = sqlSessionFactory.openSession();
+    Connection conn = session.getConnection();
+    reader = Resources.getResourceAsReader("org/apache/ibatis/submitted/query_metrics/CreateDB.sql");
+    ScriptRunner runner = new ScriptRunner(conn);
+    runner.setLogWriter(null);
+    runner.runScript(reader);
+    reader.close();
+    session.close();
+
+    metrics = (InMemoryQueryMetrics) sqlSessionFactory.getConfiguration().getQueryMetrics();
+    CollectingSlowQueryReporter.reported.clear();
+  }
+
+  @Test
+  public void shouldRecordQueriesAndLocalCacheAccesses() {
+    SqlSession sqlSession = sqlSessionFactory.openSession();
+    try {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      assertEquals(3, mapper.getUsers().size());
+      assertEquals(3, mapper.getUsers().size());
+    } finally {
+      sqlSession.close();
+    }
+    StatementMetrics users = metrics.getStatementMetrics(NAMESPACE + "getUsers");
+    assertEquals(1, users.getExecutions());
+    assertEquals(3, users.getRows());
+    assertEquals(1, users.getPrepares());
+    assertEquals(1, users.getDatabaseExecutions());
+    assertEquals(3, users.getFetchedRows());
+    assertEquals(1, users.getLocalCacheHits());
+    assertEquals(1, users.getLocalCacheMisses());
+    assertEquals(0.5, users.getLocalCacheHitRatio(), 0.0);
+    assertEquals(1, users.getLatencies().getCount());
+    assertTrue(users.getMaxNanos() > 0);
+    assertTrue(users.getTotalNanos() >= users.getExecuteNanos() + users.getFetchNanos());
+    assertTrue(users.toString().startsWith(NAMESPACE + "getUsers {executions=1"));
+  }
+
+  @Test
+  public void shouldRecordSecondLevelCacheAccesses() {
+    for (int i = 0; i < 3; i++) {
+      SqlSession sqlSession = sqlSessionFactory.openSession();
+      try {
+        assertEquals("User1", sqlSession.getMapper(Mapper.class).getCachedUser(1).getName());
+      } finally {
+        sqlSession.close();
+      }
+    }
+    StatementMetrics cachedUser = metrics.getStatementMetrics(NAMESPACE + "getCachedUser");
+    assertEquals(2, cachedUser.getCacheHits());
+    assertEquals(1, cachedUser.getCacheMisses());
+    assertEquals(1, cachedUser.getExecutions());
+    assertEquals(1, cachedUser.getDatabaseExecutions());
+  }
+
+  @Test
+  public void shouldRecordUpdates() {
+    SqlSession sqlSession = sqlSessionFactory.openSession();
+    try {
+      assertEquals(1, sqlSession.getMapper(Mapper.class).renameUser(2, "Renamed"));
+      sqlSession.rollback(true);
+    } finally {
+      sqlSession.close();
+    }
+    StatementMetrics rename = metrics.getStatementMetrics(NAMESPACE + "renameUser");
+    assertEquals(1, rename.getExecutions());
+    assertEquals(1, rename.getUpdateCount());
+    assertEquals(1, rename.getDatabaseExecutions());
+    assertEquals(0, rename.getRows());
+  }
+
+  @Test
+  public void shouldReportSlowQueries() {
+    SqlSession sqlSession = sqlSessionFactory.openSession();
+    try {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      mapper.getUsers();
+      mapper.getSlowUser(3);
+      mapper.getSlowUser(3);
+    } finally {
+      sqlSession.close();
+    }
+    assertEquals(1, CollectingSlowQueryReporter.reported.size());
+    assertEquals(NAMESPACE + "getSlowUser:3:true", CollectingSlowQueryReporter.reported.get(0));
+    StatementMetrics slowUser = metrics.getStatementMetrics(NAMESPACE + "getSlowUser");
+    assertEquals(1, slowUser.getLatencies().getCount());
+    assertTrue(slowUser.getMappingNanos() >= 100000000L);
+    assertTrue(slowUser.getLatencies().getPercentile(50) >= 100000000L);
+  }
+
+  @Test
+  public void shouldNotRecordAnythingWhenDisabled() {
+    sqlSessionFactory.getConfiguration().setQueryMetrics(null);
+    sqlSessionFactory.getConfiguration().setSlowQueryThreshold(0);
+    metrics.reset();
+    SqlSession sqlSession = sqlSessionFactory.openSession();
+    try {
+      sqlSession.getMapper(Mapper.class).getSlowUser(1);
+    } finally {
+      sqlSession.close();
+    }
+    assertTrue(metrics.getAllStatementMetrics().isEmpty());
+    assertTrue(CollectingSlowQueryReporter.reported.isEmpty());
+  }
+
+}
@@ -0,0 +1,41 @@
+/*
+ *    Copyright 2009-2014 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.submitted.reuse_statement_cache;
+
+import org.apache.ibatis.annotations.Options;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.annotations.Update;
+
+public interface Mapper {
+
+  @Select("select name from users where id = #{id}")
+  String getName(int id);
+
+  @Select("select name from users where id = #{id}")
+  @Options(timeout = 7, fetchSize = 50)
+  String getNameWithOptions(int id);
+
+  @Select("select count(*) from users")
+  int count();
+
+  @Select("select max(id) from users")
+  int maxId();
+
+  @Update("update users set name = #{name} where id = #{id}")
+  int updateName(@Param("id") int id, @Param("name") String name);
+
+}
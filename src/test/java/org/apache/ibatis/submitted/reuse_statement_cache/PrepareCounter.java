@@ -0,0 +1,103 @@
+/*
+ *    Copyright 2009-2014 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.submitted.reuse_statement_cache;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.util.Properties;
+
+import org.apache.ibatis.executor.statement.StatementHandler;
+import org.apache.ibatis.plugin.Interceptor;
+import org.apache.ibatis.plugin.Intercepts;
+import org.apache.ibatis.plugin.Invocation;
+import org.apache.ibatis.plugin.Plugin;
+import org.apache.ibatis.plugin.Signature;
+
+@Intercepts({
+    @Signature(type = StatementHandler.class, method = "prepare", args = { Connection.class }),
+    @Signature(type = StatementHandler.class, method = "parameterize", args = { Statement.class }) })
+public class PrepareCounter implements Interceptor {
+
+  private static int count;
+  private static int lastQueryTimeout;
+  private static int lastFetchSize;
+
+  public static int getCount() {
+    return count;
+  }
+
+  public static void resetCount() {
+    count = 0;
+  }
+
+  public static int getLastQueryTimeout() {
+    return lastQueryTimeout;
+  }
+
+  public static int getLastFetchSize() {
+    return lastFetchSize;
+  }
+
+  public Object intercept(Invocation invocation) throws Throwable {
+    if ("prepare".equals(invocation.getMethod().getName())) {
+      count++;
+      // HSQLDB ignores query timeouts, so remember them in front of the driver
+      Object[] args = invocation.getArgs();
+      args[0] = Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] { Connection.class },
+          new QueryTimeoutRecorder(args[0]));
+      return invocation.proceed();
+    }
+    Statement statement = (Statement) invocation.getArgs()[0];
+    lastQueryTimeout = statement.getQueryTimeout();
+    lastFetchSize = statement.getFetchSize();
+    return invocation.proceed();
+  }
+
+  public Object plugin(Object target) {
+    return Plugin.wrap(target, this);
+  }
+
+  public void setProperties(Properties properties) {
+  }
+
+  private static class QueryTimeoutRecorder implements InvocationHandler {
+
+    private final Object target;
+    private int queryTimeout;
+
+    QueryTimeoutRecorder(Object target) {
+      this.target = target;
+    }
+
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+      if ("prepareStatement".equals(method.getName())) {
+        return Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] { PreparedStatement.class },
+            new QueryTimeoutRecorder(method.invoke(target, args)));
+      } else if ("setQueryTimeout".equals(method.getName())) {
+        queryTimeout = (Integer) args[0];
+      } else if ("getQueryTimeout".equals(method.getName())) {
+        return queryTimeout;
+      }
+      return method.invoke(target, args);
+    }
+
+  }
+
+}
@@ -0,0 +1,157 @@
+/*
+ *    Copyright 2009-2014 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.submitted.reuse_statement_cache;
+
+import static org.junit.Assert.*;
+
+import java.io.Reader;
+import java.sql.Connection;
+
+import org.apache.ibatis.datasource.pooled.PooledDataSource;
+import org.apache.ibatis.datasource.pooled.StatementCache;
+import org.apache.ibatis.datasource.pooled.StatementCacheHolder;
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.jdbc.ScriptRunner;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ReuseStatementCacheTest {
+
+  private SqlSessionFactory sqlSessionFactory;
+
+  @Before
+  public void setUp() throws Exception {
+    Reader reader = Resources.getResourceAsReader("org/apache/ibatis/submitted/reuse_statement_cache/mybatis-config.xml");
+    sqlSessionFactory = new SqlSessionFactoryBuilder().build(reader);
+    reader.close();
+
+    SqlSession session = sqlSessionFactory.openSession();
+    Connection conn = session.getConnection();
+    reader = Resources.getResourceAsReader("org/apache/ibatis/submitted/reuse_statement_cache/CreateDB.sql");
+    ScriptRunner runner = new ScriptRunner(conn);
+    runner.setLogWriter(null);
+    runner.runScript(reader);
+    reader.close();
+    session.close();
+    PrepareCounter.resetCount();
+  }
+
+  @After
+  public void tearDown() {
+    ((PooledDataSource) sqlSessionFactory.getConfiguration().getEnvironment().getDataSource()).forceCloseAll();
+  }
+
+  @Test
+  public void shouldReuseStatementsAcrossSessions() {
+    for (int i = 0; i < 3; i++) {
+      SqlSession sqlSession = sqlSessionFactory.openSession();
+      try {
+        Mapper mapper = sqlSession.getMapper(Mapper.class);
+        assertEquals("User1", mapper.getName(1));
+        assertEquals("User2", mapper.getName(2));
+        assertEquals(2, mapper.count());
+      } finally {
+        sqlSession.close();
+      }
+    }
+    assertEquals(2, PrepareCounter.getCount());
+
+    SqlSession sqlSession = sqlSessionFactory.openSession();
+    try {
+      StatementCache cache = ((StatementCacheHolder) sqlSession.getConnection()).getStatementCache();
+      assertEquals(2, cache.size());
+      assertEquals(4, cache.getHits());
+    } finally {
+      sqlSession.close();
+    }
+  }
+
+  @Test
+  public void shouldEvictLeastRecentlyUsedStatements() {
+    SqlSession sqlSession = sqlSessionFactory.openSession();
+    try {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      mapper.getName(1);
+      mapper.count();
+      mapper.maxId();
+    } finally {
+      sqlSession.close();
+    }
+    assertEquals(3, PrepareCounter.getCount());
+
+    sqlSession = sqlSessionFactory.openSession();
+    try {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      assertEquals(2, mapper.maxId());
+      assertEquals(2, mapper.count());
+      assertEquals(3, PrepareCounter.getCount());
+      assertEquals("User1", mapper.getName(1));
+      assertEquals(4, PrepareCounter.getCount());
+    } finally {
+      sqlSession.close();
+    }
+  }
+
+  @Test
+  public void shouldReuseStatementsAfterCommitAndRollback() {
+    SqlSession sqlSession = sqlSessionFactory.openSession();
+    try {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      assertEquals(1, mapper.updateName(1, "a"));
+      sqlSession.rollback(true);
+      assertEquals("User1", mapper.getName(1));
+      assertEquals(1, mapper.updateName(1, "b"));
+      sqlSession.commit(true);
+      assertEquals("b", mapper.getName(1));
+    } finally {
+      sqlSession.close();
+    }
+    assertEquals(2, PrepareCounter.getCount());
+  }
+
+  @Test
+  public void shouldApplyStatementSettingsToReusedStatements() {
+    SqlSession sqlSession = sqlSessionFactory.openSession();
+    try {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      assertEquals("User1", mapper.getNameWithOptions(1));
+      assertEquals(7, PrepareCounter.getLastQueryTimeout());
+      assertEquals(50, PrepareCounter.getLastFetchSize());
+    } finally {
+      sqlSession.close();
+    }
+
+    sqlSession = sqlSessionFactory.openSession();
+    try {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      assertEquals("User1", mapper.getName(1));
+      assertEquals(1, PrepareCounter.getCount());
+      assertEquals(0, PrepareCounter.getLastQueryTimeout());
+      assertEquals(0, PrepareCounter.getLastFetchSize());
+      assertEquals("User2", mapper.getNameWithOptions(2));
+      assertEquals(7, PrepareCounter.getLastQueryTimeout());
+      assertEquals(50, PrepareCounter.getLastFetchSize());
+    } finally {
+      sqlSession.close();
+    }
+    assertEquals(1, PrepareCounter.getCount());
+  }
+
+}
@@ -0,0 +1,126 @@
+/*
+ *    Copyright 2009-2012 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.submitted.xml_external_ref;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.TreeSet;
+
+import org.apache.ibatis.builder.BuilderException;
+import org.apache.ibatis.builder.xml.XMLConfigBuilder;
+import org.apache.ibatis.cache.Cache;
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.jdbc.ScriptRunner;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.junit.Test;
+
+public class ParallelParsingTest {
+
+  @Test
+  public void shouldResolveCrossReferencesAfterParallelParsing() throws Exception {
+    SqlSessionFactory sqlSessionFactory = getSqlSessionFactory();
+    Configuration configuration = sqlSessionFactory.getConfiguration();
+    assertTrue(configuration.isParallelMapperParsing());
+    assertTrue(configuration.getIncompleteResultMaps().isEmpty());
+    assertTrue(configuration.getIncompleteCacheRefs().isEmpty());
+    assertTrue(configuration.getIncompleteStatements().isEmpty());
+
+    Cache cache = configuration.getMappedStatement("org.apache.ibatis.submitted.xml_external_ref.PetMapper.select").getCache();
+    assertSame(cache, configuration.getMappedStatement("org.apache.ibatis.submitted.xml_external_ref.PersonMapper.select").getCache());
+
+    SqlSession sqlSession = sqlSessionFactory.openSession();
+    try {
+      PersonMapper personMapper = sqlSession.getMapper(PersonMapper.class);
+      Person person = personMapper.select(1);
+      assertEquals((Integer) 1, person.getId());
+      assertEquals(2, person.getPets().size());
+
+      PetMapper petMapper = sqlSession.getMapper(PetMapper.class);
+      Pet pet = petMapper.select(3);
+      assertEquals((Integer) 2, pet.getOwner().getId());
+
+      ReverseIncludePersonMapper reverseIncludeMapper = sqlSession.getMapper(ReverseIncludePersonMapper.class);
+      assertEquals((Integer) 1, reverseIncludeMapper.select(1).getId());
+    } finally {
+      sqlSession.close();
+    }
+  }
+
+  @Test
+  public void shouldRegisterTheSameElementsAsSequentialParsing() throws Exception {
+    String mappers = "<mapper resource=\"org/apache/ibatis/submitted/xml_external_ref/PersonMapper.xml\"/>"
+        + "<mapper resource=\"org/apache/ibatis/submitted/xml_external_ref/PetMapper.xml\"/>";
+    Configuration sequential = new XMLConfigBuilder(new StringReader(config(false, mappers))).parse();
+    Configuration parallel = new XMLConfigBuilder(new StringReader(config(true, mappers))).parse();
+    assertEquals(new TreeSet<String>(sequential.getMappedStatementNames()), new TreeSet<String>(parallel.getMappedStatementNames()));
+    assertEquals(new TreeSet<String>(sequential.getResultMapNames()), new TreeSet<String>(parallel.getResultMapNames()));
+    assertEquals(new TreeSet<String>(sequential.getCacheNames()), new TreeSet<String>(parallel.getCacheNames()));
+    assertEquals(sequential.getSqlFragments().keySet(), parallel.getSqlFragments().keySet());
+  }
+
+  @Test
+  public void shouldReportMissingMapperResource() throws Exception {
+    String mappers = "<mapper resource=\"org/apache/ibatis/submitted/xml_external_ref/PetMapper.xml\"/>"
+        + "<mapper resource=\"org/apache/ibatis/submitted/xml_external_ref/NoSuchMapper.xml\"/>";
+    try {
+      new XMLConfigBuilder(new StringReader(config(true, mappers))).parse();
+      fail("Expected a BuilderException");
+    } catch (BuilderException e) {
+      assertTrue(e.getMessage().contains("NoSuchMapper.xml"));
+    }
+  }
+
+  private static String config(boolean parallel, String mappers) {
+    return "<?xml version=\"1.0\" encoding=\"UTF-8\" ?>"
+        + "<!DOCTYPE configuration PUBLIC \"-//mybatis.org//DTD Config 3.0//EN\" \"http://mybatis.org/dtd/mybatis-3-config.dtd\">"
+        + "<configuration><settings><setting name=\"parallelMapperParsing\" value=\"" + parallel + "\"/></settings>"
+        + "<mappers>" + mappers + "</mappers></configuration>";
+  }
+
+  private SqlSessionFactory getSqlSessionFactory() throws Exception {
+    Reader configReader = Resources.getResourceAsReader("org/apache/ibatis/submitted/xml_external_ref/ParallelParsingMapperConfig.xml");
+    SqlSessionFactory sqlSessionFactory = new SqlSessionFactoryBuilder().build(configReader);
+    configReader.close();
+
+    initDb(sqlSessionFactory.getConfiguration().getEnvironment().getDataSource().getConnection());
+    return sqlSessionFactory;
+  }
+
+  private static void initDb(Connection conn) throws IOException, SQLException {
+    try {
+      Reader scriptReader = Resources.getResourceAsReader("org/apache/ibatis/submitted/xml_external_ref/CreateDB.sql");
+      ScriptRunner runner = new ScriptRunner(conn);
+      runner.setLogWriter(null);
+      runner.setErrorLogWriter(null);
+      runner.runScript(scriptReader);
+      conn.commit();
+      scriptReader.close();
+    } finally {
+      if (conn != null) {
+        conn.close();
+      }
+    }
+  }
+
+}
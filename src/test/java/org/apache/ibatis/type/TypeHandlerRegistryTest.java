@@ -22,6 +22,7 @@ import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.List;
 
+import domain.blog.Section;
 import domain.misc.RichType;
 import static org.junit.Assert.*;
 import org.junit.Test;
@@ -116,4 +117,23 @@ public class TypeHandlerRegistryTest {
     assertSame(fakeHandler, typeHandlerRegistry.getTypeHandler(new TypeReference<List<URI>>(){}));
   }
 
+  @Test
+  public void shouldResolveAgainWhenTypeHandlerIsRegisteredAfterLookup() {
+    assertFalse(typeHandlerRegistry.hasTypeHandler(RichType.class));
+    assertNull(typeHandlerRegistry.getTypeHandler(RichType.class, JdbcType.VARCHAR));
+    int registrations = typeHandlerRegistry.getRegistrationCount();
+    typeHandlerRegistry.register(RichType.class, StringTypeHandler.class);
+    assertTrue(registrations != typeHandlerRegistry.getRegistrationCount());
+    assertTrue(typeHandlerRegistry.hasTypeHandler(RichType.class));
+    assertTrue((Object) typeHandlerRegistry.getTypeHandler(RichType.class, JdbcType.VARCHAR) instanceof StringTypeHandler);
+  }
+
+  @Test
+  public void shouldReuseResolvedEnumTypeHandler() {
+    TypeHandler<Section> handler = typeHandlerRegistry.getTypeHandler(Section.class);
+    assertTrue(handler instanceof EnumTypeHandler);
+    assertSame(handler, typeHandlerRegistry.getTypeHandler(Section.class));
+    assertSame(handler, typeHandlerRegistry.getTypeHandler(Section.class, null));
+  }
+
 }